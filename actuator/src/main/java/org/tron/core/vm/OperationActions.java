@@ -1,6 +1,5 @@
 package org.tron.core.vm;
 
-import static org.tron.common.crypto.Hash.sha3;
 import static org.tron.common.utils.ByteUtil.EMPTY_BYTE_ARRAY;
 
 import java.math.BigInteger;
@@ -290,10 +289,8 @@ public class OperationActions {
   public static void sha3Action(Program program) {
     DataWord memOffsetData = program.stackPop();
     DataWord lengthData = program.stackPop();
-    byte[] buffer = program
-        .memoryChunk(memOffsetData.intValueSafe(), lengthData.intValueSafe());
-
-    byte[] encoded = sha3(buffer);
+    byte[] encoded = program
+        .memoryHash(memOffsetData.intValueSafe(), lengthData.intValueSafe());
     DataWord word = new DataWord(encoded);
 
     program.stackPush(word);
@@ -544,15 +541,16 @@ public class OperationActions {
   }
 
   public static void popAction(Program program) {
-    program.stackPop();
+    program.stackDrop();
     program.step();
   }
 
   public static void mLoadAction(Program program) {
     DataWord addr = program.stackPop();
-    DataWord data = program.memoryLoad(addr);
+    // the popped address word takes the loaded value
+    program.memoryLoad(addr.intValue(), addr);
 
-    program.stackPush(data);
+    program.stackPush(addr);
     program.step();
   }
 
@@ -634,6 +632,12 @@ public class OperationActions {
 
   public static void gasAction(Program program) {
     DataWord energy = program.getEnergyLimitLeft();
+    int next = program.getOp(program.getPC() + 1) & 0xff;
+    if (next != Op.CALL && next != Op.CALLCODE && next != Op.DELEGATECALL
+        && next != Op.STATICCALL && next != Op.CALLTOKEN) {
+      // the energy left is used other than to forward it all to a call
+      program.getResult().setEnergyDependent(true);
+    }
 
     program.stackPush(energy);
     program.step();
@@ -657,11 +661,9 @@ public class OperationActions {
   }
 
   public static void dupAction(Program program) {
-    Stack stack = program.getStack();
     int n = program.getCurrentOpIntValue() - Op.DUP1 + 1;
-    DataWord word_1 = stack.get(stack.size() - n);
 
-    program.stackPush(word_1.clone());
+    program.stackDup(n);
     program.step();
   }
 
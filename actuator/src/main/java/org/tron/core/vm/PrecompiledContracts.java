@@ -73,47 +73,6 @@ import org.tron.protos.Protocol.Permission;
 @Slf4j(topic = "VM")
 public class PrecompiledContracts {
 
-  private static final ECRecover ecRecover = new ECRecover();
-  private static final Sha256 sha256 = new Sha256();
-  private static final Ripempd160 ripempd160 = new Ripempd160();
-  private static final Identity identity = new Identity();
-  private static final ModExp modExp = new ModExp();
-  private static final BN128Addition altBN128Add = new BN128Addition();
-  private static final BN128Multiplication altBN128Mul = new BN128Multiplication();
-  private static final BN128Pairing altBN128Pairing = new BN128Pairing();
-
-  private static final BatchValidateSign batchValidateSign = new BatchValidateSign();
-  private static final ValidateMultiSign validateMultiSign = new ValidateMultiSign();
-
-  private static final VerifyMintProof verifyMintProof = new VerifyMintProof();
-  private static final VerifyTransferProof verifyTransferProof = new VerifyTransferProof();
-  private static final VerifyBurnProof verifyBurnProof = new VerifyBurnProof();
-
-  private static final MerkleHash merkleHash = new MerkleHash();
-
-  private static final RewardBalance rewardBalance = new RewardBalance();
-  private static final IsSrCandidate isSrCandidate = new IsSrCandidate();
-  private static final VoteCount voteCount = new VoteCount();
-  private static final UsedVoteCount usedVoteCount = new UsedVoteCount();
-  private static final ReceivedVoteCount receivedVoteCount = new ReceivedVoteCount();
-  private static final TotalVoteCount totalVoteCount = new TotalVoteCount();
-
-  private static final EthRipemd160 ethRipemd160 = new EthRipemd160();
-  private static final Blake2F blake2F = new Blake2F();
-
-  // FreezeV2 PrecompileContracts
-  private static final GetChainParameter getChainParameter = new GetChainParameter();
-  private static final AvailableUnfreezeV2Size availableUnfreezeV2Size = new AvailableUnfreezeV2Size();
-  private static final UnfreezableBalanceV2 unfreezableBalanceV2 = new UnfreezableBalanceV2();
-  private static final ExpireUnfreezeBalanceV2 expireUnfreezeBalanceV2 = new ExpireUnfreezeBalanceV2();
-  private static final DelegatableResource delegatableResource = new DelegatableResource();
-  private static final ResourceV2 resourceV2 = new ResourceV2();
-  private static final CheckUnDelegateResource checkUnDelegateResource = new CheckUnDelegateResource();
-  private static final ResourceUsage resourceUsage = new ResourceUsage();
-  private static final TotalResource totalResource = new TotalResource();
-  private static final TotalDelegatedResource totalDelegatedResource = new TotalDelegatedResource();
-  private static final TotalAcquiredResource totalAcquiredResource = new TotalAcquiredResource();
-
   private static final DataWord ecRecoverAddr = new DataWord(
       "0000000000000000000000000000000000000000000000000000000000000001");
   private static final DataWord sha256Addr = new DataWord(
@@ -195,112 +154,116 @@ public class PrecompiledContracts {
       "0000000000000000000000000000000000000000000000000000000000020009");
 
 
+  /**
+   * A new instance for every call: the call sets its repository, result and caller on it, and
+   * calls run at once on the threads executing transactions and constant calls.
+   */
   public static PrecompiledContract getContractForAddress(DataWord address) {
 
     if (address == null) {
-      return identity;
+      return new Identity();
     }
     if (address.equals(ecRecoverAddr)) {
-      return ecRecover;
+      return new ECRecover();
     }
     if (address.equals(sha256Addr)) {
-      return sha256;
+      return new Sha256();
     }
     if (address.equals(ripempd160Addr)) {
-      return ripempd160;
+      return new Ripempd160();
     }
     if (address.equals(identityAddr)) {
-      return identity;
+      return new Identity();
     }
     // Byzantium precompiles
     if (address.equals(modExpAddr)) {
-      return modExp;
+      return new ModExp();
     }
     if (address.equals(altBN128AddAddr)) {
-      return altBN128Add;
+      return new BN128Addition();
     }
     if (address.equals(altBN128MulAddr)) {
-      return altBN128Mul;
+      return new BN128Multiplication();
     }
     if (address.equals(altBN128PairingAddr)) {
-      return altBN128Pairing;
+      return new BN128Pairing();
     }
     if (VMConfig.allowTvmSolidity059() && address.equals(batchValidateSignAddr)) {
-      return batchValidateSign;
+      return new BatchValidateSign();
     }
     if (VMConfig.allowTvmSolidity059() && address.equals(validateMultiSignAddr)) {
-      return validateMultiSign;
+      return new ValidateMultiSign();
     }
     if (VMConfig.allowShieldedTRC20Transaction() && address.equals(verifyMintProofAddr)) {
-      return verifyMintProof;
+      return new VerifyMintProof();
     }
     if (VMConfig.allowShieldedTRC20Transaction() && address.equals(verifyTransferProofAddr)) {
-      return verifyTransferProof;
+      return new VerifyTransferProof();
     }
     if (VMConfig.allowShieldedTRC20Transaction() && address.equals(verifyBurnProofAddr)) {
-      return verifyBurnProof;
+      return new VerifyBurnProof();
     }
     if (VMConfig.allowShieldedTRC20Transaction() && address.equals(merkleHashAddr)) {
-      return merkleHash;
+      return new MerkleHash();
     }
     if (VMConfig.allowTvmVote() && address.equals(rewardBalanceAddr)) {
-      return rewardBalance;
+      return new RewardBalance();
     }
     if (VMConfig.allowTvmVote() && address.equals(isSrCandidateAddr)) {
-      return isSrCandidate;
+      return new IsSrCandidate();
     }
     if (VMConfig.allowTvmVote() && address.equals(voteCountAddr)) {
-      return voteCount;
+      return new VoteCount();
     }
     if (VMConfig.allowTvmVote() && address.equals(usedVoteCountAddr)) {
-      return usedVoteCount;
+      return new UsedVoteCount();
     }
     if (VMConfig.allowTvmVote() && address.equals(receivedVoteCountAddr)) {
-      return receivedVoteCount;
+      return new ReceivedVoteCount();
     }
     if (VMConfig.allowTvmVote() && address.equals(totalVoteCountAddr)) {
-      return totalVoteCount;
+      return new TotalVoteCount();
     }
     if (VMConfig.allowTvmCompatibleEvm() && address.equals(ethRipemd160Addr)) {
-      return ethRipemd160;
+      return new EthRipemd160();
     }
     if (VMConfig.allowTvmCompatibleEvm() && address.equals(blake2FAddr)) {
-      return blake2F;
+      return new Blake2F();
     }
 
     if (VMConfig.allowTvmFreezeV2()) {
       if (address.equals(getChainParameterAddr)) {
-        return getChainParameter;
+        return new GetChainParameter();
       }
       if (address.equals(availableUnfreezeV2SizeAddr)) {
-        return availableUnfreezeV2Size;
+        return new AvailableUnfreezeV2Size();
       }
       if (address.equals(unfreezableBalanceV2Addr)) {
-        return unfreezableBalanceV2;
+        return new UnfreezableBalanceV2();
       }
       if (address.equals(expireUnfreezeBalanceV2Addr)) {
-        return expireUnfreezeBalanceV2;
+        return new ExpireUnfreezeBalanceV2();
       }
       if (address.equals(delegatableResourceAddr)) {
-        return delegatableResource;
+        return new DelegatableResource();
       }
       if (address.equals(resourceV2Addr)) {
-        return resourceV2;
+        return new ResourceV2();
       }
       if (address.equals(checkUnDelegateResourceAddr)) {
-        return checkUnDelegateResource;
+        return new CheckUnDelegateResource();
       }
       if (address.equals(resourceUsageAddr)) {
-        return resourceUsage;
+        return new ResourceUsage();
       }
       if (address.equals(totalResourceAddr)) {
-        return totalResource;
+        return new TotalResource();
       }
       if (address.equals(totalDelegatedResourceAddr)) {
-        return totalDelegatedResource;
+        return new TotalDelegatedResource();
       }
       if (address.equals(totalAcquiredResourceAddr)) {
-        return totalAcquiredResource;
+        return new TotalAcquiredResource();
       }
     }
 
@@ -8,6 +8,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.bouncycastle.util.encoders.Hex;
 import org.springframework.util.StringUtils;
 import org.tron.core.vm.config.VMConfig;
+import org.tron.core.vm.program.BasicBlocks;
 import org.tron.core.vm.program.Program;
 import org.tron.core.vm.program.Program.JVMStackOverFlowException;
 import org.tron.core.vm.program.Program.OutOfTimeException;
@@ -28,12 +29,26 @@ public class VM {
         factor = program.updateContextContractFactor();
       }
 
+      // runs are charged without penalty, and one at a time they would not show in the trace
+      BasicBlocks blocks = null;
+      if (VMConfig.blockCharging() && !VMConfig.vmTrace()
+          && factor <= DYNAMIC_ENERGY_FACTOR_DECIMAL) {
+        blocks = program.getProgramPrecompile().getBasicBlocks(jumpTable, program);
+      }
+
       while (!program.isStopped()) {
         if (VMConfig.vmTrace()) {
           program.saveOpTrace();
         }
 
         try {
+          int run = blocks == null ? -1 : blocks.runAt(program.getPC());
+          if (run >= 0 && blocks.fits(run, program.getStack().size(),
+              program.getEnergylimitLeftLong())) {
+            energyUsage += playRun(program, jumpTable, blocks, run);
+            continue;
+          }
+
           Operation op = jumpTable.get(program.getCurrentOpIntValue());
           if (!op.isEnabled()) {
             throw Program.Exception.invalidOpCode(program.getCurrentOp());
@@ -120,4 +135,29 @@ public class VM {
       throw new JVMStackOverFlowException();
     }
   }
+
+  /**
+   * Plays a run whose stack and energy were checked to fit, charging its energy once. Any opcode
+   * failing after that spends all the energy, as it would have opcode by opcode.
+   *
+   * @return the energy of the run.
+   */
+  private static long playRun(Program program, JumpTable jumpTable, BasicBlocks blocks,
+      int run) {
+    long energy = blocks.getEnergy(run);
+    String opName = Op.getNameOf(program.getCurrentOpIntValue());
+    program.spendEnergy(energy, opName);
+    program.checkCPUTimeLimit(opName);
+
+    for (int i = blocks.getLength(run); i > 0 && !program.isStopped(); i--) {
+      Operation op = jumpTable.get(program.getCurrentOpIntValue());
+      if (!op.isEnabled()) {
+        throw Program.Exception.invalidOpCode(program.getCurrentOp());
+      }
+      program.setLastOp((byte) op.getOpcode());
+      op.execute(program);
+      program.setPreviouslyExecutedOp((byte) op.getOpcode());
+    }
+    return energy;
+  }
 }
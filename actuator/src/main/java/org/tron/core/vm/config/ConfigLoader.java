@@ -17,6 +17,7 @@ public class ConfigLoader {
     if (!disable) {
       DynamicPropertiesStore ds = storeFactory.getChainBaseManager().getDynamicPropertiesStore();
       VMConfig.setVmTrace(CommonParameter.getInstance().isVmTrace());
+      VMConfig.setBlockCharging(CommonParameter.getInstance().isBlockCharging());
       if (ds != null) {
         VMConfig.initVmHardFork(checkForEnergyLimit(ds));
         VMConfig.initAllowMultiSign(ds.getAllowMultiSign());
@@ -0,0 +1,142 @@
+package org.tron.core.vm.program;
+
+import java.util.Arrays;
+import org.tron.core.vm.JumpTable;
+import org.tron.core.vm.Op;
+import org.tron.core.vm.Operation;
+
+/**
+ * Runs of a code made of opcodes with a fixed energy cost that neither read the energy left nor
+ * fail once their stack is checked. A run ends with a jump or a STOP, or before a JUMPDEST, so it
+ * is always entered at its first opcode and its energy and stack bounds can be checked once.
+ */
+public class BasicBlocks {
+
+  private static final boolean[] FIXED = new boolean[256];
+
+  static {
+    int[] ops = {Op.STOP, Op.ADD, Op.MUL, Op.SUB, Op.DIV, Op.SDIV, Op.MOD, Op.SMOD, Op.ADDMOD,
+        Op.MULMOD, Op.SIGNEXTEND, Op.LT, Op.GT, Op.SLT, Op.SGT, Op.EQ, Op.ISZERO, Op.AND, Op.OR,
+        Op.XOR, Op.NOT, Op.BYTE, Op.SHL, Op.SHR, Op.SAR, Op.ADDRESS, Op.ORIGIN, Op.CALLER,
+        Op.CALLVALUE, Op.CALLDATALOAD, Op.CALLDATASIZE, Op.CODESIZE, Op.RETURNDATASIZE,
+        Op.CHAINID, Op.POP, Op.JUMP, Op.JUMPI, Op.PC, Op.MSIZE, Op.JUMPDEST, Op.CALLTOKENVALUE,
+        Op.CALLTOKENID};
+    for (int op : ops) {
+      FIXED[op] = true;
+    }
+    for (int op = Op.PUSH0; op <= Op.PUSH32; op++) {
+      FIXED[op] = true;
+    }
+    for (int op = Op.DUP1; op <= Op.SWAP16; op++) {
+      FIXED[op] = true;
+    }
+  }
+
+  private final JumpTable table;
+  private final long[] starts;
+  private final int[] ranks;
+  private int count;
+  private int[] lengths;
+  private long[] energies;
+  private int[] minStacks;
+  private int[] maxGrowths;
+
+  /**
+   * Splits the code at the block starts of its analysis, skipping the PUSH data it marks.
+   *
+   * @param program the program being played, the energy of the opcodes in a run does not depend
+   *     on it.
+   */
+  BasicBlocks(ProgramPrecompile precompile, JumpTable table, Program program) {
+    byte[] ops = precompile.getCode();
+    int capacity = ops.length / 2 + 1;
+    this.table = table;
+    this.starts = new long[(ops.length + 63) >>> 6];
+    this.ranks = new int[starts.length];
+    this.lengths = new int[capacity];
+    this.energies = new long[capacity];
+    this.minStacks = new int[capacity];
+    this.maxGrowths = new int[capacity];
+
+    int start = -1;
+    int depth = 0;
+    for (int pc = 0; pc < ops.length; pc++) {
+      if (precompile.isPushData(pc)) {
+        continue;
+      }
+      int code = ops[pc] & 0xff;
+      Operation op = table.get(code);
+      boolean fixed = FIXED[code] && op.getOpcode() == code;
+      // a JUMPDEST or the opcode after a jump or a halt
+      if (start >= 0 && (!fixed || precompile.isBlockStart(pc))) {
+        close(start);
+        start = -1;
+      }
+      if (fixed) {
+        if (start < 0) {
+          start = pc;
+          lengths[count] = 0;
+          energies[count] = 0;
+          minStacks[count] = 0;
+          maxGrowths[count] = 0;
+          depth = 0;
+        }
+        minStacks[count] = Math.max(minStacks[count], op.getRequire() - depth);
+        depth += op.getRet() - op.getRequire();
+        maxGrowths[count] = Math.max(maxGrowths[count], depth);
+        energies[count] += op.getEnergyCost(program);
+        lengths[count]++;
+      }
+    }
+    if (start >= 0) {
+      close(start);
+    }
+
+    for (int i = 1; i < starts.length; i++) {
+      ranks[i] = ranks[i - 1] + Long.bitCount(starts[i - 1]);
+    }
+    lengths = Arrays.copyOf(lengths, count);
+    energies = Arrays.copyOf(energies, count);
+    minStacks = Arrays.copyOf(minStacks, count);
+    maxGrowths = Arrays.copyOf(maxGrowths, count);
+  }
+
+  private void close(int start) {
+    // a single opcode is as cheap to play on its own
+    if (lengths[count] > 1) {
+      starts[start >>> 6] |= 1L << start;
+      count++;
+    }
+  }
+
+  boolean isFor(JumpTable table) {
+    return this.table == table;
+  }
+
+  /**
+   * @return the index of the run starting at {@code pc}, or -1 if none does.
+   */
+  public int runAt(int pc) {
+    int word = pc >>> 6;
+    if (pc < 0 || word >= starts.length || (starts[word] & (1L << pc)) == 0) {
+      return -1;
+    }
+    return ranks[word] + Long.bitCount(starts[word] & ((1L << pc) - 1));
+  }
+
+  /**
+   * @return whether no opcode of the run can fail on its stack or its energy.
+   */
+  public boolean fits(int run, int stackSize, long energyLeft) {
+    return stackSize >= minStacks[run] && stackSize + maxGrowths[run] <= Stack.CAPACITY
+        && energyLeft >= energies[run];
+  }
+
+  public int getLength(int run) {
+    return lengths[run];
+  }
+
+  public long getEnergy(int run) {
+    return energies[run];
+  }
+}
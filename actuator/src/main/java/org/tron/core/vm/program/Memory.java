@@ -1,23 +1,33 @@
 package org.tron.core.vm.program;
 
 import static java.lang.Math.ceil;
-import static java.lang.Math.min;
+import static java.lang.Math.max;
 import static java.lang.String.format;
 import static org.tron.common.utils.ByteUtil.EMPTY_BYTE_ARRAY;
 import static org.tron.common.utils.ByteUtil.oneByteToHexString;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import org.tron.common.crypto.Hash;
 import org.tron.common.runtime.vm.DataWord;
 import org.tron.core.vm.program.listener.ProgramListener;
 import org.tron.core.vm.program.listener.ProgramListenerAware;
 
+/**
+ * The memory of a program in one array, which grows by doubling. Reads and writes are single
+ * array copies, {@link #hash(int, int)} hashes in place.
+ *
+ * <p>The memory is still allocated in chunks of {@code CHUNK_SIZE} bytes as far as
+ * {@link #internalSize()} is concerned, the array may be larger.
+ */
 public class Memory implements ProgramListenerAware {
 
   private static final int CHUNK_SIZE = 1024;
   private static final int WORD_SIZE = 32;
 
-  private List<byte[]> chunks = new LinkedList<>();
+  private byte[] buffer = EMPTY_BYTE_ARRAY;
+  private int internalSize;
   private int softSize;
   private ProgramListener programListener;
 
@@ -32,27 +42,19 @@ public class Memory implements ProgramListenerAware {
     }
 
     extend(address, size);
-    byte[] data = new byte[size];
-
-    int chunkIndex = address / CHUNK_SIZE;
-    int chunkOffset = address % CHUNK_SIZE;
-
-    int toGrab = data.length;
-    int start = 0;
-
-    while (toGrab > 0) {
-      int copied = grabMax(chunkIndex, chunkOffset, toGrab, data, start);
-
-      // read next chunk from the start
-      ++chunkIndex;
-      chunkOffset = 0;
+    return Arrays.copyOfRange(buffer, address, address + size);
+  }
 
-      // mark remind
-      toGrab -= copied;
-      start += copied;
+  /**
+   * @return the keccak hash of {@code size} bytes from {@code address}, read from the array.
+   */
+  public byte[] hash(int address, int size) {
+    if (size <= 0) {
+      return Hash.sha3(EMPTY_BYTE_ARRAY);
     }
 
-    return data;
+    extend(address, size);
+    return Hash.sha3(buffer, address, size);
   }
 
   public void write(int address, byte[] data, int dataSize, boolean limited) {
@@ -65,27 +67,15 @@ public class Memory implements ProgramListenerAware {
       extend(address, dataSize);
     }
 
-    int chunkIndex = address / CHUNK_SIZE;
-    int chunkOffset = address % CHUNK_SIZE;
-
-    int toCapture = 0;
+    int toCapture;
     if (limited) {
       toCapture = (address + dataSize > softSize) ? softSize - address : dataSize;
     } else {
       toCapture = dataSize;
     }
 
-    int start = 0;
-    while (toCapture > 0) {
-      int captured = captureMax(chunkIndex, chunkOffset, toCapture, data, start);
-
-      // capture next chunk
-      ++chunkIndex;
-      chunkOffset = 0;
-
-      // mark remind
-      toCapture -= captured;
-      start += captured;
+    if (toCapture > 0) {
+      System.arraycopy(data, 0, buffer, address, toCapture);
     }
 
     if (programListener != null) {
@@ -93,6 +83,14 @@ public class Memory implements ProgramListenerAware {
     }
   }
 
+  public void writeWord(int address, DataWord value) {
+    extend(address, WORD_SIZE);
+    value.copyTo(buffer, address);
+
+    if (programListener != null) {
+      programListener.onMemoryWrite(address, value.getData(), WORD_SIZE);
+    }
+  }
 
   public void extendAndWrite(int address, int allocSize, byte[] data) {
     extend(address, allocSize);
@@ -105,9 +103,10 @@ public class Memory implements ProgramListenerAware {
     }
 
     final int newSize = Math.addExact(address, size);
-    int toAllocate = newSize - internalSize();
+    int toAllocate = newSize - internalSize;
     if (toAllocate > 0) {
-      addChunks((int) ceil((double) toAllocate / CHUNK_SIZE));
+      allocate(Math.addExact(internalSize,
+          (int) ceil((double) toAllocate / CHUNK_SIZE) * CHUNK_SIZE));
     }
 
     toAllocate = newSize - softSize;
@@ -125,15 +124,17 @@ public class Memory implements ProgramListenerAware {
     return new DataWord(read(address, 32));
   }
 
+  /**
+   * Read the word at {@code address} into {@code word}.
+   */
+  public void readWord(int address, DataWord word) {
+    extend(address, WORD_SIZE);
+    word.assign(buffer, address);
+  }
+
   // just access expecting all data valid
   public byte readByte(int address) {
-
-    int chunkIndex = address / CHUNK_SIZE;
-    int chunkOffset = address % CHUNK_SIZE;
-
-    byte[] chunk = chunks.get(chunkIndex);
-
-    return chunk[chunkOffset];
+    return buffer[address];
   }
 
   @Override
@@ -174,35 +175,26 @@ public class Memory implements ProgramListenerAware {
   }
 
   public int internalSize() {
-    return chunks.size() * CHUNK_SIZE;
+    return internalSize;
   }
 
+  /**
+   * @return a copy of the memory in chunks of {@code CHUNK_SIZE} bytes.
+   */
   public List<byte[]> getChunks() {
-    return new LinkedList<>(chunks);
-  }
-
-  private int captureMax(int chunkIndex, int chunkOffset, int size, byte[] src, int srcPos) {
-
-    byte[] chunk = chunks.get(chunkIndex);
-    int toCapture = min(size, chunk.length - chunkOffset);
-
-    System.arraycopy(src, srcPos, chunk, chunkOffset, toCapture);
-    return toCapture;
-  }
-
-  private int grabMax(int chunkIndex, int chunkOffset, int size, byte[] dest, int destPos) {
-
-    byte[] chunk = chunks.get(chunkIndex);
-    int toGrab = min(size, chunk.length - chunkOffset);
-
-    System.arraycopy(chunk, chunkOffset, dest, destPos, toGrab);
-
-    return toGrab;
+    List<byte[]> chunks = new ArrayList<>(internalSize / CHUNK_SIZE);
+    for (int i = 0; i < internalSize; i += CHUNK_SIZE) {
+      chunks.add(Arrays.copyOfRange(buffer, i, i + CHUNK_SIZE));
+    }
+    return chunks;
   }
 
-  private void addChunks(int num) {
-    for (int i = 0; i < num; ++i) {
-      chunks.add(new byte[CHUNK_SIZE]);
+  private void allocate(int size) {
+    if (size > buffer.length) {
+      // doubling keeps the cost of copying the array linear in the memory size
+      buffer = Arrays.copyOf(buffer, (int) Math.min(Integer.MAX_VALUE,
+          max(size, 2L * buffer.length)));
     }
+    internalSize = size;
   }
 }
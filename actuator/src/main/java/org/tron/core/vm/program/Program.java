@@ -21,7 +21,6 @@ import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
-import org.apache.commons.collections4.map.LRUMap;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.tuple.Pair;
 import org.bouncycastle.util.encoders.Hex;
@@ -84,7 +83,6 @@ import org.tron.core.vm.program.invoke.ProgramInvokeFactory;
 import org.tron.core.vm.program.listener.CompositeProgramListener;
 import org.tron.core.vm.program.listener.ProgramListenerAware;
 import org.tron.core.vm.program.listener.ProgramStorageChangeListener;
-import org.tron.core.vm.repository.Key;
 import org.tron.core.vm.repository.Repository;
 import org.tron.core.vm.trace.ProgramTrace;
 import org.tron.core.vm.trace.ProgramTraceListener;
@@ -101,15 +99,12 @@ public class Program {
 
   private static final int MAX_DEPTH = 64;
   //Max size for stack checks
-  private static final int MAX_STACK_SIZE = 1024;
+  private static final int MAX_STACK_SIZE = Stack.CAPACITY;
   private static final String VALIDATE_FOR_SMART_CONTRACT_FAILURE =
       "validateForSmartContract failure:%s";
   private static final String INVALID_TOKEN_ID_MSG = "not valid token id";
   private static final String REFUND_ENERGY_FROM_MESSAGE_CALL = "refund energy from message call";
   private static final String CALL_PRE_COMPILED = "call pre-compiled";
-  private static final int lruCacheSize = CommonParameter.getInstance().getSafeLruCacheSize();
-  private static final LRUMap<Key, ProgramPrecompile> programPrecompileLRUMap
-      = new LRUMap<>(lruCacheSize);
   private long nonce;
   private byte[] rootTransactionId;
   private InternalTransaction internalTransaction;
@@ -148,8 +143,9 @@ public class Program {
     this.codeAddress = codeAddress;
 
     traceListener = new ProgramTraceListener(VMConfig.vmTrace());
-    this.memory = setupProgramListener(new Memory());
-    this.stack = setupProgramListener(new Stack());
+    this.memory = VMConfig.vmTrace() ? setupProgramListener(new Memory()) : new Memory();
+    // only the trace follows the stack and memory, so without it they skip the listeners
+    this.stack = VMConfig.vmTrace() ? setupProgramListener(new Stack()) : new Stack();
     this.contractState = setupProgramListener(new ContractState(programInvoke));
     this.trace = new ProgramTrace(programInvoke);
     this.nonce = internalTransaction.getNonce();
@@ -197,20 +193,8 @@ public class Program {
   }
 
   public ProgramPrecompile getProgramPrecompile() {
-    if (isConstantCall()) {
-      if (programPrecompile == null) {
-        programPrecompile = ProgramPrecompile.compile(ops);
-      }
-      return programPrecompile;
-    }
     if (programPrecompile == null) {
-      Key key = getJumpDestAnalysisCacheKey();
-      if (programPrecompileLRUMap.containsKey(key)) {
-        programPrecompile = programPrecompileLRUMap.get(key);
-      } else {
-        programPrecompile = ProgramPrecompile.compile(ops);
-        programPrecompileLRUMap.put(key, programPrecompile);
-      }
+      programPrecompile = ProgramPrecompile.compile(getCodeHash(), ops);
     }
     return programPrecompile;
   }
@@ -294,6 +278,11 @@ public class Program {
     stack.push(stackWord);
   }
 
+  public void stackDup(int n) {
+    verifyStackOverflow(0, 1); //Sanity Check
+    stack.dup(n);
+  }
+
   public void stackPushZero() {
     stackPush(DataWord.ZERO());
   }
@@ -357,6 +346,10 @@ public class Program {
     return stack.pop();
   }
 
+  public void stackDrop() {
+    stack.drop();
+  }
+
   /**
    * . Verifies that the stack is at least <code>stackSize</code>
    *
@@ -381,7 +374,7 @@ public class Program {
   }
 
   public void memorySave(DataWord addrB, DataWord value) {
-    memory.write(addrB.intValue(), value.getData(), value.getData().length, false);
+    memory.writeWord(addrB.intValue(), value);
   }
 
   public void memorySave(int addr, byte[] value) {
@@ -417,10 +410,24 @@ public class Program {
     return memory.readWord(address);
   }
 
+  /**
+   * Read the word at {@code address} into {@code word}.
+   */
+  public void memoryLoad(int address, DataWord word) {
+    memory.readWord(address, word);
+  }
+
   public byte[] memoryChunk(int offset, int size) {
     return memory.read(offset, size);
   }
 
+  /**
+   * @return the keccak hash of the memory chunk, without copying it.
+   */
+  public byte[] memoryHash(int offset, int size) {
+    return memory.hash(offset, size);
+  }
+
   /**
    * . Allocates extra memory in the program for a specified size, calculated from a given offset
    *
@@ -833,6 +840,7 @@ public class Program {
     }
 
     getResult().merge(createResult);
+    requireCallEnergy(energyLimit.longValueSafe(), createResult);
 
     if (createResult.getException() != null || createResult.isRevert()) {
       logger.debug("contract run halted by Exception: contract: [{}], exception: [{}]",
@@ -1039,6 +1047,7 @@ public class Program {
 
       getTrace().merge(program.getTrace());
       getResult().merge(callResult);
+      requireCallEnergy(msg.getEnergy().longValueSafe(), callResult);
       // always commit nonce
       this.nonce = program.nonce;
 
@@ -1218,10 +1227,6 @@ public class Program {
     return codeHash;
   }
 
-  private Key getJumpDestAnalysisCacheKey() {
-    return Key.create(ByteUtil.merge(codeAddress, getCodeHash()));
-  }
-
   public byte[] getContextAddress() {
     return invoke.getContractAddress().toTronAddress();
   }
@@ -1603,6 +1608,7 @@ public class Program {
     if (requiredEnergy > msg.getEnergy().longValue()) {
       // Not need to throw an exception, method caller needn't know that
       // regard as consumed the energy
+      getResult().setEnergyDependent(true);
       this.refundEnergy(0, CALL_PRE_COMPILED); //matches cpp logic
       this.stackPushZero();
     } else {
@@ -1620,12 +1626,14 @@ public class Program {
       Pair<Boolean, byte[]> out = contract.execute(data);
 
       if (out.getLeft()) { // success
+        requireCallEnergy(msg.getEnergy().longValue(), requiredEnergy);
         this.refundEnergy(msg.getEnergy().longValue() - requiredEnergy, CALL_PRE_COMPILED);
         this.stackPushOne();
         returnDataBuffer = out.getRight();
         deposit.commit();
       } else {
         // spend all energy on failure, push zero and revert state changes
+        getResult().setEnergyDependent(true);
         this.refundEnergy(0, CALL_PRE_COMPILED);
         this.stackPushZero();
         if (Objects.nonNull(this.result.getException())) {
@@ -1714,6 +1722,31 @@ public class Program {
     }
   }
 
+  /**
+   * Record the energy limit this program needs for its callee to get the energy the callee
+   * required, when the call spent {@code energy} for the callee and has not refunded it yet. A
+   * callee that failed used all it was given, so the program then depends on its energy limit.
+   */
+  private void requireCallEnergy(long energy, ProgramResult callResult) {
+    if (callResult.getException() != null || callResult.isEnergyDependent()) {
+      getResult().setEnergyDependent(true);
+      return;
+    }
+    requireCallEnergy(energy, callResult.getEnergyRequired());
+  }
+
+  private void requireCallEnergy(long energy, long calleeRequired) {
+    long available = calleeRequired;
+    if (VMConfig.allowTvmCompatibleEvm() && getContractVersion() == 1) {
+      // the least energy left that still forwards the callee what it required
+      available += calleeRequired / 63;
+      while (available - available / 64 < calleeRequired) {
+        available++;
+      }
+    }
+    getResult().requireEnergy(getResult().getEnergyUsed() - energy + available);
+  }
+
   public DataWord getCallEnergy(DataWord requestedEnergy, DataWord availableEnergy) {
     if (VMConfig.allowTvmCompatibleEvm() && getContractVersion() == 1) {
       DataWord availableEnergyReduce = availableEnergy.clone();
@@ -1,33 +1,105 @@
 package org.tron.core.vm.program;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
 import lombok.extern.slf4j.Slf4j;
+import org.tron.common.cache.CacheManager;
+import org.tron.common.cache.CacheType;
+import org.tron.common.cache.TronCache;
+import org.tron.common.parameter.CommonParameter;
 import org.tron.common.runtime.vm.DataWord;
+import org.tron.core.db.ByteArrayWrapper;
+import org.tron.core.vm.JumpTable;
 import org.tron.core.vm.Op;
 import org.tron.core.vm.config.VMConfig;
 
+/**
+ * Result of the static analysis of a code: its jump destinations, the bytes that are PUSH data
+ * and the starts of its basic blocks, each kept as a bitmap indexed by pc.
+ */
 @Slf4j(topic = "VM")
 public class ProgramPrecompile {
 
-  private final Set<Integer> jumpDest = new HashSet<>();
+  private static final String CACHE_STRATEGY = String.format(
+      "initialCapacity=%d,maximumSize=%d,concurrencyLevel=%d,recordStats",
+      Math.min(100, CommonParameter.getInstance().getSafeLruCacheSize()),
+      CommonParameter.getInstance().getSafeLruCacheSize(),
+      Runtime.getRuntime().availableProcessors());
+
+  /**
+   * Analyses shared by all programs, constant calls included, keyed by code hash.
+   */
+  private static final TronCache<ByteArrayWrapper, ProgramPrecompile> CACHE =
+      CacheManager.allocate(CacheType.codeAnalysis, CACHE_STRATEGY);
+
+  private final byte[] code;
+  private final long[] jumpDests;
+  private final long[] pushData;
+  private final long[] blockStarts;
+  private volatile BasicBlocks basicBlocks;
+
+  private ProgramPrecompile(byte[] code) {
+    int words = (code.length + 63) >>> 6;
+    this.code = code;
+    this.jumpDests = new long[words];
+    this.pushData = new long[words];
+    this.blockStarts = new long[words];
+  }
 
   public static ProgramPrecompile compile(byte[] ops) {
-    ProgramPrecompile ret = new ProgramPrecompile();
+    ProgramPrecompile ret = new ProgramPrecompile(ops);
+    boolean blockStart = true;
     for (int i = 0; i < ops.length; ++i) {
       int op = ops[i] & 0xff;
 
+      if (blockStart || op == Op.JUMPDEST) {
+        set(ret.blockStarts, i);
+      }
       if (op == Op.JUMPDEST) {
-        ret.jumpDest.add(i);
+        set(ret.jumpDests, i);
       }
+      blockStart = op == Op.JUMP || op == Op.JUMPI || op == Op.STOP || op == Op.RETURN
+          || op == Op.REVERT || op == Op.SUICIDE;
 
       if (op >= Op.PUSH1 && op <= Op.PUSH32) {
-        i += op - Op.PUSH1 + 1;
+        int end = Math.min(ops.length - 1, i + op - Op.PUSH1 + 1);
+        while (i < end) {
+          set(ret.pushData, ++i);
+        }
       }
     }
     return ret;
   }
 
+  /**
+   * Returns the analysis of {@code ops} whose hash is {@code codeHash}, compiling it on a miss.
+   * The hash of a contract may come unchecked from its deployment, so a cached analysis is only
+   * used for the very code it was compiled from, and is replaced by the analysis of {@code ops}
+   * otherwise.
+   */
+  public static ProgramPrecompile compile(byte[] codeHash, byte[] ops) {
+    ByteArrayWrapper key = new ByteArrayWrapper(codeHash);
+    ProgramPrecompile ret;
+    try {
+      ret = CACHE.get(key, () -> compile(ops));
+    } catch (ExecutionException e) {
+      logger.warn("Code analysis failed, {}.", e.getMessage());
+      return compile(ops);
+    }
+    if (!Arrays.equals(ret.code, ops)) {
+      ret = compile(ops);
+      CACHE.put(key, ret);
+    }
+    return ret;
+  }
+
+  /**
+   * Adds the analysis of {@code ops} to the shared cache ahead of its first call.
+   */
+  public static void warm(byte[] codeHash, byte[] ops) {
+    compile(codeHash, ops);
+  }
+
   public static byte[] getCode(byte[] ops) {
     for (int i = 0; i < ops.length; ++i) {
 
@@ -53,7 +125,46 @@ public class ProgramPrecompile {
     }
   }
 
+  byte[] getCode() {
+    return code;
+  }
+
   public boolean hasJumpDest(int pc) {
-    return jumpDest.contains(pc);
+    return test(jumpDests, pc);
+  }
+
+  /**
+   * @return whether the byte at {@code pc} is an immediate of a PUSH rather than an opcode.
+   */
+  public boolean isPushData(int pc) {
+    return test(pushData, pc);
+  }
+
+  /**
+   * @return whether a basic block starts at {@code pc}: the entry, a JUMPDEST or the opcode
+   *     following a jump or a halt.
+   */
+  public boolean isBlockStart(int pc) {
+    return test(blockStarts, pc);
+  }
+
+  /**
+   * @return the fixed energy runs of the code for {@code table}, built on first use.
+   */
+  public BasicBlocks getBasicBlocks(JumpTable table, Program program) {
+    BasicBlocks blocks = basicBlocks;
+    if (blocks == null || !blocks.isFor(table)) {
+      blocks = new BasicBlocks(this, table, program);
+      basicBlocks = blocks;
+    }
+    return blocks;
+  }
+
+  private static void set(long[] bits, int pc) {
+    bits[pc >>> 6] |= 1L << pc;
+  }
+
+  private static boolean test(long[] bits, int pc) {
+    return pc >= 0 && (pc >>> 6) < bits.length && (bits[pc >>> 6] & (1L << pc)) != 0;
   }
 }
@@ -1,35 +1,87 @@
 package org.tron.core.vm.program;
 
+import java.util.EmptyStackException;
 import java.util.Objects;
 import org.tron.common.runtime.vm.DataWord;
 import org.tron.core.vm.program.listener.ProgramListener;
 import org.tron.core.vm.program.listener.ProgramListenerAware;
 
-public class Stack extends java.util.Stack<DataWord> implements ProgramListenerAware {
+/**
+ * The operand stack of a program, a fixed array of {@link #CAPACITY} slots. A program runs on a
+ * single thread, so nothing is synchronized.
+ *
+ * <p>The words {@link #dup(int)} creates belong to the stack until {@link #pop()} hands them out.
+ * When {@link #drop()} discards one, the next dup overwrites it instead of allocating a new word.
+ * Words returned by {@link #get(int)} and {@link #peek()} must not be kept past the operation.
+ */
+public class Stack implements ProgramListenerAware {
 
-  private static final long serialVersionUID = 1;
+  public static final int CAPACITY = 1024;
 
-  private transient ProgramListener programListener;
+  private final DataWord[] words = new DataWord[CAPACITY];
+  // whether the word in a slot was created by dup and never handed out
+  private final boolean[] owned = new boolean[CAPACITY];
+  // owned words discarded by drop, for dup to overwrite
+  private final DataWord[] spares = new DataWord[CAPACITY];
+  private int spareCount;
+  private int size;
+
+  private ProgramListener programListener;
 
   @Override
   public void setProgramListener(ProgramListener listener) {
     this.programListener = listener;
   }
 
-  @Override
-  public synchronized DataWord pop() {
+  public DataWord pop() {
+    if (size == 0) {
+      throw new EmptyStackException();
+    }
     if (programListener != null) {
       programListener.onStackPop();
     }
-    return super.pop();
+    DataWord word = words[--size];
+    words[size] = null;
+    owned[size] = false;
+    return word;
   }
 
-  @Override
   public DataWord push(DataWord item) {
     if (programListener != null) {
       programListener.onStackPush(item);
     }
-    return super.push(item);
+    words[size] = item;
+    owned[size] = false;
+    size++;
+    return item;
+  }
+
+  /**
+   * Pop the top word and discard it.
+   */
+  public void drop() {
+    boolean reusable = size > 0 && owned[size - 1] && programListener == null;
+    DataWord word = pop();
+    if (reusable) {
+      spares[spareCount++] = word;
+    }
+  }
+
+  /**
+   * Push a copy of the {@code n}th word from the top, 1 being the top.
+   */
+  public void dup(int n) {
+    DataWord copy;
+    if (spareCount > 0) {
+      copy = spares[--spareCount];
+      spares[spareCount] = null;
+    } else {
+      copy = new DataWord();
+    }
+    copy.assign(get(size - n));
+    push(copy);
+    // a traced push may keep the word, so it is not reused then
+    owned[size - 1] = programListener == null;
   }
 
   public void swap(int from, int to) {
@@ -37,9 +89,35 @@ public class Stack extends java.util.Stack<DataWord> implements ProgramListenerA
       if (programListener != null) {
         programListener.onStackSwap(from, to);
       }
-      DataWord tmp = get(from);
-      set(from, set(to, tmp));
+      DataWord tmp = words[from];
+      words[from] = words[to];
+      words[to] = tmp;
+      boolean tmpOwned = owned[from];
+      owned[from] = owned[to];
+      owned[to] = tmpOwned;
+    }
+  }
+
+  public DataWord peek() {
+    if (size == 0) {
+      throw new EmptyStackException();
+    }
+    return words[size - 1];
+  }
+
+  public DataWord get(int index) {
+    if (!isAccessible(index)) {
+      throw new ArrayIndexOutOfBoundsException(index);
     }
+    return words[index];
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
   }
 
   private boolean isAccessible(int from) {
@@ -57,16 +135,36 @@ public class Stack extends java.util.Stack<DataWord> implements ProgramListenerA
     if (o.getClass() != this.getClass()) {
       return false;
     }
-    if (!super.equals(o)) {
+    Stack dataWords = (Stack) o;
+    if (size != dataWords.size) {
       return false;
     }
-    Stack dataWords = (Stack) o;
+    for (int i = 0; i < size; i++) {
+      if (!Objects.equals(words[i], dataWords.words[i])) {
+        return false;
+      }
+    }
     return Objects.equals(programListener, dataWords.programListener);
   }
 
-
   @Override
   public int hashCode() {
-    return Objects.hash(super.hashCode(), programListener);
+    int hashCode = 1;
+    for (int i = 0; i < size; i++) {
+      hashCode = 31 * hashCode + Objects.hashCode(words[i]);
+    }
+    return Objects.hash(hashCode, programListener);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder("[");
+    for (int i = 0; i < size; i++) {
+      if (i > 0) {
+        builder.append(", ");
+      }
+      builder.append(words[i]);
+    }
+    return builder.append(']').toString();
   }
 }
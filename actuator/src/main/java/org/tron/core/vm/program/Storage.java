@@ -25,6 +25,11 @@ public class Storage {
   private byte[] address;
   @Setter
   private int contractVersion;
+  /**
+   * The storage of the parent repository this one was created over, its rows are read through
+   * and only copied when written.
+   */
+  private Storage base;
 
   public Storage(byte[] address, StorageRowStore store) {
     addrHash = addrHash(address);
@@ -37,10 +42,7 @@ public class Storage {
     this.address = storage.getAddress().clone();
     this.store = storage.store;
     this.contractVersion = storage.contractVersion;
-    storage.getRowCache().forEach((DataWord rowKey, StorageRowCapsule row) -> {
-      StorageRowCapsule newRow = new StorageRowCapsule(row);
-      this.rowCache.put(rowKey.clone(), newRow);
-    });
+    this.base = storage;
   }
 
   private byte[] compose(byte[] key, byte[] addrHash) {
@@ -70,31 +72,73 @@ public class Storage {
     addrHash = addrHash(address, trxId);
   }
 
+  private StorageRowCapsule getRow(DataWord key) {
+    for (Storage storage = this; storage != null; storage = storage.base) {
+      StorageRowCapsule row = storage.rowCache.get(key);
+      if (row != null) {
+        return row;
+      }
+    }
+    return null;
+  }
+
   public DataWord getValue(DataWord key) {
-    if (rowCache.containsKey(key)) {
-      return new DataWord(rowCache.get(key).getValue());
-    } else {
-      StorageRowCapsule row = store.get(compose(key.getData(), addrHash));
+    StorageRowCapsule row = getRow(key);
+    if (row == null) {
+      row = store.get(compose(key.getData(), addrHash));
       if (row == null || row.getInstance() == null) {
         return null;
       }
       rowCache.put(key, row);
-      return new DataWord(row.getValue());
     }
+    return new DataWord(row.getValue());
   }
 
   public void put(DataWord key, DataWord value) {
-    if (rowCache.containsKey(key)) {
-      rowCache.get(key).setValue(value.getData());
+    StorageRowCapsule row = rowCache.get(key);
+    if (row == null && base != null) {
+      StorageRowCapsule baseRow = base.getRow(key);
+      if (baseRow != null) {
+        row = new StorageRowCapsule(baseRow);
+        rowCache.put(key.clone(), row);
+      }
+    }
+    if (row != null) {
+      row.setValue(value.getData());
     } else {
       byte[] rowKey = compose(key.getData(), addrHash);
-      StorageRowCapsule row = new StorageRowCapsule(rowKey, value.getData());
+      row = new StorageRowCapsule(rowKey, value.getData());
       rowCache.put(key, row);
     }
   }
 
+  /**
+   * Whether this storage was created over the given one.
+   */
+  public boolean isOver(Storage storage) {
+    return base == storage;
+  }
+
+  /**
+   * Take over the rows of a storage created over this one, when its repository commits.
+   */
+  public void merge(Storage storage) {
+    addrHash = storage.addrHash;
+    contractVersion = storage.contractVersion;
+    rowCache.putAll(storage.rowCache);
+  }
+
+  private Map<DataWord, StorageRowCapsule> getRows() {
+    if (base == null) {
+      return rowCache;
+    }
+    Map<DataWord, StorageRowCapsule> rows = new HashMap<>(base.getRows());
+    rows.putAll(rowCache);
+    return rows;
+  }
+
   public void commit() {
-    rowCache.forEach((DataWord rowKey, StorageRowCapsule row) -> {
+    getRows().forEach((DataWord rowKey, StorageRowCapsule row) -> {
       if (row.isDirty()) {
         if (new DataWord(row.getValue()).isZero()) {
           this.store.delete(row.getRowKey());
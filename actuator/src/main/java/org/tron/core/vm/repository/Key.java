@@ -1,7 +1,6 @@
 package org.tron.core.vm.repository;
 
 import java.util.Arrays;
-import org.apache.commons.lang3.ArrayUtils;
 
 public class Key {
 
@@ -10,16 +9,23 @@ public class Key {
    */
   private byte[] data = new byte[0];
 
+  /**
+   * keys are looked up far more often than created, the hash is computed once
+   */
+  private final int hash;
+
   public Key(byte[] data) {
     if (data != null && data.length != 0) {
       this.data = new byte[data.length];
       System.arraycopy(data, 0, this.data, 0, data.length);
     }
+    this.hash = Arrays.hashCode(this.data);
   }
 
   private Key(Key key) {
     this.data = new byte[key.getData().length];
     System.arraycopy(key.getData(), 0, this.data, 0, this.data.length);
+    this.hash = key.hash;
   }
 
   public static Key create(byte[] data) {
@@ -44,11 +50,11 @@ public class Key {
     }
 
     Key key = (Key) o;
-    return Arrays.equals(key.getData(), this.data);
+    return hash == key.hash && Arrays.equals(key.getData(), this.data);
   }
 
   @Override
   public int hashCode() {
-    return data != null ? ArrayUtils.hashCode(data) : 0;
+    return hash;
   }
 }
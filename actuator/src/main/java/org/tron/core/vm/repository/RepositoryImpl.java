@@ -249,8 +249,9 @@ public class RepositoryImpl implements Repository {
   public AssetIssueCapsule getAssetIssue(byte[] tokenId) {
     byte[] tokenIdWithoutLeadingZero = ByteUtil.stripLeadingZeroes(tokenId);
     Key key = Key.create(tokenIdWithoutLeadingZero);
-    if (assetIssueCache.containsKey(key)) {
-      return new AssetIssueCapsule(assetIssueCache.get(key).getValue());
+    Value<AssetIssueContract> cached = assetIssueCache.get(key);
+    if (cached != null) {
+      return new AssetIssueCapsule(cached.getValue());
     }
 
     AssetIssueCapsule assetIssueCapsule;
@@ -289,8 +290,9 @@ public class RepositoryImpl implements Repository {
   @Override
   public AccountCapsule getAccount(byte[] address) {
     Key key = new Key(address);
-    if (accountCache.containsKey(key)) {
-      return new AccountCapsule(accountCache.get(key).getValue());
+    Value<Account> cached = accountCache.get(key);
+    if (cached != null) {
+      return new AccountCapsule(cached.getValue());
     }
 
     AccountCapsule accountCapsule;
@@ -309,8 +311,9 @@ public class RepositoryImpl implements Repository {
   @Override
   public BytesCapsule getDynamicProperty(byte[] word) {
     Key key = Key.create(word);
-    if (dynamicPropertiesCache.containsKey(key)) {
-      return new BytesCapsule(dynamicPropertiesCache.get(key).getValue());
+    Value<byte[]> cached = dynamicPropertiesCache.get(key);
+    if (cached != null) {
+      return new BytesCapsule(cached.getValue());
     }
 
     BytesCapsule bytesCapsule;
@@ -334,8 +337,9 @@ public class RepositoryImpl implements Repository {
   @Override
   public DelegatedResourceCapsule getDelegatedResource(byte[] key) {
     Key cacheKey = new Key(key);
-    if (delegatedResourceCache.containsKey(cacheKey)) {
-      return new DelegatedResourceCapsule(delegatedResourceCache.get(cacheKey).getValue());
+    Value<DelegatedResource> cached = delegatedResourceCache.get(cacheKey);
+    if (cached != null) {
+      return new DelegatedResourceCapsule(cached.getValue());
     }
 
     DelegatedResourceCapsule delegatedResourceCapsule;
@@ -354,8 +358,9 @@ public class RepositoryImpl implements Repository {
   @Override
   public VotesCapsule getVotes(byte[] address) {
     Key cacheKey = new Key(address);
-    if (votesCache.containsKey(cacheKey)) {
-      return new VotesCapsule(votesCache.get(cacheKey).getValue());
+    Value<Votes> cached = votesCache.get(cacheKey);
+    if (cached != null) {
+      return new VotesCapsule(cached.getValue());
     }
 
     VotesCapsule votesCapsule;
@@ -405,8 +410,9 @@ public class RepositoryImpl implements Repository {
 
   @Override
   public BytesCapsule getDelegation(Key key) {
-    if (delegationCache.containsKey(key)) {
-      return new BytesCapsule(delegationCache.get(key).getValue());
+    Value<byte[]> cached = delegationCache.get(key);
+    if (cached != null) {
+      return new BytesCapsule(cached.getValue());
     }
     BytesCapsule bytesCapsule;
     if (parent != null) {
@@ -423,9 +429,9 @@ public class RepositoryImpl implements Repository {
   @Override
   public DelegatedResourceAccountIndexCapsule getDelegatedResourceAccountIndex(byte[] key) {
     Key cacheKey = new Key(key);
-    if (delegatedResourceAccountIndexCache.containsKey(cacheKey)) {
-      return new DelegatedResourceAccountIndexCapsule(
-          delegatedResourceAccountIndexCache.get(cacheKey).getValue());
+    Value<DelegatedResourceAccountIndex> cached = delegatedResourceAccountIndexCache.get(cacheKey);
+    if (cached != null) {
+      return new DelegatedResourceAccountIndexCapsule(cached.getValue());
     }
 
     DelegatedResourceAccountIndexCapsule delegatedResourceAccountIndexCapsule;
@@ -459,8 +465,9 @@ public class RepositoryImpl implements Repository {
   @Override
   public ContractCapsule getContract(byte[] address) {
     Key key = Key.create(address);
-    if (contractCache.containsKey(key)) {
-      return new ContractCapsule(contractCache.get(key).getValue());
+    Value<SmartContract> cached = contractCache.get(key);
+    if (cached != null) {
+      return new ContractCapsule(cached.getValue());
     }
 
     ContractCapsule contractCapsule;
@@ -479,8 +486,9 @@ public class RepositoryImpl implements Repository {
   @Override
   public ContractStateCapsule getContractState(byte[] address) {
     Key key = Key.create(address);
-    if (contractStateCache.containsKey(key)) {
-      return new ContractStateCapsule(contractStateCache.get(key).getValue());
+    Value<ContractState> cached = contractStateCache.get(key);
+    if (cached != null) {
+      return new ContractStateCapsule(cached.getValue());
     }
 
     ContractStateCapsule contractStateCapsule;
@@ -580,22 +588,20 @@ public class RepositoryImpl implements Repository {
   @Override
   public byte[] getCode(byte[] address) {
     Key key = Key.create(address);
-    if (codeCache.containsKey(key)) {
-      return codeCache.get(key).getValue();
+    Value<byte[]> cached = codeCache.get(key);
+    if (cached != null) {
+      return cached.getValue();
     }
 
     byte[] code;
     if (parent != null) {
       code = parent.getCode(address);
     } else {
-      if (null == getCodeStore().get(address)) {
-        code = null;
-      } else {
-        code = getCodeStore().get(address).getData();
-      }
+      CodeCapsule codeCapsule = getCodeStore().get(address);
+      code = codeCapsule == null ? null : codeCapsule.getData();
     }
     if (code != null) {
-      codeCache.put(key, Value.create(code));
+      codeCache.put(key, Value.share(code));
     }
     return code;
   }
@@ -620,10 +626,8 @@ public class RepositoryImpl implements Repository {
       return null;
     }
     Key addressKey = Key.create(address);
-    Storage storage;
-    if (storageCache.containsKey(addressKey)) {
-      storage = storageCache.get(addressKey);
-    } else {
+    Storage storage = storageCache.get(addressKey);
+    if (storage == null) {
       storage = getStorage(address);
       storageCache.put(addressKey, storage);
     }
@@ -632,15 +636,14 @@ public class RepositoryImpl implements Repository {
 
   @Override
   public Storage getStorage(byte[] address) {
-    Key key = Key.create(address);
-    if (storageCache.containsKey(key)) {
-      return storageCache.get(key);
+    Storage storage = storageCache.get(Key.create(address));
+    if (storage != null) {
+      return storage;
     }
-    Storage storage;
     if (this.parent != null) {
       Storage parentStorage = parent.getStorage(address);
       if (StorageUtils.getEnergyLimitHardFork()) {
-        // deep copy
+        // copy on write
         storage = new Storage(parentStorage);
       } else {
         storage = parentStorage;
@@ -733,7 +736,12 @@ public class RepositoryImpl implements Repository {
 
   @Override
   public void putStorage(Key key, Storage cache) {
-    storageCache.put(key, cache);
+    Storage storage = storageCache.get(key);
+    if (storage != null && cache.isOver(storage)) {
+      storage.merge(cache);
+    } else {
+      storageCache.put(key, cache);
+    }
   }
 
   @Override
@@ -43,6 +43,15 @@ public class Value<T> {
     return create(value, Type.NORMAL);
   }
 
+  /**
+   * Cache a value read from the parent or a store without copying it, cached arrays are never
+   * written to, so the code of a contract is shared by every level of a call chain.
+   */
+  public static Value<byte[]> share(byte[] value) {
+    return (value == null || value.length == 0) ? new Value<>(null, Type.NORMAL) :
+        new Value<>(value, Type.NORMAL);
+  }
+
   @Override
   public boolean equals(Object obj) {
     if (this == obj) {
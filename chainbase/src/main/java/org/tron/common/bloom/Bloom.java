@@ -98,9 +98,12 @@ public class Bloom {
    * (this || topicBloom) == this
    */
   public boolean matches(Bloom topicBloom) {
-    Bloom copy = copy();
-    copy.or(topicBloom);
-    return this.equals(copy);
+    for (int i = 0; i < data.length; ++i) {
+      if ((topicBloom.data[i] & ~data[i]) != 0) {
+        return false;
+      }
+    }
+    return true;
   }
 
   public byte[] getData() {
@@ -48,7 +48,11 @@ public abstract class Message {
   }
 
   public static void compareBytes(byte[] src, byte[] dest) throws P2pException {
-    if (src.length != dest.length) {
+    compareBytes(src, dest.length);
+  }
+
+  public static void compareBytes(byte[] src, int destLength) throws P2pException {
+    if (src.length != destLength) {
       throw new P2pException(PROTOBUF_ERROR, PROTOBUF_ERROR.getDesc());
     }
   }
@@ -27,6 +27,19 @@ public class ProgramResult {
   @Getter
   private long energyPenaltyTotal = 0;
 
+  /**
+   * The least energy limit the program runs the same way with, where a call needed more than
+   * the energy used once its callee returned the rest.
+   */
+  private long energyRequired = 0;
+  /**
+   * Whether the way the program runs depends on its energy limit, so that the energy required
+   * is not known from one run.
+   */
+  @Getter
+  @Setter
+  private boolean energyDependent;
+
   private byte[] hReturn = EMPTY_BYTE_ARRAY;
   private byte[] contractAddress = EMPTY_BYTE_ARRAY;
   private RuntimeException exception;
@@ -83,6 +96,14 @@ public class ProgramResult {
     energyUsed -= energy;
   }
 
+  public void requireEnergy(long energy) {
+    energyRequired = Math.max(energyRequired, energy);
+  }
+
+  public long getEnergyRequired() {
+    return Math.max(energyRequired, energyUsed);
+  }
+
   public void addTotalPenalty(long penalty) {
     energyPenaltyTotal += penalty;
   }
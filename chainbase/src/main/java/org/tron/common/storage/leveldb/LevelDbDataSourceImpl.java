@@ -25,6 +25,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -350,6 +351,26 @@ public class LevelDbDataSourceImpl extends DbStat implements DbSourceInter<byte[
     }
   }
 
+  /**
+   * LevelDB has no batched read, the keys are read one by one under a single lock.
+   */
+  @Override
+  public Map<WrappedByteArray, byte[]> getAll(Collection<byte[]> keys) {
+    resetDbLock.readLock().lock();
+    try {
+      Map<WrappedByteArray, byte[]> result = new HashMap<>(keys.size());
+      for (byte[] key : keys) {
+        byte[] value = database.get(key);
+        if (value != null) {
+          result.put(WrappedByteArray.of(key), value);
+        }
+      }
+      return result;
+    } finally {
+      resetDbLock.readLock().unlock();
+    }
+  }
+
   @Override
   public long getTotal() throws RuntimeException {
     resetDbLock.readLock().lock();
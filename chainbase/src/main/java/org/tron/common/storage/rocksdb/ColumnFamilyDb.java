@@ -0,0 +1,298 @@
+package org.tron.common.storage.rocksdb;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.rocksdb.BlockBasedTableConfig;
+import org.rocksdb.BloomFilter;
+import org.rocksdb.ColumnFamilyDescriptor;
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.ColumnFamilyOptions;
+import org.rocksdb.CompressionType;
+import org.rocksdb.DBOptions;
+import org.rocksdb.InfoLogLevel;
+import org.rocksdb.Logger;
+import org.rocksdb.Options;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.Statistics;
+import org.rocksdb.WriteBatch;
+import org.rocksdb.WriteOptions;
+import org.slf4j.LoggerFactory;
+import org.tron.common.setting.RocksDbSettings;
+import org.tron.common.utils.FileUtil;
+import org.tron.common.utils.PropUtil;
+
+/**
+ * One RocksDB instance that hosts the stores of a directory as column families, so they share
+ * one WAL, one memtable budget ({@code dbWriteBufferSize}) and the block cache, and a
+ * {@link Batch} can write several stores atomically.
+ *
+ * <p>Instances are shared by path and closed when the last store releases them.
+ */
+@Slf4j(topic = "DB")
+public final class ColumnFamilyDb {
+
+  public static final String DIR_NAME = "column-families";
+  // prefix lengths the column families were created with, see #handle
+  private static final String PREFIX_FILE = "prefix.properties";
+  private static final org.slf4j.Logger rocksDbLogger = LoggerFactory.getLogger("ROCKSDB");
+  private static final Map<String, ColumnFamilyDb> INSTANCES = new HashMap<>();
+  // the batch that collects the writes of the current thread, see Batch#run
+  private static final ThreadLocal<Batch> CURRENT = new ThreadLocal<>();
+
+  private final String path;
+  private final RocksDbSettings settings;
+  private final DBOptions options;
+  private final Map<String, ColumnFamilyHandle> handles = new HashMap<>();
+  private final Map<String, Integer> prefixLengths = new HashMap<>();
+  private final List<ColumnFamilyOptions> familyOptions = new ArrayList<>();
+  private RocksDB database;
+  private int users;
+
+  private ColumnFamilyDb(String path, RocksDbSettings settings) {
+    this.path = path;
+    this.settings = settings;
+    this.options = dbOptions(settings);
+  }
+
+  /**
+   * Open the instance under {@code parentPath}, or share the one already open.
+   */
+  static ColumnFamilyDb acquire(String parentPath, RocksDbSettings settings) {
+    synchronized (INSTANCES) {
+      String path = Paths.get(parentPath, DIR_NAME).toString();
+      ColumnFamilyDb db = INSTANCES.get(path);
+      if (db == null) {
+        db = new ColumnFamilyDb(path, settings);
+        db.open();
+        INSTANCES.put(path, db);
+      }
+      db.users++;
+      return db;
+    }
+  }
+
+  void release() {
+    synchronized (INSTANCES) {
+      if (--users > 0) {
+        return;
+      }
+      INSTANCES.remove(path);
+      handles.values().forEach(ColumnFamilyHandle::close);
+      handles.clear();
+      database.close();
+      familyOptions.forEach(ColumnFamilyOptions::close);
+      options.close();
+      logger.info("Close column family db {}.", path);
+    }
+  }
+
+  public RocksDB getDatabase() {
+    return database;
+  }
+
+  public String getPath() {
+    return path;
+  }
+
+  /**
+   * @return the column family of store {@code name}, created if it does not exist yet with the
+   *     configured prefix length or else {@code prefixLength}, the one the store declares. The
+   *     length is kept, so the column family is reopened with the same prefix extractor.
+   */
+  synchronized ColumnFamilyHandle handle(String name, int prefixLength) {
+    ColumnFamilyHandle handle = handles.get(name);
+    if (handle == null) {
+      int configured = settings.getColumnFamily(name).getPrefixLength();
+      int length = configured >= 0 ? configured : prefixLength;
+      try {
+        handle = database.createColumnFamily(descriptor(name.getBytes(), length));
+      } catch (RocksDBException e) {
+        throw new RuntimeException(String.format("failed to create column family: %s", name), e);
+      }
+      handles.put(name, handle);
+      prefixLengths.put(name, length);
+      PropUtil.writeProperty(prefixFile(), name, String.valueOf(length));
+    }
+    return handle;
+  }
+
+  /**
+   * @return the length of the fixed prefix extractor of the column family {@code name}.
+   */
+  synchronized int getPrefixLength(String name) {
+    return prefixLengths.getOrDefault(name, 0);
+  }
+
+  /**
+   * Drop the column family of store {@code name} with all its data.
+   */
+  synchronized void drop(String name) {
+    ColumnFamilyHandle handle = handles.remove(name);
+    if (handle == null) {
+      return;
+    }
+    try {
+      database.dropColumnFamily(handle);
+    } catch (RocksDBException e) {
+      throw new RuntimeException(String.format("failed to drop column family: %s", name), e);
+    } finally {
+      handle.close();
+    }
+  }
+
+  /**
+   * A batch that collects the writes of several stores of this instance and commits them at
+   * once.
+   */
+  public Batch newBatch() {
+    return new Batch();
+  }
+
+  /**
+   * @return the batch the current thread writes to, or null if its writes go to the store.
+   */
+  Batch current() {
+    Batch batch = CURRENT.get();
+    return batch != null && batch.owner() == this ? batch : null;
+  }
+
+  private void open() {
+    List<byte[]> names = new ArrayList<>();
+    names.add(RocksDB.DEFAULT_COLUMN_FAMILY);
+    try {
+      Files.createDirectories(Paths.get(path));
+      if (Files.exists(Paths.get(path, "CURRENT"))) {
+        try (Options listOptions = new Options()) {
+          names = RocksDB.listColumnFamilies(listOptions, path);
+        }
+      }
+      FileUtil.createFileIfNotExists(prefixFile());
+      List<ColumnFamilyDescriptor> descriptors = new ArrayList<>(names.size());
+      for (byte[] name : names) {
+        int configured = settings.getColumnFamily(new String(name)).getPrefixLength();
+        String kept = PropUtil.readProperty(prefixFile(), new String(name));
+        int length = configured >= 0 ? configured : kept.isEmpty() ? 0 : Integer.parseInt(kept);
+        prefixLengths.put(new String(name), length);
+        descriptors.add(descriptor(name, length));
+      }
+      List<ColumnFamilyHandle> opened = new ArrayList<>(names.size());
+      database = RocksDB.open(options, path, descriptors, opened);
+      for (int i = 0; i < names.size(); i++) {
+        handles.put(new String(names.get(i)), opened.get(i));
+      }
+    } catch (IOException | RocksDBException e) {
+      throw new RuntimeException(String.format("failed to open column family db: %s", path), e);
+    }
+    logger.info("Open column family db {}, column families: {}.", path, handles.size());
+  }
+
+  private String prefixFile() {
+    return Paths.get(path, PREFIX_FILE).toString();
+  }
+
+  private ColumnFamilyDescriptor descriptor(byte[] name, int prefixLength) {
+    RocksDbSettings.ColumnFamily family = settings.getColumnFamily(new String(name));
+    ColumnFamilyOptions cf = new ColumnFamilyOptions();
+    cf.setLevelCompactionDynamicLevelBytes(true);
+    cf.setNumLevels(settings.getLevelNumber());
+    cf.setMaxBytesForLevelMultiplier(settings.getMaxBytesForLevelMultiplier());
+    cf.setMaxBytesForLevelBase(settings.getMaxBytesForLevelBase());
+    cf.setLevel0FileNumCompactionTrigger(settings.getLevel0FileNumCompactionTrigger());
+    cf.setTargetFileSizeMultiplier(settings.getTargetFileSizeMultiplier());
+    cf.setTargetFileSizeBase(settings.getTargetFileSizeBase());
+    if (family.getCompression() != null) {
+      cf.setCompressionType(CompressionType.getCompressionType(family.getCompression()));
+    }
+    if (prefixLength > 0) {
+      cf.useFixedLengthPrefixExtractor(prefixLength);
+      cf.setMemtablePrefixBloomSizeRatio(0.1);
+    }
+
+    BlockBasedTableConfig tableCfg = new BlockBasedTableConfig();
+    tableCfg.setBlockSize(settings.getBlockSize());
+    tableCfg.setBlockCache(RocksDbSettings.getCache());
+    tableCfg.setCacheIndexAndFilterBlocks(true);
+    tableCfg.setPinL0FilterAndIndexBlocksInCache(true);
+    if (family.getBloomBits() > 0) {
+      tableCfg.setFilter(new BloomFilter(family.getBloomBits(), false));
+    }
+    cf.setTableFormatConfig(tableCfg);
+    familyOptions.add(cf);
+    return new ColumnFamilyDescriptor(name, cf);
+  }
+
+  private static DBOptions dbOptions(RocksDbSettings settings) {
+    DBOptions options = new DBOptions();
+    if (settings.isEnableStatistics()) {
+      options.setStatistics(new Statistics());
+      options.setStatsDumpPeriodSec(60);
+    }
+    options.setCreateIfMissing(true);
+    options.setCreateMissingColumnFamilies(true);
+    options.setIncreaseParallelism(1);
+    options.setMaxOpenFiles(settings.getMaxOpenFiles());
+    options.setMaxBackgroundCompactions(settings.getCompactThreads());
+    // the memtables of all column families flush once together they reach this size
+    options.setDbWriteBufferSize(settings.getDbWriteBufferSize());
+    options.setLogger(new Logger(options) {
+      @Override
+      protected void log(InfoLogLevel infoLogLevel, String logMsg) {
+        rocksDbLogger.info("{} {}", DIR_NAME, logMsg);
+      }
+    });
+    return options;
+  }
+
+  public final class Batch implements AutoCloseable {
+
+    private final WriteBatch batch = new WriteBatch();
+
+    private Batch() {
+    }
+
+    private ColumnFamilyDb owner() {
+      return ColumnFamilyDb.this;
+    }
+
+    /**
+     * Run {@code task} with the writes it makes to stores of this instance collected here.
+     */
+    public void run(Runnable task) {
+      CURRENT.set(this);
+      try {
+        task.run();
+      } finally {
+        CURRENT.remove();
+      }
+    }
+
+    synchronized void add(ColumnFamilyHandle handle, Map<byte[], byte[]> rows)
+        throws RocksDBException {
+      for (Map.Entry<byte[], byte[]> entry : rows.entrySet()) {
+        if (entry.getValue() == null) {
+          batch.delete(handle, entry.getKey());
+        } else {
+          batch.put(handle, entry.getKey(), entry.getValue());
+        }
+      }
+    }
+
+    public synchronized void commit(boolean sync) throws RocksDBException {
+      try (WriteOptions writeOptions = new WriteOptions().setSync(sync)) {
+        database.write(writeOptions, batch);
+      }
+    }
+
+    @Override
+    public void close() {
+      batch.close();
+    }
+  }
+}
@@ -9,6 +9,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -23,6 +24,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.rocksdb.BlockBasedTableConfig;
 import org.rocksdb.BloomFilter;
 import org.rocksdb.Checkpoint;
+import org.rocksdb.ColumnFamilyHandle;
 import org.rocksdb.DirectComparator;
 import org.rocksdb.InfoLogLevel;
 import org.rocksdb.Logger;
@@ -60,13 +62,24 @@ public class RocksDbDataSourceImpl extends DbStat implements DbSourceInter<byte[
   private static final String KEY_ENGINE = "ENGINE";
   private static final String ROCKSDB = "ROCKSDB";
   private DirectComparator comparator;
+  // length of the key prefix the store declares for its prefix queries, 0 for none
+  private int prefixLength;
+  // set when the store is a column family of a shared instance, see ColumnFamilyDb
+  private ColumnFamilyDb columnFamilyDb;
+  private ColumnFamilyHandle handle;
   private static final org.slf4j.Logger rocksDbLogger = LoggerFactory.getLogger(ROCKSDB);
 
   public RocksDbDataSourceImpl(String parentPath, String name, RocksDbSettings settings,
       DirectComparator comparator) {
+    this(parentPath, name, settings, comparator, 0);
+  }
+
+  public RocksDbDataSourceImpl(String parentPath, String name, RocksDbSettings settings,
+      DirectComparator comparator, int prefixLength) {
     this.dataBaseName = name;
     this.parentPath = parentPath;
     this.comparator = comparator;
+    this.prefixLength = prefixLength;
     RocksDbSettings.setRocksDbSettings(settings);
     initDB();
   }
@@ -91,6 +104,32 @@ public class RocksDbDataSourceImpl extends DbStat implements DbSourceInter<byte[
     return database;
   }
 
+  /**
+   * @return the number of keys as RocksDB estimates it from its metadata, without reading them.
+   */
+  public long getEstimatedKeys() {
+    resetDbLock.readLock().lock();
+    try {
+      if (quitIfNotAlive()) {
+        return 0;
+      }
+      return handle == null ? database.getLongProperty("rocksdb.estimate-num-keys")
+          : database.getLongProperty(handle, "rocksdb.estimate-num-keys");
+    } catch (RocksDBException e) {
+      throw new RuntimeException(dataBaseName, e);
+    } finally {
+      resetDbLock.readLock().unlock();
+    }
+  }
+
+  /**
+   * @return the shared instance that hosts this store as a column family, or null if the store
+   *     has its own instance.
+   */
+  public ColumnFamilyDb getColumnFamilyDb() {
+    return columnFamilyDb;
+  }
+
   public boolean isAlive() {
     return alive;
   }
@@ -102,7 +141,13 @@ public class RocksDbDataSourceImpl extends DbStat implements DbSourceInter<byte[
       if (!isAlive()) {
         return;
       }
-      database.close();
+      if (columnFamilyDb != null) {
+        columnFamilyDb.release();
+        columnFamilyDb = null;
+        handle = null;
+      } else {
+        database.close();
+      }
       alive = false;
     } catch (Exception e) {
       logger.error("Failed to find the dbStore file on the closeDB: {}.", dataBaseName, e);
@@ -115,6 +160,11 @@ public class RocksDbDataSourceImpl extends DbStat implements DbSourceInter<byte[
   public void resetDb() {
     resetDbLock.writeLock().lock();
     try {
+      if (columnFamilyDb != null) {
+        columnFamilyDb.drop(dataBaseName);
+        handle = columnFamilyDb.handle(dataBaseName, prefixLength);
+        return;
+      }
       closeDB();
       FileUtil.recursiveDelete(getDbPath().toString());
       initDB();
@@ -191,6 +241,10 @@ public class RocksDbDataSourceImpl extends DbStat implements DbSourceInter<byte[
   }
 
   public void initDB() {
+    if (isColumnFamily(RocksDbSettings.getSettings())) {
+      initDB(RocksDbSettings.getSettings());
+      return;
+    }
     if (!checkOrInitEngine()) {
       throw new RuntimeException(
           String.format("failed to check database: %s, engine do not match", dataBaseName));
@@ -208,6 +262,18 @@ public class RocksDbDataSourceImpl extends DbStat implements DbSourceInter<byte[
         throw new IllegalArgumentException("No name set to the dbStore");
       }
 
+      readOpts = new ReadOptions().setPrefixSameAsStart(true).setVerifyChecksums(false);
+      if (isColumnFamily(settings)) {
+        columnFamilyDb = ColumnFamilyDb.acquire(parentPath, settings);
+        database = columnFamilyDb.getDatabase();
+        handle = columnFamilyDb.handle(dataBaseName, prefixLength);
+        prefixLength = columnFamilyDb.getPrefixLength(dataBaseName);
+        alive = true;
+        logger.debug("Init DB {} as column family of {} done.", dataBaseName,
+            columnFamilyDb.getPath());
+        return;
+      }
+
       try (Options options = new Options()) {
 
         // most of these options are suggested by https://github.com/facebook/rocksdb/wiki/Set-Up-Options
@@ -233,6 +299,10 @@ public class RocksDbDataSourceImpl extends DbStat implements DbSourceInter<byte[
         if (comparator != null) {
           options.setComparator(comparator);
         }
+        if (prefixLength > 0) {
+          options.useFixedLengthPrefixExtractor(prefixLength);
+          options.setMemtablePrefixBloomSizeRatio(0.1);
+        }
         options.setLogger(new Logger(options) {
           @Override
           protected void log(InfoLogLevel infoLogLevel, String logMsg) {
@@ -249,11 +319,6 @@ public class RocksDbDataSourceImpl extends DbStat implements DbSourceInter<byte[
         tableCfg.setPinL0FilterAndIndexBlocksInCache(true);
         tableCfg.setFilter(new BloomFilter(10, false));
 
-        // read options
-        readOpts = new ReadOptions();
-        readOpts = readOpts.setPrefixSameAsStart(true)
-            .setVerifyChecksums(false);
-
         try {
           logger.debug("Opening database {}.", dataBaseName);
           final Path dbPath = getDbPath();
@@ -289,7 +354,16 @@ public class RocksDbDataSourceImpl extends DbStat implements DbSourceInter<byte[
       if (quitIfNotAlive()) {
         return;
       }
-      database.put(key, value);
+      if (handle == null) {
+        database.put(key, value);
+        return;
+      }
+      ColumnFamilyDb.Batch batch = columnFamilyDb.current();
+      if (batch != null) {
+        batch.add(handle, Collections.singletonMap(key, value));
+      } else {
+        database.put(handle, key, value);
+      }
     } catch (RocksDBException e) {
       throw new RuntimeException(dataBaseName, e);
     } finally {
@@ -304,7 +378,7 @@ public class RocksDbDataSourceImpl extends DbStat implements DbSourceInter<byte[
       if (quitIfNotAlive()) {
         return null;
       }
-      return database.get(key);
+      return handle == null ? database.get(key) : database.get(handle, key);
     } catch (RocksDBException e) {
       throw new RuntimeException(dataBaseName, e);
     } finally {
@@ -319,7 +393,16 @@ public class RocksDbDataSourceImpl extends DbStat implements DbSourceInter<byte[
       if (quitIfNotAlive()) {
         return;
       }
-      database.delete(key);
+      if (handle == null) {
+        database.delete(key);
+        return;
+      }
+      ColumnFamilyDb.Batch batch = columnFamilyDb.current();
+      if (batch != null) {
+        batch.add(handle, Collections.singletonMap(key, null));
+      } else {
+        database.delete(handle, key);
+      }
     } catch (RocksDBException e) {
       throw new RuntimeException(dataBaseName, e);
     } finally {
@@ -338,19 +421,7 @@ public class RocksDbDataSourceImpl extends DbStat implements DbSourceInter<byte[
   }
 
   private void updateByBatchInner(Map<byte[], byte[]> rows) throws Exception {
-    if (quitIfNotAlive()) {
-      return;
-    }
-    try (WriteBatch batch = new WriteBatch()) {
-      for (Map.Entry<byte[], byte[]> entry : rows.entrySet()) {
-        if (entry.getValue() == null) {
-          batch.delete(entry.getKey());
-        } else {
-          batch.put(entry.getKey(), entry.getValue());
-        }
-      }
-      database.write(new WriteOptions(), batch);
-    }
+    updateByBatchInner(rows, new WriteOptions());
   }
 
   private void updateByBatchInner(Map<byte[], byte[]> rows, WriteOptions options)
@@ -358,12 +429,23 @@ public class RocksDbDataSourceImpl extends DbStat implements DbSourceInter<byte[
     if (quitIfNotAlive()) {
       return;
     }
+    ColumnFamilyDb.Batch shared = handle == null ? null : columnFamilyDb.current();
+    if (shared != null) {
+      shared.add(handle, rows);
+      return;
+    }
     try (WriteBatch batch = new WriteBatch()) {
       for (Map.Entry<byte[], byte[]> entry : rows.entrySet()) {
         if (entry.getValue() == null) {
-          batch.delete(entry.getKey());
-        } else {
+          if (handle == null) {
+            batch.delete(entry.getKey());
+          } else {
+            batch.delete(handle, entry.getKey());
+          }
+        } else if (handle == null) {
           batch.put(entry.getKey(), entry.getValue());
+        } else {
+          batch.put(handle, entry.getKey(), entry.getValue());
         }
       }
       database.write(options, batch);
@@ -460,7 +542,8 @@ public class RocksDbDataSourceImpl extends DbStat implements DbSourceInter<byte[
       if (quitIfNotAlive()) {
         return null;
       }
-      try (RocksIterator iterator = getRocksIterator()) {
+      try (RocksIterator iterator = prefixLength > 0 && key.length >= prefixLength
+          ? getPrefixIterator() : getRocksIterator()) {
         Map<WrappedByteArray, byte[]> result = new HashMap<>();
         for (iterator.seek(key); iterator.isValid(); iterator.next()) {
           if (Bytes.indexOf(iterator.key(), key) == 0) {
@@ -476,6 +559,26 @@ public class RocksDbDataSourceImpl extends DbStat implements DbSourceInter<byte[
     }
   }
 
+  @Override
+  public Map<WrappedByteArray, byte[]> getAll(Collection<byte[]> keys) {
+    resetDbLock.readLock().lock();
+    try {
+      if (quitIfNotAlive()) {
+        return null;
+      }
+      Map<WrappedByteArray, byte[]> result = new HashMap<>();
+      List<byte[]> list = new ArrayList<>(keys);
+      Map<byte[], byte[]> values = handle == null ? database.multiGet(list)
+          : database.multiGet(Collections.nCopies(list.size(), handle), list);
+      values.forEach((k, v) -> result.put(WrappedByteArray.of(k), v));
+      return result;
+    } catch (RocksDBException e) {
+      throw new RuntimeException(dataBaseName, e);
+    } finally {
+      resetDbLock.readLock().unlock();
+    }
+  }
+
   public Set<byte[]> getlatestValues(long limit) {
     resetDbLock.readLock().lock();
     try {
@@ -523,22 +626,52 @@ public class RocksDbDataSourceImpl extends DbStat implements DbSourceInter<byte[
 
   public void backup(String dir) throws RocksDBException {
     Checkpoint cp = Checkpoint.create(database);
-    cp.createCheckpoint(dir + this.getDBName());
+    if (columnFamilyDb == null) {
+      cp.createCheckpoint(dir + this.getDBName());
+    } else if (!new File(dir + ColumnFamilyDb.DIR_NAME).exists()) {
+      // one checkpoint holds all the stores of the shared instance
+      cp.createCheckpoint(dir + ColumnFamilyDb.DIR_NAME);
+    }
   }
 
   private RocksIterator getRocksIterator() {
-    try ( ReadOptions readOptions = new ReadOptions().setFillCache(false)) {
-      return  database.newIterator(readOptions);
+    // with a prefix extractor, seeks only find keys of the same prefix unless in total order
+    try ( ReadOptions readOptions = new ReadOptions().setFillCache(false)
+        .setTotalOrderSeek(prefixLength > 0)) {
+      return handle == null ? database.newIterator(readOptions)
+          : database.newIterator(handle, readOptions);
+    }
+  }
+
+  /**
+   * An iterator over the keys that share the declared prefix of the seek key, the prefix bloom
+   * filters let it skip the files and memtables without that prefix.
+   */
+  private RocksIterator getPrefixIterator() {
+    try (ReadOptions readOptions = new ReadOptions().setFillCache(false)
+        .setPrefixSameAsStart(true)) {
+      return handle == null ? database.newIterator(readOptions)
+          : database.newIterator(handle, readOptions);
     }
   }
 
   public boolean deleteDbBakPath(String dir) {
-    return FileUtil.deleteDir(new File(dir + this.getDBName()));
+    return FileUtil.deleteDir(new File(dir
+        + (columnFamilyDb == null ? this.getDBName() : ColumnFamilyDb.DIR_NAME)));
+  }
+
+  /**
+   * Stores with a custom comparator keep their own instance, the comparator of a column family
+   * must be known before the shared instance is opened.
+   */
+  private boolean isColumnFamily(RocksDbSettings settings) {
+    return settings.isColumnFamily() && comparator == null;
   }
 
   @Override
   public RocksDbDataSourceImpl newInstance() {
-    return new RocksDbDataSourceImpl(parentPath, dataBaseName, RocksDbSettings.getSettings());
+    return new RocksDbDataSourceImpl(parentPath, dataBaseName, RocksDbSettings.getSettings(),
+        comparator, prefixLength);
   }
 
 
@@ -561,7 +694,8 @@ public class RocksDbDataSourceImpl extends DbStat implements DbSourceInter<byte[
       if (!isAlive()) {
         return Collections.emptyList();
       }
-      String stat = database.getProperty("rocksdb.levelstats");
+      String stat = handle == null ? database.getProperty("rocksdb.levelstats")
+          : database.getProperty(handle, "rocksdb.levelstats");
       String[] stats = stat.split("\n");
       return Arrays.stream(stats).skip(2).collect(Collectors.toList());
     } finally {
@@ -19,6 +19,7 @@ import com.google.common.primitives.Longs;
 import com.google.protobuf.ByteString;
 import com.google.protobuf.CodedInputStream;
 import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.UnsafeByteOperations;
 import java.security.SignatureException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -36,6 +37,7 @@ import org.tron.common.utils.ByteArray;
 import org.tron.common.utils.Sha256Hash;
 import org.tron.common.utils.Time;
 import org.tron.core.capsule.utils.MerkleTree;
+import org.tron.core.capsule.utils.ProtoWire;
 import org.tron.core.config.Parameter.ChainConstant;
 import org.tron.core.exception.BadItemException;
 import org.tron.core.exception.ValidateSignatureException;
@@ -56,6 +58,13 @@ public class BlockCapsule implements ProtoCapsule<Block> {
 
   private Block block;
   private List<TransactionCapsule> transactions = new ArrayList<>();
+  // the witness recovered from the signature of the block it was recovered from
+  private byte[] signer;
+  private Block signerOf;
+  // the bytes the header raw data was parsed from, kept only if they are its serialization,
+  // hashed in place of serializing it again
+  private ByteString rawWire;
+  private Block wireOf;
   private StringBuilder toStringBuff = new StringBuilder();
   private boolean isSwitch;
   @Getter
@@ -123,6 +132,7 @@ public class BlockCapsule implements ProtoCapsule<Block> {
     try {
       this.block = Block.parseFrom(data);
       initTxs();
+      setWire(data);
     } catch (InvalidProtocolBufferException e) {
       throw new BadItemException("Block proto data parse exception");
     }
@@ -137,6 +147,42 @@ public class BlockCapsule implements ProtoCapsule<Block> {
       throw new BadItemException("Block proto data parse exception");
     }
   }
+  /**
+   * Parse the block from the stream, which reads the given bytes.
+   */
+  public BlockCapsule(CodedInputStream codedInputStream, byte[] data) throws BadItemException {
+    try {
+      this.block = Block.parseFrom(codedInputStream);
+      initTxs();
+      setWire(data);
+    } catch (Exception e) {
+      logger.error("constructor block error : {}", e.getMessage());
+      throw new BadItemException("Block proto data parse exception");
+    }
+  }
+
+  /**
+   * Keep copies of the bytes the header raw data and the transactions were parsed from, the
+   * block bytes themselves are not kept.
+   */
+  private void setWire(byte[] data) {
+    ByteString wire = UnsafeByteOperations.unsafeWrap(data);
+    ByteString header = ProtoWire.getField(wire, Block.BLOCK_HEADER_FIELD_NUMBER);
+    ByteString raw = header == null ? null
+        : ProtoWire.getField(header, BlockHeader.RAW_DATA_FIELD_NUMBER);
+    if (raw != null && ProtoWire.isCanonical(raw, BlockHeader.raw.getDescriptor())) {
+      this.rawWire = UnsafeByteOperations.unsafeWrap(raw.toByteArray());
+    }
+    this.wireOf = this.block;
+
+    List<ByteString> txs = ProtoWire.getFields(wire, Block.TRANSACTIONS_FIELD_NUMBER);
+    if (txs.size() == transactions.size()) {
+      for (int i = 0; i < txs.size(); i++) {
+        transactions.get(i).setWire(UnsafeByteOperations.unsafeWrap(txs.get(i).toByteArray()));
+      }
+    }
+  }
+
 
   public void addTransaction(TransactionCapsule pendingTrx) {
     this.block = this.block.toBuilder().addTransactions(pendingTrx.getInstance()).build();
@@ -175,17 +221,42 @@ public class BlockCapsule implements ProtoCapsule<Block> {
   }
 
   private Sha256Hash getRawHash() {
+    if (wireOf == this.block && rawWire != null) {
+      return Sha256Hash.of(CommonParameter.getInstance().isECKeyCryptoEngine(), rawWire);
+    }
     return Sha256Hash.of(CommonParameter.getInstance().isECKeyCryptoEngine(),
         this.block.getBlockHeader().getRawData().toByteArray());
   }
 
+  /**
+   * Recover the witness that signed the block and the signers of its transactions ahead of
+   * validating them, which needs the state as of the block. A malformed signature is left for
+   * validation to report.
+   */
+  public void recoverSigners() {
+    if (signerOf != block) {
+      try {
+        Block signed = block;
+        signer = recoverSigner();
+        signerOf = signed;
+      } catch (SignatureException | RuntimeException e) {
+        logger.debug("Recover signer of block {} failed, {}", getNum(), e.getMessage());
+      }
+    }
+    TransactionCapsule.recoverSigners(getTransactions());
+  }
+
+  private byte[] recoverSigner() throws SignatureException {
+    return SignUtils.signatureToAddress(getRawHash().getBytes(),
+        TransactionCapsule.getBase64FromByteString(
+            block.getBlockHeader().getWitnessSignature()),
+        CommonParameter.getInstance().isECKeyCryptoEngine());
+  }
+
   public boolean validateSignature(DynamicPropertiesStore dynamicPropertiesStore,
       AccountStore accountStore) throws ValidateSignatureException {
     try {
-      byte[] sigAddress = SignUtils.signatureToAddress(getRawHash().getBytes(),
-          TransactionCapsule.getBase64FromByteString(
-              block.getBlockHeader().getWitnessSignature()),
-          CommonParameter.getInstance().isECKeyCryptoEngine());
+      byte[] sigAddress = signerOf == block ? signer : recoverSigner();
       byte[] witnessAccountAddress = block.getBlockHeader().getRawData().getWitnessAddress()
           .toByteArray();
 
@@ -204,9 +275,7 @@ public class BlockCapsule implements ProtoCapsule<Block> {
 
   public BlockId getBlockId() {
     if (blockId.equals(Sha256Hash.ZERO_HASH)) {
-      blockId =
-          new BlockId(Sha256Hash.of(CommonParameter.getInstance().isECKeyCryptoEngine(),
-              this.block.getBlockHeader().getRawData().toByteArray()), getNum());
+      blockId = new BlockId(getRawHash(), getNum());
     }
     return blockId;
   }
@@ -218,10 +287,15 @@ public class BlockCapsule implements ProtoCapsule<Block> {
       return Sha256Hash.ZERO_HASH;
     }
 
-    ArrayList<Sha256Hash> ids = transactionsList.stream()
-        .map(TransactionCapsule::new)
-        .map(TransactionCapsule::getMerkleHash)
-        .collect(Collectors.toCollection(ArrayList::new));
+    // the capsules of the transactions as they are in the block hash the bytes they came in
+    ArrayList<Sha256Hash> ids = new ArrayList<>(transactionsList.size());
+    for (int i = 0; i < transactionsList.size(); i++) {
+      Transaction trx = transactionsList.get(i);
+      TransactionCapsule capsule = i < transactions.size()
+          && transactions.get(i).getInstance() == trx
+          ? transactions.get(i) : new TransactionCapsule(trx);
+      ids.add(capsule.getMerkleHash());
+    }
 
     return MerkleTree.getInstance().createTree(ids).getRoot().getHash();
   }
@@ -27,29 +27,41 @@ import com.google.protobuf.CodedOutputStream;
 import com.google.protobuf.GeneratedMessageV3;
 import com.google.protobuf.Internal;
 import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.UnsafeByteOperations;
 import java.io.IOException;
 import java.security.SignatureException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.ArrayUtils;
+import org.tron.common.cache.CacheManager;
+import org.tron.common.cache.CacheType;
+import org.tron.common.cache.TronCache;
 import org.tron.common.crypto.ECKey.ECDSASignature;
 import org.tron.common.crypto.SignInterface;
 import org.tron.common.crypto.SignUtils;
+import org.tron.common.crypto.SignatureInterface;
 import org.tron.common.overlay.message.Message;
 import org.tron.common.parameter.CommonParameter;
+import org.tron.common.prometheus.MetricKeys;
+import org.tron.common.prometheus.MetricLabels;
+import org.tron.common.prometheus.Metrics;
 import org.tron.common.utils.ByteArray;
 import org.tron.common.utils.ForkController;
 import org.tron.common.utils.ReflectUtils;
 import org.tron.common.utils.Sha256Hash;
 import org.tron.core.actuator.TransactionFactory;
+import org.tron.core.capsule.utils.ProtoWire;
 import org.tron.core.config.Parameter;
 import org.tron.core.db.TransactionContext;
 import org.tron.core.db.TransactionTrace;
@@ -91,9 +103,32 @@ public class TransactionCapsule implements ProtoCapsule<Transaction> {
           .getValidContractProtoThreadNum());
   private static final String OWNER_ADDRESS = "ownerAddress_";
 
+  /**
+   * The signers of transactions whose signatures were validated, so that a transaction checked
+   * while pending is not recovered again when its block is applied. Null when disabled.
+   */
+  private static final TronCache<SignersKey, List<byte[]>> SIGNERS_CACHE =
+      CommonParameter.getInstance().getSignatureCacheSize() <= 0 ? null
+          : CacheManager.allocate(CacheType.signers, String.format(
+              "initialCapacity=%d,maximumSize=%d,concurrencyLevel=%d,recordStats",
+              Math.min(1000, CommonParameter.getInstance().getSignatureCacheSize()),
+              CommonParameter.getInstance().getSignatureCacheSize(),
+              Runtime.getRuntime().availableProcessors()));
+
   private Transaction transaction;
   @Setter
   private boolean isVerified = false;
+  /**
+   * The addresses recovered from the signatures of the transaction they were recovered from,
+   * in signature order, so that validation only has to check them against the permission.
+   */
+  private List<byte[]> signers;
+  private Transaction signersOf;
+  // the bytes the transaction and its raw data were parsed from, each kept only if it is their
+  // serialization, hashed in place of serializing them again
+  private ByteString wire;
+  private ByteString rawWire;
+  private Transaction wireOf;
   @Setter
   @Getter
   private long blockNum = -1;
@@ -139,6 +174,7 @@ public class TransactionCapsule implements ProtoCapsule<Transaction> {
     } catch (Exception e) {
       throw new BadItemException("Transaction proto data parse exception");
     }
+    setWire(UnsafeByteOperations.unsafeWrap(data));
   }
 
   public TransactionCapsule(CodedInputStream codedInputStream) throws BadItemException {
@@ -149,6 +185,15 @@ public class TransactionCapsule implements ProtoCapsule<Transaction> {
     }
   }
 
+  /**
+   * Parse the transaction from the stream, which reads the given bytes.
+   */
+  public TransactionCapsule(CodedInputStream codedInputStream, byte[] data)
+      throws BadItemException {
+    this(codedInputStream);
+    setWire(UnsafeByteOperations.unsafeWrap(data));
+  }
+
   public TransactionCapsule(AccountCreateContract contract, AccountStore accountStore) {
     AccountCapsule account = accountStore.get(contract.getOwnerAddress().toByteArray());
     if (account != null && account.getType() == contract.getType()) {
@@ -223,6 +268,12 @@ public class TransactionCapsule implements ProtoCapsule<Transaction> {
   public static long checkWeight(Permission permission, List<ByteString> sigs, byte[] hash,
       List<ByteString> approveList)
       throws SignatureException, PermissionException, SignatureFormatException {
+    return checkWeight(permission, sigs, null, hash, approveList);
+  }
+
+  private static long checkWeight(Permission permission, List<ByteString> sigs,
+      List<byte[]> signers, byte[] hash, List<ByteString> approveList)
+      throws SignatureException, PermissionException, SignatureFormatException {
     long currentWeight = 0;
     if (sigs.size() > permission.getKeysCount()) {
       throw new PermissionException(
@@ -230,13 +281,14 @@ public class TransactionCapsule implements ProtoCapsule<Transaction> {
               + permission.getKeysCount());
     }
     HashMap addMap = new HashMap();
-    for (ByteString sig : sigs) {
+    for (int i = 0; i < sigs.size(); i++) {
+      ByteString sig = sigs.get(i);
       if (sig.size() < 65) {
         throw new SignatureFormatException(
             "Signature size is " + sig.size());
       }
       String base64 = TransactionCapsule.getBase64FromByteString(sig);
-      byte[] address = SignUtils
+      byte[] address = signers != null ? signers.get(i) : SignUtils
           .signatureToAddress(hash, base64, CommonParameter.getInstance().isECKeyCryptoEngine());
       long weight = getWeight(permission, address);
       if (weight == 0) {
@@ -460,6 +512,12 @@ public class TransactionCapsule implements ProtoCapsule<Transaction> {
   public static boolean validateSignature(Transaction transaction,
       byte[] hash, AccountStore accountStore, DynamicPropertiesStore dynamicPropertiesStore)
       throws PermissionException, SignatureException, SignatureFormatException {
+    return validateSignature(transaction, null, hash, accountStore, dynamicPropertiesStore);
+  }
+
+  private static boolean validateSignature(Transaction transaction, List<byte[]> signers,
+      byte[] hash, AccountStore accountStore, DynamicPropertiesStore dynamicPropertiesStore)
+      throws PermissionException, SignatureException, SignatureFormatException {
     Transaction.Contract contract = transaction.getRawData().getContractList().get(0);
     int permissionId = contract.getPermissionId();
     byte[] owner = getOwner(contract);
@@ -480,7 +538,7 @@ public class TransactionCapsule implements ProtoCapsule<Transaction> {
       throw new PermissionException("permission isn't exit");
     }
     checkPermission(permissionId, permission, contract);
-    long weight = checkWeight(permission, transaction.getSignatureList(), hash, null);
+    long weight = checkWeight(permission, transaction.getSignatureList(), signers, hash, null);
     if (weight >= permission.getThreshold()) {
       return true;
     }
@@ -557,13 +615,37 @@ public class TransactionCapsule implements ProtoCapsule<Transaction> {
     transaction = Transaction.newBuilder().setRawData(transactionBuilder.build()).build();
   }
 
+  /**
+   * Keep the bytes the transaction was parsed from, they are hashed instead of the transaction
+   * while it is unchanged and they are its serialization. The bytes must not be shared with
+   * anything larger than the transaction, which they would keep alive.
+   */
+  void setWire(ByteString wire) {
+    ByteString raw = ProtoWire.getField(wire, Transaction.RAW_DATA_FIELD_NUMBER);
+    if (ProtoWire.isCanonical(wire, Transaction.getDescriptor())) {
+      this.wire = wire;
+      this.rawWire = raw;
+    } else {
+      this.wire = null;
+      this.rawWire = raw != null && ProtoWire.isCanonical(raw, Transaction.raw.getDescriptor())
+          ? raw : null;
+    }
+    this.wireOf = this.transaction;
+  }
+
   public Sha256Hash getMerkleHash() {
+    if (wireOf == this.transaction && wire != null) {
+      return Sha256Hash.of(CommonParameter.getInstance().isECKeyCryptoEngine(), wire);
+    }
     byte[] transBytes = this.transaction.toByteArray();
     return Sha256Hash.of(CommonParameter.getInstance().isECKeyCryptoEngine(),
         transBytes);
   }
 
   private Sha256Hash getRawHash() {
+    if (wireOf == this.transaction && rawWire != null) {
+      return Sha256Hash.of(CommonParameter.getInstance().isECKeyCryptoEngine(), rawWire);
+    }
     return Sha256Hash.of(CommonParameter.getInstance().isECKeyCryptoEngine(),
         this.transaction.getRawData().toByteArray());
   }
@@ -626,6 +708,89 @@ public class TransactionCapsule implements ProtoCapsule<Transaction> {
     }
   }
 
+  /**
+   * Recover the signers of the transaction ahead of validating its signature, which needs the
+   * state as of its turn in the block. A malformed signature is left for validation to report.
+   */
+  public void recoverSigners() {
+    recoverSigners(Collections.singletonList(this));
+  }
+
+  /**
+   * Recover the signers of the transactions together, which shares the modular inversions of
+   * the recoveries. A transaction with a signature that cannot be recovered is left for
+   * validation to report.
+   */
+  public static void recoverSigners(List<TransactionCapsule> trxs) {
+    boolean isECKeyCryptoEngine = CommonParameter.getInstance().isECKeyCryptoEngine();
+    List<TransactionCapsule> recovering = new ArrayList<>(trxs.size());
+    List<Transaction> instances = new ArrayList<>(trxs.size());
+    List<byte[]> hashes = new ArrayList<>();
+    List<SignatureInterface> signatures = new ArrayList<>();
+    for (TransactionCapsule trx : trxs) {
+      Transaction instance = trx.transaction;
+      if (trx.isVerified || trx.signersOf == instance
+          || instance.getSignatureList().stream().anyMatch(sig -> sig.size() < 65)) {
+        continue;
+      }
+      List<byte[]> cached = getCachedSigners(trx, instance);
+      if (cached != null) {
+        trx.signers = cached;
+        trx.signersOf = instance;
+        continue;
+      }
+      byte[] hash = trx.getTransactionId().getBytes();
+      for (ByteString sig : instance.getSignatureList()) {
+        byte v = sig.byteAt(64);
+        if (v < 27) {
+          v += 27; //revId -> v
+        }
+        hashes.add(hash);
+        signatures.add(SignUtils.fromComponents(sig.substring(0, 32).toByteArray(),
+            sig.substring(32, 64).toByteArray(), v, isECKeyCryptoEngine));
+      }
+      recovering.add(trx);
+      instances.add(instance);
+    }
+
+    byte[][] addresses;
+    try {
+      addresses = SignUtils.signaturesToAddresses(hashes.toArray(new byte[0][]),
+          signatures.toArray(new SignatureInterface[0]), isECKeyCryptoEngine);
+    } catch (RuntimeException e) {
+      logger.debug("Recover signers failed, {}", e.getMessage());
+      return;
+    }
+    int next = 0;
+    for (int i = 0; i < recovering.size(); i++) {
+      Transaction instance = instances.get(i);
+      List<byte[]> signers = new ArrayList<>(instance.getSignatureCount());
+      for (int j = 0; j < instance.getSignatureCount(); j++) {
+        signers.add(addresses[next++]);
+      }
+      if (!signers.contains(null)) {
+        recovering.get(i).signers = signers;
+        recovering.get(i).signersOf = instance;
+      }
+    }
+  }
+
+  private static SignersKey signersKey(TransactionCapsule trx, Transaction instance) {
+    int permissionId = instance.getRawData().getContractCount() > 0
+        ? instance.getRawData().getContract(0).getPermissionId() : 0;
+    return new SignersKey(trx.getTransactionId(), permissionId, instance.getSignatureList());
+  }
+
+  private static List<byte[]> getCachedSigners(TransactionCapsule trx, Transaction instance) {
+    if (SIGNERS_CACHE == null) {
+      return null;
+    }
+    List<byte[]> signers = SIGNERS_CACHE.getIfPresent(signersKey(trx, instance));
+    Metrics.counterInc(MetricKeys.Counter.SIGNATURE_CACHE, 1, signers != null
+        ? MetricLabels.Counter.SIGNATURE_CACHE_HIT : MetricLabels.Counter.SIGNATURE_CACHE_MISS);
+    return signers;
+  }
+
   /**
    * validate signature
    */
@@ -643,9 +808,15 @@ public class TransactionCapsule implements ProtoCapsule<Transaction> {
       }
 
       byte[] hash = getTransactionId().getBytes();
+      Transaction instance = this.transaction;
+      if (signersOf != instance) {
+        recoverSigners();
+      }
+      List<byte[]> recovered = signersOf == instance ? signers : null;
 
       try {
-        if (!validateSignature(this.transaction, hash, accountStore, dynamicPropertiesStore)) {
+        if (!validateSignature(instance, recovered, hash, accountStore,
+            dynamicPropertiesStore)) {
           isVerified = false;
           throw new ValidateSignatureException("sig error");
         }
@@ -654,6 +825,9 @@ public class TransactionCapsule implements ProtoCapsule<Transaction> {
         throw new ValidateSignatureException(e.getMessage());
       }
       isVerified = true;
+      if (SIGNERS_CACHE != null && recovered != null) {
+        SIGNERS_CACHE.put(signersKey(this, instance), recovered);
+      }
     }
     return true;
   }
@@ -839,4 +1013,17 @@ public class TransactionCapsule implements ProtoCapsule<Transaction> {
       return null;
     }
   }
+
+  /**
+   * A transaction by its id, the permission it is signed under and its signatures, which
+   * together determine the signers recovered from them.
+   */
+  @AllArgsConstructor
+  @EqualsAndHashCode
+  private static class SignersKey {
+
+    private final Sha256Hash id;
+    private final int permissionId;
+    private final List<ByteString> signatures;
+  }
 }
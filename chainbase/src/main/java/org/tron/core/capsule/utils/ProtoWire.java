@@ -0,0 +1,200 @@
+package org.tron.core.capsule.utils;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.Descriptors.Descriptor;
+import com.google.protobuf.Descriptors.FieldDescriptor;
+import com.google.protobuf.Descriptors.OneofDescriptor;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.WireFormat;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Finds the bytes a message was parsed from, so that it can be hashed as received instead of
+ * serialized again. Hashes are over the serialization of the parsed message, so the bytes can
+ * only stand in for it when they are exactly that serialization: known fields in field number
+ * order, each singular one at most once, no default valued scalars and the shortest encoding of
+ * every varint, with repeated scalars packed.
+ */
+public class ProtoWire {
+
+  private ProtoWire() {
+  }
+
+  /**
+   * Whether the bytes are what serializing the message of the type they parse to gives.
+   */
+  public static boolean isCanonical(ByteString bytes, Descriptor type) {
+    try {
+      checkMessage(bytes.newCodedInput(), type);
+      return true;
+    } catch (IOException | RuntimeException e) {
+      return false;
+    }
+  }
+
+  /**
+   * The bytes of each occurrence of the length delimited field, in order, as slices of the
+   * message bytes. Empty if the bytes are malformed.
+   */
+  public static List<ByteString> getFields(ByteString bytes, int number) {
+    List<ByteString> fields = new ArrayList<>();
+    try {
+      CodedInputStream in = bytes.newCodedInput();
+      while (!in.isAtEnd()) {
+        int tag = in.readTag();
+        if (WireFormat.getTagFieldNumber(tag) == number
+            && WireFormat.getTagWireType(tag) == WireFormat.WIRETYPE_LENGTH_DELIMITED) {
+          int length = in.readRawVarint32();
+          int start = in.getTotalBytesRead();
+          fields.add(bytes.substring(start, start + length));
+          in.skipRawBytes(length);
+        } else {
+          in.skipField(tag);
+        }
+      }
+    } catch (IOException | RuntimeException e) {
+      return Collections.emptyList();
+    }
+    return fields;
+  }
+
+  /**
+   * The bytes of a singular message field, empty if it is not set, null if it occurs more than
+   * once as the parsed message is then merged from all of them.
+   */
+  public static ByteString getField(ByteString bytes, int number) {
+    List<ByteString> fields = getFields(bytes, number);
+    if (fields.size() > 1) {
+      return null;
+    }
+    return fields.isEmpty() ? ByteString.EMPTY : fields.get(0);
+  }
+
+  private static void checkMessage(CodedInputStream in, Descriptor type) throws IOException {
+    int last = 0;
+    List<OneofDescriptor> oneofs = null;
+    while (!in.isAtEnd()) {
+      int start = in.getTotalBytesRead();
+      int tag = in.readTag();
+      check(in.getTotalBytesRead() - start == CodedOutputStream.computeUInt32SizeNoTag(tag));
+      int number = WireFormat.getTagFieldNumber(tag);
+      FieldDescriptor field = type.findFieldByNumber(number);
+      check(field != null && !field.isMapField() && number >= last);
+      check(number > last || field.isRepeated() && !field.isPacked());
+      last = number;
+
+      OneofDescriptor oneof = field.getRealContainingOneof();
+      if (oneof != null) {
+        if (oneofs == null) {
+          oneofs = new ArrayList<>();
+        }
+        check(!oneofs.contains(oneof));
+        oneofs.add(oneof);
+      }
+
+      if (field.isPacked()) {
+        check(WireFormat.getTagWireType(tag) == WireFormat.WIRETYPE_LENGTH_DELIMITED);
+        int length = readLength(in);
+        check(length > 0);
+        int limit = in.pushLimit(length);
+        while (!in.isAtEnd()) {
+          checkValue(in, field, false);
+        }
+        in.popLimit(limit);
+      } else {
+        check(WireFormat.getTagWireType(tag) == field.getLiteType().getWireType());
+        checkValue(in, field, !field.isRepeated() && !field.hasPresence());
+      }
+    }
+  }
+
+  /**
+   * Check one value of the field, omitted whether a default value would not have been written.
+   */
+  private static void checkValue(CodedInputStream in, FieldDescriptor field, boolean omitted)
+      throws IOException {
+    switch (field.getType()) {
+      case MESSAGE: {
+        int limit = in.pushLimit(readLength(in));
+        checkMessage(in, field.getMessageType());
+        in.popLimit(limit);
+        return;
+      }
+      case BYTES:
+      case STRING: {
+        int length = readLength(in);
+        in.skipRawBytes(length);
+        check(!omitted || length > 0);
+        return;
+      }
+      case INT32:
+      case ENUM: {
+        long value = readVarint(in);
+        check(value == (int) value && (!omitted || value != 0));
+        return;
+      }
+      case UINT32:
+      case SINT32: {
+        long value = readVarint(in);
+        check(value == (value & 0xFFFFFFFFL) && (!omitted || value != 0));
+        return;
+      }
+      case BOOL: {
+        long value = readVarint(in);
+        check((value == 0 || value == 1) && (!omitted || value != 0));
+        return;
+      }
+      case INT64:
+      case UINT64:
+      case SINT64: {
+        long value = readVarint(in);
+        check(!omitted || value != 0);
+        return;
+      }
+      case FIXED32:
+      case SFIXED32:
+      case FLOAT: {
+        int value = in.readRawLittleEndian32();
+        check(field.getType() != FieldDescriptor.Type.FLOAT
+            || !Float.isNaN(Float.intBitsToFloat(value)));
+        check(!omitted || value != 0);
+        return;
+      }
+      case FIXED64:
+      case SFIXED64:
+      case DOUBLE: {
+        long value = in.readRawLittleEndian64();
+        check(field.getType() != FieldDescriptor.Type.DOUBLE
+            || !Double.isNaN(Double.longBitsToDouble(value)));
+        check(!omitted || value != 0);
+        return;
+      }
+      default:
+        check(false);
+    }
+  }
+
+  private static long readVarint(CodedInputStream in) throws IOException {
+    int start = in.getTotalBytesRead();
+    long value = in.readRawVarint64();
+    check(in.getTotalBytesRead() - start == CodedOutputStream.computeUInt64SizeNoTag(value));
+    return value;
+  }
+
+  private static int readLength(CodedInputStream in) throws IOException {
+    long length = readVarint(in);
+    check(length >= 0 && length <= Integer.MAX_VALUE);
+    return (int) length;
+  }
+
+  private static void check(boolean canonical) throws InvalidProtocolBufferException {
+    if (!canonical) {
+      throw new InvalidProtocolBufferException("not canonical");
+    }
+  }
+}
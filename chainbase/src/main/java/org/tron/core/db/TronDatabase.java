@@ -52,7 +52,7 @@ public abstract class TronDatabase<T> implements ITronChainBase<T> {
           CommonParameter.getInstance().getStorage().getDbDirectory()).toString();
       dbSource =
           new RocksDbDataSourceImpl(parentName, dbName, CommonParameter.getInstance()
-              .getRocksDBCustomSettings(), getDirectComparator());
+              .getRocksDBCustomSettings(), getDirectComparator(), getKeyPrefixLength());
     }
 
     dbSource.initDB();
@@ -74,6 +74,14 @@ public abstract class TronDatabase<T> implements ITronChainBase<T> {
     return null;
   }
 
+  /**
+   * The length of the key prefix that the prefix queries of this store share, 0 if keys have no
+   * such prefix. RocksDB stores build prefix bloom filters on it and confine those queries to it.
+   */
+  protected int getKeyPrefixLength() {
+    return 0;
+  }
+
   public DbSourceInter<byte[]> getDbSource() {
     return dbSource;
   }
@@ -8,6 +8,8 @@ import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Objects;
@@ -40,7 +42,7 @@ import org.tron.core.exception.ItemNotFoundException;
 @Slf4j(topic = "DB")
 public abstract class TronStoreWithRevoking<T extends ProtoCapsule> implements ITronChainBase<T> {
 
-  @Getter // only for unit test
+  @Getter
   protected IRevokingDB revokingDB;
   private TypeToken<T> token = new TypeToken<T>(getClass()) {
   };
@@ -70,7 +72,7 @@ public abstract class TronStoreWithRevoking<T extends ProtoCapsule> implements I
       this.db =  new RocksDB(
           new RocksDbDataSourceImpl(parentPath,
               dbName, CommonParameter.getInstance()
-              .getRocksDBCustomSettings(), getDirectComparator()));
+              .getRocksDBCustomSettings(), getDirectComparator(), getKeyPrefixLength()));
     } else {
       throw new RuntimeException(String.format("db engine %s is error", dbEngine));
     }
@@ -85,6 +87,14 @@ public abstract class TronStoreWithRevoking<T extends ProtoCapsule> implements I
     return null;
   }
 
+  /**
+   * The length of the key prefix that the prefix queries of this store share, 0 if keys have no
+   * such prefix. RocksDB stores build prefix bloom filters on it and confine those queries to it.
+   */
+  protected int getKeyPrefixLength() {
+    return 0;
+  }
+
   protected TronStoreWithRevoking(DB<byte[], byte[]> db) {
     this.db = db;
     this.revokingDB = new Chainbase(new SnapshotRoot(db));
@@ -131,6 +141,34 @@ public abstract class TronStoreWithRevoking<T extends ProtoCapsule> implements I
     }
   }
 
+  /**
+   * Read several keys in one batch, missing keys are left out of the result.
+   */
+  public Map<WrappedByteArray, T> getAll(Collection<byte[]> keys) {
+    Map<WrappedByteArray, byte[]> values = revokingDB.getAll(keys);
+    Map<WrappedByteArray, T> result = new HashMap<>(values.size());
+    for (Map.Entry<WrappedByteArray, byte[]> entry : values.entrySet()) {
+      try {
+        result.put(entry.getKey(), of(entry.getValue()));
+      } catch (BadItemException e) {
+        throw new RuntimeException(e);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Load the keys a block is expected to read into the root cache, the reads of the block are
+   * counted against them until {@link #endPrefetch}.
+   */
+  public void prefetch(Collection<byte[]> keys) {
+    ((Chainbase) revokingDB).prefetch(keys);
+  }
+
+  public void endPrefetch() {
+    ((Chainbase) revokingDB).endPrefetch();
+  }
+
   @Override
   public T getFromRoot(byte[] key) throws ItemNotFoundException, BadItemException{
     return of(revokingDB.getFromRoot(key)) ;
@@ -19,6 +19,7 @@ package org.tron.core.db.common;
 
 import org.tron.core.db2.common.WrappedByteArray;
 
+import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
 
@@ -48,4 +49,9 @@ public interface DbSourceInter<V> extends BatchSourceInter<byte[], V>,
 
   Map<WrappedByteArray, byte[]> prefixQuery(byte[] key);
 
+  /**
+   * Read several keys at once, missing keys are left out of the result.
+   */
+  Map<WrappedByteArray, byte[]> getAll(Collection<byte[]> keys);
+
 }
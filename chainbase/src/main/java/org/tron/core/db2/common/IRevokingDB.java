@@ -1,5 +1,6 @@
 package org.tron.core.db2.common;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -21,6 +22,11 @@ public interface IRevokingDB extends Iterable<Map.Entry<byte[], byte[]>> {
 
   byte[] getUnchecked(byte[] key);
 
+  /**
+   * Read several keys at once, missing and deleted keys are left out of the result.
+   */
+  Map<WrappedByteArray, byte[]> getAll(Collection<byte[]> keys);
+
   void close();
 
   void reset();
@@ -0,0 +1,297 @@
+package org.tron.core.db2.common;
+
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Maps;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Snapshot layer storage that keeps values in direct memory chunks instead of one heap array per
+ * value. The whole arena is given back at once by {@link #close()}, when the layer has been
+ * merged away or revoked. Released chunks are pooled for the next layers.
+ *
+ * <p>A value written again over one that fits in its slot overwrites it in place, as the same
+ * records of a block are usually rewritten with the same size. Slots left behind by larger or
+ * removed values are reclaimed by copying the live records to new chunks once they take more
+ * space than the live ones. A read copies the value out of its slot once, into the array the
+ * returned {@link Value} hands out.
+ *
+ * <p>Record layout: [int capacity][int length][operator][value bytes], length is -1 for a null
+ * value.
+ */
+public class OffHeapDB implements DB<Key, Value> {
+
+  private static final int CHUNK_SIZE = 1024 * 1024;
+  private static final int MAX_POOLED_CHUNKS = 64;
+  private static final int HEADER_SIZE = 2 * Integer.BYTES + 1;
+  private static final BlockingQueue<ByteBuffer> POOL = new ArrayBlockingQueue<>(MAX_POOLED_CHUNKS);
+
+  private final Map<Key, Long> db = new ConcurrentHashMap<>();
+  private final List<ByteBuffer> chunks = new ArrayList<>();
+  private final StampedLock lock = new StampedLock();
+  private final String name;
+  private ByteBuffer current;
+  // bytes of the records of the arena, and of those no longer referenced
+  private long used;
+  private long dead;
+  private volatile boolean released;
+
+  public OffHeapDB(String name) {
+    this.name = name;
+  }
+
+  @Override
+  public Value get(Key key) {
+    long stamp = lock.tryOptimisticRead();
+    if (stamp != 0) {
+      try {
+        Value value = read(key, stamp);
+        if (lock.validate(stamp)) {
+          return value;
+        }
+      } catch (RuntimeException e) {
+        // the arena was released or compacted while reading, check again under the lock
+      }
+    }
+    stamp = lock.readLock();
+    try {
+      return read(key, 0);
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  @Override
+  public synchronized void put(Key key, Value value) {
+    if (released) {
+      return;
+    }
+    byte[] bytes = value.getBytes();
+    int length = bytes == null ? 0 : bytes.length;
+    Long address = db.get(key);
+    if (address != null) {
+      ByteBuffer chunk = chunks.get(chunkOf(address));
+      int capacity = chunk.getInt(offsetOf(address));
+      if (length <= capacity) {
+        long stamp = lock.writeLock();
+        try {
+          write(chunk, offsetOf(address) + Integer.BYTES, value.getOperator(), bytes);
+        } finally {
+          lock.unlockWrite(stamp);
+        }
+        return;
+      }
+      dead += HEADER_SIZE + capacity;
+    }
+    db.put(key, append(value.getOperator(), bytes));
+    compactIfSparse();
+  }
+
+  @Override
+  public long size() {
+    return db.size();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return db.isEmpty();
+  }
+
+  @Override
+  public synchronized void remove(Key key) {
+    Long address = db.remove(key);
+    if (address != null && !released) {
+      dead += HEADER_SIZE + chunks.get(chunkOf(address)).getInt(offsetOf(address));
+      compactIfSparse();
+    }
+  }
+
+  @Override
+  public String getDbName() {
+    return name;
+  }
+
+  @Override
+  public Iterator<Map.Entry<Key, Value>> iterator() {
+    return Iterators.filter(Iterators.transform(db.keySet().iterator(), k -> {
+      Value value = get(k);
+      return value == null ? null : Maps.immutableEntry(k, value);
+    }), Objects::nonNull);
+  }
+
+  /**
+   * Release the whole arena, later reads see an empty layer.
+   */
+  @Override
+  public synchronized void close() {
+    long stamp = lock.writeLock();
+    try {
+      if (released) {
+        return;
+      }
+      released = true;
+      db.clear();
+      release(chunks);
+      chunks.clear();
+      current = null;
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  @Override
+  public OffHeapDB newInstance() {
+    return new OffHeapDB(name);
+  }
+
+  @Override
+  public void stat() {
+
+  }
+
+  /**
+   * @return the bytes of direct memory held by the arena.
+   */
+  public synchronized long arenaSize() {
+    return chunks.stream().mapToLong(ByteBuffer::capacity).sum();
+  }
+
+  /**
+   * @param stamp of the optimistic read, or 0 under the read lock. An optimistic read may find
+   *     the slot of a chunk compacted, released or reused since, so it checks the record fits
+   *     its slot and validates the stamp before allocating the value.
+   */
+  private Value read(Key key, long stamp) {
+    if (released) {
+      return null;
+    }
+    Long address = db.get(key);
+    if (address == null) {
+      return null;
+    }
+    ByteBuffer chunk = chunks.get(chunkOf(address)).duplicate();
+    chunk.position(offsetOf(address));
+    int capacity = chunk.getInt();
+    int length = chunk.getInt();
+    Value.Operator operator = Value.Operator.valueOf(chunk.get());
+    if (length < -1 || length > capacity || length > chunk.remaining()
+        || (stamp != 0 && !lock.validate(stamp))) {
+      throw new IllegalStateException("record of " + name + " changed while read");
+    }
+    if (length < 0) {
+      return Value.of(operator, null);
+    }
+    byte[] bytes = new byte[length];
+    chunk.get(bytes);
+    return Value.own(operator, bytes);
+  }
+
+  /**
+   * Write a record at the end of the arena, with a slot just large enough for the value.
+   */
+  private long append(Value.Operator operator, byte[] bytes) {
+    int length = bytes == null ? 0 : bytes.length;
+    ByteBuffer chunk = allocate(HEADER_SIZE + length);
+    int offset = chunk.position();
+    chunk.putInt(offset, length);
+    write(chunk, offset + Integer.BYTES, operator, bytes);
+    chunk.position(offset + HEADER_SIZE + length);
+    used += HEADER_SIZE + length;
+    return ((long) (chunks.size() - 1) << 32) | offset;
+  }
+
+  private static void write(ByteBuffer chunk, int offset, Value.Operator operator,
+      byte[] bytes) {
+    ByteBuffer record = chunk.duplicate();
+    record.position(offset);
+    record.putInt(bytes == null ? -1 : bytes.length);
+    record.put(operator.getValue());
+    if (bytes != null) {
+      record.put(bytes);
+    }
+  }
+
+  /**
+   * Copy the live records to new chunks once the dead ones take more than a chunk and more
+   * space than the live ones, then pool the old chunks.
+   */
+  private void compactIfSparse() {
+    if (dead <= CHUNK_SIZE || dead <= used - dead) {
+      return;
+    }
+    long stamp = lock.writeLock();
+    try {
+      List<ByteBuffer> old = new ArrayList<>(chunks);
+      chunks.clear();
+      current = null;
+      used = 0;
+      dead = 0;
+      for (Map.Entry<Key, Long> e : db.entrySet()) {
+        ByteBuffer record = old.get(chunkOf(e.getValue())).duplicate();
+        record.position(offsetOf(e.getValue()) + Integer.BYTES);
+        int length = record.getInt();
+        Value.Operator operator = Value.Operator.valueOf(record.get());
+        byte[] bytes = null;
+        if (length >= 0) {
+          bytes = new byte[length];
+          record.get(bytes);
+        }
+        e.setValue(append(operator, bytes));
+      }
+      release(old);
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  private static void release(List<ByteBuffer> released) {
+    released.forEach(chunk -> {
+      if (chunk.capacity() == CHUNK_SIZE) {
+        chunk.clear();
+        POOL.offer(chunk);
+      }
+    });
+  }
+
+  /**
+   * @return the chunk with room for {@code size} bytes at its position, it is added to the
+   *     arena under the write lock unless the caller holds it already.
+   */
+  private ByteBuffer allocate(int size) {
+    if (current != null && current.remaining() >= size) {
+      return current;
+    }
+    ByteBuffer chunk = size > CHUNK_SIZE ? ByteBuffer.allocateDirect(size) : POOL.poll();
+    if (chunk == null) {
+      chunk = ByteBuffer.allocateDirect(CHUNK_SIZE);
+    }
+    if (lock.isWriteLocked()) {
+      chunks.add(chunk);
+    } else {
+      long stamp = lock.writeLock();
+      try {
+        chunks.add(chunk);
+      } finally {
+        lock.unlockWrite(stamp);
+      }
+    }
+    current = chunk;
+    return chunk;
+  }
+
+  private static int chunkOf(long address) {
+    return (int) (address >>> 32);
+  }
+
+  private static int offsetOf(long address) {
+    return (int) address;
+  }
+}
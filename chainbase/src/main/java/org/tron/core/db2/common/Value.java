@@ -4,16 +4,23 @@ import java.util.Arrays;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 
-@EqualsAndHashCode(exclude = "operator")
+@EqualsAndHashCode(exclude = {"operator", "owned"})
 public final class Value {
 
   @Getter
   final private Operator operator;
   final private WrappedByteArray data;
+  // the data is referenced by nothing else, so it is handed out without a copy
+  final private boolean owned;
 
   private Value(Operator operator, WrappedByteArray data) {
+    this(operator, data, false);
+  }
+
+  private Value(Operator operator, WrappedByteArray data, boolean owned) {
     this.operator = operator;
     this.data = data;
+    this.owned = owned;
   }
 
   public static Value decode(byte[] bytes) {
@@ -33,6 +40,15 @@ public final class Value {
     return new Value(operator, WrappedByteArray.of(data));
   }
 
+  /**
+   * A value taking over {@code data}, a fresh array no one else references, which
+   * {@link #getBytes()} then returns as is. For values read out of storage that keeps no heap
+   * array per value, each read already making its own copy.
+   */
+  public static Value own(Operator operator, byte[] data) {
+    return new Value(operator, WrappedByteArray.of(data), true);
+  }
+
   public byte[] encode() {
     if (data.getBytes() == null) {
       return new byte[]{operator.getValue()};
@@ -46,8 +62,8 @@ public final class Value {
 
   public byte[] getBytes() {
     byte[] value = data.getBytes();
-    if (value == null) {
-      return null;
+    if (value == null || owned) {
+      return value;
     }
 
     return Arrays.copyOf(value, value.length);
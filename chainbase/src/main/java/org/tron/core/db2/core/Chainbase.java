@@ -1,8 +1,8 @@
 package org.tron.core.db2.core;
 
-import com.google.common.collect.Maps;
 import com.google.common.collect.Streams;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -12,7 +12,6 @@ import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
-import org.tron.common.utils.ByteUtil;
 import org.tron.common.utils.Pair;
 import org.tron.core.capsule.utils.MarketUtils;
 import org.tron.core.db2.common.IRevokingDB;
@@ -120,13 +119,41 @@ public class Chainbase implements IRevokingDB {
   }
 
   @Override
-  public synchronized void put(byte[] key, byte[] value) {
-    head().put(key, value);
+  public void put(byte[] key, byte[] value) {
+    Speculation speculation = Speculation.current();
+    if (speculation != null) {
+      speculation.put(this, key, value);
+      return;
+    }
+    synchronized (this) {
+      head().put(key, value);
+    }
   }
 
   @Override
-  public synchronized void delete(byte[] key) {
-    head().remove(key);
+  public void delete(byte[] key) {
+    Speculation speculation = Speculation.current();
+    if (speculation != null) {
+      speculation.put(this, key, null);
+      return;
+    }
+    synchronized (this) {
+      head().remove(key);
+    }
+  }
+
+  /**
+   * Add to a counter stored as a long when a speculation is bound to the current thread. The
+   * amount is kept as a delta, so transactions that only add to the counter do not conflict on
+   * it. Returns false, changing nothing, when there is no speculation.
+   */
+  public boolean addSpeculatively(byte[] key, long amount) {
+    Speculation speculation = Speculation.current();
+    if (speculation == null) {
+      return false;
+    }
+    speculation.add(this, key, amount);
+    return true;
   }
 
   @Override
@@ -150,9 +177,62 @@ public class Chainbase implements IRevokingDB {
 
   @Override
   public byte[] getUnchecked(byte[] key) {
+    Speculation speculation = Speculation.current();
+    if (speculation != null) {
+      return speculation.get(this, key);
+    }
     return head().get(key);
   }
 
+  byte[] getHeadUnchecked(byte[] key) {
+    return head().get(key);
+  }
+
+  /**
+   * Keys written by the uncommitted snapshots are answered by them, the others are read from the
+   * root in one batch.
+   */
+  @Override
+  public Map<WrappedByteArray, byte[]> getAll(Collection<byte[]> keys) {
+    if (Speculation.current() != null) {
+      Map<WrappedByteArray, byte[]> result = new HashMap<>();
+      for (byte[] key : keys) {
+        byte[] value = getUnchecked(key);
+        if (value != null) {
+          result.put(WrappedByteArray.of(key), value);
+        }
+      }
+      return result;
+    }
+    Snapshot snapshot = head();
+    Map<WrappedByteArray, byte[]> result = new HashMap<>();
+    List<byte[]> fromRoot = new ArrayList<>();
+    for (byte[] key : keys) {
+      Value value = Snapshot.isImpl(snapshot) ? ((SnapshotImpl) snapshot).getValue(key) : null;
+      if (value == null) {
+        fromRoot.add(key);
+      } else if (value.getBytes() != null) {
+        result.put(WrappedByteArray.of(key), value.getBytes());
+      }
+    }
+    if (!fromRoot.isEmpty()) {
+      result.putAll(((SnapshotRoot) snapshot.getRoot()).getAll(fromRoot));
+    }
+    return result;
+  }
+
+  /**
+   * Load the keys a block is expected to read into the root cache, see
+   * {@link SnapshotRoot#prefetch}.
+   */
+  public void prefetch(Collection<byte[]> keys) {
+    ((SnapshotRoot) head.getRoot()).prefetch(keys);
+  }
+
+  public void endPrefetch() {
+    ((SnapshotRoot) head.getRoot()).endPrefetch();
+  }
+
   @Override
   public boolean has(byte[] key) {
     return getUnchecked(key) != null;
@@ -160,11 +240,13 @@ public class Chainbase implements IRevokingDB {
 
   @Override
   public synchronized Iterator<Map.Entry<byte[], byte[]>> iterator() {
+    abortSpeculation("iterator");
     return head().iterator();
   }
 
   @Override
   public Set<byte[]> getValuesNext(byte[] key, long limit) {
+    abortSpeculation("getValuesNext");
     return getValuesNext(head(), key, limit);
   }
 
@@ -174,38 +256,17 @@ public class Chainbase implements IRevokingDB {
       return Collections.emptySet();
     }
 
-    Map<WrappedByteArray, WrappedByteArray> collection = new HashMap<>();
-    if (head.getPrevious() != null) {
-      ((SnapshotImpl) head).collect(collection);
-    }
-
-    Map<WrappedByteArray, WrappedByteArray> levelDBMap = new HashMap<>();
-
-    if (((SnapshotRoot) head.getRoot()).db.getClass() == LevelDB.class) {
-      ((LevelDB) ((SnapshotRoot) head.getRoot()).db).getDb().getNext(key, limit).entrySet().stream()
-          .map(e -> Maps
-              .immutableEntry(WrappedByteArray.of(e.getKey()), WrappedByteArray.of(e.getValue())))
-          .forEach(e -> levelDBMap.put(e.getKey(), e.getValue()));
-    } else if (((SnapshotRoot) head.getRoot()).db.getClass() == RocksDB.class) {
-      ((RocksDB) ((SnapshotRoot) head.getRoot()).db).getDb().getNext(key, limit).entrySet().stream()
-          .map(e -> Maps
-              .immutableEntry(WrappedByteArray.of(e.getKey()), WrappedByteArray.of(e.getValue())))
-          .forEach(e -> levelDBMap.put(e.getKey(), e.getValue()));
+    Set<byte[]> result = new HashSet<>();
+    Iterator<Map.Entry<byte[], byte[]>> iterator = MergedIterator.seek(head, key, limit);
+    while (iterator.hasNext() && result.size() < limit) {
+      result.add(iterator.next().getValue());
     }
-
-    levelDBMap.putAll(collection);
-
-    return levelDBMap.entrySet().stream()
-        .sorted((e1, e2) -> ByteUtil.compare(e1.getKey().getBytes(), e2.getKey().getBytes()))
-        .filter(e -> ByteUtil.greaterOrEquals(e.getKey().getBytes(), key))
-        .limit(limit)
-        .map(Map.Entry::getValue)
-        .map(WrappedByteArray::getBytes)
-        .collect(Collectors.toSet());
+    return result;
   }
 
   @Override
   public List<byte[]> getKeysNext(byte[] key, long limit) {
+    abortSpeculation("getKeysNext");
     return getKeysNext(head(), key, limit);
   }
 
@@ -275,6 +336,7 @@ public class Chainbase implements IRevokingDB {
   // for blockstore
   @Override
   public Set<byte[]> getlatestValues(long limit) {
+    abortSpeculation("getlatestValues");
     return getlatestValues(head(), limit);
   }
 
@@ -311,6 +373,7 @@ public class Chainbase implements IRevokingDB {
   // for accout-trace
   @Override
   public Map<byte[], byte[]> getNext(byte[] key, long limit) {
+    abortSpeculation("getNext");
     return getNext(head(), key, limit);
   }
 
@@ -320,36 +383,17 @@ public class Chainbase implements IRevokingDB {
       return Collections.emptyMap();
     }
 
-    Map<WrappedByteArray, WrappedByteArray> collection = new HashMap<>();
-    if (head.getPrevious() != null) {
-      ((SnapshotImpl) head).collect(collection);
-    }
-
-    Map<WrappedByteArray, WrappedByteArray> levelDBMap = new HashMap<>();
-
-    if (((SnapshotRoot) head.getRoot()).db.getClass() == LevelDB.class) {
-      ((LevelDB) ((SnapshotRoot) head.getRoot()).db).getDb().getNext(key, limit).entrySet().stream()
-          .map(e -> Maps
-              .immutableEntry(WrappedByteArray.of(e.getKey()), WrappedByteArray.of(e.getValue())))
-          .forEach(e -> levelDBMap.put(e.getKey(), e.getValue()));
-    } else if (((SnapshotRoot) head.getRoot()).db.getClass() == RocksDB.class) {
-      ((RocksDB) ((SnapshotRoot) head.getRoot()).db).getDb().getNext(key, limit).entrySet().stream()
-          .map(e -> Maps
-              .immutableEntry(WrappedByteArray.of(e.getKey()), WrappedByteArray.of(e.getValue())))
-          .forEach(e -> levelDBMap.put(e.getKey(), e.getValue()));
+    Map<byte[], byte[]> result = new HashMap<>();
+    Iterator<Map.Entry<byte[], byte[]>> iterator = MergedIterator.seek(head, key, limit);
+    while (iterator.hasNext() && result.size() < limit) {
+      Map.Entry<byte[], byte[]> e = iterator.next();
+      result.put(e.getKey(), e.getValue());
     }
-
-    levelDBMap.putAll(collection);
-
-    return levelDBMap.entrySet().stream()
-        .map(e -> Maps.immutableEntry(e.getKey().getBytes(), e.getValue().getBytes()))
-        .sorted((e1, e2) -> ByteUtil.compare(e1.getKey(), e2.getKey()))
-        .filter(e -> ByteUtil.greaterOrEquals(e.getKey(), key))
-        .limit(limit)
-        .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    return result;
   }
 
   public Map<WrappedByteArray, byte[]> prefixQuery(byte[] key) {
+    abortSpeculation("prefixQuery");
     Map<WrappedByteArray, byte[]> result = prefixQueryRoot(key);
     Map<WrappedByteArray, byte[]>  snapshot = prefixQuerySnapshot(key);
     result.putAll(snapshot);
@@ -357,6 +401,16 @@ public class Chainbase implements IRevokingDB {
     return result;
   }
 
+  /**
+   * Range reads cannot be validated key by key, a speculation that makes one is not committed.
+   */
+  private void abortSpeculation(String operation) {
+    Speculation speculation = Speculation.current();
+    if (speculation != null) {
+      throw speculation.abort(getDbName() + "." + operation);
+    }
+  }
+
   private Map<WrappedByteArray, byte[]> prefixQueryRoot(byte[] key) {
     Map<WrappedByteArray, byte[]> result = new HashMap<>();
     if (((SnapshotRoot) head.getRoot()).db.getClass() == LevelDB.class) {
@@ -0,0 +1,306 @@
+package org.tron.core.db2.core;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import lombok.extern.slf4j.Slf4j;
+import org.tron.common.parameter.CommonParameter;
+import org.tron.common.prometheus.MetricKeys;
+import org.tron.common.prometheus.Metrics;
+import org.tron.common.storage.rocksdb.ColumnFamilyDb;
+import org.tron.common.storage.rocksdb.RocksDbDataSourceImpl;
+import org.tron.core.db.common.iterator.DBIterator;
+import org.tron.core.db2.common.DB;
+import org.tron.core.db2.common.LevelDB;
+import org.tron.core.db2.common.RocksDB;
+
+/**
+ * Bloom filter of the keys of a root store, so that reads of keys that were never written return
+ * before the disk read. Keys are added before they are written to the store, deletes are not
+ * removed, so the filter only gives false positives, never false negatives.
+ *
+ * <p>The filter is written next to the store at shutdown and deleted once loaded, so after a
+ * crash it is rebuilt by a background scan of the store. Reads go to disk until it is ready.
+ * A rebuild is sized for twice the keys of the store, estimated by RocksDB or counted on
+ * LevelDB, so a single scan fills it. It is rebuilt once more keys than planned have been
+ * added.
+ */
+@Slf4j(topic = "DB")
+final class KeyFilter {
+
+  private static final String FILE_NAME = "bloom.filter";
+  private static final long MIN_CAPACITY = 1_000_000L;
+  private static final ExecutorService BUILDER = Executors.newSingleThreadExecutor(
+      new ThreadFactoryBuilder().setNameFormat("key-filter-builder").setDaemon(true).build());
+
+  private final DB<byte[], byte[]> db;
+  private final Path file;
+  private final double fpp;
+  // closes the gaps between a write and the start and the end of a rebuild scan
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final AtomicLong rejected = new AtomicLong();
+  private final AtomicLong falsePositives = new AtomicLong();
+  // null until loaded or built, then every key might be present
+  private volatile BloomFilter<byte[]> active;
+  // receives the writes made while a rebuild scans the store
+  private volatile BloomFilter<byte[]> building;
+  private volatile long capacity;
+  private volatile boolean closed;
+  private Future<?> scan;
+
+  private KeyFilter(DB<byte[], byte[]> db, Path file) {
+    this.db = db;
+    this.file = file;
+    this.fpp = CommonParameter.getInstance().getStorage().getBloomFilterFpp();
+  }
+
+  /**
+   * @return the filter of {@code db} if it is configured in {@code storage.bloomFilter.dbs},
+   *     otherwise null.
+   */
+  static KeyFilter of(DB<byte[], byte[]> db) {
+    if (!CommonParameter.getInstance().getStorage().getBloomFilterDbs()
+        .contains(db.getDbName())) {
+      return null;
+    }
+    Path file;
+    if (db.getClass() == LevelDB.class) {
+      file = ((LevelDB) db).getDb().getDbPath().resolve(FILE_NAME);
+    } else if (db.getClass() == RocksDB.class) {
+      RocksDbDataSourceImpl source = ((RocksDB) db).getDb();
+      ColumnFamilyDb shared = source.getColumnFamilyDb();
+      // a column family has no directory of its own
+      file = shared == null ? source.getDbPath().resolve(FILE_NAME)
+          : Paths.get(shared.getPath(), db.getDbName() + "." + FILE_NAME);
+    } else {
+      return null;
+    }
+    KeyFilter filter = new KeyFilter(db, file);
+    filter.load();
+    return filter;
+  }
+
+  boolean mightContain(byte[] key) {
+    BloomFilter<byte[]> filter = active;
+    if (filter == null || filter.mightContain(key)) {
+      return true;
+    }
+    rejected.incrementAndGet();
+    return false;
+  }
+
+  /**
+   * A key that passed the filter was not found in the store.
+   */
+  void falsePositive() {
+    if (active != null) {
+      falsePositives.incrementAndGet();
+    }
+  }
+
+  /**
+   * Add {@code keys} then run {@code write}, which stores them.
+   */
+  void write(Iterable<byte[]> keys, Runnable write) {
+    lock.readLock().lock();
+    try {
+      BloomFilter<byte[]> filter = active;
+      BloomFilter<byte[]> next = building;
+      for (byte[] key : keys) {
+        if (filter != null) {
+          filter.put(key);
+        }
+        if (next != null) {
+          next.put(key);
+        }
+      }
+      write.run();
+    } finally {
+      lock.readLock().unlock();
+    }
+    BloomFilter<byte[]> filter = active;
+    if (filter != null) {
+      if (filter.approximateElementCount() > capacity) {
+        rebuild();
+      }
+      report(filter);
+    }
+  }
+
+  void reset() {
+    stop();
+    closed = false;
+    capacity = MIN_CAPACITY;
+    active = BloomFilter.create(Funnels.byteArrayFunnel(), capacity, fpp);
+  }
+
+  /**
+   * Wait for a running rebuild, then persist the filter if it is complete.
+   */
+  void close() {
+    stop();
+    BloomFilter<byte[]> filter = active;
+    if (filter == null) {
+      return;
+    }
+    try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+      new DataOutputStream(out).writeLong(capacity);
+      filter.writeTo(out);
+    } catch (IOException e) {
+      logger.warn("Write bloom filter of {} failed.", db.getDbName(), e);
+      deleteFile();
+    }
+  }
+
+  private void load() {
+    if (Files.exists(file)) {
+      try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+        capacity = new DataInputStream(in).readLong();
+        active = BloomFilter.readFrom(in, Funnels.byteArrayFunnel());
+        logger.info("Load bloom filter of {}, keys: {}, fpp: {}.", db.getDbName(),
+            active.approximateElementCount(), active.expectedFpp());
+      } catch (IOException e) {
+        logger.warn("Read bloom filter of {} failed, rebuild it.", db.getDbName(), e);
+        active = null;
+      }
+      // only a clean shutdown leaves a file that matches the store
+      deleteFile();
+    }
+    if (active == null) {
+      rebuild();
+    }
+  }
+
+  /**
+   * Size a new filter from the number of keys in the store, then fill it with one scan while
+   * writes go to both filters. If the store turns out to hold more keys than it was sized for,
+   * the filter is still used, at a higher false positive rate, and sized right the next time.
+   */
+  private synchronized void rebuild() {
+    if ((scan != null && !scan.isDone()) || closed) {
+      return;
+    }
+    scan = BUILDER.submit(() -> {
+      long start = System.currentTimeMillis();
+      long size = Math.max(MIN_CAPACITY, 2 * countKeys());
+      BloomFilter<byte[]> next = BloomFilter.create(Funnels.byteArrayFunnel(), size, fpp);
+      DBIterator iterator;
+      synchronized (this) {
+        if (closed) {
+          return;
+        }
+        lock.writeLock().lock();
+        try {
+          building = next;
+          iterator = (DBIterator) db.iterator();
+        } finally {
+          lock.writeLock().unlock();
+        }
+      }
+      logger.info("Rebuild bloom filter of {}, capacity: {}.", db.getDbName(), size);
+      long keys = 0;
+      try (DBIterator it = iterator) {
+        while (it.hasNext() && !closed) {
+          next.put(it.next().getKey());
+          keys++;
+        }
+      } catch (IOException e) {
+        logger.warn("Close iterator of {} failed.", db.getDbName(), e);
+      }
+      synchronized (this) {
+        // a write, under the read lock, puts its keys in both filters or in the new one alone
+        lock.writeLock().lock();
+        try {
+          building = null;
+          if (closed) {
+            return;
+          }
+          // not rebuilt again before the store grew past what was found
+          capacity = Math.max(size, keys);
+          active = next;
+        } finally {
+          lock.writeLock().unlock();
+        }
+      }
+      logger.info("Bloom filter of {} is ready, keys: {}, cost: {} ms.", db.getDbName(),
+          keys, System.currentTimeMillis() - start);
+    });
+  }
+
+  /**
+   * The keys of the store, estimated from the metadata of RocksDB, counted by a pass over the
+   * keys of LevelDB, which keeps no estimate.
+   */
+  private long countKeys() {
+    if (db.getClass() == RocksDB.class) {
+      return ((RocksDB) db).getDb().getEstimatedKeys();
+    }
+    long count = 0;
+    try (DBIterator it = (DBIterator) db.iterator()) {
+      while (it.hasNext() && !closed) {
+        it.next();
+        count++;
+      }
+    } catch (IOException e) {
+      logger.warn("Close iterator of {} failed.", db.getDbName(), e);
+    }
+    return count;
+  }
+
+  private void stop() {
+    Future<?> running;
+    synchronized (this) {
+      closed = true;
+      running = scan;
+    }
+    while (running != null) {
+      try {
+        running.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (ExecutionException e) {
+        logger.warn("Rebuild bloom filter of {} failed.", db.getDbName(), e);
+      }
+      synchronized (this) {
+        running = scan == running ? null : scan;
+      }
+    }
+  }
+
+  private void report(BloomFilter<byte[]> filter) {
+    long negatives = rejected.get() + falsePositives.get();
+    Metrics.gaugeSet(MetricKeys.Gauge.DB_BLOOM_FILTER,
+        negatives == 0 ? 0 : (double) falsePositives.get() / negatives, db.getDbName(), "fpp");
+    Metrics.gaugeSet(MetricKeys.Gauge.DB_BLOOM_FILTER, filter.expectedFpp(), db.getDbName(),
+        "expected_fpp");
+    Metrics.gaugeSet(MetricKeys.Gauge.DB_BLOOM_FILTER, filter.approximateElementCount(),
+        db.getDbName(), "count");
+  }
+
+  private void deleteFile() {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      logger.warn("Delete bloom filter of {} failed.", db.getDbName(), e);
+    }
+  }
+}
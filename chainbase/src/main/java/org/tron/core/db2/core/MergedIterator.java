@@ -0,0 +1,140 @@
+package org.tron.core.db2.core;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Maps;
+import com.google.common.collect.PeekingIterator;
+import com.google.common.primitives.UnsignedBytes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import org.tron.core.db2.common.LevelDB;
+import org.tron.core.db2.common.RocksDB;
+
+/**
+ * Lazy k-way merge of the uncommitted layers from a head down to the root and the root itself,
+ * in ascending key order. A key written by a newer layer shadows the same key in older layers and
+ * in the root, deleted keys are skipped.
+ */
+final class MergedIterator extends AbstractIterator<Map.Entry<byte[], byte[]>> {
+
+  static final Comparator<byte[]> KEY_COMPARATOR = UnsignedBytes.lexicographicalComparator();
+
+  private final PeekingIterator<Ranked> merged;
+
+  private MergedIterator(Snapshot head, byte[] from,
+      Iterator<Map.Entry<byte[], byte[]>> rootIterator) {
+    List<Iterator<Ranked>> sources = new ArrayList<>();
+    int rank = 0;
+    for (Snapshot snapshot = head; Snapshot.isImpl(snapshot); snapshot = snapshot.getPrevious()) {
+      final int r = rank++;
+      sources.add(Iterators.transform(((SnapshotImpl) snapshot).seek(from),
+          e -> new Ranked(e.getKey(), e.getValue().getBytes(), r)));
+    }
+    final int r = rank;
+    sources.add(Iterators.transform(rootIterator, e -> new Ranked(e.getKey(), e.getValue(), r)));
+    merged = Iterators.peekingIterator(Iterators.mergeSorted(sources,
+        Comparator.<Ranked, byte[]>comparing(e -> e.key, KEY_COMPARATOR)
+            .thenComparingInt(e -> e.rank)));
+  }
+
+  /**
+   * Entries visible from {@code head} whose key is not less than {@code from}. The root is read
+   * page by page, so the memory used does not depend on the size of the store.
+   */
+  static Iterator<Map.Entry<byte[], byte[]>> seek(Snapshot head, byte[] from, long pageSize) {
+    return new MergedIterator(head, from,
+        new RootPageIterator((SnapshotRoot) head.getRoot(), from, Math.max(pageSize, 1)));
+  }
+
+  /**
+   * All entries visible from {@code head}, or null if the root is not an ordered store.
+   */
+  static Iterator<Map.Entry<byte[], byte[]>> all(Snapshot head) {
+    if (!isOrdered((SnapshotRoot) head.getRoot())) {
+      return null;
+    }
+    return new MergedIterator(head, new byte[0], head.getRoot().iterator());
+  }
+
+  static boolean isOrdered(SnapshotRoot root) {
+    return root.db.getClass() == LevelDB.class || root.db.getClass() == RocksDB.class;
+  }
+
+  @Override
+  protected Map.Entry<byte[], byte[]> computeNext() {
+    while (merged.hasNext()) {
+      Ranked newest = merged.next();
+      while (merged.hasNext() && Arrays.equals(merged.peek().key, newest.key)) {
+        merged.next();
+      }
+      if (newest.value != null) {
+        return Maps.immutableEntry(newest.key, newest.value);
+      }
+    }
+    return endOfData();
+  }
+
+  private static final class Ranked {
+
+    private final byte[] key;
+    private final byte[] value;
+    private final int rank;
+
+    private Ranked(byte[] key, byte[] value, int rank) {
+      this.key = key;
+      this.value = value;
+      this.rank = rank;
+    }
+  }
+
+  /**
+   * Reads the root with {@code getNext} one page at a time, starting at a given key.
+   */
+  private static final class RootPageIterator extends AbstractIterator<Map.Entry<byte[], byte[]>> {
+
+    private final SnapshotRoot root;
+    private final long pageSize;
+    private byte[] from;
+    private Iterator<Map.Entry<byte[], byte[]>> page = Collections.emptyIterator();
+    private boolean last;
+
+    private RootPageIterator(SnapshotRoot root, byte[] from, long pageSize) {
+      this.root = root;
+      this.from = from;
+      this.pageSize = pageSize;
+      this.last = !isOrdered(root);
+    }
+
+    @Override
+    protected Map.Entry<byte[], byte[]> computeNext() {
+      if (!page.hasNext() && !last) {
+        List<Map.Entry<byte[], byte[]>> entries = new ArrayList<>(nextPage().entrySet());
+        entries.sort(Map.Entry.comparingByKey(KEY_COMPARATOR));
+        last = entries.size() < pageSize;
+        if (!entries.isEmpty()) {
+          // the smallest key greater than the last one of this page
+          from = Arrays.copyOf(entries.get(entries.size() - 1).getKey(),
+              entries.get(entries.size() - 1).getKey().length + 1);
+        }
+        page = entries.iterator();
+      }
+      return page.hasNext() ? page.next() : endOfData();
+    }
+
+    private Map<byte[], byte[]> nextPage() {
+      Map<byte[], byte[]> result = null;
+      if (root.db.getClass() == LevelDB.class) {
+        result = ((LevelDB) root.db).getDb().getNext(from, pageSize);
+      } else if (root.db.getClass() == RocksDB.class) {
+        result = ((RocksDB) root.db).getDb().getNext(from, pageSize);
+      }
+      return Objects.isNull(result) ? Collections.emptyMap() : result;
+    }
+  }
+}
@@ -11,9 +11,12 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
 import lombok.Getter;
+import org.tron.common.parameter.CommonParameter;
 import org.tron.core.db2.common.HashDB;
 import org.tron.core.db2.common.Key;
+import org.tron.core.db2.common.OffHeapDB;
 import org.tron.core.db2.common.Value;
 import org.tron.core.db2.common.Value.Operator;
 import org.tron.core.db2.common.WrappedByteArray;
@@ -23,10 +26,23 @@ public class SnapshotImpl extends AbstractSnapshot<Key, Value> {
   @Getter
   protected Snapshot root;
 
+  private final SnapshotIndex index;
+  @Getter
+  private final long sequence;
+  // false once this layer has been revoked or merged away, index entries are gone then
+  private volatile boolean attached = true;
+  private final boolean offHeap;
+  // keys of this layer in ascending order, kept up to date from the first ordered read on
+  private volatile ConcurrentSkipListSet<byte[]> orderedKeys;
+
   SnapshotImpl(Snapshot snapshot) {
     root = snapshot.getRoot();
+    index = ((SnapshotRoot) root).getIndex();
+    sequence = index.nextSequence();
+    offHeap = CommonParameter.getInstance().getStorage().isSnapshotOffHeap();
     synchronized (this) {
-      db = new HashDB(SnapshotImpl.class.getSimpleName() + ":" + root.getDbName());
+      String name = SnapshotImpl.class.getSimpleName() + ":" + root.getDbName();
+      db = offHeap ? new OffHeapDB(name) : new HashDB(name);
     }
     previous = snapshot;
     snapshot.setNext(this);
@@ -34,9 +50,32 @@ public class SnapshotImpl extends AbstractSnapshot<Key, Value> {
 
   @Override
   public byte[] get(byte[] key) {
+    if (attached) {
+      Value value = index.get(this, Key.of(key));
+      return value != null ? value.getBytes() : root.get(key);
+    }
     return get(this, key);
   }
 
+  /**
+   * @return the value written by this layer or one of its uncommitted ancestors, null if the key
+   *     must be read from the root.
+   */
+  Value getValue(byte[] key) {
+    Key k = Key.of(key);
+    if (attached) {
+      return index.get(this, k);
+    }
+    Value value;
+    for (Snapshot snapshot = this; Snapshot.isImpl(snapshot);
+        snapshot = snapshot.getPrevious()) {
+      if ((value = ((SnapshotImpl) snapshot).db.get(k)) != null) {
+        return value;
+      }
+    }
+    return null;
+  }
+
   private byte[] get(Snapshot head, byte[] key) {
     Snapshot snapshot = head;
     Value value;
@@ -56,13 +95,66 @@ public class SnapshotImpl extends AbstractSnapshot<Key, Value> {
     Preconditions.checkNotNull(key, "key in db is not null.");
     Preconditions.checkNotNull(value, "value in db is not null.");
 
-    db.put(Key.copyOf(key), Value.copyOf(Value.Operator.PUT, value));
+    Key k = Key.copyOf(key);
+    // the arena copies the value itself
+    db.put(k, offHeap ? Value.of(Value.Operator.PUT, value)
+        : Value.copyOf(Value.Operator.PUT, value));
+    markWritten(k);
   }
 
   @Override
   public void remove(byte[] key) {
     Preconditions.checkNotNull(key, "key in db is not null.");
-    db.put(Key.of(key), Value.of(Value.Operator.DELETE, null));
+    Key k = Key.of(key);
+    db.put(k, Value.of(Value.Operator.DELETE, null));
+    markWritten(k);
+  }
+
+  private void markWritten(Key key) {
+    ConcurrentSkipListSet<byte[]> keys = orderedKeys;
+    if (keys != null) {
+      keys.add(key.getBytes());
+    }
+    if (attached) {
+      index.add(key, this);
+    }
+  }
+
+  /**
+   * Keys of this layer in ascending order. The set is filled on the first ordered read and every
+   * write adds its key from then on, so layers that are never scanned do not keep one and the
+   * head layer is not sorted again after it is written.
+   */
+  private ConcurrentSkipListSet<byte[]> orderedKeys() {
+    ConcurrentSkipListSet<byte[]> keys = orderedKeys;
+    if (keys == null) {
+      synchronized (this) {
+        keys = orderedKeys;
+        if (keys == null) {
+          keys = new ConcurrentSkipListSet<>(MergedIterator.KEY_COMPARATOR);
+          // published before it is filled, a concurrent write either adds its key to the set or
+          // is seen while filling it
+          orderedKeys = keys;
+          for (Map.Entry<Key, Value> e : db) {
+            keys.add(e.getKey().getBytes());
+          }
+        }
+      }
+    }
+    return keys;
+  }
+
+  /**
+   * Entries of this layer whose key is not less than {@code from}, in ascending key order.
+   */
+  Iterator<Map.Entry<byte[], Value>> seek(byte[] from) {
+    return Iterators.filter(
+        Iterators.transform(orderedKeys().tailSet(from).iterator(),
+            k -> {
+              Value value = db.get(Key.of(k));
+              return value == null ? null : Maps.immutableEntry(k, value);
+            }),
+        Objects::nonNull);
   }
 
   // we have a 3x3 matrix of all possibilities when merging previous snapshot and current snapshot :
@@ -80,14 +172,33 @@ public class SnapshotImpl extends AbstractSnapshot<Key, Value> {
   @Override
   public void merge(Snapshot from) {
     SnapshotImpl fromImpl = (SnapshotImpl) from;
-    Streams.stream(fromImpl.db).forEach(e -> db.put(e.getKey(), e.getValue()));
+    Streams.stream(fromImpl.db).forEach(e -> {
+      db.put(e.getKey(), e.getValue());
+      markWritten(e.getKey());
+    });
   }
 
   @Override
   public Snapshot retreat() {
+    detach();
     return previous;
   }
 
+  /**
+   * Drop this layer from the latest writer index, it is called once the layer is revoked or its
+   * data has been merged into the previous layer or the root. An off-heap layer also gives its
+   * arena back, readers still holding it then fall through to the previous layers.
+   */
+  synchronized void detach() {
+    if (attached) {
+      attached = false;
+      index.remove(this);
+      if (offHeap) {
+        db.close();
+      }
+    }
+  }
+
   @Override
   public Snapshot getSolidity() {
     return root.getSolidity();
@@ -95,6 +206,10 @@ public class SnapshotImpl extends AbstractSnapshot<Key, Value> {
 
   @Override
   public Iterator<Map.Entry<byte[], byte[]>> iterator() {
+    Iterator<Map.Entry<byte[], byte[]>> merged = MergedIterator.all(this);
+    if (merged != null) {
+      return merged;
+    }
     Map<WrappedByteArray, WrappedByteArray> all = new HashMap<>();
     collect(all);
     Set<WrappedByteArray> keys = new HashSet<>(all.keySet());
@@ -120,10 +235,14 @@ public class SnapshotImpl extends AbstractSnapshot<Key, Value> {
   synchronized void collect(Map<WrappedByteArray, WrappedByteArray> all, byte[] prefix) {
     Snapshot next = getRoot().getNext();
     while (next != null) {
-      Streams.stream(((SnapshotImpl) next).db).filter(e -> Bytes.indexOf(
-              Objects.requireNonNull(e.getKey().getBytes()), prefix) == 0)
-          .forEach(e -> all.put(WrappedByteArray.of(e.getKey().getBytes()),
-              WrappedByteArray.of(e.getValue().getBytes())));
+      Iterator<Map.Entry<byte[], Value>> iterator = ((SnapshotImpl) next).seek(prefix);
+      while (iterator.hasNext()) {
+        Map.Entry<byte[], Value> e = iterator.next();
+        if (Bytes.indexOf(e.getKey(), prefix) != 0) {
+          break;
+        }
+        all.put(WrappedByteArray.of(e.getKey()), WrappedByteArray.of(e.getValue().getBytes()));
+      }
       next = next.getNext();
     }
   }
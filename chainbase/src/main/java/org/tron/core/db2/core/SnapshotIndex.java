@@ -0,0 +1,93 @@
+package org.tron.core.db2.core;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.tron.core.db2.common.Key;
+import org.tron.core.db2.common.Value;
+
+/**
+ * Latest writer index of one store: key -> uncommitted layers that touched it, oldest first.
+ * A lookup from any attached layer costs one probe on a miss and two on a hit, regardless of
+ * how many layers sit between the head and the root.
+ *
+ * Layers are numbered in creation order, and the attached layers always form a single chain
+ * from the root, so every attached layer with a smaller sequence is an ancestor of the reader.
+ */
+final class SnapshotIndex {
+
+  private final AtomicLong sequence = new AtomicLong();
+  private final Map<Key, SnapshotImpl[]> writers = new ConcurrentHashMap<>();
+
+  long nextSequence() {
+    return sequence.incrementAndGet();
+  }
+
+  void add(Key key, SnapshotImpl layer) {
+    writers.compute(key, (k, layers) -> {
+      if (layers == null) {
+        return new SnapshotImpl[] {layer};
+      }
+      int pos = layers.length;
+      while (pos > 0 && layers[pos - 1].getSequence() >= layer.getSequence()) {
+        if (layers[pos - 1] == layer) {
+          return layers;
+        }
+        pos--;
+      }
+      SnapshotImpl[] updated = new SnapshotImpl[layers.length + 1];
+      System.arraycopy(layers, 0, updated, 0, pos);
+      updated[pos] = layer;
+      System.arraycopy(layers, pos, updated, pos + 1, layers.length - pos);
+      return updated;
+    });
+  }
+
+  void remove(SnapshotImpl layer) {
+    for (Map.Entry<Key, Value> e : layer.getDb()) {
+      writers.computeIfPresent(e.getKey(), (k, layers) -> {
+        int pos = -1;
+        for (int i = 0; i < layers.length; i++) {
+          if (layers[i] == layer) {
+            pos = i;
+            break;
+          }
+        }
+        if (pos < 0) {
+          return layers;
+        }
+        if (layers.length == 1) {
+          return null;
+        }
+        SnapshotImpl[] updated = new SnapshotImpl[layers.length - 1];
+        System.arraycopy(layers, 0, updated, 0, pos);
+        System.arraycopy(layers, pos + 1, updated, pos, layers.length - pos - 1);
+        return updated;
+      });
+    }
+  }
+
+  /**
+   * @return the newest value written by {@code head} or one of its uncommitted ancestors,
+   *     null if the key must be read from the root.
+   */
+  Value get(SnapshotImpl head, Key key) {
+    SnapshotImpl[] layers = writers.get(key);
+    if (layers == null) {
+      return null;
+    }
+    for (int i = layers.length - 1; i >= 0; i--) {
+      if (layers[i].getSequence() <= head.getSequence()) {
+        Value value = layers[i].getDb().get(key);
+        if (value != null) {
+          return value;
+        }
+      }
+    }
+    return null;
+  }
+
+  long size() {
+    return writers.size();
+  }
+}
@@ -7,11 +7,14 @@ import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.File;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -23,20 +26,28 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import org.rocksdb.RocksDBException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.tron.common.error.TronDBException;
 import org.tron.common.parameter.CommonParameter;
+import org.tron.common.prometheus.MetricKeys;
+import org.tron.common.prometheus.MetricLabels;
+import org.tron.common.prometheus.Metrics;
 import org.tron.common.storage.WriteOptionsWrapper;
+import org.tron.common.storage.rocksdb.ColumnFamilyDb;
+import org.tron.common.storage.rocksdb.RocksDbDataSourceImpl;
 import org.tron.common.utils.FileUtil;
 import org.tron.common.utils.StorageUtils;
 import org.tron.core.db.RevokingDatabase;
 import org.tron.core.db.TronDatabase;
+import org.tron.core.db.common.DbSourceInter;
 import org.tron.core.db2.ISession;
 import org.tron.core.db2.common.DB;
 import org.tron.core.db2.common.IRevokingDB;
@@ -77,6 +88,15 @@ public class SnapshotManager implements RevokingDatabase {
 
   private ScheduledExecutorService pruneCheckpointThread = null;
 
+  // runs checkpoint and root writes of a sealed flush while the next blocks are processed
+  private final ExecutorService flushPipeline = Executors.newSingleThreadExecutor(
+      new ThreadFactoryBuilder().setNameFormat("flush-pipeline-%d").build());
+  private volatile Future<?> pendingFlush;
+  private volatile long lastFlushCost;
+
+  @Setter
+  private volatile boolean asyncFlush = false;
+
   @Autowired
   @Setter
   @Getter
@@ -93,6 +113,7 @@ public class SnapshotManager implements RevokingDatabase {
   @PostConstruct
   public void init() {
     checkpointVersion = CommonParameter.getInstance().getStorage().getCheckpointVersion();
+    asyncFlush = CommonParameter.getInstance().getStorage().isSnapshotAsyncFlush();
     // prune checkpoint
     if (isV2Open()) {
       pruneCheckpointThread = Executors.newSingleThreadScheduledExecutor();
@@ -119,6 +140,8 @@ public class SnapshotManager implements RevokingDatabase {
 
   @PreDestroy
   public void close() {
+    awaitFlush();
+    flushPipeline.shutdown();
     try {
       exitThread.interrupt();
       // help GC
@@ -217,6 +240,11 @@ public class SnapshotManager implements RevokingDatabase {
       return;
     }
 
+    if (size == 1) {
+      // the previous snapshot may be relinked by a pending flush
+      awaitFlush();
+    }
+
     disabled = true;
 
     try {
@@ -246,6 +274,11 @@ public class SnapshotManager implements RevokingDatabase {
           String.format("there is not snapshot to be popped, current: %d", size));
     }
 
+    if (size == 1) {
+      // the previous snapshot may be relinked by a pending flush
+      awaitFlush();
+    }
+
     disabled = true;
 
     try {
@@ -305,11 +338,49 @@ public class SnapshotManager implements RevokingDatabase {
     return flushCount >= maxFlushCount;
   }
 
-  private void refresh() {
-    List<ListenableFuture<?>> futures = new ArrayList<>(dbs.size());
-    for (Chainbase db : dbs) {
-      futures.add(flushServices.get(db.getDbName()).submit(() -> refreshOne(db)));
+  private void refresh(Map<Chainbase, List<Snapshot>> sealed) {
+    forEachDb(sealed, this::refreshOne);
+  }
+
+  /**
+   * Write the roots of the {@code sealed} dbs hosted by {@code shared} with one batch of that
+   * instance, together with {@code checkpoint}, the checkpoint of the other dbs when the
+   * checkpoint store is hosted there too, so a crash leaves either all or none of it on disk.
+   * The other dbs are written once the batch is committed, a crash in between is recovered from
+   * the checkpoint. The chains are only relinked once their roots are written, until then reads
+   * still find the sealed snapshots.
+   */
+  private void refresh(Map<Chainbase, List<Snapshot>> sealed, ColumnFamilyDb shared,
+      Map<byte[], byte[]> checkpoint) {
+    Map<Chainbase, List<Snapshot>> hosted = new LinkedHashMap<>();
+    Map<Chainbase, List<Snapshot>> others = new LinkedHashMap<>();
+    sealed.forEach((db, snapshots) -> (shared == columnFamilyDbOf(db) ? hosted : others)
+        .put(db, snapshots));
+    try (ColumnFamilyDb.Batch batch = shared.newBatch()) {
+      forEachDb(hosted, (db, snapshots) -> {
+        if (!snapshots.isEmpty()) {
+          batch.run(() -> ((SnapshotRoot) snapshots.get(0).getRoot()).write(snapshots));
+        }
+      });
+      if (!checkpoint.isEmpty()) {
+        batch.run(() -> checkTmpStore.getDbSource().updateByBatch(checkpoint));
+      }
+      batch.commit(CommonParameter.getInstance().getStorage().isDbSync());
+    } catch (RocksDBException e) {
+      throw new TronDBException(e);
     }
+    hosted.forEach((db, snapshots) -> {
+      snapshots.forEach(snapshot -> ((SnapshotImpl) snapshot).detach());
+      relink(db, snapshots);
+    });
+    refresh(others);
+  }
+
+  private void forEachDb(Map<Chainbase, List<Snapshot>> sealed,
+      BiConsumer<Chainbase, List<Snapshot>> task) {
+    List<ListenableFuture<?>> futures = new ArrayList<>(sealed.size());
+    sealed.forEach((db, snapshots) -> futures.add(
+        flushServices.get(db.getDbName()).submit(() -> task.accept(db, snapshots))));
     Future<?> future = Futures.allAsList(futures);
     try {
       future.get();
@@ -321,28 +392,31 @@ public class SnapshotManager implements RevokingDatabase {
     }
   }
 
-  private void refreshOne(Chainbase db) {
-    if (Snapshot.isRoot(db.getHead())) {
+  private void refreshOne(Chainbase db, List<Snapshot> snapshots) {
+    if (snapshots.isEmpty()) {
       return;
     }
 
-    List<Snapshot> snapshots = new ArrayList<>();
+    ((SnapshotRoot) snapshots.get(0).getRoot()).merge(snapshots);
+    relink(db, snapshots);
+  }
 
-    SnapshotRoot root = (SnapshotRoot) db.getHead().getRoot();
-    Snapshot next = root;
-    for (int i = 0; i < flushCount; ++i) {
-      next = next.getNext();
-      snapshots.add(next);
+  private void relink(Chainbase db, List<Snapshot> snapshots) {
+    if (snapshots.isEmpty()) {
+      return;
     }
 
-    root.merge(snapshots);
+    SnapshotRoot root = (SnapshotRoot) snapshots.get(0).getRoot();
+    Snapshot next = snapshots.get(snapshots.size() - 1);
 
-    root.resetSolidity();
-    if (db.getHead() == next) {
-      db.setHead(root);
-    } else {
-      next.getNext().setPrevious(root);
-      root.setNext(next.getNext());
+    root.resetSolidity(next);
+    synchronized (db) {
+      if (db.getHead() == next) {
+        db.setHead(root);
+      } else {
+        next.getNext().setPrevious(root);
+        root.setNext(next.getNext());
+      }
     }
   }
 
@@ -352,60 +426,137 @@ public class SnapshotManager implements RevokingDatabase {
     }
 
     if (shouldBeRefreshed()) {
-      try {
-        long start = System.currentTimeMillis();
-        if (!isV2Open()) {
-          deleteCheckpoint();
-        }
-        createCheckpoint();
+      awaitFlush();
+      Map<Chainbase, List<Snapshot>> sealed = seal(flushCount);
+      flushCount = 0;
+      if (asyncFlush && !sealsHead(sealed)) {
+        pendingFlush = flushPipeline.submit(() -> doFlush(sealed));
+      } else {
+        doFlush(sealed);
+      }
+    }
+  }
 
-        long checkPointEnd = System.currentTimeMillis();
-        refresh();
-        flushCount = 0;
-        logger.info("Flush cost: {} ms, create checkpoint cost: {} ms, refresh cost: {} ms.",
-            System.currentTimeMillis() - start,
-            checkPointEnd - start,
-            System.currentTimeMillis() - checkPointEnd
-        );
-      } catch (TronDBException e) {
-        logger.error(" Find fatal error, program will be exited soon.", e);
-        hitDown = true;
-        LockSupport.unpark(exitThread);
+  /**
+   * The oldest {@code count} snapshots of every db whose head is not the root, they are no
+   * longer written once the solidity has passed them. Checkpoint and root writes only read these.
+   */
+  private Map<Chainbase, List<Snapshot>> seal(int count) {
+    Map<Chainbase, List<Snapshot>> sealed = new LinkedHashMap<>();
+    for (Chainbase db : dbs) {
+      if (Snapshot.isRoot(db.getHead())) {
+        continue;
+      }
+      List<Snapshot> snapshots = new ArrayList<>();
+      Snapshot next = db.getHead().getRoot();
+      for (int i = 0; i < count; ++i) {
+        next = next.getNext();
+        snapshots.add(next);
       }
+      sealed.put(db, snapshots);
     }
+    return sealed;
   }
 
-  private void createCheckpoint() {
-    TronDatabase<byte[]> checkPointStore = null;
-    boolean syncFlag;
+  private boolean sealsHead(Map<Chainbase, List<Snapshot>> sealed) {
+    return sealed.entrySet().stream().anyMatch(e -> e.getValue().contains(e.getKey().getHead()));
+  }
+
+  private void doFlush(Map<Chainbase, List<Snapshot>> sealed) {
     try {
-      Map<WrappedByteArray, WrappedByteArray> batch = new HashMap<>();
-      for (Chainbase db : dbs) {
-        Snapshot head = db.getHead();
-        if (Snapshot.isRoot(head)) {
-          return;
-        }
+      long start = System.currentTimeMillis();
+      ColumnFamilyDb shared = sharedColumnFamilyDb(sealed);
+      // the dbs written atomically need no v1 checkpoint, the others get one committed with them
+      boolean atomicCheckpoint = shared != null && !isV2Open()
+          && shared == columnFamilyDbOf(checkTmpStore.getDbSource());
+      Map<byte[], byte[]> checkpoint = Collections.emptyMap();
+      if (!isV2Open()) {
+        deleteCheckpoint();
+      }
+      if (atomicCheckpoint) {
+        checkpoint = checkpointOf(Maps.filterKeys(sealed, db -> shared != columnFamilyDbOf(db)));
+      } else {
+        // a checkpoint of every db, v2 ones are also kept as they are replayed
+        createCheckpoint(sealed);
+      }
 
-        String dbName = db.getDbName();
+      long checkPointEnd = System.currentTimeMillis();
+      if (shared == null) {
+        refresh(sealed);
+      } else {
+        refresh(sealed, shared, checkpoint);
+      }
+      lastFlushCost = System.currentTimeMillis() - start;
+      Metrics.histogramObserve(MetricKeys.Histogram.DB_FLUSH_LATENCY,
+          lastFlushCost / Metrics.MILLISECONDS_PER_SECOND, MetricLabels.Histogram.FLUSH);
+      logger.info("Flush cost: {} ms, create checkpoint cost: {} ms, refresh cost: {} ms.",
+          lastFlushCost,
+          checkPointEnd - start,
+          System.currentTimeMillis() - checkPointEnd
+      );
+    } catch (TronDBException e) {
+      logger.error(" Find fatal error, program will be exited soon.", e);
+      hitDown = true;
+      LockSupport.unpark(exitThread);
+    }
+  }
+
+  /**
+   * @return the column family instance that hosts the most of the {@code sealed} dbs, null if
+   *     none is a column family. Stores with a custom comparator and trans-cache are not.
+   */
+  private ColumnFamilyDb sharedColumnFamilyDb(Map<Chainbase, List<Snapshot>> sealed) {
+    Map<ColumnFamilyDb, Integer> hosted = new HashMap<>();
+    for (Chainbase db : sealed.keySet()) {
+      ColumnFamilyDb one = columnFamilyDbOf(db);
+      if (one != null) {
+        hosted.merge(one, 1, Integer::sum);
+      }
+    }
+    return hosted.entrySet().stream().max(Map.Entry.comparingByValue())
+        .map(Map.Entry::getKey).orElse(null);
+  }
 
-        if (Objects.equals(dbName, "trans-cache")) {
-          // trans-cache is deprecated
-          continue;
-        }
+  private static ColumnFamilyDb columnFamilyDbOf(Chainbase db) {
+    return ((SnapshotRoot) db.getHead().getRoot()).getColumnFamilyDb();
+  }
 
-        Snapshot next = head.getRoot();
-        for (int i = 0; i < flushCount; ++i) {
-          next = next.getNext();
-          SnapshotImpl snapshot = (SnapshotImpl) next;
-          DB<Key, Value> keyValueDB = snapshot.getDb();
-          for (Map.Entry<Key, Value> e : keyValueDB) {
-            Key k = e.getKey();
-            Value v = e.getValue();
-            batch.put(WrappedByteArray.of(Bytes.concat(simpleEncode(dbName), k.getBytes())),
-                WrappedByteArray.of(v.encode()));
-          }
-        }
+  private static ColumnFamilyDb columnFamilyDbOf(DbSourceInter<byte[]> source) {
+    return source instanceof RocksDbDataSourceImpl
+        ? ((RocksDbDataSourceImpl) source).getColumnFamilyDb() : null;
+  }
+
+  /**
+   * Wait for the pending asynchronous flush, the part of it that ran while blocks were being
+   * processed is reported as overlap.
+   */
+  private void awaitFlush() {
+    Future<?> future = pendingFlush;
+    if (future == null) {
+      return;
+    }
+    long start = System.currentTimeMillis();
+    try {
+      future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      logger.error("Flush pipeline error.", e);
+    }
+    pendingFlush = null;
+    long overlap = Math.max(0, lastFlushCost - (System.currentTimeMillis() - start));
+    Metrics.histogramObserve(MetricKeys.Histogram.DB_FLUSH_LATENCY,
+        overlap / Metrics.MILLISECONDS_PER_SECOND, MetricLabels.Histogram.FLUSH_OVERLAP);
+  }
+
+  private void createCheckpoint(Map<Chainbase, List<Snapshot>> sealed) {
+    TronDatabase<byte[]> checkPointStore = null;
+    boolean syncFlag;
+    try {
+      if (sealed.size() < dbs.size()) {
+        return;
       }
+      Map<byte[], byte[]> batch = checkpointOf(sealed);
       if (isV2Open()) {
         String dbName = String.valueOf(System.currentTimeMillis());
         checkPointStore = getCheckpointDB(dbName);
@@ -415,9 +566,7 @@ public class SnapshotManager implements RevokingDatabase {
         syncFlag = CommonParameter.getInstance().getStorage().isDbSync();
       }
 
-      checkPointStore.getDbSource().updateByBatch(batch.entrySet().stream()
-              .map(e -> Maps.immutableEntry(e.getKey().getBytes(), e.getValue().getBytes()))
-              .collect(HashMap::new, (m, k) -> m.put(k.getKey(), k.getValue()), HashMap::putAll),
+      checkPointStore.getDbSource().updateByBatch(batch,
           WriteOptionsWrapper.getInstance().sync(syncFlag));
 
     } catch (Exception e) {
@@ -429,6 +578,49 @@ public class SnapshotManager implements RevokingDatabase {
     }
   }
 
+  /**
+   * The checkpoint rows of the {@code sealed} dbs, built in parallel on their flush threads.
+   */
+  private Map<byte[], byte[]> checkpointOf(Map<Chainbase, List<Snapshot>> sealed) {
+    List<ListenableFuture<Map<byte[], byte[]>>> futures = new ArrayList<>(sealed.size());
+    sealed.forEach((db, snapshots) -> {
+      String dbName = db.getDbName();
+      if (Objects.equals(dbName, "trans-cache")) {
+        // trans-cache is deprecated
+        return;
+      }
+      futures.add(flushServices.get(dbName).submit(() -> checkpointOf(dbName, snapshots)));
+    });
+    Map<byte[], byte[]> batch = new HashMap<>();
+    try {
+      for (Map<byte[], byte[]> one : Futures.allAsList(futures).get()) {
+        batch.putAll(one);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new TronDBException(e);
+    } catch (ExecutionException e) {
+      throw new TronDBException(e);
+    }
+    return batch;
+  }
+
+  private Map<byte[], byte[]> checkpointOf(String dbName, List<Snapshot> snapshots) {
+    // later snapshots overwrite the same keys of earlier ones
+    Map<WrappedByteArray, WrappedByteArray> batch = new HashMap<>();
+    byte[] prefix = simpleEncode(dbName);
+    for (Snapshot snapshot : snapshots) {
+      DB<Key, Value> keyValueDB = ((SnapshotImpl) snapshot).getDb();
+      for (Map.Entry<Key, Value> e : keyValueDB) {
+        batch.put(WrappedByteArray.of(Bytes.concat(prefix, e.getKey().getBytes())),
+            WrappedByteArray.of(e.getValue().encode()));
+      }
+    }
+    Map<byte[], byte[]> result = new HashMap<>();
+    batch.forEach((k, v) -> result.put(k.getBytes(), v.getBytes()));
+    return result;
+  }
+
   private TronDatabase<byte[]> getCheckpointDB(String dbName) {
     return new CheckPointV2Store(CHECKPOINT_V2_DIR+"/"+dbName);
   }
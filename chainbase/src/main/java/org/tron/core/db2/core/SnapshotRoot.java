@@ -2,22 +2,32 @@ package org.tron.core.db2.core;
 
 import com.google.common.collect.Maps;
 import com.google.common.collect.Streams;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 import lombok.Getter;
 import org.tron.common.cache.CacheManager;
 import org.tron.common.cache.CacheType;
 import org.tron.common.cache.TronCache;
 import org.tron.common.parameter.CommonParameter;
+import org.tron.common.prometheus.MetricKeys;
+import org.tron.common.prometheus.Metrics;
+import org.tron.common.storage.rocksdb.ColumnFamilyDb;
 import org.tron.common.utils.ByteArray;
 import org.tron.core.ChainBaseManager;
 import org.tron.core.capsule.AccountCapsule;
 import org.tron.core.db2.common.DB;
 import org.tron.core.db2.common.Flusher;
+import org.tron.core.db2.common.LevelDB;
+import org.tron.core.db2.common.RocksDB;
 import org.tron.core.db2.common.WrappedByteArray;
 import org.tron.core.store.AccountAssetStore;
 
@@ -27,7 +37,14 @@ public class SnapshotRoot extends AbstractSnapshot<byte[], byte[]> {
   private Snapshot solidity;
   private boolean isAccountDB;
 
+  private final SnapshotIndex index = new SnapshotIndex();
+
+  private final KeyFilter filter;
+
   private TronCache<WrappedByteArray, WrappedByteArray> cache;
+  private volatile Set<WrappedByteArray> prefetched;
+  private final LongAdder prefetchHits = new LongAdder();
+  private final LongAdder prefetchMisses = new LongAdder();
   private static final List<String> CACHE_DBS = CommonParameter.getInstance()
       .getStorage().getCacheDbs();
 
@@ -35,11 +52,17 @@ public class SnapshotRoot extends AbstractSnapshot<byte[], byte[]> {
     this.db = db;
     solidity = this;
     isAccountDB = "account".equalsIgnoreCase(db.getDbName());
+    filter = KeyFilter.of(db);
     if (CACHE_DBS.contains(this.db.getDbName())) {
-      this.cache = CacheManager.allocate(CacheType.findByType(this.db.getDbName()));
+      this.cache = CacheManager.allocate(CacheType.findByType(this.db.getDbName()),
+          (k, v) -> k.getBytes().length + (v.getBytes() == null ? 0 : v.getBytes().length));
     }
   }
 
+  SnapshotIndex getIndex() {
+    return index;
+  }
+
   private boolean needOptAsset() {
     return isAccountDB && ChainBaseManager.getInstance().getDynamicPropertiesStore()
             .getAllowAccountAssetOptimizationFromRoot() == 1;
@@ -47,15 +70,109 @@ public class SnapshotRoot extends AbstractSnapshot<byte[], byte[]> {
 
   @Override
   public byte[] get(byte[] key) {
+    Set<WrappedByteArray> keys = prefetched;
+    if (keys != null) {
+      (keys.contains(WrappedByteArray.of(key)) ? prefetchHits : prefetchMisses).increment();
+    }
     WrappedByteArray cache = getCache(key);
     if (cache != null) {
       return cache.getBytes();
     }
+    if (filtered() && !filter.mightContain(key)) {
+      return null;
+    }
     byte[] value = db.get(key);
+    if (value == null && filtered()) {
+      filter.falsePositive();
+    }
     putCache(key, value);
     return value;
   }
 
+  /**
+   * Read several keys with one batched read of the store for those not in the cache, missing
+   * keys are left out of the result.
+   */
+  public Map<WrappedByteArray, byte[]> getAll(Collection<byte[]> keys) {
+    Map<WrappedByteArray, byte[]> result = new HashMap<>();
+    List<byte[]> misses = new ArrayList<>();
+    for (byte[] key : keys) {
+      WrappedByteArray cache = getCache(key);
+      if (cache != null) {
+        if (cache.getBytes() != null) {
+          result.put(WrappedByteArray.of(key), cache.getBytes());
+        }
+      } else if (!filtered() || filter.mightContain(key)) {
+        misses.add(key);
+      }
+    }
+    if (misses.isEmpty()) {
+      return result;
+    }
+    Map<WrappedByteArray, byte[]> values = getAllFromDb(misses);
+    for (byte[] key : misses) {
+      WrappedByteArray k = WrappedByteArray.of(key);
+      byte[] value = values.get(k);
+      if (value == null && filtered()) {
+        filter.falsePositive();
+      }
+      putCache(key, value);
+      if (value != null) {
+        result.put(k, value);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Load the keys a block is expected to read into the cache, then count until
+   * {@link #endPrefetch} how many of the reads that reach the root are for one of them.
+   */
+  public void prefetch(Collection<byte[]> keys) {
+    prefetchHits.reset();
+    prefetchMisses.reset();
+    prefetched = keys.stream().map(WrappedByteArray::of).collect(Collectors.toSet());
+    getAll(keys);
+  }
+
+  /**
+   * Stop counting and report the share of the reads since {@link #prefetch} that were for a
+   * prefetched key.
+   */
+  public void endPrefetch() {
+    Set<WrappedByteArray> keys = prefetched;
+    if (keys == null) {
+      return;
+    }
+    prefetched = null;
+    long hits = prefetchHits.sumThenReset();
+    long reads = hits + prefetchMisses.sumThenReset();
+    Metrics.gaugeSet(MetricKeys.Gauge.DB_PREFETCH, keys.size(), db.getDbName(), "keys");
+    if (reads > 0) {
+      Metrics.gaugeSet(MetricKeys.Gauge.DB_PREFETCH, (double) hits / reads, db.getDbName(),
+          "hit_ratio");
+    }
+  }
+
+  private Map<WrappedByteArray, byte[]> getAllFromDb(List<byte[]> keys) {
+    Map<WrappedByteArray, byte[]> values = null;
+    if (db.getClass() == LevelDB.class) {
+      values = ((LevelDB) db).getDb().getAll(keys);
+    } else if (db.getClass() == RocksDB.class) {
+      values = ((RocksDB) db).getDb().getAll(keys);
+    }
+    if (values == null) {
+      values = new HashMap<>();
+      for (byte[] key : keys) {
+        byte[] value = db.get(key);
+        if (value != null) {
+          values.put(WrappedByteArray.of(key), value);
+        }
+      }
+    }
+    return values;
+  }
+
   @Override
   public void put(byte[] key, byte[] value) {
     byte[] v = value;
@@ -75,7 +192,12 @@ public class SnapshotRoot extends AbstractSnapshot<byte[], byte[]> {
       item.clearAsset();
       v = item.getData();
     }
-    db.put(key, v);
+    if (filtered()) {
+      final byte[] stored = v;
+      filter.write(Collections.singletonList(key), () -> db.put(key, stored));
+    } else {
+      db.put(key, v);
+    }
     putCache(key, v);
   }
 
@@ -98,12 +220,22 @@ public class SnapshotRoot extends AbstractSnapshot<byte[], byte[]> {
     if (needOptAsset()) {
       processAccount(batch);
     } else {
-      ((Flusher) db).flush(batch);
+      flush(batch);
       putCache(batch);
     }
+    snapshot.detach();
   }
 
   public void merge(List<Snapshot> snapshots) {
+    write(snapshots);
+    snapshots.forEach(snapshot -> ((SnapshotImpl) snapshot).detach());
+  }
+
+  /**
+   * Write {@code snapshots} to the store like {@link #merge(List)}, but leave them attached, so
+   * they can still be read until the write is committed.
+   */
+  void write(List<Snapshot> snapshots) {
     Map<WrappedByteArray, WrappedByteArray> batch = new HashMap<>();
     for (Snapshot snapshot : snapshots) {
       SnapshotImpl from = (SnapshotImpl) snapshot;
@@ -115,11 +247,18 @@ public class SnapshotRoot extends AbstractSnapshot<byte[], byte[]> {
     if (needOptAsset()) {
       processAccount(batch);
     } else {
-      ((Flusher) db).flush(batch);
+      flush(batch);
       putCache(batch);
     }
   }
 
+  /**
+   * @return the shared instance that hosts this store as a column family, or null.
+   */
+  ColumnFamilyDb getColumnFamilyDb() {
+    return db.getClass() == RocksDB.class ? ((RocksDB) db).getDb().getColumnFamilyDb() : null;
+  }
+
   private void processAccount(Map<WrappedByteArray, WrappedByteArray> batch) {
     AccountAssetStore assetStore = ChainBaseManager.getInstance().getAccountAssetStore();
     Map<WrappedByteArray, WrappedByteArray> accounts = new HashMap<>();
@@ -139,13 +278,29 @@ public class SnapshotRoot extends AbstractSnapshot<byte[], byte[]> {
         accounts.put(k, WrappedByteArray.of(item.getData()));
       }
     });
-    ((Flusher) db).flush(accounts);
+    flush(accounts);
     putCache(accounts);
     if (assets.size() > 0) {
       assetStore.updateByBatch(AccountAssetStore.convert(assets));
     }
   }
 
+  private void flush(Map<WrappedByteArray, WrappedByteArray> batch) {
+    if (!filtered()) {
+      ((Flusher) db).flush(batch);
+      return;
+    }
+    filter.write(batch.entrySet().stream()
+            .filter(e -> e.getValue().getBytes() != null)
+            .map(e -> e.getKey().getBytes())
+            .collect(Collectors.toList()),
+        () -> ((Flusher) db).flush(batch));
+  }
+
+  private boolean filtered() {
+    return Objects.nonNull(this.filter);
+  }
+
   private boolean cached() {
     return Objects.nonNull(this.cache);
   }
@@ -191,6 +346,9 @@ public class SnapshotRoot extends AbstractSnapshot<byte[], byte[]> {
     if (cached()) {
       CacheManager.release(cache);
     }
+    if (filtered()) {
+      filter.close();
+    }
     ((Flusher) db).close();
   }
 
@@ -200,15 +358,28 @@ public class SnapshotRoot extends AbstractSnapshot<byte[], byte[]> {
       CacheManager.release(cache);
     }
     ((Flusher) db).reset();
+    if (filtered()) {
+      filter.reset();
+    }
   }
 
   @Override
-  public void resetSolidity() {
+  public synchronized void resetSolidity() {
     solidity = this;
   }
 
+  /**
+   * Move the solidity back to the root after {@code flushed} has been merged, unless newer
+   * blocks have already moved it past that snapshot.
+   */
+  public synchronized void resetSolidity(Snapshot flushed) {
+    if (solidity == flushed) {
+      solidity = this;
+    }
+  }
+
   @Override
-  public void updateSolidity() {
+  public synchronized void updateSolidity() {
     solidity = solidity.getNext();
   }
 
@@ -0,0 +1,145 @@
+package org.tron.core.db2.core;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import lombok.Getter;
+import org.tron.common.utils.ByteArray;
+import org.tron.core.db2.common.WrappedByteArray;
+
+/**
+ * Execution of one transaction ahead of its turn in the block. While a speculation is bound to
+ * the executing thread, the stores buffer its writes here instead of the head snapshot and record
+ * every value it reads, so that it can be committed later only if none of those values changed.
+ *
+ * Counters that transactions only add to are kept as deltas, they do not make two transactions
+ * conflict unless one of them also reads the counter.
+ */
+public class Speculation {
+
+  private static final ThreadLocal<Speculation> CURRENT = new ThreadLocal<>();
+
+  private final Map<Chainbase, Map<WrappedByteArray, byte[]>> reads = new IdentityHashMap<>();
+  private final Map<Chainbase, Map<WrappedByteArray, byte[]>> writes = new IdentityHashMap<>();
+  private final Map<Chainbase, Map<WrappedByteArray, Long>> deltas = new IdentityHashMap<>();
+
+  @Getter
+  private boolean aborted;
+
+  public static Speculation current() {
+    return CURRENT.get();
+  }
+
+  /**
+   * Run the task with this speculation bound to the current thread.
+   */
+  public <T> T call(Callable<T> task) throws Exception {
+    CURRENT.set(this);
+    try {
+      return task.call();
+    } finally {
+      CURRENT.remove();
+    }
+  }
+
+  /**
+   * Mark the speculation as unusable, for reads it cannot record. Execution may catch the
+   * exception and go on, so the flag is what keeps the speculation from being committed.
+   */
+  public RuntimeException abort(String operation) {
+    aborted = true;
+    return new UnsupportedOperationException(operation + " is not supported in a speculation");
+  }
+
+  byte[] get(Chainbase db, byte[] key) {
+    WrappedByteArray k = WrappedByteArray.copyOf(key);
+    Map<WrappedByteArray, byte[]> written = writes.get(db);
+    if (written != null && written.containsKey(k)) {
+      return written.get(k);
+    }
+    byte[] value = read(db, k);
+    Long delta = deltas.getOrDefault(db, Collections.emptyMap()).get(k);
+    if (delta != null) {
+      if (value == null) {
+        throw abort("adding to a missing key");
+      }
+      value = ByteArray.fromLong(ByteArray.toLong(value) + delta);
+    }
+    return value;
+  }
+
+  void put(Chainbase db, byte[] key, byte[] value) {
+    WrappedByteArray k = WrappedByteArray.copyOf(key);
+    writes.computeIfAbsent(db, d -> new LinkedHashMap<>())
+        .put(k, value == null ? null : Arrays.copyOf(value, value.length));
+    deltas.getOrDefault(db, Collections.emptyMap()).remove(k);
+  }
+
+  void add(Chainbase db, byte[] key, long amount) {
+    WrappedByteArray k = WrappedByteArray.copyOf(key);
+    Map<WrappedByteArray, byte[]> written = writes.get(db);
+    if (written != null && written.containsKey(k)) {
+      byte[] value = written.get(k);
+      if (value == null) {
+        throw abort("adding to a deleted key");
+      }
+      written.put(k, ByteArray.fromLong(ByteArray.toLong(value) + amount));
+      return;
+    }
+    deltas.computeIfAbsent(db, d -> new LinkedHashMap<>()).merge(k, amount, Long::sum);
+  }
+
+  private byte[] read(Chainbase db, WrappedByteArray key) {
+    Map<WrappedByteArray, byte[]> read = reads.computeIfAbsent(db, d -> new HashMap<>());
+    if (read.containsKey(key)) {
+      return read.get(key);
+    }
+    byte[] value = db.getHeadUnchecked(key.getBytes());
+    read.put(key, value);
+    return value;
+  }
+
+  /**
+   * Whether every value the speculation read is still the current one, and every counter it
+   * added to still exists. Called on the committing thread, with no speculation bound.
+   */
+  public boolean validate() {
+    if (aborted) {
+      return false;
+    }
+    for (Map.Entry<Chainbase, Map<WrappedByteArray, byte[]>> db : reads.entrySet()) {
+      for (Map.Entry<WrappedByteArray, byte[]> read : db.getValue().entrySet()) {
+        if (!Arrays.equals(db.getKey().getUnchecked(read.getKey().getBytes()), read.getValue())) {
+          return false;
+        }
+      }
+    }
+    for (Map.Entry<Chainbase, Map<WrappedByteArray, Long>> db : deltas.entrySet()) {
+      for (WrappedByteArray key : db.getValue().keySet()) {
+        if (db.getKey().getUnchecked(key.getBytes()) == null) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Write the buffered writes and counters to the stores, in the order they were made.
+   */
+  public void apply() {
+    writes.forEach((db, written) -> written.forEach((key, value) -> {
+      if (value == null) {
+        db.delete(key.getBytes());
+      } else {
+        db.put(key.getBytes(), value);
+      }
+    }));
+    deltas.forEach((db, added) -> added.forEach((key, amount) -> db.put(key.getBytes(),
+        ByteArray.fromLong(ByteArray.toLong(db.getUnchecked(key.getBytes())) + amount))));
+  }
+}
@@ -7,6 +7,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.tron.common.utils.ByteArray;
+import org.tron.common.utils.DecodeUtil;
 import org.tron.core.db.TronDatabase;
 import org.tron.core.db2.common.WrappedByteArray;
 import org.tron.protos.Protocol;
@@ -22,6 +23,12 @@ public class AccountAssetStore extends TronDatabase<byte[]> {
     super(dbName);
   }
 
+  // the address, the token id follows
+  @Override
+  protected int getKeyPrefixLength() {
+    return DecodeUtil.ADDRESS_SIZE / 2;
+  }
+
   @Override
   public void put(byte[] key, byte[] item) {
     dbSource.putData(key, item);
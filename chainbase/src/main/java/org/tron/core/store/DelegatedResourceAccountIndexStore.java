@@ -12,6 +12,7 @@ import org.apache.commons.lang3.ArrayUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.tron.common.utils.DecodeUtil;
 import org.tron.core.capsule.DelegatedResourceAccountIndexCapsule;
 import org.tron.core.db.TronStoreWithRevoking;
 
@@ -32,6 +33,12 @@ public class DelegatedResourceAccountIndexStore extends
     super(dbName);
   }
 
+  // a type prefix and the address, see getWithPrefix
+  @Override
+  protected int getKeyPrefixLength() {
+    return 1 + DecodeUtil.ADDRESS_SIZE / 2;
+  }
+
   @Override
   public DelegatedResourceAccountIndexCapsule get(byte[] key) {
 
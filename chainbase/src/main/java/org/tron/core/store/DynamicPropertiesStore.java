@@ -18,6 +18,7 @@ import org.tron.common.utils.Sha256Hash;
 import org.tron.core.capsule.BytesCapsule;
 import org.tron.core.config.Parameter.ChainConstant;
 import org.tron.core.db.TronStoreWithRevoking;
+import org.tron.core.db2.core.Chainbase;
 import org.tron.core.exception.BadItemException;
 import org.tron.core.exception.ItemNotFoundException;
 
@@ -1406,6 +1407,13 @@ public class DynamicPropertiesStore extends TronStoreWithRevoking<BytesCapsule>
         new BytesCapsule(ByteArray.fromLong(blockEnergyUsage)));
   }
 
+  public void addBlockEnergyUsage(long amount) {
+    if (addSpeculatively(DynamicResourceProperties.BLOCK_ENERGY_USAGE, amount)) {
+      return;
+    }
+    saveBlockEnergyUsage(getBlockEnergyUsage() + amount);
+  }
+
   public long getBlockEnergyUsage() {
     return Optional.ofNullable(getUnchecked(DynamicResourceProperties.BLOCK_ENERGY_USAGE))
         .map(BytesCapsule::getData)
@@ -1674,7 +1682,7 @@ public class DynamicPropertiesStore extends TronStoreWithRevoking<BytesCapsule>
   }
 
   public void addTransactionFeePool(long amount) {
-    if (amount <= 0) {
+    if (amount <= 0 || addSpeculatively(TRANSACTION_FEE_POOL, amount)) {
       return;
     }
     amount += getTransactionFeePool();
@@ -2411,7 +2419,7 @@ public class DynamicPropertiesStore extends TronStoreWithRevoking<BytesCapsule>
   }
 
   public void burnTrx(long amount) {
-    if (amount <= 0) {
+    if (amount <= 0 || addSpeculatively(BURN_TRX_AMOUNT, amount)) {
       return;
     }
     amount += getBurnTrxAmount();
@@ -2422,6 +2430,15 @@ public class DynamicPropertiesStore extends TronStoreWithRevoking<BytesCapsule>
     this.put(BURN_TRX_AMOUNT, new BytesCapsule(ByteArray.fromLong(amount)));
   }
 
+  /**
+   * The block counters transactions only add to are added as a delta while a transaction is
+   * executed speculatively, see {@link Chainbase#addSpeculatively}.
+   */
+  private boolean addSpeculatively(byte[] key, long amount) {
+    return revokingDB instanceof Chainbase
+        && ((Chainbase) revokingDB).addSpeculatively(key, amount);
+  }
+
   public boolean supportBlackHoleOptimization() {
     return getAllowBlackHoleOptimization() == 1L;
   }
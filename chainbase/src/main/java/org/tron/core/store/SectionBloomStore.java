@@ -1,6 +1,8 @@
 package org.tron.core.store;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.List;
 import java.util.Objects;
@@ -22,6 +24,12 @@ import org.tron.core.exception.EventBloomException;
 public class SectionBloomStore extends TronStoreWithRevoking<BytesCapsule> {
 
   public static final int BLOCK_PER_SECTION = 2048;
+  public static final int WORDS_PER_SECTION = BLOCK_PER_SECTION / Long.SIZE;
+  // first byte of the compact encodings, the zlib streams of the old one start with 0x?8
+  private static final byte SPARSE = 0x01;
+  private static final byte DENSE = 0x02;
+  // beyond this many blocks, the words take less room than the block offsets
+  private static final int MAX_SPARSE = WORDS_PER_SECTION * Long.BYTES / Short.BYTES;
   private List<Integer> bitList;
 
   @Autowired
@@ -50,26 +58,82 @@ public class SectionBloomStore extends TronStoreWithRevoking<BytesCapsule> {
   }
 
   public BitSet get(int section, int bitIndex) throws EventBloomException {
+    long[] words = getWords(section, bitIndex);
+    return words == null ? null : BitSet.valueOf(words);
+  }
+
+  /**
+   * @return the blocks of {@code section} whose bloom has {@code bitIndex} set, as
+   *     {@link #WORDS_PER_SECTION} words, or null if there is none.
+   */
+  public long[] getWords(int section, int bitIndex) throws EventBloomException {
     long keyLong = combineKey(section, bitIndex);
     byte[] key = Long.toHexString(keyLong).getBytes();
     BytesCapsule bytesCapsule = get(key);
     if (bytesCapsule == null) {
       return null;
     }
-    byte[] data;
-    try {
-      data = ByteUtil.decompress(bytesCapsule.getData());
-    } catch (Exception e) {
-      throw new EventBloomException("decompress byte failed");
-    }
-    return BitSet.valueOf(data);
+    return decode(bytesCapsule.getData());
   }
 
   public void put(int section, int bitIndex, BitSet bitSet) throws EventBloomException {
+    put(section, bitIndex, Arrays.copyOf(bitSet.toLongArray(), WORDS_PER_SECTION));
+  }
+
+  private void put(int section, int bitIndex, long[] words) {
     long keyLong = combineKey(section, bitIndex);
     byte[] key = Long.toHexString(keyLong).getBytes();
-    byte[] compressData = ByteUtil.compress(bitSet.toByteArray());
-    super.put(key, new BytesCapsule(compressData));
+    super.put(key, new BytesCapsule(encode(words)));
+  }
+
+  /**
+   * Few blocks as their 2-byte offsets, more as the raw words, both are decoded without
+   * inflating.
+   */
+  static byte[] encode(long[] words) {
+    int count = 0;
+    for (long word : words) {
+      count += Long.bitCount(word);
+    }
+    if (count > MAX_SPARSE) {
+      ByteBuffer buffer = ByteBuffer.allocate(1 + WORDS_PER_SECTION * Long.BYTES).put(DENSE);
+      for (long word : words) {
+        buffer.putLong(word);
+      }
+      return buffer.array();
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(1 + count * Short.BYTES).put(SPARSE);
+    for (int i = 0; i < words.length; i++) {
+      for (long word = words[i]; word != 0; word &= word - 1) {
+        buffer.putShort((short) (i * Long.SIZE + Long.numberOfTrailingZeros(word)));
+      }
+    }
+    return buffer.array();
+  }
+
+  static long[] decode(byte[] data) throws EventBloomException {
+    long[] words = new long[WORDS_PER_SECTION];
+    ByteBuffer buffer = ByteBuffer.wrap(data, 1, data.length - 1);
+    if (data[0] == DENSE) {
+      for (int i = 0; i < WORDS_PER_SECTION; i++) {
+        words[i] = buffer.getLong();
+      }
+    } else if (data[0] == SPARSE) {
+      while (buffer.hasRemaining()) {
+        int offset = buffer.getShort();
+        words[offset >>> 6] |= 1L << offset;
+      }
+    } else {
+      // written before the compact encodings
+      long[] inflated;
+      try {
+        inflated = BitSet.valueOf(ByteUtil.decompress(data)).toLongArray();
+      } catch (Exception e) {
+        throw new EventBloomException("decompress byte failed");
+      }
+      System.arraycopy(inflated, 0, words, 0, Math.min(inflated.length, WORDS_PER_SECTION));
+    }
+    return words;
   }
 
   public Bloom initBlockSection(TransactionRetCapsule transactionRetCapsule) {
@@ -102,14 +166,14 @@ public class SectionBloomStore extends TronStoreWithRevoking<BytesCapsule> {
     int blockNumOffset = (int) (blockNum % BLOCK_PER_SECTION);
     for (int bitIndex : bitList) {
       // get first from leveldb
-      BitSet bitSet = get(section, bitIndex);
-      if (Objects.isNull(bitSet)) {
-        bitSet = new BitSet(BLOCK_PER_SECTION);
+      long[] words = getWords(section, bitIndex);
+      if (Objects.isNull(words)) {
+        words = new long[WORDS_PER_SECTION];
       }
       // update
-      bitSet.set(blockNumOffset);
+      words[blockNumOffset >>> 6] |= 1L << blockNumOffset;
       // put into leveldb
-      put(section, bitIndex, bitSet);
+      put(section, bitIndex, words);
     }
   }
 }
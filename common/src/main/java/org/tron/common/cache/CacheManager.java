@@ -2,7 +2,9 @@ package org.tron.common.cache;
 
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
 import com.google.common.collect.Maps;
+import java.util.Collections;
 import java.util.Map;
 import java.util.stream.Collectors;
 import org.tron.common.parameter.CommonParameter;
@@ -10,6 +12,7 @@ import org.tron.common.parameter.CommonParameter;
 public class CacheManager {
 
   private static final Map<CacheType, TronCache<?, ?>> CACHES  = Maps.newConcurrentMap();
+  private static volatile WeightedCache weighted;
 
   public static <K, V> TronCache<K, V> allocate(CacheType name) {
     TronCache<K, V> cache = new TronCache<>(name, CommonParameter.getInstance()
@@ -18,6 +21,21 @@ public class CacheManager {
     return cache;
   }
 
+  /**
+   * Allocate a cache that shares the global memory budget {@code storage.cache.memoryBudget}
+   * with the other stores, each entry weighing {@code weigher} bytes. Without a budget, falls
+   * back to the entry count strategy of the store.
+   */
+  public static <K, V> TronCache<K, V> allocate(CacheType name, Weigher<K, V> weigher) {
+    long budget = CommonParameter.getInstance().getStorage().getCacheMemoryBudget();
+    if (budget <= 0) {
+      return allocate(name);
+    }
+    TronCache<K, V> cache = new TronCache<>(name, weighted(budget).region(name, weigher));
+    CACHES.put(name, cache);
+    return cache;
+  }
+
   public  static <K, V> TronCache<K, V> allocate(CacheType name, String strategy) {
     TronCache<K, V> cache = new TronCache<>(name, strategy);
     CACHES.put(name, cache);
@@ -41,4 +59,23 @@ public class CacheManager {
         TronCache::stats));
   }
 
+  /**
+   * @return bytes held by each store in the shared memory budget, empty without a budget.
+   */
+  public static Map<String, Long> weights() {
+    WeightedCache cache = weighted;
+    return cache == null ? Collections.emptyMap() : cache.weights();
+  }
+
+  private static WeightedCache weighted(long budget) {
+    if (weighted == null) {
+      synchronized (CacheManager.class) {
+        if (weighted == null) {
+          weighted = new WeightedCache(budget);
+        }
+      }
+    }
+    return weighted;
+  }
+
 }
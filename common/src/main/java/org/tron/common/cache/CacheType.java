@@ -19,8 +19,12 @@ public enum CacheType {
   properties("properties"),
   delegation("delegation"),
   storageRow("storage-row"),
-  account("account");
+  account("account"),
   // for leveldb or rocksdb cache
+  // for vm
+  codeAnalysis("code-analysis"),
+  // for transaction signatures
+  signers("signers");
 
   public final String type;
 
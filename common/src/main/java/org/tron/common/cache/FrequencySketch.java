@@ -0,0 +1,88 @@
+package org.tron.common.cache;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Approximate access counts of the recently requested keys: a count-min sketch of 4-bit counters,
+ * as used by TinyLFU. All counters are halved after {@code 10 * capacity} increments, so the
+ * counts follow the current working set instead of the whole history.
+ *
+ * <p>Concurrent increments of the same word may be lost, which only makes a count slightly low.
+ */
+final class FrequencySketch {
+
+  private static final long[] SEEDS = {
+      0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+  private static final long RESET_MASK = 0x7777777777777777L;
+  private static final int MAX_COUNT = 15;
+  private static final int MIN_TABLE_SIZE = 1 << 10;
+  private static final int MAX_TABLE_SIZE = 1 << 24;
+
+  private final AtomicLongArray table;
+  private final int mask;
+  private final int sampleSize;
+  private final AtomicInteger additions = new AtomicInteger();
+
+  FrequencySketch(long capacity) {
+    int size = (int) Math.min(MAX_TABLE_SIZE, Math.max(MIN_TABLE_SIZE, capacity));
+    size = Integer.highestOneBit(size - 1) << 1;
+    this.table = new AtomicLongArray(size);
+    this.mask = size - 1;
+    this.sampleSize = (int) Math.min(Integer.MAX_VALUE, 10L * size);
+  }
+
+  int frequency(Object key) {
+    int hash = spread(key.hashCode());
+    int frequency = MAX_COUNT;
+    for (long seed : SEEDS) {
+      long h = hashOf(hash, seed);
+      frequency = Math.min(frequency, (int) ((table.get(indexOf(h)) >>> shiftOf(h)) & MAX_COUNT));
+    }
+    return frequency;
+  }
+
+  void increment(Object key) {
+    int hash = spread(key.hashCode());
+    boolean added = false;
+    for (long seed : SEEDS) {
+      long h = hashOf(hash, seed);
+      int index = indexOf(h);
+      int shift = shiftOf(h);
+      long word = table.get(index);
+      if (((word >>> shift) & MAX_COUNT) != MAX_COUNT) {
+        added |= table.compareAndSet(index, word, word + (1L << shift));
+      }
+    }
+    if (added && additions.incrementAndGet() >= sampleSize) {
+      reset();
+    }
+  }
+
+  private void reset() {
+    additions.set(0);
+    for (int i = 0; i < table.length(); i++) {
+      table.set(i, (table.get(i) >>> 1) & RESET_MASK);
+    }
+  }
+
+  private int indexOf(long h) {
+    return (int) h & mask;
+  }
+
+  private static int shiftOf(long h) {
+    // one of the 16 counters of the word
+    return (int) ((h >>> 40) & 15) << 2;
+  }
+
+  private static long hashOf(int hash, long seed) {
+    long h = (hash + seed) * seed;
+    return h + (h >>> 32);
+  }
+
+  private static int spread(int x) {
+    x = ((x >>> 16) ^ x) * 0x45d9f3b;
+    x = ((x >>> 16) ^ x) * 0x45d9f3b;
+    return (x >>> 16) ^ x;
+  }
+}
@@ -25,6 +25,11 @@ public class TronCache<K, V> {
     this.cache = CacheBuilder.from(strategy).build(loader);
   }
 
+  TronCache(CacheType name, Cache<K, V> cache) {
+    this.name = name;
+    this.cache = cache;
+  }
+
   public void put(K k, V v) {
     this.cache.put(k, v);
   }
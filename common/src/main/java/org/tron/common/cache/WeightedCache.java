@@ -0,0 +1,198 @@
+package org.tron.common.cache;
+
+import com.google.common.cache.AbstractCache;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.Maps;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * One memory budget shared by the root caches of all stores. An entry weighs the length of its
+ * key and value plus a fixed overhead, so a store with large values holds fewer entries instead
+ * of the same count. There is no idle expiry, entries only leave when the budget is full.
+ *
+ * <p>Once the budget is full, a key that is not cached yet is only admitted if it has been
+ * requested before (see {@link FrequencySketch}), so a burst of one-off reads or writes of cold
+ * keys does not push out the hot ones. A rejected write still invalidates the cached value.
+ */
+final class WeightedCache {
+
+  static final int ENTRY_OVERHEAD = 64;
+  private static final int AVERAGE_ENTRY_SIZE = 256;
+
+  private final long budget;
+  private final Cache<RegionKey, Object> cache;
+  private final FrequencySketch sketch;
+  private final AtomicLong weight = new AtomicLong();
+  private final Map<CacheType, Region<?, ?>> regions = Maps.newConcurrentMap();
+
+  WeightedCache(long budget) {
+    this(budget, Runtime.getRuntime().availableProcessors());
+  }
+
+  WeightedCache(long budget, int concurrencyLevel) {
+    this.budget = budget;
+    this.sketch = new FrequencySketch(budget / AVERAGE_ENTRY_SIZE);
+    this.cache = CacheBuilder.newBuilder()
+        .maximumWeight(budget)
+        .weigher((RegionKey k, Object v) -> k.region.weigh(k.key, v))
+        .concurrencyLevel(concurrencyLevel)
+        .removalListener(this::onRemoval)
+        .build();
+  }
+
+  @SuppressWarnings("unchecked")
+  <K, V> Cache<K, V> region(CacheType type, Weigher<K, V> weigher) {
+    return (Cache<K, V>) regions.computeIfAbsent(type, t -> new Region<>(t, weigher));
+  }
+
+  /**
+   * @return bytes currently held by each store.
+   */
+  Map<String, Long> weights() {
+    return regions.values().stream().collect(Collectors.toMap(r -> r.type.toString(),
+        r -> r.weight.get()));
+  }
+
+  private void onRemoval(RemovalNotification<RegionKey, Object> notification) {
+    RegionKey key = notification.getKey();
+    int w = key.region.weigh(key.key, notification.getValue());
+    weight.addAndGet(-w);
+    key.region.weight.addAndGet(-w);
+    if (notification.wasEvicted()) {
+      key.region.stats.recordEviction();
+    }
+  }
+
+  private static final class RegionKey {
+
+    private final Region<?, ?> region;
+    private final Object key;
+
+    private RegionKey(Region<?, ?> region, Object key) {
+      this.region = region;
+      this.key = key;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      RegionKey that = (RegionKey) o;
+      return region == that.region && key.equals(that.key);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * region.type.hashCode() + key.hashCode();
+    }
+  }
+
+  /**
+   * The part of the shared cache that belongs to one store, with its own statistics.
+   */
+  private final class Region<K, V> extends AbstractCache<K, V> {
+
+    private final CacheType type;
+    private final Weigher<K, V> weigher;
+    private final StatsCounter stats = new SimpleStatsCounter();
+    private final AtomicLong weight = new AtomicLong();
+
+    private Region(CacheType type, Weigher<K, V> weigher) {
+      this.type = type;
+      this.weigher = weigher;
+    }
+
+    @SuppressWarnings("unchecked")
+    private int weigh(Object key, Object value) {
+      return ENTRY_OVERHEAD + weigher.weigh((K) key, (V) value);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V getIfPresent(Object key) {
+      RegionKey k = new RegionKey(this, key);
+      sketch.increment(k);
+      V value = (V) cache.getIfPresent(k);
+      if (value == null) {
+        stats.recordMisses(1);
+      } else {
+        stats.recordHits(1);
+      }
+      return value;
+    }
+
+    @Override
+    public V get(K key, Callable<? extends V> loader) throws ExecutionException {
+      V value = getIfPresent(key);
+      if (value != null) {
+        return value;
+      }
+      long start = System.nanoTime();
+      try {
+        value = loader.call();
+      } catch (Exception e) {
+        stats.recordLoadException(System.nanoTime() - start);
+        throw new ExecutionException(e);
+      }
+      if (value == null) {
+        stats.recordLoadException(System.nanoTime() - start);
+        throw new CacheLoader.InvalidCacheLoadException("loader returned null for key " + key);
+      }
+      stats.recordLoadSuccess(System.nanoTime() - start);
+      put(key, value);
+      return value;
+    }
+
+    @Override
+    public void put(K key, V value) {
+      RegionKey k = new RegionKey(this, key);
+      int w = weigh(key, value);
+      if (admit(k, w)) {
+        WeightedCache.this.weight.addAndGet(w);
+        weight.addAndGet(w);
+        cache.put(k, value);
+      } else {
+        cache.invalidate(k);
+      }
+    }
+
+    private boolean admit(RegionKey k, int w) {
+      return WeightedCache.this.weight.get() + w <= budget
+          || sketch.frequency(k) > 1
+          || cache.asMap().containsKey(k);
+    }
+
+    @Override
+    public void invalidate(Object key) {
+      cache.invalidate(new RegionKey(this, key));
+    }
+
+    @Override
+    public void invalidateAll() {
+      cache.asMap().keySet().removeIf(k -> k.region == this);
+    }
+
+    @Override
+    public long size() {
+      return cache.asMap().keySet().stream().filter(k -> k.region == this).count();
+    }
+
+    @Override
+    public CacheStats stats() {
+      return stats.snapshot();
+    }
+  }
+}
@@ -268,6 +268,15 @@ public class CommonParameter {
   public int validateSignThreadNum;
   @Getter
   @Setter
+  public int signatureCacheSize = 50_000;
+  @Getter
+  @Setter
+  public boolean parallelExecution;
+  @Getter
+  @Setter
+  public int parallelExecutionThreadNum;
+  @Getter
+  @Setter
   public long maintenanceTimeInterval; // (ms)
   @Getter
   @Setter
@@ -321,6 +330,9 @@ public class CommonParameter {
   public int estimateEnergyMaxRetry;
   @Getter
   @Setter
+  public int codeAnalysisPrewarm;
+  @Getter
+  @Setter
   public int backupPriority;
   @Getter
   @Setter
@@ -348,6 +360,15 @@ public class CommonParameter {
   public boolean vmTrace;
   @Getter
   @Setter
+  public boolean blockCharging;
+  @Getter
+  @Setter
+  public int constantCallThreadNum;
+  @Getter
+  @Setter
+  public int constantCallQueueSize;
+  @Getter
+  @Setter
   public boolean needToUpdateAsset;
   @Getter
   @Setter
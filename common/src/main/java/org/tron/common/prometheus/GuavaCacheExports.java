@@ -23,6 +23,8 @@ import org.tron.common.cache.CacheManager;
  * <pre>
  *   tron:guava_cache_hit_rate{type="account"} 0.135679
  *   tron:guava_cache_request{type="account"} 3000
+ *   tron:guava_cache_miss_count{type="account"} 2593
+ *   tron:guava_cache_weight_bytes{type="account"} 8.388608E7
  * </pre>
  */
 public class GuavaCacheExports extends Collector {
@@ -30,6 +32,8 @@ public class GuavaCacheExports extends Collector {
   private static final String TRON_GUAVA_CACHE_HIT_RATE = "tron:guava_cache_hit_rate";
   private static final String TRON_GUAVA_CACHE_REQUEST = "tron:guava_cache_request";
   private static final String TRON_GUAVA_CACHE_EVICTION_COUNT = "tron:guava_cache_eviction_count";
+  private static final String TRON_GUAVA_CACHE_MISS_COUNT = "tron:guava_cache_miss_count";
+  private static final String TRON_GUAVA_CACHE_WEIGHT = "tron:guava_cache_weight_bytes";
 
 
   public GuavaCacheExports() {
@@ -73,6 +77,31 @@ public class GuavaCacheExports extends Collector {
     }
   }
 
+  void addMissCountMetrics(List<MetricFamilySamples> sampleFamilies,
+                           Predicate<String> nameFilter) {
+    if (nameFilter.test(TRON_GUAVA_CACHE_MISS_COUNT)) {
+      GaugeMetricFamily miss = new GaugeMetricFamily(
+          TRON_GUAVA_CACHE_MISS_COUNT,
+          "Miss count of a guava cache.",
+          Collections.singletonList("type"));
+      CacheManager.stats().forEach((k, v) -> miss
+          .addMetric(Collections.singletonList(k), v.missCount()));
+      sampleFamilies.add(miss);
+    }
+  }
+
+  void addWeightMetrics(List<MetricFamilySamples> sampleFamilies, Predicate<String> nameFilter) {
+    if (nameFilter.test(TRON_GUAVA_CACHE_WEIGHT)) {
+      GaugeMetricFamily weight = new GaugeMetricFamily(
+          TRON_GUAVA_CACHE_WEIGHT,
+          "Bytes held by a guava cache in the shared memory budget.",
+          Collections.singletonList("type"));
+      CacheManager.weights().forEach((k, v) -> weight
+          .addMetric(Collections.singletonList(k), v));
+      sampleFamilies.add(weight);
+    }
+  }
+
   @Override
   public List<MetricFamilySamples> collect() {
     return collect(null);
@@ -84,6 +113,8 @@ public class GuavaCacheExports extends Collector {
     addHitRateMetrics(mfs, nameFilter == null ? ALLOW_ALL : nameFilter);
     addRequestMetrics(mfs, nameFilter == null ? ALLOW_ALL : nameFilter);
     addEvictionCountMetrics(mfs, nameFilter == null ? ALLOW_ALL : nameFilter);
+    addMissCountMetrics(mfs, nameFilter == null ? ALLOW_ALL : nameFilter);
+    addWeightMetrics(mfs, nameFilter == null ? ALLOW_ALL : nameFilter);
     return mfs;
   }
 }
@@ -17,6 +17,7 @@ public class MetricKeys {
     public static final String P2P_ERROR = "tron:p2p_error";
     public static final String P2P_DISCONNECT = "tron:p2p_disconnect";
     public static final String INTERNAL_SERVICE_FAIL = "tron:internal_service_fail";
+    public static final String SIGNATURE_CACHE = "tron:signature_cache";
 
     private Counter() {
       throw new IllegalStateException("Counter");
@@ -33,6 +34,10 @@ public class MetricKeys {
     public static final String DB_SST_LEVEL = "tron:db_sst_level";
     public static final String MANAGER_QUEUE = "tron:manager_queue_size";
     public static final String TX_CACHE = "tron:tx_cache";
+    public static final String DB_BLOOM_FILTER = "tron:db_bloom_filter";
+    public static final String DB_PREFETCH = "tron:db_prefetch";
+    public static final String CONSTANT_CALL_QUEUE = "tron:constant_call_queue_size";
+    public static final String CONSTANT_CALL_HOT_CONTRACTS = "tron:constant_call_hot_contracts";
 
     private Gauge() {
       throw new IllegalStateException("Gauge");
@@ -62,6 +67,8 @@ public class MetricKeys {
     public static final String MESSAGE_PROCESS_LATENCY = "tron:message_process_latency_seconds";
     public static final String BLOCK_FETCH_LATENCY = "tron:block_fetch_latency_seconds";
     public static final String BLOCK_RECEIVE_DELAY = "tron:block_receive_delay_seconds";
+    public static final String DB_FLUSH_LATENCY = "tron:db_flush_latency_seconds";
+    public static final String CONSTANT_CALL_LATENCY = "tron:constant_call_latency_seconds";
 
     private Histogram() {
       throw new IllegalStateException("Histogram");
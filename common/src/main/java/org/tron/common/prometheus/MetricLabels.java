@@ -31,6 +31,8 @@ public class MetricLabels {
     public static final String TXS_FAIL_SIG = "sig";
     public static final String TXS_FAIL_TAPOS = "tapos";
     public static final String TXS_FAIL_DUP = "dup";
+    public static final String SIGNATURE_CACHE_HIT = "hit";
+    public static final String SIGNATURE_CACHE_MISS = "miss";
 
     private Counter() {
       throw new IllegalStateException("Counter");
@@ -68,6 +70,8 @@ public class MetricLabels {
   public static class Histogram {
     public static final String TRAFFIC_IN = "in";
     public static final String TRAFFIC_OUT = "out";
+    public static final String FLUSH = "flush";
+    public static final String FLUSH_OVERLAP = "overlap";
 
     private Histogram() {
       throw new IllegalStateException("Histogram");
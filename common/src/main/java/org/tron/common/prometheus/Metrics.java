@@ -55,6 +55,10 @@ public class Metrics {
     MetricsGauge.set(key, amt, labels);
   }
 
+  public static void gaugeClear(String key) {
+    MetricsGauge.clear(key);
+  }
+
   public static Histogram.Timer histogramStartTimer(String key, String... labels) {
     return MetricsHistogram.startTimer(key, labels);
   }
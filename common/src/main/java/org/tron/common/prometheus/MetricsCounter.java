@@ -18,6 +18,7 @@ class MetricsCounter {
     init(MetricKeys.Counter.P2P_DISCONNECT, "tron p2p disconnect .", "type");
     init(MetricKeys.Counter.INTERNAL_SERVICE_FAIL, "internal Service fail.",
         "class", "method");
+    init(MetricKeys.Counter.SIGNATURE_CACHE, "tron signature cache lookups.", "type");
   }
 
   private MetricsCounter() {
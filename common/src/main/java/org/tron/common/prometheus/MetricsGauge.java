@@ -19,6 +19,11 @@ class MetricsGauge {
     init(MetricKeys.Gauge.DB_SIZE_BYTES, "tron  db  size .", "type", "db", "level");
     init(MetricKeys.Gauge.DB_SST_LEVEL, "tron  db  files .", "type", "db", "level");
     init(MetricKeys.Gauge.TX_CACHE, "tron tx cache info.", "type");
+    init(MetricKeys.Gauge.DB_BLOOM_FILTER, "tron db bloom filter info.", "db", "type");
+    init(MetricKeys.Gauge.DB_PREFETCH, "tron db block prefetch info.", "db", "type");
+    init(MetricKeys.Gauge.CONSTANT_CALL_QUEUE, "constant calls waiting for the pool.");
+    init(MetricKeys.Gauge.CONSTANT_CALL_HOT_CONTRACTS,
+        "contracts taking the most constant call time in the last interval.", "contract", "type");
   }
 
   private MetricsGauge() {
@@ -45,6 +50,17 @@ class MetricsGauge {
     }
   }
 
+  static void clear(String key) {
+    if (Metrics.enabled()) {
+      Gauge gauge = container.get(key);
+      if (gauge == null) {
+        logger.info("{} not exist", key);
+        return;
+      }
+      gauge.clear();
+    }
+  }
+
   static void set(String key, double v, String... labels) {
     if (Metrics.enabled()) {
       Gauge gauge = container.get(key);
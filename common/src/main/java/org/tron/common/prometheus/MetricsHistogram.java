@@ -48,6 +48,11 @@ public class MetricsHistogram {
     init(MetricKeys.Histogram.BLOCK_FETCH_LATENCY, "fetch block latency.");
     init(MetricKeys.Histogram.BLOCK_RECEIVE_DELAY,
         "receive block delay time, receiveTime - blockTime.");
+    init(MetricKeys.Histogram.DB_FLUSH_LATENCY,
+        "snapshot flush time, and the part of it overlapped with block processing.",
+        "type");
+    init(MetricKeys.Histogram.CONSTANT_CALL_LATENCY,
+        "constant call time waiting for the pool and executing.", "type");
   }
 
   private MetricsHistogram() {
@@ -20,19 +20,22 @@ package org.tron.common.runtime.vm;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonValue;
 import java.math.BigInteger;
-import java.nio.ByteBuffer;
 import org.bouncycastle.util.Arrays;
 import org.bouncycastle.util.encoders.Hex;
 import org.tron.common.utils.ByteArray;
 import org.tron.common.utils.ByteUtil;
 import org.tron.common.utils.DecodeUtil;
-import org.tron.common.utils.FastByteComparisons;
 import org.tron.core.db.ByteArrayWrapper;
 
 /**
  * DataWord is the 32-byte array representation of a 256-bit number Calculations can be done on this
  * word with other DataWords
  *
+ * <p>The arithmetic works in place on four 64-bit limbs and does not allocate. After an operation
+ * the word holds its value in the limbs, the bytes are only built again when they are read. As
+ * {@link #getData()} hands out the array itself, which callers may write to, the bytes are the
+ * value from then on until the next operation.
+ *
  * @author Roman Mandeleil
  * @since 01.06.2014
  */
@@ -46,24 +49,31 @@ public class DataWord implements Comparable<DataWord> {
   // TODO not safe
   public static final DataWord ZERO = new DataWord(
       new byte[WORD_SIZE]);      // don't push it in to the stack
-  private byte[] data = new byte[WORD_SIZE];
+  private static final long INT_MASK = 0xFFFFFFFFL;
+  private static final long HALF_BASE = 1L << 32;
+  // the value, or null while it is held by the limbs, u3 is the most significant one
+  private byte[] data;
+  private long u0;
+  private long u1;
+  private long u2;
+  private long u3;
 
   public DataWord() {
   }
 
   public DataWord(int num) {
-    this(ByteBuffer.allocate(4).putInt(num));
+    this.u0 = num & INT_MASK;
   }
 
   public DataWord(long num) {
-    this(ByteBuffer.allocate(8).putLong(num));
+    this.u0 = num;
   }
 
-  private DataWord(ByteBuffer buffer) {
-    final ByteBuffer targetByteBuffer = ByteBuffer.allocate(WORD_SIZE);
-    final byte[] array = buffer.array();
-    System.arraycopy(array, 0, targetByteBuffer.array(), WORD_SIZE - array.length, array.length);
-    this.data = targetByteBuffer.array();
+  private DataWord(long u3, long u2, long u1, long u0) {
+    this.u3 = u3;
+    this.u2 = u2;
+    this.u1 = u1;
+    this.u0 = u0;
   }
 
   @JsonCreator
@@ -81,6 +91,7 @@ public class DataWord implements Comparable<DataWord> {
     } else if (data.length == WORD_SIZE) {
       this.data = data;
     } else if (data.length < WORD_SIZE) {
+      this.data = new byte[WORD_SIZE];
       System.arraycopy(data, 0, this.data, WORD_SIZE - data.length, data.length);
     } else {
       throw new RuntimeException("Data word can't exceed 32 bytes: " + ByteArray.toHexString(data));
@@ -155,6 +166,14 @@ public class DataWord implements Comparable<DataWord> {
   }
 
   public byte[] getData() {
+    if (data == null) {
+      byte[] bytes = new byte[WORD_SIZE];
+      putLong(bytes, 0, u3);
+      putLong(bytes, 8, u2);
+      putLong(bytes, 16, u1);
+      putLong(bytes, 24, u0);
+      data = bytes;
+    }
     return data;
   }
 
@@ -162,36 +181,34 @@ public class DataWord implements Comparable<DataWord> {
    * be careful, this one will not throw Exception when data.length > WORD_SIZE
    */
   public byte[] getClonedData() {
-    byte[] ret = ByteUtil.EMPTY_BYTE_ARRAY;
-    if (data != null) {
-      ret = new byte[WORD_SIZE];
-      int dataSize = Math.min(data.length, WORD_SIZE);
-      System.arraycopy(data, 0, ret, 0, dataSize);
-    }
+    byte[] bytes = getData();
+    byte[] ret = new byte[WORD_SIZE];
+    System.arraycopy(bytes, 0, ret, 0, Math.min(bytes.length, WORD_SIZE));
     return ret;
   }
 
   public byte[] getNoLeadZeroesData() {
-    return ByteUtil.stripLeadingZeroes(data);
+    return ByteUtil.stripLeadingZeroes(getData());
   }
 
   public byte[] getNoEndZeroesData() {
-    return ByteUtil.stripEndingZeroes(data);
+    return ByteUtil.stripEndingZeroes(getData());
   }
 
   public byte[] getLast20Bytes() {
-    return Arrays.copyOfRange(data, 12, data.length);
+    byte[] bytes = getData();
+    return Arrays.copyOfRange(bytes, 12, bytes.length);
   }
 
   public byte[] toTronAddress() {
     byte[] ret = new byte[21];
     ret[0] = DecodeUtil.addressPreFixByte;
-    System.arraycopy(data, 12, ret, 1, 20);
+    System.arraycopy(getData(), 12, ret, 1, 20);
     return ret;
   }
 
   public BigInteger value() {
-    return new BigInteger(1, data);
+    return new BigInteger(1, getData());
   }
 
   /**
@@ -202,13 +219,7 @@ public class DataWord implements Comparable<DataWord> {
    * @throws ArithmeticException - if this will not fit in an int.
    */
   public int intValue() {
-    int intVal = 0;
-
-    for (byte aData : data) {
-      intVal = (intVal << 8) + (aData & 0xff);
-    }
-
-    return intVal;
+    return (int) limb(0);
   }
 
   /**
@@ -231,13 +242,7 @@ public class DataWord implements Comparable<DataWord> {
    * @throws ArithmeticException - if this will not fit in a long.
    */
   public long longValue() {
-
-    long longVal = 0;
-    for (byte aData : data) {
-      longVal = (longVal << 8) + (aData & 0xff);
-    }
-
-    return longVal;
+    return limb(0);
   }
 
   /**
@@ -253,81 +258,109 @@ public class DataWord implements Comparable<DataWord> {
   }
 
   public BigInteger sValue() {
-    return new BigInteger(data);
+    return new BigInteger(getData());
   }
 
   public String bigIntValue() {
-    return new BigInteger(data).toString();
+    return new BigInteger(getData()).toString();
   }
 
   public boolean isZero() {
-    for (byte tmp : data) {
-      if (tmp != 0) {
-        return false;
-      }
-    }
-    return true;
+    return (limb(0) | limb(1) | limb(2) | limb(3)) == 0;
   }
 
   // only in case of signed operation
   // when the number is explicit defined
   // as negative
   public boolean isNegative() {
-    int result = data[0] & 0x80;
-    return result == 0x80;
+    return limb(3) < 0;
   }
 
-  public DataWord and(DataWord w2) {
+  /**
+   * Set this to the value of {@code word}, without sharing its bytes.
+   */
+  public void assign(DataWord word) {
+    set(word.limb(0), word.limb(1), word.limb(2), word.limb(3));
+  }
+
+  /**
+   * Set this to the 32 bytes of {@code bytes} from {@code offset}.
+   */
+  public void assign(byte[] bytes, int offset) {
+    set(getLong(bytes, offset + 24), getLong(bytes, offset + 16), getLong(bytes, offset + 8),
+        getLong(bytes, offset));
+  }
 
-    for (int i = 0; i < this.data.length; ++i) {
-      this.data[i] &= w2.data[i];
+  /**
+   * Copy the 32 bytes of the value to {@code bytes} from {@code offset}.
+   */
+  public void copyTo(byte[] bytes, int offset) {
+    if (data != null && data.length == WORD_SIZE) {
+      System.arraycopy(data, 0, bytes, offset, WORD_SIZE);
+      return;
     }
+    putLong(bytes, offset, limb(3));
+    putLong(bytes, offset + 8, limb(2));
+    putLong(bytes, offset + 16, limb(1));
+    putLong(bytes, offset + 24, limb(0));
+  }
+
+  public DataWord and(DataWord w2) {
+    load();
+    u0 &= w2.limb(0);
+    u1 &= w2.limb(1);
+    u2 &= w2.limb(2);
+    u3 &= w2.limb(3);
     return this;
   }
 
   public DataWord or(DataWord w2) {
-
-    for (int i = 0; i < this.data.length; ++i) {
-      this.data[i] |= w2.data[i];
-    }
+    load();
+    u0 |= w2.limb(0);
+    u1 |= w2.limb(1);
+    u2 |= w2.limb(2);
+    u3 |= w2.limb(3);
     return this;
   }
 
   public DataWord xor(DataWord w2) {
-
-    for (int i = 0; i < this.data.length; ++i) {
-      this.data[i] ^= w2.data[i];
-    }
+    load();
+    u0 ^= w2.limb(0);
+    u1 ^= w2.limb(1);
+    u2 ^= w2.limb(2);
+    u3 ^= w2.limb(3);
     return this;
   }
 
   public void negate() {
-    if (this.isZero()) {
-      return;
-    }
-
-    bnot();
-    add(DataWord.ONE());
+    load();
+    negateLimbs();
   }
 
   public void bnot() {
-    if (this.isZero()) {
-      this.data = ByteUtil.copyToArray(MAX_VALUE);
-      return;
-    }
-    this.data = ByteUtil.copyToArray(MAX_VALUE.subtract(this.value()));
+    load();
+    u0 = ~u0;
+    u1 = ~u1;
+    u2 = ~u2;
+    u3 = ~u3;
   }
 
-  // By   : Holger
-  // From : http://stackoverflow.com/a/24023466/459349
   public void add(DataWord word) {
-    byte[] result = new byte[WORD_SIZE];
-    for (int i = 31, overflow = 0; i >= 0; i--) {
-      int v = (this.data[i] & 0xff) + (word.data[i] & 0xff) + overflow;
-      result[i] = (byte) v;
-      overflow = v >>> 8;
-    }
-    this.data = result;
+    load();
+    long b0 = word.limb(0);
+    long b1 = word.limb(1);
+    long b2 = word.limb(2);
+    long b3 = word.limb(3);
+    long r0 = u0 + b0;
+    long c = carry(u0, b0, r0);
+    long r1 = u1 + b1 + c;
+    c = carry(u1, b1, r1);
+    long r2 = u2 + b2 + c;
+    c = carry(u2, b2, r2);
+    u3 = u3 + b3 + c;
+    u2 = r2;
+    u1 = r1;
+    u0 = r0;
   }
 
   // old add-method with BigInteger quick hack
@@ -336,15 +369,11 @@ public class DataWord implements Comparable<DataWord> {
     this.data = ByteUtil.copyToArray(result.and(MAX_VALUE));
   }
 
-  // TODO: mul can be done in more efficient way
-  // TODO:     with shift left shift right trick
-  // TODO      without BigInteger quick hack
   public void mul(DataWord word) {
-    BigInteger result = value().multiply(word.value());
-    this.data = ByteUtil.copyToArray(result.and(MAX_VALUE));
+    load();
+    mul(u0, u1, u2, u3, word.limb(0), word.limb(1), word.limb(2), word.limb(3));
   }
 
-  // TODO: improve with no BigInteger
   public void div(DataWord word) {
 
     if (word.isZero()) {
@@ -352,11 +381,10 @@ public class DataWord implements Comparable<DataWord> {
       return;
     }
 
-    BigInteger result = value().divide(word.value());
-    this.data = ByteUtil.copyToArray(result.and(MAX_VALUE));
+    load();
+    divide(word.limb(0), word.limb(1), word.limb(2), word.limb(3), false);
   }
 
-  // TODO: improve with no BigInteger
   public void sDiv(DataWord word) {
 
     if (word.isZero()) {
@@ -364,23 +392,72 @@ public class DataWord implements Comparable<DataWord> {
       return;
     }
 
-    BigInteger result = sValue().divide(word.sValue());
-    this.data = ByteUtil.copyToArray(result.and(MAX_VALUE));
+    load();
+    long b0 = word.limb(0);
+    long b1 = word.limb(1);
+    long b2 = word.limb(2);
+    long b3 = word.limb(3);
+    boolean negative = u3 < 0;
+    boolean negativeDivisor = b3 < 0;
+    if (negative) {
+      negateLimbs();
+    }
+    if (negativeDivisor) {
+      b3 = ~b3;
+      b2 = ~b2;
+      b1 = ~b1;
+      b0 = -b0;
+      if (b0 == 0 && ++b1 == 0 && ++b2 == 0) {
+        b3++;
+      }
+    }
+    divide(b0, b1, b2, b3, false);
+    if (negative != negativeDivisor) {
+      negateLimbs();
+    }
   }
 
-  // TODO: improve with no BigInteger
   public void sub(DataWord word) {
-    BigInteger result = value().subtract(word.value());
-    this.data = ByteUtil.copyToArray(result.and(MAX_VALUE));
+    load();
+    long b0 = word.limb(0);
+    long b1 = word.limb(1);
+    long b2 = word.limb(2);
+    long b3 = word.limb(3);
+    long r0 = u0 - b0;
+    long c = borrow(u0, b0, r0);
+    long r1 = u1 - b1 - c;
+    c = borrow(u1, b1, r1);
+    long r2 = u2 - b2 - c;
+    c = borrow(u2, b2, r2);
+    u3 = u3 - b3 - c;
+    u2 = r2;
+    u1 = r1;
+    u0 = r0;
   }
 
-  // TODO: improve with no BigInteger
   public void exp(DataWord word) {
-    BigInteger result = value().modPow(word.value(), _2_256);
-    this.data = ByteUtil.copyToArray(result);
+    load();
+    long e0 = word.limb(0);
+    long e1 = word.limb(1);
+    long e2 = word.limb(2);
+    long e3 = word.limb(3);
+    long a0 = u0;
+    long a1 = u1;
+    long a2 = u2;
+    long a3 = u3;
+    u0 = 1;
+    u1 = 0;
+    u2 = 0;
+    u3 = 0;
+    // square and multiply, from the highest bit of the exponent
+    for (int i = MAX_POW - 1 - numberOfLeadingZeros(e0, e1, e2, e3); i >= 0; i--) {
+      mul(u0, u1, u2, u3, u0, u1, u2, u3);
+      if ((limbOf(e0, e1, e2, e3, i >>> 6, 0) >>> i & 1) != 0) {
+        mul(u0, u1, u2, u3, a0, a1, a2, a3);
+      }
+    }
   }
 
-  // TODO: improve with no BigInteger
   public void mod(DataWord word) {
 
     if (word.isZero()) {
@@ -388,48 +465,123 @@ public class DataWord implements Comparable<DataWord> {
       return;
     }
 
-    BigInteger result = value().mod(word.value());
-    this.data = ByteUtil.copyToArray(result.and(MAX_VALUE));
+    load();
+    divide(word.limb(0), word.limb(1), word.limb(2), word.limb(3), true);
   }
 
   public void sMod(DataWord word) {
 
     if (word.isZero()) {
-      this.and(ZERO());
+      this.and(ZERO);
       return;
     }
 
-    BigInteger result = sValue().abs().mod(word.sValue().abs());
-    result = (sValue().signum() == -1) ? result.negate() : result;
-
-    this.data = ByteUtil.copyToArray(result.and(MAX_VALUE));
+    load();
+    long b0 = word.limb(0);
+    long b1 = word.limb(1);
+    long b2 = word.limb(2);
+    long b3 = word.limb(3);
+    boolean negative = u3 < 0;
+    if (negative) {
+      negateLimbs();
+    }
+    if (b3 < 0) {
+      b3 = ~b3;
+      b2 = ~b2;
+      b1 = ~b1;
+      b0 = -b0;
+      if (b0 == 0 && ++b1 == 0 && ++b2 == 0) {
+        b3++;
+      }
+    }
+    // the remainder takes the sign of the dividend
+    divide(b0, b1, b2, b3, true);
+    if (negative) {
+      negateLimbs();
+    }
   }
 
   public void addmod(DataWord word1, DataWord word2) {
     if (word2.isZero()) {
-      this.data = new byte[WORD_SIZE];
+      setZero();
       return;
     }
 
-    BigInteger result = value().add(word1.value()).mod(word2.value());
-    this.data = ByteUtil.copyToArray(result.and(MAX_VALUE));
+    long m0 = word2.limb(0);
+    long m1 = word2.limb(1);
+    long m2 = word2.limb(2);
+    long m3 = word2.limb(3);
+    long y0 = word1.limb(0);
+    long y1 = word1.limb(1);
+    long y2 = word1.limb(2);
+    long y3 = word1.limb(3);
+    load();
+    divide(m0, m1, m2, m3, true);
+    long x0 = u0;
+    long x1 = u1;
+    long x2 = u2;
+    long x3 = u3;
+    set(y0, y1, y2, y3);
+    divide(m0, m1, m2, m3, true);
+    // both are below the modulus, so their sum exceeds it at most once, even if it overflows
+    long r0 = x0 + u0;
+    long c = carry(x0, u0, r0);
+    long r1 = x1 + u1 + c;
+    c = carry(x1, u1, r1);
+    long r2 = x2 + u2 + c;
+    c = carry(x2, u2, r2);
+    long r3 = x3 + u3 + c;
+    c = carry(x3, u3, r3);
+    set(r0, r1, r2, r3);
+    if (c != 0 || compare(r0, r1, r2, r3, m0, m1, m2, m3) >= 0) {
+      long s0 = r0 - m0;
+      c = borrow(r0, m0, s0);
+      long s1 = r1 - m1 - c;
+      c = borrow(r1, m1, s1);
+      long s2 = r2 - m2 - c;
+      c = borrow(r2, m2, s2);
+      set(s0, s1, s2, r3 - m3 - c);
+    }
   }
 
   public void mulmod(DataWord word1, DataWord word2) {
 
     if (this.isZero() || word1.isZero() || word2.isZero()) {
-      this.data = new byte[WORD_SIZE];
+      setZero();
       return;
     }
 
-    BigInteger result = value().multiply(word1.value()).mod(word2.value());
-    this.data = ByteUtil.copyToArray(result.and(MAX_VALUE));
+    long m0 = word2.limb(0);
+    long m1 = word2.limb(1);
+    long m2 = word2.limb(2);
+    long m3 = word2.limb(3);
+    long y0 = word1.limb(0);
+    long y1 = word1.limb(1);
+    long y2 = word1.limb(2);
+    long y3 = word1.limb(3);
+    load();
+    divide(m0, m1, m2, m3, true);
+    long x0 = u0;
+    long x1 = u1;
+    long x2 = u2;
+    long x3 = u3;
+    set(y0, y1, y2, y3);
+    divide(m0, m1, m2, m3, true);
+    if (numberOfLeadingZeros(x0, x1, x2, x3) + numberOfLeadingZeros(u0, u1, u2, u3) >= MAX_POW) {
+      mul(x0, x1, x2, x3, u0, u1, u2, u3);
+      divide(m0, m1, m2, m3, true);
+      return;
+    }
+    // the product needs more than 256 bits, which only a modulus of that size leaves
+    BigInteger x = new DataWord(x3, x2, x1, x0).value();
+    BigInteger m = new DataWord(m3, m2, m1, m0).value();
+    this.data = ByteUtil.copyToArray(x.multiply(value()).mod(m));
   }
 
   @JsonValue
   @Override
   public String toString() {
-    return Hex.toHexString(data);
+    return Hex.toHexString(getData());
   }
 
   public String toPrefixString() {
@@ -452,6 +604,9 @@ public class DataWord implements Comparable<DataWord> {
   }
 
   public DataWord clone() {
+    if (data == null) {
+      return new DataWord(u3, u2, u1, u0);
+    }
     return new DataWord(Arrays.clone(data));
   }
 
@@ -466,47 +621,55 @@ public class DataWord implements Comparable<DataWord> {
 
     DataWord dataWord = (DataWord) o;
 
-    return java.util.Arrays.equals(data, dataWord.data);
-
+    return limb(0) == dataWord.limb(0) && limb(1) == dataWord.limb(1)
+        && limb(2) == dataWord.limb(2) && limb(3) == dataWord.limb(3);
   }
 
   @Override
   public int hashCode() {
-    return java.util.Arrays.hashCode(data);
+    int result = Long.hashCode(limb(3));
+    result = 31 * result + Long.hashCode(limb(2));
+    result = 31 * result + Long.hashCode(limb(1));
+    return 31 * result + Long.hashCode(limb(0));
   }
 
   @Override
   public int compareTo(DataWord o) {
-    if (o == null || o.getData() == null) {
+    if (o == null) {
       return -1;
     }
-    int result = FastByteComparisons.compareTo(
-        data, 0, data.length,
-        o.getData(), 0, o.getData().length);
-    // Convert result into -1, 0 or 1 as is the convention
-    return (int) Math.signum(result);
+    return compare(limb(0), limb(1), limb(2), limb(3),
+        o.limb(0), o.limb(1), o.limb(2), o.limb(3));
   }
 
   public void signExtend(byte k) {
     if (0 > k || k > 31) {
       throw new IndexOutOfBoundsException();
     }
-    byte mask = this.sValue().testBit((k * 8) + 7) ? (byte) 0xff : 0;
-    for (int i = 31; i > k; i--) {
-      this.data[31 - i] = mask;
-    }
+    load();
+    int bit = k * 8 + 7;
+    int index = bit >>> 6;
+    long fill = (limbOf(u0, u1, u2, u3, index, 0) >>> bit & 1) == 0 ? 0 : -1;
+    // the bits above the sign bit within its limb
+    long mask = -1L << (bit & 63) << 1;
+    u0 = extend(u0, 0, index, mask, fill);
+    u1 = extend(u1, 1, index, mask, fill);
+    u2 = extend(u2, 2, index, mask, fill);
+    u3 = extend(u3, 3, index, mask, fill);
   }
 
   public int bytesOccupied() {
-    int firstNonZero = ByteUtil.firstNonZeroByte(data);
-    if (firstNonZero == -1) {
-      return 0;
+    for (int i = 3; i >= 0; i--) {
+      long limb = limb(i);
+      if (limb != 0) {
+        return i * 8 + 8 - Long.numberOfLeadingZeros(limb) / 8;
+      }
     }
-    return 31 - firstNonZero + 1;
+    return 0;
   }
 
   public boolean isHex(String hex) {
-    return Hex.toHexString(data).equals(hex);
+    return Hex.toHexString(getData()).equals(hex);
   }
 
   public String asString() {
@@ -514,7 +677,7 @@ public class DataWord implements Comparable<DataWord> {
   }
 
   public String toHexString() {
-    return Hex.toHexString(data);
+    return Hex.toHexString(getData());
   }
 
   /**
@@ -523,12 +686,17 @@ public class DataWord implements Comparable<DataWord> {
    * @return this << arg
    */
   public DataWord shiftLeft(DataWord arg) {
-    if (arg.value().compareTo(BigInteger.valueOf(MAX_POW)) >= 0) {
+    int n = arg.shiftBits();
+    if (n < 0) {
       return DataWord.ZERO();
     }
 
-    BigInteger result = value().shiftLeft(arg.intValueSafe());
-    return new DataWord(ByteUtil.copyToArray(result.and(MAX_VALUE)));
+    long x0 = limb(0);
+    long x1 = limb(1);
+    long x2 = limb(2);
+    long x3 = limb(3);
+    return new DataWord(shiftedLeft(x0, x1, x2, x3, n, 3), shiftedLeft(x0, x1, x2, x3, n, 2),
+        shiftedLeft(x0, x1, x2, x3, n, 1), shiftedLeft(x0, x1, x2, x3, n, 0));
   }
 
   /**
@@ -537,12 +705,12 @@ public class DataWord implements Comparable<DataWord> {
    * @return this >> arg
    */
   public DataWord shiftRight(DataWord arg) {
-    if (arg.value().compareTo(BigInteger.valueOf(MAX_POW)) >= 0) {
+    int n = arg.shiftBits();
+    if (n < 0) {
       return DataWord.ZERO();
     }
 
-    BigInteger result = value().shiftRight(arg.intValueSafe());
-    return new DataWord(ByteUtil.copyToArray(result.and(MAX_VALUE)));
+    return shiftedRight(n, 0);
   }
 
   /**
@@ -551,17 +719,349 @@ public class DataWord implements Comparable<DataWord> {
    * @return this >> arg
    */
   public DataWord shiftRightSigned(DataWord arg) {
-    if (arg.value().compareTo(BigInteger.valueOf(MAX_POW)) >= 0) {
-      if (this.isNegative()) {
-        DataWord result = ONE();
-        result.negate();
-        return result;
+    long fill = isNegative() ? -1 : 0;
+    int n = arg.shiftBits();
+    if (n < 0) {
+      return new DataWord(fill, fill, fill, fill);
+    }
+
+    return shiftedRight(n, fill);
+  }
+
+  /**
+   * @return the shift this word gives, or -1 if it shifts out all bits.
+   */
+  private int shiftBits() {
+    long low = limb(0);
+    if ((limb(1) | limb(2) | limb(3)) != 0 || Long.compareUnsigned(low, MAX_POW) >= 0) {
+      return -1;
+    }
+    return (int) low;
+  }
+
+  private DataWord shiftedRight(int n, long fill) {
+    long x0 = limb(0);
+    long x1 = limb(1);
+    long x2 = limb(2);
+    long x3 = limb(3);
+    return new DataWord(shiftedRight(x0, x1, x2, x3, n, 3, fill),
+        shiftedRight(x0, x1, x2, x3, n, 2, fill), shiftedRight(x0, x1, x2, x3, n, 1, fill),
+        shiftedRight(x0, x1, x2, x3, n, 0, fill));
+  }
+
+  /**
+   * @return limb {@code i} of the value, 0 is the least significant one.
+   */
+  private long limb(int i) {
+    if (data == null) {
+      return limbOf(u0, u1, u2, u3, i, 0);
+    }
+    // only a word made of null has no 32 bytes
+    return data.length == WORD_SIZE ? getLong(data, (3 - i) << 3) : 0;
+  }
+
+  /**
+   * Move the value to the limbs, which an operation is about to change.
+   */
+  private void load() {
+    if (data != null) {
+      long x0 = limb(0);
+      long x1 = limb(1);
+      long x2 = limb(2);
+      long x3 = limb(3);
+      set(x0, x1, x2, x3);
+    }
+  }
+
+  private void set(long x0, long x1, long x2, long x3) {
+    data = null;
+    u0 = x0;
+    u1 = x1;
+    u2 = x2;
+    u3 = x3;
+  }
+
+  private void setZero() {
+    set(0, 0, 0, 0);
+  }
+
+  private void negateLimbs() {
+    u3 = ~u3;
+    u2 = ~u2;
+    u1 = ~u1;
+    u0 = -u0;
+    if (u0 == 0 && ++u1 == 0 && ++u2 == 0) {
+      u3++;
+    }
+  }
+
+  /**
+   * Set this to the low 256 bits of a * b.
+   */
+  private void mul(long a0, long a1, long a2, long a3, long b0, long b1, long b2, long b3) {
+    long lo;
+    long t;
+    long c;
+    long r0 = a0 * b0;
+    c = multiplyHigh(a0, b0);
+    lo = a0 * b1;
+    long r1 = lo + c;
+    c = multiplyHigh(a0, b1) + (Long.compareUnsigned(r1, lo) < 0 ? 1 : 0);
+    lo = a0 * b2;
+    long r2 = lo + c;
+    c = multiplyHigh(a0, b2) + (Long.compareUnsigned(r2, lo) < 0 ? 1 : 0);
+    long r3 = a0 * b3 + c;
+
+    lo = a1 * b0;
+    t = r1 + lo;
+    c = multiplyHigh(a1, b0) + (Long.compareUnsigned(t, lo) < 0 ? 1 : 0);
+    r1 = t;
+    lo = a1 * b1;
+    t = r2 + lo;
+    long carry = Long.compareUnsigned(t, lo) < 0 ? 1 : 0;
+    r2 = t + c;
+    carry += Long.compareUnsigned(r2, t) < 0 ? 1 : 0;
+    r3 += a1 * b2 + multiplyHigh(a1, b1) + carry;
+
+    lo = a2 * b0;
+    t = r2 + lo;
+    c = multiplyHigh(a2, b0) + (Long.compareUnsigned(t, lo) < 0 ? 1 : 0);
+    r2 = t;
+    r3 += a2 * b1 + c;
+
+    r3 += a3 * b0;
+    set(r0, r1, r2, r3);
+  }
+
+  /**
+   * Set this to its quotient or remainder by b, which is not zero.
+   */
+  private void divide(long b0, long b1, long b2, long b3, boolean remainder) {
+    if (compare(u0, u1, u2, u3, b0, b1, b2, b3) < 0) {
+      if (!remainder) {
+        setZero();
+      }
+      return;
+    }
+    if ((b1 | b2 | b3) == 0) {
+      // one limb divisor, the remainder of each step is below it
+      long q3 = divideUnsigned(0, u3, b0);
+      long r = u3 - q3 * b0;
+      long q2 = divideUnsigned(r, u2, b0);
+      r = u2 - q2 * b0;
+      long q1 = divideUnsigned(r, u1, b0);
+      r = u1 - q1 * b0;
+      long q0 = divideUnsigned(r, u0, b0);
+      r = u0 - q0 * b0;
+      if (remainder) {
+        set(r, 0, 0, 0);
       } else {
-        return ZERO();
+        set(q0, q1, q2, q3);
+      }
+      return;
+    }
+
+    // shift and subtract, the divisor has more than 64 bits so the quotient has at most 192
+    int shift = numberOfLeadingZeros(b0, b1, b2, b3) - numberOfLeadingZeros(u0, u1, u2, u3);
+    long d0 = shiftedLeft(b0, b1, b2, b3, shift, 0);
+    long d1 = shiftedLeft(b0, b1, b2, b3, shift, 1);
+    long d2 = shiftedLeft(b0, b1, b2, b3, shift, 2);
+    long d3 = shiftedLeft(b0, b1, b2, b3, shift, 3);
+    long r0 = u0;
+    long r1 = u1;
+    long r2 = u2;
+    long r3 = u3;
+    long q0 = 0;
+    long q1 = 0;
+    long q2 = 0;
+    for (int i = shift; i >= 0; i--) {
+      if (compare(r0, r1, r2, r3, d0, d1, d2, d3) >= 0) {
+        long s0 = r0 - d0;
+        long c = borrow(r0, d0, s0);
+        long s1 = r1 - d1 - c;
+        c = borrow(r1, d1, s1);
+        long s2 = r2 - d2 - c;
+        c = borrow(r2, d2, s2);
+        r3 = r3 - d3 - c;
+        r2 = s2;
+        r1 = s1;
+        r0 = s0;
+        if (i < 64) {
+          q0 |= 1L << i;
+        } else if (i < 128) {
+          q1 |= 1L << i;
+        } else {
+          q2 |= 1L << i;
+        }
+      }
+      d0 = d0 >>> 1 | d1 << 63;
+      d1 = d1 >>> 1 | d2 << 63;
+      d2 = d2 >>> 1 | d3 << 63;
+      d3 >>>= 1;
+    }
+    if (remainder) {
+      set(r0, r1, r2, r3);
+    } else {
+      set(q0, q1, q2, 0);
+    }
+  }
+
+  /**
+   * @return (u1 * 2^64 + u0) / v, where u1 < v, with 32-bit digits as in Hacker's Delight divlu.
+   */
+  private static long divideUnsigned(long u1, long u0, long v) {
+    if (u1 == 0) {
+      return Long.divideUnsigned(u0, v);
+    }
+    int s = Long.numberOfLeadingZeros(v);
+    v <<= s;
+    long vn1 = v >>> 32;
+    long vn0 = v & INT_MASK;
+    long un32 = s == 0 ? u1 : u1 << s | u0 >>> (64 - s);
+    long un10 = u0 << s;
+    long un1 = un10 >>> 32;
+    long un0 = un10 & INT_MASK;
+
+    long q1 = Long.divideUnsigned(un32, vn1);
+    long rhat = un32 - q1 * vn1;
+    while (q1 >= HALF_BASE || Long.compareUnsigned(q1 * vn0, HALF_BASE * rhat + un1) > 0) {
+      q1--;
+      rhat += vn1;
+      if (rhat >= HALF_BASE) {
+        break;
+      }
+    }
+
+    long un21 = un32 * HALF_BASE + un1 - q1 * v;
+    long q0 = Long.divideUnsigned(un21, vn1);
+    rhat = un21 - q0 * vn1;
+    while (q0 >= HALF_BASE || Long.compareUnsigned(q0 * vn0, HALF_BASE * rhat + un0) > 0) {
+      q0--;
+      rhat += vn1;
+      if (rhat >= HALF_BASE) {
+        break;
       }
     }
+    return q1 * HALF_BASE + q0;
+  }
+
+  /**
+   * @return the high 64 bits of the unsigned product of x and y.
+   */
+  private static long multiplyHigh(long x, long y) {
+    long x0 = x & INT_MASK;
+    long x1 = x >>> 32;
+    long y0 = y & INT_MASK;
+    long y1 = y >>> 32;
+    long t = x1 * y0 + (x0 * y0 >>> 32);
+    long w1 = (t & INT_MASK) + x0 * y1;
+    return x1 * y1 + (t >>> 32) + (w1 >>> 32);
+  }
+
+  private static long carry(long a, long b, long sum) {
+    return ((a & b) | ((a | b) & ~sum)) >>> 63;
+  }
+
+  private static long borrow(long a, long b, long difference) {
+    return ((~a & b) | ((~a | b) & difference)) >>> 63;
+  }
+
+  private static int compare(long a0, long a1, long a2, long a3,
+      long b0, long b1, long b2, long b3) {
+    if (a3 != b3) {
+      return Long.compareUnsigned(a3, b3) < 0 ? -1 : 1;
+    }
+    if (a2 != b2) {
+      return Long.compareUnsigned(a2, b2) < 0 ? -1 : 1;
+    }
+    if (a1 != b1) {
+      return Long.compareUnsigned(a1, b1) < 0 ? -1 : 1;
+    }
+    if (a0 != b0) {
+      return Long.compareUnsigned(a0, b0) < 0 ? -1 : 1;
+    }
+    return 0;
+  }
 
-    BigInteger result = sValue().shiftRight(arg.intValueSafe());
-    return new DataWord(ByteUtil.copyToArray(result.and(MAX_VALUE)));
+  private static int numberOfLeadingZeros(long x0, long x1, long x2, long x3) {
+    if (x3 != 0) {
+      return Long.numberOfLeadingZeros(x3);
+    }
+    if (x2 != 0) {
+      return 64 + Long.numberOfLeadingZeros(x2);
+    }
+    if (x1 != 0) {
+      return 128 + Long.numberOfLeadingZeros(x1);
+    }
+    return 192 + Long.numberOfLeadingZeros(x0);
+  }
+
+  /**
+   * @return limb {@code i} of x, below it all bits are zero, above it they are {@code fill}.
+   */
+  private static long limbOf(long x0, long x1, long x2, long x3, int i, long fill) {
+    switch (i) {
+      case 0:
+        return x0;
+      case 1:
+        return x1;
+      case 2:
+        return x2;
+      case 3:
+        return x3;
+      default:
+        return i < 0 ? 0 : fill;
+    }
+  }
+
+  /**
+   * @return limb {@code i} of x << n, 0 <= n < 256.
+   */
+  private static long shiftedLeft(long x0, long x1, long x2, long x3, int n, int i) {
+    int j = i - (n >>> 6);
+    int bits = n & 63;
+    long high = limbOf(x0, x1, x2, x3, j, 0);
+    if (bits == 0) {
+      return high;
+    }
+    return high << bits | limbOf(x0, x1, x2, x3, j - 1, 0) >>> (64 - bits);
+  }
+
+  /**
+   * @return limb {@code i} of x >> n, 0 <= n < 256, shifting in {@code fill} bits.
+   */
+  private static long shiftedRight(long x0, long x1, long x2, long x3, int n, int i, long fill) {
+    int j = i + (n >>> 6);
+    int bits = n & 63;
+    long low = limbOf(x0, x1, x2, x3, j, fill);
+    if (bits == 0) {
+      return low;
+    }
+    return low >>> bits | limbOf(x0, x1, x2, x3, j + 1, fill) << (64 - bits);
+  }
+
+  private static long extend(long limb, int i, int index, long mask, long fill) {
+    if (i < index) {
+      return limb;
+    }
+    if (i > index) {
+      return fill;
+    }
+    return (limb & ~mask) | (fill & mask);
+  }
+
+  private static long getLong(byte[] bytes, int offset) {
+    long value = 0;
+    for (int i = offset; i < offset + 8; i++) {
+      value = value << 8 | (bytes[i] & 0xFF);
+    }
+    return value;
+  }
+
+  private static void putLong(byte[] bytes, int offset, long value) {
+    for (int i = offset + 7; i >= offset; i--) {
+      bytes[i] = (byte) value;
+      value >>>= 8;
+    }
   }
 }
@@ -1,5 +1,7 @@
 package org.tron.common.setting;
 
+import java.util.HashMap;
+import java.util.Map;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
@@ -33,6 +35,11 @@ public class RocksDbSettings {
   private int targetFileSizeMultiplier;
   @Getter
   private boolean enableStatistics;
+  @Getter
+  private boolean columnFamily;
+  @Getter
+  private long dbWriteBufferSize;
+  private final Map<String, ColumnFamily> columnFamilies = new HashMap<>();
 
   static {
     RocksDB.loadLibrary();
@@ -137,7 +144,53 @@ public class RocksDbSettings {
     this.targetFileSizeMultiplier = targetFileSizeMultiplier;
     return this;
   }
+
+  public RocksDbSettings withColumnFamily(boolean columnFamily) {
+    this.columnFamily = columnFamily;
+    return this;
+  }
+
+  public RocksDbSettings withDbWriteBufferSize(long dbWriteBufferSize) {
+    this.dbWriteBufferSize = dbWriteBufferSize * 1024 * 1024;
+    return this;
+  }
+
+  public RocksDbSettings withColumnFamily(String name, ColumnFamily options) {
+    this.columnFamilies.put(name, options);
+    return this;
+  }
+
+  /**
+   * @return the options of the column family of store {@code name}, the defaults if it has no
+   *     entry in {@code dbSettings.columnFamilies}.
+   */
+  public ColumnFamily getColumnFamily(String name) {
+    return columnFamilies.getOrDefault(name, ColumnFamily.DEFAULT);
+  }
+
   public static LRUCache getCache() {
     return cache;
   }
+
+  /**
+   * Options of one store in column family mode.
+   */
+  @Getter
+  public static class ColumnFamily {
+
+    private static final ColumnFamily DEFAULT = new ColumnFamily(10, null, -1);
+
+    // bits per key of the table bloom filter, 0 for none
+    private final int bloomBits;
+    // library name as in CompressionType#getCompressionType, null for the rocksdb default
+    private final String compression;
+    // length of the fixed key prefix, 0 for none, -1 for the one the store declares
+    private final int prefixLength;
+
+    public ColumnFamily(int bloomBits, String compression, int prefixLength) {
+      this.bloomBits = bloomBits;
+      this.compression = compression;
+      this.prefixLength = prefixLength;
+    }
+  }
 }
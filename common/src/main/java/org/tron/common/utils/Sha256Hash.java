@@ -22,12 +22,15 @@ import static com.google.common.base.Preconditions.checkArgument;
 import com.google.common.io.ByteStreams;
 import com.google.common.primitives.Ints;
 import com.google.common.primitives.Longs;
+import com.google.protobuf.ByteOutput;
 import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.Serializable;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
@@ -159,6 +162,23 @@ public class Sha256Hash implements Serializable, Comparable<Sha256Hash> {
     return new SM3Digest();
   }
 
+  /**
+   * Creates a new instance containing the calculated (one-time) hash of the given bytes, read in
+   * place without copying them out of the byte string.
+   *
+   * @param contents the bytes on which the hash value is calculated
+   * @return a new instance containing the calculated (one-time) hash
+   */
+  public static Sha256Hash of(boolean isSha256, ByteString contents) {
+    DigestOutput digest = new DigestOutput(isSha256);
+    try {
+      UnsafeByteOperations.unsafeWriteTo(contents, digest);
+    } catch (IOException e) {
+      throw new RuntimeException(e);  // Can't happen.
+    }
+    return wrap(digest.digest());
+  }
+
   /**
    * Calculates the SHA-256 hash of the given bytes.
    *
@@ -329,4 +349,70 @@ public class Sha256Hash implements Serializable, Comparable<Sha256Hash> {
     }
     return 0;
   }
+
+  /**
+   * Feeds the bytes a byte string writes out to a digest, without copying those backed by an
+   * array.
+   */
+  private static class DigestOutput extends ByteOutput {
+
+    private final MessageDigest sha256;
+    private final SM3Digest sm3;
+
+    private DigestOutput(boolean isSha256) {
+      sha256 = isSha256 ? newDigest() : null;
+      sm3 = isSha256 ? null : newSM3Digest();
+    }
+
+    @Override
+    public void write(byte value) {
+      if (sha256 != null) {
+        sha256.update(value);
+      } else {
+        sm3.update(value);
+      }
+    }
+
+    @Override
+    public void write(byte[] value, int offset, int length) {
+      if (sha256 != null) {
+        sha256.update(value, offset, length);
+      } else {
+        sm3.update(value, offset, length);
+      }
+    }
+
+    @Override
+    public void writeLazy(byte[] value, int offset, int length) {
+      write(value, offset, length);
+    }
+
+    @Override
+    public void write(ByteBuffer value) {
+      if (sha256 != null) {
+        sha256.update(value);
+      } else if (value.hasArray()) {
+        sm3.update(value.array(), value.arrayOffset() + value.position(), value.remaining());
+        value.position(value.limit());
+      } else {
+        byte[] bytes = new byte[value.remaining()];
+        value.get(bytes);
+        sm3.update(bytes, 0, bytes.length);
+      }
+    }
+
+    @Override
+    public void writeLazy(ByteBuffer value) {
+      write(value);
+    }
+
+    private byte[] digest() {
+      if (sha256 != null) {
+        return sha256.digest();
+      }
+      byte[] eHash = new byte[sm3.getDigestSize()];
+      sm3.doFinal(eHash, 0);
+      return eHash;
+    }
+  }
 }
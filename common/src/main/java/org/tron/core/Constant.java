@@ -72,6 +72,8 @@ public class Constant {
 
   public static final String VM_ESTIMATE_ENERGY_MAX_RETRY = "vm.estimateEnergyMaxRetry";
 
+  public static final String VM_CODE_ANALYSIS_PREWARM = "vm.codeAnalysisPrewarm";
+
   public static final String ROCKSDB = "ROCKSDB";
 
   public static final String GENESIS_BLOCK = "genesis.block";
@@ -188,6 +190,13 @@ public class Constant {
 
   public static final String NODE_VALIDATE_SIGN_THREAD_NUM = "node.validateSignThreadNum";
 
+  public static final String NODE_SIGNATURE_CACHE_SIZE = "node.signatureCacheSize";
+
+  public static final String NODE_PARALLEL_EXECUTION = "node.parallelExecution";
+
+  public static final String NODE_PARALLEL_EXECUTION_THREAD_NUM =
+      "node.parallelExecutionThreadNum";
+
   public static final String NODE_WALLET_EXTENSION_API = "node.walletExtensionApi";
 
   public static final String NODE_RECEIVE_TCP_MIN_DATA_LENGTH = "node.receiveTcpMinDataLength";
@@ -214,6 +223,12 @@ public class Constant {
 
   public static final String VM_TRACE = "vm.vmTrace";
 
+  public static final String VM_BLOCK_CHARGING = "vm.blockCharging";
+
+  public static final String VM_CONSTANT_CALL_THREAD_NUM = "vm.constantCallThreadNum";
+
+  public static final String VM_CONSTANT_CALL_QUEUE_SIZE = "vm.constantCallQueueSize";
+
   public static final String VM_SAVE_INTERNAL_TX = "vm.saveInternalTx";
 
   public static final String VM_SAVE_FEATURED_INTERNAL_TX = "vm.saveFeaturedInternalTx";
@@ -19,6 +19,7 @@ import com.google.common.collect.Maps;
 import com.typesafe.config.Config;
 import com.typesafe.config.ConfigObject;
 import java.io.File;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -54,6 +55,9 @@ public class Storage {
   private static final String ESTIMATED_TRANSACTIONS_CONFIG_KEY =
       "storage.txCache.estimatedTransactions";
   private static final String SNAPSHOT_MAX_FLUSH_COUNT_CONFIG_KEY = "storage.snapshot.maxFlushCount";
+  private static final String SNAPSHOT_OFF_HEAP_CONFIG_KEY = "storage.snapshot.offHeap";
+  private static final String SNAPSHOT_ASYNC_FLUSH_CONFIG_KEY = "storage.snapshot.asyncFlush";
+  private static final String BLOCK_PREFETCH_CONFIG_KEY = "storage.blockPrefetch";
   private static final String PROPERTIES_CONFIG_KEY = "storage.properties";
   private static final String PROPERTIES_CONFIG_DB_KEY = "storage";
   private static final String PROPERTIES_CONFIG_DEFAULT_KEY = "default";
@@ -77,6 +81,9 @@ public class Storage {
   private static final String CHECKPOINT_SYNC_KEY = "storage.checkpoint.sync";
 
   private static final String CACHE_STRATEGIES = "storage.cache.strategies";
+  private static final String CACHE_MEMORY_BUDGET = "storage.cache.memoryBudget";
+  private static final String BLOOM_FILTER_DBS_CONFIG_KEY = "storage.bloomFilter.dbs";
+  private static final String BLOOM_FILTER_FPP_CONFIG_KEY = "storage.bloomFilter.fpp";
 
   /**
    * Default values of directory
@@ -91,6 +98,10 @@ public class Storage {
   private static final boolean DEFAULT_CHECKPOINT_SYNC = true;
   private static final int DEFAULT_ESTIMATED_TRANSACTIONS = 1000;
   private static final int DEFAULT_SNAPSHOT_MAX_FLUSH_COUNT = 1;
+  private static final boolean DEFAULT_SNAPSHOT_OFF_HEAP = false;
+  private static final boolean DEFAULT_SNAPSHOT_ASYNC_FLUSH = false;
+  private static final double DEFAULT_BLOOM_FILTER_FPP = 0.01;
+  private static final boolean DEFAULT_BLOCK_PREFETCH = false;
   private Config storage;
 
   /**
@@ -112,6 +123,27 @@ public class Storage {
   @Setter
   private int maxFlushCount;
 
+  /**
+   * Keep the values of uncommitted snapshot layers in direct memory arenas.
+   */
+  @Getter
+  @Setter
+  private boolean snapshotOffHeap;
+
+  /**
+   * Write checkpoint and flushed snapshots in the background while the next blocks execute.
+   */
+  @Getter
+  @Setter
+  private boolean snapshotAsyncFlush;
+
+  /**
+   * Read the accounts and contracts of a block in batches before its transactions execute.
+   */
+  @Getter
+  @Setter
+  private boolean blockPrefetch;
+
   /**
    * Index storage directory: /path/to/{indexDirectory}
    */
@@ -150,8 +182,26 @@ public class Storage {
 
   @Getter
   private final List<String> cacheDbs = CacheStrategies.CACHE_DBS;
+
+  /**
+   * Bytes shared by the root caches of all stores, 0 to use the entry count strategies.
+   */
+  @Getter
+  @Setter
+  private long cacheMemoryBudget;
   // second cache
 
+  /**
+   * Stores that keep a bloom filter of their keys to answer missing keys without a disk read.
+   */
+  @Getter
+  @Setter
+  private List<String> bloomFilterDbs = Collections.emptyList();
+
+  @Getter
+  @Setter
+  private double bloomFilterFpp = DEFAULT_BLOOM_FILTER_FPP;
+
   /**
    * Key: dbName, Value: Property object of that database
    */
@@ -182,6 +232,37 @@ public class Storage {
     return maxFlushCountConfig;
   }
 
+  public static boolean getSnapshotOffHeapFromConfig(final Config config) {
+    return config.hasPath(SNAPSHOT_OFF_HEAP_CONFIG_KEY)
+        ? config.getBoolean(SNAPSHOT_OFF_HEAP_CONFIG_KEY) : DEFAULT_SNAPSHOT_OFF_HEAP;
+  }
+
+  public static boolean getSnapshotAsyncFlushFromConfig(final Config config) {
+    return config.hasPath(SNAPSHOT_ASYNC_FLUSH_CONFIG_KEY)
+        ? config.getBoolean(SNAPSHOT_ASYNC_FLUSH_CONFIG_KEY) : DEFAULT_SNAPSHOT_ASYNC_FLUSH;
+  }
+
+  public static boolean getBlockPrefetchFromConfig(final Config config) {
+    return config.hasPath(BLOCK_PREFETCH_CONFIG_KEY)
+        ? config.getBoolean(BLOCK_PREFETCH_CONFIG_KEY) : DEFAULT_BLOCK_PREFETCH;
+  }
+
+  public static List<String> getBloomFilterDbsFromConfig(final Config config) {
+    return config.hasPath(BLOOM_FILTER_DBS_CONFIG_KEY)
+        ? config.getStringList(BLOOM_FILTER_DBS_CONFIG_KEY) : Collections.emptyList();
+  }
+
+  public static double getBloomFilterFppFromConfig(final Config config) {
+    if (!config.hasPath(BLOOM_FILTER_FPP_CONFIG_KEY)) {
+      return DEFAULT_BLOOM_FILTER_FPP;
+    }
+    double fpp = config.getDouble(BLOOM_FILTER_FPP_CONFIG_KEY);
+    if (fpp <= 0 || fpp >= 1) {
+      throw new IllegalArgumentException("bloomFilter fpp must be between 0 and 1!");
+    }
+    return fpp;
+  }
+
   public static Boolean getContractParseSwitchFromConfig(final Config config) {
     return config.hasPath(EVENT_SUBSCRIBE_CONTRACT_PARSE)
         ? config.getBoolean(EVENT_SUBSCRIBE_CONTRACT_PARSE)
@@ -244,6 +325,17 @@ public class Storage {
     }
   }
 
+  public static long getCacheMemoryBudgetFromConfig(final Config config) {
+    if (!config.hasPath(CACHE_MEMORY_BUDGET)) {
+      return 0;
+    }
+    long budget = config.getBytes(CACHE_MEMORY_BUDGET);
+    if (budget < 0) {
+      throw new IllegalArgumentException("cache memoryBudget value can not be negative!");
+    }
+    return budget;
+  }
+
   public String getCacheStrategy(CacheType dbName) {
     return this.cacheStrategies.getOrDefault(dbName, CacheStrategies.getCacheStrategy(dbName));
   }
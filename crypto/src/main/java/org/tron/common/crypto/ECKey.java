@@ -36,7 +36,6 @@ import javax.annotation.Nullable;
 import lombok.extern.slf4j.Slf4j;
 import org.bouncycastle.asn1.sec.SECNamedCurves;
 import org.bouncycastle.asn1.x9.X9ECParameters;
-import org.bouncycastle.asn1.x9.X9IntegerConverter;
 import org.bouncycastle.crypto.digests.SHA256Digest;
 import org.bouncycastle.crypto.params.ECDomainParameters;
 import org.bouncycastle.crypto.params.ECPrivateKeyParameters;
@@ -46,8 +45,6 @@ import org.bouncycastle.jcajce.provider.asymmetric.ec.BCECPrivateKey;
 import org.bouncycastle.jcajce.provider.asymmetric.ec.BCECPublicKey;
 import org.bouncycastle.jce.spec.ECParameterSpec;
 import org.bouncycastle.jce.spec.ECPrivateKeySpec;
-import org.bouncycastle.math.ec.ECAlgorithms;
-import org.bouncycastle.math.ec.ECCurve;
 import org.bouncycastle.math.ec.ECPoint;
 import org.bouncycastle.util.encoders.Base64;
 import org.bouncycastle.util.encoders.Hex;
@@ -407,6 +404,36 @@ public class ECKey implements Serializable, SignInterface {
             (byte) (signatureEncoded[0] & 0xFF)));
   }
 
+  /**
+   * Compute the addresses of the keys that signed the given signatures, recovering the keys
+   * together. An address is null where {@link #signatureToAddress(byte[], ECDSASignature)} would
+   * have thrown, which tells why.
+   *
+   * @param messageHashes 32-byte hashes of the messages
+   * @param sigs the signatures of the messages
+   * @return 20-byte addresses
+   */
+  public static byte[][] signaturesToAddresses(byte[][] messageHashes, ECDSASignature[] sigs) {
+    int[] recIds = new int[sigs.length];
+    for (int i = 0; i < sigs.length; i++) {
+      int header = sigs[i].v;
+      if (header >= 31) {
+        header -= 4;
+      }
+      boolean valid = messageHashes[i] != null && messageHashes[i].length == 32
+          && sigs[i].v >= 27 && sigs[i].v <= 34
+          && sigs[i].r.signum() >= 0 && sigs[i].s.signum() >= 0;
+      recIds[i] = valid ? header - 27 : -1;
+    }
+    byte[][] addresses = ECKeyRecovery.recoverPubBytes(recIds, sigs, messageHashes);
+    for (int i = 0; i < addresses.length; i++) {
+      if (addresses[i] != null) {
+        addresses[i] = Hash.computeAddress(addresses[i]);
+      }
+    }
+    return addresses;
+  }
+
   public static byte[] signatureToKeyBytes(byte[] messageHash,
       ECDSASignature sig) throws SignatureException {
     check(messageHash.length == 32, "messageHash argument has length " +
@@ -520,68 +547,7 @@ public class ECKey implements Serializable, SignInterface {
     check(sig.r.signum() >= 0, "r must be positive");
     check(sig.s.signum() >= 0, "s must be positive");
     check(messageHash != null, "messageHash must not be null");
-    // 1.0 For j from 0 to h   (h == recId here and the loop is outside
-    // this function)
-    //   1.1 Let x = r + jn
-    BigInteger n = CURVE.getN();  // Curve order.
-    BigInteger i = BigInteger.valueOf((long) recId / 2);
-    BigInteger x = sig.r.add(i.multiply(n));
-    //   1.2. Convert the integer x to an octet string X of length mlen
-    // using the conversion routine
-    //        specified in Section 2.3.7, where mlen = ⌈(log2 p)/8⌉ or
-    // mlen = ⌈m/8⌉.
-    //   1.3. Convert the octet string (16 set binary digits)||X to an
-    // elliptic curve point R using the
-    //        conversion routine specified in Section 2.3.4. If this
-    // conversion routine outputs “invalid”, then
-    //        do another iteration of Step 1.
-    //
-    // More concisely, what these points mean is to use X as a compressed
-    // public key.
-    ECCurve.Fp curve = (ECCurve.Fp) CURVE.getCurve();
-    BigInteger prime = curve.getQ();  // Bouncy Castle is not consistent
-    // about the letter it uses for the prime.
-    if (x.compareTo(prime) >= 0) {
-      // Cannot have point co-ordinates larger than this as everything
-      // takes place modulo Q.
-      return null;
-    }
-    // Compressed allKeys require you to know an extra bit of data about the
-    // y-coord as there are two possibilities.
-    // So it's encoded in the recId.
-    ECPoint R = decompressKey(x, (recId & 1) == 1);
-    //   1.4. If nR != point at infinity, then do another iteration of
-    // Step 1 (callers responsibility).
-    if (!R.multiply(n).isInfinity()) {
-      return null;
-    }
-    //   1.5. Compute e from M using Steps 2 and 3 of ECDSA signature
-    // verification.
-    BigInteger e = new BigInteger(1, messageHash);
-    //   1.6. For k from 1 to 2 do the following.   (loop is outside this
-    // function via iterating recId)
-    //   1.6.1. Compute a candidate public key as:
-    //               Q = mi(r) * (sR - eG)
-    //
-    // Where mi(x) is the modular multiplicative inverse. We transform
-    // this into the following:
-    //               Q = (mi(r) * s ** R) + (mi(r) * -e ** G)
-    // Where -e is the modular additive inverse of e, that is z such that
-    // z + e = 0 (mod n). In the above equation
-    // ** is point multiplication and + is point addition (the EC group
-    // operator).
-    //
-    // We can find the additive inverse by subtracting e from zero then
-    // taking the mod. For example the additive
-    // inverse of 3 modulo 11 is 8 because 3 + 8 mod 11 = 0, and -3 mod
-    // 11 = 8.
-    BigInteger eInv = BigInteger.ZERO.subtract(e).mod(n);
-    BigInteger rInv = sig.r.modInverse(n);
-    BigInteger srInv = rInv.multiply(sig.s).mod(n);
-    BigInteger eInvrInv = rInv.multiply(eInv).mod(n);
-    ECPoint.Fp q = (ECPoint.Fp) ECAlgorithms.sumOfTwoMultiplies(CURVE
-        .getG(), eInvrInv, R, srInv);
-    return q.getEncoded(/* compressed */ false);
+    return ECKeyRecovery.recoverPubBytes(recId, sig, messageHash);
   }
 
   /**
@@ -620,22 +586,6 @@ public class ECKey implements Serializable, SignInterface {
     }
   }
 
-  /**
-   * Decompress a compressed public key (x co-ord and low-bit of y-coord).
-   *
-   * @param xBN -
-   * @param yBit -
-   * @return -
-   */
-
-  private static ECPoint decompressKey(BigInteger xBN, boolean yBit) {
-    X9IntegerConverter x9 = new X9IntegerConverter();
-    byte[] compEnc = x9.integerToBytes(xBN, 1 + x9.getByteLength(CURVE
-        .getCurve()));
-    compEnc[0] = (byte) (yBit ? 0x03 : 0x02);
-    return CURVE.getCurve().decodePoint(compEnc);
-  }
-
   private static void check(boolean test, String message) {
     if (!test) {
       throw new IllegalArgumentException(message);
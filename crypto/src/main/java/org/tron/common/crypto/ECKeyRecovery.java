@@ -0,0 +1,140 @@
+package org.tron.common.crypto;
+
+import java.math.BigInteger;
+import org.bouncycastle.asn1.x9.X9ECParameters;
+import org.bouncycastle.crypto.ec.CustomNamedCurves;
+import org.bouncycastle.math.ec.ECAlgorithms;
+import org.bouncycastle.math.ec.ECCurve;
+import org.bouncycastle.math.ec.ECPoint;
+import org.bouncycastle.math.ec.WNafUtil;
+import org.bouncycastle.util.BigIntegers;
+import org.tron.common.crypto.ECKey.ECDSASignature;
+
+/**
+ * Recovers the public keys of secp256k1 signatures, according to SEC1v2 section 4.1.6, on the
+ * Bouncy Castle curve specialized for secp256k1 rather than the generic prime curve of {@link
+ * ECKey#CURVE}. That one has fixed size field arithmetic and the GLV endomorphism, with which the
+ * two multiplications of a recovery are interleaved windowed NAF multiplications of half length
+ * scalars. The table of the generator is computed once and shared by all recoveries.
+ *
+ * <p>The keys are the same points as on the generic curve, so their encodings are identical. The
+ * check that the order of R is n is left out, as the cofactor of secp256k1 is 1 and every point
+ * on the curve has order n.</p>
+ */
+class ECKeyRecovery {
+
+  private static final X9ECParameters PARAMS = CustomNamedCurves.getByName("secp256k1");
+  private static final ECCurve CURVE = PARAMS.getCurve();
+  private static final ECPoint G = PARAMS.getG();
+  private static final BigInteger N = PARAMS.getN();
+  private static final BigInteger P = CURVE.getField().getCharacteristic();
+  private static final int G_WINDOW = 8;
+
+  static {
+    WNafUtil.precompute(G, G_WINDOW, true);
+  }
+
+  private ECKeyRecovery() {
+  }
+
+  /**
+   * Recover the uncompressed public key, null if x = r + (recId / 2) * n is not a coordinate.
+   * Arguments are checked by the caller.
+   */
+  static byte[] recoverPubBytes(int recId, ECDSASignature sig, byte[] messageHash) {
+    BigInteger x = sig.r.add(BigInteger.valueOf((long) recId / 2).multiply(N));
+    if (x.compareTo(P) >= 0) {
+      return null;
+    }
+    ECPoint r = decompress(x, (recId & 1) == 1);
+    return recover(r, sig.r.modInverse(N), sig.s, messageHash).getEncoded(false);
+  }
+
+  /**
+   * Recover the uncompressed public keys of many signatures together, computing the inverses of
+   * all r and the affine coordinates of all keys with one modular inversion each (Montgomery's
+   * trick). A key is null where {@link #recoverPubBytes(int, ECDSASignature, byte[])} would have
+   * returned null or failed, and for a negative recId, which marks a signature to skip.
+   */
+  static byte[][] recoverPubBytes(int[] recIds, ECDSASignature[] sigs, byte[][] messageHashes) {
+    int count = sigs.length;
+    ECPoint[] points = new ECPoint[count];
+    BigInteger[] rs = new BigInteger[count];
+    for (int i = 0; i < count; i++) {
+      if (recIds[i] < 0) {
+        continue;
+      }
+      try {
+        BigInteger x = sigs[i].r.add(BigInteger.valueOf((long) recIds[i] / 2).multiply(N));
+        BigInteger r = sigs[i].r.mod(N);
+        if (x.compareTo(P) < 0 && r.signum() != 0) {
+          points[i] = decompress(x, (recIds[i] & 1) == 1);
+          rs[i] = r;
+        }
+      } catch (RuntimeException e) {
+        points[i] = null;
+      }
+    }
+
+    BigInteger[] rInvs = invertAll(rs);
+    for (int i = 0; i < count; i++) {
+      if (points[i] != null) {
+        try {
+          points[i] = recover(points[i], rInvs[i], sigs[i].s, messageHashes[i]);
+        } catch (RuntimeException e) {
+          points[i] = null;
+        }
+      }
+    }
+    CURVE.normalizeAll(points);
+
+    byte[][] pubs = new byte[count][];
+    for (int i = 0; i < count; i++) {
+      if (points[i] != null) {
+        pubs[i] = points[i].getEncoded(false);
+      }
+    }
+    return pubs;
+  }
+
+  /**
+   * Q = r^-1 * (sR - eG), computed as (r^-1 * -e) * G + (r^-1 * s) * R.
+   */
+  private static ECPoint recover(ECPoint r, BigInteger rInv, BigInteger s, byte[] messageHash) {
+    BigInteger eInv = BigInteger.ZERO.subtract(new BigInteger(1, messageHash)).mod(N);
+    BigInteger srInv = rInv.multiply(s).mod(N);
+    BigInteger eInvrInv = rInv.multiply(eInv).mod(N);
+    return ECAlgorithms.sumOfTwoMultiplies(G, eInvrInv, r, srInv);
+  }
+
+  private static ECPoint decompress(BigInteger x, boolean yBit) {
+    byte[] encoded = new byte[33];
+    BigIntegers.asUnsignedByteArray(x, encoded, 1, 32);
+    encoded[0] = (byte) (yBit ? 0x03 : 0x02);
+    return CURVE.decodePoint(encoded);
+  }
+
+  /**
+   * The inverses modulo n of the values that are not null, from a single inversion of their
+   * product.
+   */
+  private static BigInteger[] invertAll(BigInteger[] values) {
+    BigInteger[] products = new BigInteger[values.length];
+    BigInteger product = BigInteger.ONE;
+    for (int i = 0; i < values.length; i++) {
+      if (values[i] != null) {
+        products[i] = product;
+        product = product.multiply(values[i]).mod(N);
+      }
+    }
+    BigInteger[] inverses = new BigInteger[values.length];
+    BigInteger inverse = product.modInverse(N);
+    for (int i = values.length - 1; i >= 0; i--) {
+      if (values[i] != null) {
+        inverses[i] = inverse.multiply(products[i]).mod(N);
+        inverse = inverse.multiply(values[i]).mod(N);
+      }
+    }
+    return inverses;
+  }
+}
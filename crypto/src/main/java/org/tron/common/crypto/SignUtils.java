@@ -48,4 +48,29 @@ public class SignUtils {
     }
     return SM2.signatureToAddress(messageHash, (SM2Signature) signatureInterface);
   }
+
+  /**
+   * The addresses that signed the messages, recovered together where the engine can. An address
+   * is null where {@link #signatureToAddress(byte[], SignatureInterface, boolean)} would have
+   * thrown.
+   */
+  public static byte[][] signaturesToAddresses(byte[][] messageHashes,
+      SignatureInterface[] signatures, boolean isECKeyCryptoEngine) {
+    if (isECKeyCryptoEngine) {
+      ECDSASignature[] sigs = new ECDSASignature[signatures.length];
+      for (int i = 0; i < signatures.length; i++) {
+        sigs[i] = (ECDSASignature) signatures[i];
+      }
+      return ECKey.signaturesToAddresses(messageHashes, sigs);
+    }
+    byte[][] addresses = new byte[signatures.length][];
+    for (int i = 0; i < signatures.length; i++) {
+      try {
+        addresses[i] = SM2.signatureToAddress(messageHashes[i], (SM2Signature) signatures[i]);
+      } catch (SignatureException | RuntimeException e) {
+        addresses[i] = null;
+      }
+    }
+    return addresses;
+  }
 }
@@ -49,6 +49,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.ArrayUtils;
@@ -181,6 +182,7 @@ import org.tron.core.exception.ZksnarkException;
 import org.tron.core.net.TronNetDelegate;
 import org.tron.core.net.TronNetService;
 import org.tron.core.net.message.adv.TransactionMessage;
+import org.tron.core.services.ConstantCallService;
 import org.tron.core.store.AccountIdIndexStore;
 import org.tron.core.store.AccountStore;
 import org.tron.core.store.AccountTraceStore;
@@ -273,6 +275,14 @@ public class Wallet {
 
   @Autowired
   private ChainBaseManager chainBaseManager;
+  @Autowired
+  private ConstantCallService constantCallService;
+  /**
+   * The head block constant calls last ran on under each cursor, read again only once another
+   * block becomes the head.
+   */
+  private final Map<Chainbase.Cursor, BlockCapsule> constantCallHeadBlocks =
+      new ConcurrentHashMap<>();
 
   private int minEffectiveConnection = CommonParameter.getInstance().getMinEffectiveConnection();
   private boolean trxCacheEnable = CommonParameter.getInstance().isTrxCacheEnable();
@@ -2884,11 +2894,11 @@ public class Wallet {
     DynamicPropertiesStore dps = chainBaseManager.getDynamicPropertiesStore();
     long high = dps.getMaxFeeLimit();
 
-    Transaction transaction;
+    Pair<Transaction, ProgramResult> run;
 
     while (true) {
       try {
-        transaction = cleanContextAndTriggerConstantContract(
+        run = cleanContextAndTriggerConstantContract(
             triggerSmartContract, txCap, txExtBuilder, txRetBuilder, high);
         break;
       } catch (Program.OutOfTimeException e) {
@@ -2898,6 +2908,7 @@ public class Wallet {
         }
       }
     }
+    Transaction transaction = run.getLeft();
 
     // If failed, return directly.
     if (transaction.getRet(0).getRet().equals(code.FAILED)) {
@@ -2908,19 +2919,17 @@ public class Wallet {
 
     long low = dps.getEnergyFee() * txExtBuilder.getEnergyUsed();
 
-    long twoTimes = low * 2;
-    if (twoTimes < high) {
+    // The run recorded the least energy limit it needs, including what its calls forwarded,
+    // one more run confirms it. Searching is left for contracts that run differently with less
+    // energy, or where the confirming run fails.
+    boolean confirmed = false;
+    ProgramResult result = run.getRight();
+    long required = dps.getEnergyFee() * result.getEnergyRequired();
+    if (!result.isEnergyDependent() && required < high) {
       while (true) {
         try {
           transaction = cleanContextAndTriggerConstantContract(
-              triggerSmartContract, txCap, txExtBuilder, txRetBuilder, twoTimes);
-
-          if (transaction.getRet(0).getRet().equals(code.FAILED)) {
-            low = twoTimes;
-          } else {
-            high = twoTimes;
-          }
-
+              triggerSmartContract, txCap, txExtBuilder, txRetBuilder, required).getLeft();
           break;
         } catch (Program.OutOfTimeException e) {
           retry--;
@@ -2929,34 +2938,66 @@ public class Wallet {
           }
         }
       }
+
+      if (transaction.getRet(0).getRet().equals(code.FAILED)) {
+        low = required;
+      } else {
+        high = required;
+        confirmed = true;
+      }
     }
 
-    while (low + TRX_PRECISION < high) {
-      long mid = (low + high) / 2;
+    if (!confirmed) {
+      long twoTimes = low * 2;
+      if (twoTimes < high) {
+        while (true) {
+          try {
+            transaction = cleanContextAndTriggerConstantContract(
+                triggerSmartContract, txCap, txExtBuilder, txRetBuilder, twoTimes).getLeft();
 
-      while (true) {
-        try {
-          transaction = cleanContextAndTriggerConstantContract(
-              triggerSmartContract, txCap, txExtBuilder, txRetBuilder, mid);
-          break;
-        } catch (Program.OutOfTimeException e) {
-          retry--;
-          if (retry < 0) {
-            throw e;
+            if (transaction.getRet(0).getRet().equals(code.FAILED)) {
+              low = twoTimes;
+            } else {
+              high = twoTimes;
+            }
+
+            break;
+          } catch (Program.OutOfTimeException e) {
+            retry--;
+            if (retry < 0) {
+              throw e;
+            }
           }
         }
       }
 
-      if (transaction.getRet(0).getRet().equals(code.FAILED)) {
-        low = mid;
-      } else {
-        high = mid;
+      while (low + TRX_PRECISION < high) {
+        long mid = (low + high) / 2;
+
+        while (true) {
+          try {
+            transaction = cleanContextAndTriggerConstantContract(
+                triggerSmartContract, txCap, txExtBuilder, txRetBuilder, mid).getLeft();
+            break;
+          } catch (Program.OutOfTimeException e) {
+            retry--;
+            if (retry < 0) {
+              throw e;
+            }
+          }
+        }
+
+        if (transaction.getRet(0).getRet().equals(code.FAILED)) {
+          low = mid;
+        } else {
+          high = mid;
+        }
       }
-    }
 
-    // Retry the binary search result
-    transaction = cleanContextAndTriggerConstantContract(
-        triggerSmartContract, txCap, txExtBuilder, txRetBuilder, high);
+      // Retry the binary search result
+      transaction = cleanContextAndTriggerConstantContract(
+          triggerSmartContract, txCap, txExtBuilder, txRetBuilder, high).getLeft();
+    }
     // Setting estimating result
     estimateBuilder.setResult(txRetBuilder);
     if (transaction.getRet(0).getRet().equals(code.SUCESS)) {
@@ -2968,18 +3009,15 @@ public class Wallet {
     return transaction;
   }
 
-  private Transaction cleanContextAndTriggerConstantContract(
+  private Pair<Transaction, ProgramResult> cleanContextAndTriggerConstantContract(
       TriggerSmartContract triggerSmartContract, TransactionCapsule txCap,
       Builder txExtBuilder, Return.Builder txRetBuilder, long feeLimit)
       throws ContractValidateException, ContractExeException, HeaderNotFound, VMIllegalException {
-    Transaction transaction;
     txCap.setFeeLimit(feeLimit);
     txCap.resetResult();
     txExtBuilder.clear();
     txRetBuilder.clear();
-    transaction = triggerConstantContract(
-        triggerSmartContract, txCap, txExtBuilder, txRetBuilder, true);
-    return transaction;
+    return runConstantContract(triggerSmartContract, txCap, txExtBuilder, txRetBuilder, true);
   }
 
   public Transaction triggerConstantContract(TriggerSmartContract triggerSmartContract,
@@ -2991,6 +3029,14 @@ public class Wallet {
   public Transaction triggerConstantContract(TriggerSmartContract triggerSmartContract,
       TransactionCapsule trxCap, Builder builder, Return.Builder retBuilder, boolean isEstimating)
       throws ContractValidateException, ContractExeException, HeaderNotFound, VMIllegalException {
+    return runConstantContract(triggerSmartContract, trxCap, builder, retBuilder, isEstimating)
+        .getLeft();
+  }
+
+  private Pair<Transaction, ProgramResult> runConstantContract(
+      TriggerSmartContract triggerSmartContract, TransactionCapsule trxCap, Builder builder,
+      Return.Builder retBuilder, boolean isEstimating)
+      throws ContractValidateException, ContractExeException, HeaderNotFound, VMIllegalException {
 
     if (triggerSmartContract.getContractAddress().isEmpty()) { // deploy contract
       CreateSmartContract.Builder deployBuilder = CreateSmartContract.newBuilder();
@@ -3015,27 +3061,64 @@ public class Wallet {
         throw new ContractValidateException("Smart contract is not exist.");
       }
     }
-    return callConstantContract(trxCap, builder, retBuilder, isEstimating);
+    ProgramResult result = executeConstantContract(trxCap, builder, retBuilder, isEstimating);
+    return Pair.of(trxCap.getInstance(), result);
   }
 
   public Transaction callConstantContract(TransactionCapsule trxCap,
       Builder builder, Return.Builder retBuilder, boolean isEstimating)
       throws ContractValidateException, ContractExeException, HeaderNotFound, VMIllegalException {
+    executeConstantContract(trxCap, builder, retBuilder, isEstimating);
+    return trxCap.getInstance();
+  }
+
+  private ProgramResult executeConstantContract(TransactionCapsule trxCap,
+      Builder builder, Return.Builder retBuilder, boolean isEstimating)
+      throws ContractValidateException, ContractExeException, HeaderNotFound, VMIllegalException {
 
     if (!Args.getInstance().isSupportConstant()) {
       throw new ContractValidateException("this node does not support constant");
     }
 
-    Block headBlock;
+    byte[] contractAddress = ByteUtil.EMPTY_BYTE_ARRAY;
+    if (trxCap.getInstance().getRawData().getContract(0).getType()
+        == ContractType.TriggerSmartContract) {
+      contractAddress = ContractCapsule.getTriggerContractFromTransaction(trxCap.getInstance())
+          .getContractAddress().toByteArray();
+    }
+    try {
+      return constantCallService.call(contractAddress,
+          () -> runConstantContractOnCursor(trxCap, builder, retBuilder, isEstimating));
+    } catch (ContractValidateException | ContractExeException | HeaderNotFound
+        | VMIllegalException | RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new ContractExeException(e.getMessage());
+    }
+  }
+
+  private BlockCapsule getConstantCallHeadBlock() throws HeaderNotFound {
+    Chainbase.Cursor cursor = dbManager.getCursor();
+    Sha256Hash headHash = chainBaseManager.getDynamicPropertiesStore().getLatestBlockHeaderHash();
+    BlockCapsule head = constantCallHeadBlocks.get(cursor);
+    if (head != null && head.getBlockId().equals(headHash)) {
+      return head;
+    }
+
     List<BlockCapsule> blockCapsuleList = chainBaseManager.getBlockStore()
         .getBlockByLatestNum(1);
     if (CollectionUtils.isEmpty(blockCapsuleList)) {
       throw new HeaderNotFound("latest block not found");
-    } else {
-      headBlock = blockCapsuleList.get(0).getInstance();
     }
+    head = new BlockCapsule(blockCapsuleList.get(0).getInstance());
+    constantCallHeadBlocks.put(cursor, head);
+    return head;
+  }
 
-    BlockCapsule headBlockCapsule = new BlockCapsule(headBlock);
+  private ProgramResult runConstantContractOnCursor(TransactionCapsule trxCap,
+      Builder builder, Return.Builder retBuilder, boolean isEstimating)
+      throws ContractValidateException, ContractExeException, HeaderNotFound, VMIllegalException {
+    BlockCapsule headBlockCapsule = getConstantCallHeadBlock();
     TransactionContext context = new TransactionContext(headBlockCapsule, trxCap,
         StoreFactory.getInstance(), true, false);
     VMActuator vmActuator = new VMActuator(true);
@@ -3072,7 +3155,7 @@ public class Wallet {
           .build();
     }
     trxCap.setResult(ret);
-    return trxCap.getInstance();
+    return result;
   }
 
   public SmartContract getContract(GrpcAPI.BytesMessage bytesMessage) {
@@ -1,6 +1,7 @@
 package org.tron.core.config.args;
 
 import static java.lang.Math.max;
+import static java.lang.Math.min;
 import static java.lang.System.exit;
 import static org.tron.core.Constant.ADD_PRE_FIX_BYTE_MAINNET;
 import static org.tron.core.Constant.DYNAMIC_ENERGY_INCREASE_FACTOR_RANGE;
@@ -176,6 +177,8 @@ public class Args extends CommonParameter {
     PARAMETER.walletExtensionApi = false;
     PARAMETER.estimateEnergy = false;
     PARAMETER.estimateEnergyMaxRetry = 3;
+    PARAMETER.codeAnalysisPrewarm = 0;
+    PARAMETER.signatureCacheSize = 50_000;
     PARAMETER.receiveTcpMinDataLength = 2048;
     PARAMETER.isOpenFullTcpDisconnect = false;
     PARAMETER.nodeDetectEnable = false;
@@ -449,6 +452,10 @@ public class Args extends CommonParameter {
       PARAMETER.lruCacheSize = config.getInt(Constant.VM_LRU_CACHE_SIZE);
     }
 
+    PARAMETER.codeAnalysisPrewarm = config.hasPath(Constant.VM_CODE_ANALYSIS_PREWARM)
+        ? min(config.getInt(Constant.VM_CODE_ANALYSIS_PREWARM),
+        PARAMETER.getSafeLruCacheSize()) : 0;
+
     if (config.hasPath(Constant.NODE_HTTP_FULLNODE_ENABLE)) {
       PARAMETER.fullNodeHttpEnable = config.getBoolean(Constant.NODE_HTTP_FULLNODE_ENABLE);
     }
@@ -526,10 +533,16 @@ public class Args extends CommonParameter {
     PARAMETER.storage.setEstimatedBlockTransactions(
         Storage.getEstimatedTransactionsFromConfig(config));
     PARAMETER.storage.setMaxFlushCount(Storage.getSnapshotMaxFlushCountFromConfig(config));
+    PARAMETER.storage.setSnapshotOffHeap(Storage.getSnapshotOffHeapFromConfig(config));
+    PARAMETER.storage.setSnapshotAsyncFlush(Storage.getSnapshotAsyncFlushFromConfig(config));
+    PARAMETER.storage.setBlockPrefetch(Storage.getBlockPrefetchFromConfig(config));
 
     PARAMETER.storage.setDefaultDbOptions(config);
     PARAMETER.storage.setPropertyMapFromConfig(config);
     PARAMETER.storage.setCacheStrategies(config);
+    PARAMETER.storage.setCacheMemoryBudget(Storage.getCacheMemoryBudgetFromConfig(config));
+    PARAMETER.storage.setBloomFilterDbs(Storage.getBloomFilterDbsFromConfig(config));
+    PARAMETER.storage.setBloomFilterFpp(Storage.getBloomFilterFppFromConfig(config));
 
     PARAMETER.seedNode = new SeedNode();
     PARAMETER.seedNode.setAddressList(loadSeeds(config));
@@ -712,6 +725,9 @@ public class Args extends CommonParameter {
         config.hasPath(Constant.NODE_RPC_THREAD) ? config.getInt(Constant.NODE_RPC_THREAD)
             : (Runtime.getRuntime().availableProcessors() + 1) / 2;
 
+    PARAMETER.signatureCacheSize = config.hasPath(Constant.NODE_SIGNATURE_CACHE_SIZE)
+        ? config.getInt(Constant.NODE_SIGNATURE_CACHE_SIZE) : 50_000;
+
     PARAMETER.solidityThreads =
         config.hasPath(Constant.NODE_SOLIDITY_THREADS)
             ? config.getInt(Constant.NODE_SOLIDITY_THREADS)
@@ -826,6 +842,14 @@ public class Args extends CommonParameter {
             .getInt(Constant.NODE_VALIDATE_SIGN_THREAD_NUM)
             : (Runtime.getRuntime().availableProcessors() + 1) / 2;
 
+    PARAMETER.parallelExecution = config.hasPath(Constant.NODE_PARALLEL_EXECUTION)
+        && config.getBoolean(Constant.NODE_PARALLEL_EXECUTION);
+
+    PARAMETER.parallelExecutionThreadNum =
+        config.hasPath(Constant.NODE_PARALLEL_EXECUTION_THREAD_NUM) ? config
+            .getInt(Constant.NODE_PARALLEL_EXECUTION_THREAD_NUM)
+            : Runtime.getRuntime().availableProcessors();
+
     PARAMETER.walletExtensionApi =
         config.hasPath(Constant.NODE_WALLET_EXTENSION_API)
             && config.getBoolean(Constant.NODE_WALLET_EXTENSION_API);
@@ -880,6 +904,16 @@ public class Args extends CommonParameter {
     PARAMETER.vmTrace =
         config.hasPath(Constant.VM_TRACE) && config.getBoolean(Constant.VM_TRACE);
 
+    PARAMETER.blockCharging =
+        config.hasPath(Constant.VM_BLOCK_CHARGING)
+            && config.getBoolean(Constant.VM_BLOCK_CHARGING);
+
+    PARAMETER.constantCallThreadNum = config.hasPath(Constant.VM_CONSTANT_CALL_THREAD_NUM)
+        ? max(config.getInt(Constant.VM_CONSTANT_CALL_THREAD_NUM), 0) : 0;
+
+    PARAMETER.constantCallQueueSize = config.hasPath(Constant.VM_CONSTANT_CALL_QUEUE_SIZE)
+        ? max(config.getInt(Constant.VM_CONSTANT_CALL_QUEUE_SIZE), 1) : 1000;
+
     PARAMETER.saveInternalTx =
         config.hasPath(Constant.VM_SAVE_INTERNAL_TX)
             && config.getBoolean(Constant.VM_SAVE_INTERNAL_TX);
@@ -1607,10 +1641,26 @@ public class Args extends CommonParameter {
     int targetFileSizeMultiplier = config.hasPath(prefix + "targetFileSizeMultiplier") ? config
         .getInt(prefix + "targetFileSizeMultiplier") : 1;
 
+    boolean columnFamily = config.hasPath(prefix + "columnFamily")
+        && config.getBoolean(prefix + "columnFamily");
+    long dbWriteBufferSize = config.hasPath(prefix + "dbWriteBufferSize")
+        ? config.getLong(prefix + "dbWriteBufferSize") : 512;
+
     PARAMETER.rocksDBCustomSettings = RocksDbSettings
         .initCustomSettings(levelNumber, compactThreads, blocksize, maxBytesForLevelBase,
             maxBytesForLevelMultiplier, level0FileNumCompactionTrigger,
-            targetFileSizeBase, targetFileSizeMultiplier);
+            targetFileSizeBase, targetFileSizeMultiplier)
+        .withColumnFamily(columnFamily)
+        .withDbWriteBufferSize(dbWriteBufferSize);
+    if (config.hasPath(prefix + "columnFamilies")) {
+      for (Config cf : config.getConfigList(prefix + "columnFamilies")) {
+        PARAMETER.rocksDBCustomSettings.withColumnFamily(cf.getString("name"),
+            new RocksDbSettings.ColumnFamily(
+                cf.hasPath("bloomBits") ? cf.getInt("bloomBits") : 10,
+                cf.hasPath("compression") ? cf.getString("compression") : null,
+                cf.hasPath("prefixLength") ? cf.getInt("prefixLength") : -1));
+      }
+    }
     RocksDbSettings.loggingSettings();
   }
 
@@ -3,13 +3,17 @@ package org.tron.core.db;
 import static org.tron.common.utils.Commons.adjustBalance;
 import static org.tron.core.exception.BadBlockException.TypeEnum.CALC_MERKLE_ROOT_FAILED;
 import static org.tron.protos.Protocol.Transaction.Contract.ContractType.TransferContract;
+import static org.tron.protos.Protocol.Transaction.Result.contractResult.OUT_OF_TIME;
 import static org.tron.protos.Protocol.Transaction.Result.contractResult.SUCCESS;
 
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.primitives.Longs;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
 import io.prometheus.client.Histogram;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -23,6 +27,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
@@ -49,6 +54,7 @@ import org.springframework.stereotype.Component;
 import org.tron.api.GrpcAPI.TransactionInfoList;
 import org.tron.common.args.GenesisBlock;
 import org.tron.common.bloom.Bloom;
+import org.tron.common.crypto.Hash;
 import org.tron.common.logsfilter.EventPluginLoader;
 import org.tron.common.logsfilter.FilterQuery;
 import org.tron.common.logsfilter.capsule.BlockFilterCapsule;
@@ -71,6 +77,8 @@ import org.tron.common.prometheus.Metrics;
 import org.tron.common.runtime.RuntimeImpl;
 import org.tron.common.utils.ByteArray;
 import org.tron.common.utils.JsonUtil;
+import org.tron.common.utils.ByteUtil;
+import org.tron.common.utils.Commons;
 import org.tron.common.utils.Pair;
 import org.tron.common.utils.SessionOptional;
 import org.tron.common.utils.Sha256Hash;
@@ -87,6 +95,9 @@ import org.tron.core.capsule.BlockBalanceTraceCapsule;
 import org.tron.core.capsule.BlockCapsule;
 import org.tron.core.capsule.BlockCapsule.BlockId;
 import org.tron.core.capsule.BytesCapsule;
+import org.tron.core.capsule.CodeCapsule;
+import org.tron.core.capsule.ContractCapsule;
+import org.tron.core.capsule.ContractStateCapsule;
 import org.tron.core.capsule.TransactionCapsule;
 import org.tron.core.capsule.TransactionInfoCapsule;
 import org.tron.core.capsule.TransactionRetCapsule;
@@ -103,9 +114,11 @@ import org.tron.core.db.api.BandwidthPriceHistoryLoader;
 import org.tron.core.db.api.EnergyPriceHistoryLoader;
 import org.tron.core.db.api.MoveAbiHelper;
 import org.tron.core.db2.ISession;
+import org.tron.core.db2.common.WrappedByteArray;
 import org.tron.core.db2.core.Chainbase;
 import org.tron.core.db2.core.ITronChainBase;
 import org.tron.core.db2.core.SnapshotManager;
+import org.tron.core.db2.core.Speculation;
 import org.tron.core.exception.AccountResourceInsufficientException;
 import org.tron.core.exception.BadBlockException;
 import org.tron.core.exception.BadItemException;
@@ -156,12 +169,17 @@ import org.tron.core.store.VotesStore;
 import org.tron.core.store.WitnessScheduleStore;
 import org.tron.core.store.WitnessStore;
 import org.tron.core.utils.TransactionRegister;
+import org.tron.core.vm.program.ProgramPrecompile;
 import org.tron.protos.Protocol.AccountType;
 import org.tron.protos.Protocol.Permission;
 import org.tron.protos.Protocol.Transaction;
 import org.tron.protos.Protocol.Transaction.Contract;
+import org.tron.protos.Protocol.Transaction.Contract.ContractType;
 import org.tron.protos.Protocol.TransactionInfo;
+import org.tron.protos.contract.AssetIssueContractOuterClass.ParticipateAssetIssueContract;
+import org.tron.protos.contract.AssetIssueContractOuterClass.TransferAssetContract;
 import org.tron.protos.contract.BalanceContract;
+import org.tron.protos.contract.SmartContractOuterClass.TriggerSmartContract;
 
 
 @Slf4j(topic = "DB")
@@ -174,6 +192,7 @@ public class Manager {
   private static final int TX_ID_CACHE_SIZE = 100_000;
   private static final int SLEEP_FOR_WAIT_LOCK = 10;
   private static final int NO_BLOCK_WAITING_LOCK = 0;
+  private static final int PREFETCH_THREAD_NUM = 5;
   private final int shieldedTransInPendingMaxCounts =
       Args.getInstance().getShieldedTransInPendingMaxCounts();
   @Getter
@@ -206,6 +225,9 @@ public class Manager {
   @Setter
   private MerkleContainer merkleContainer;
   private ExecutorService validateSignService;
+  private ExecutorService parallelExecutionService;
+  private ExecutorService prefetchService;
+  private ExecutorService prewarmService;
   private boolean isRunRePushThread = true;
   private boolean isRunTriggerCapsuleProcessThread = true;
   private BlockingQueue<TransactionCapsule> pushTransactionQueue = new LinkedBlockingQueue<>();
@@ -524,6 +546,13 @@ public class Manager {
     revokingStore.enable();
     validateSignService = Executors
         .newFixedThreadPool(Args.getInstance().getValidateSignThreadNum());
+    if (Args.getInstance().isParallelExecution()) {
+      parallelExecutionService = Executors
+          .newFixedThreadPool(Args.getInstance().getParallelExecutionThreadNum());
+    }
+    if (Args.getInstance().getStorage().isBlockPrefetch()) {
+      prefetchService = Executors.newFixedThreadPool(PREFETCH_THREAD_NUM);
+    }
     Thread rePushThread = new Thread(rePushLoop);
     rePushThread.setDaemon(true);
     rePushThread.start();
@@ -546,6 +575,7 @@ public class Manager {
     //initActuatorCreator
     ActuatorCreator.init();
     TransactionRegister.registerActuator();
+    prewarmCodeAnalysis();
     // init auto-stop
     try {
       initAutoStop();
@@ -557,6 +587,60 @@ public class Manager {
     maxFlushCount = CommonParameter.getInstance().getStorage().getMaxFlushCount();
   }
 
+  /**
+   * Analyse the code of the contracts with the highest energy usage of the current cycle in the
+   * background, so their first calls after startup likely find it in the shared code analysis
+   * cache without holding up the startup for the scan of the contract states.
+   */
+  private void prewarmCodeAnalysis() {
+    int count = CommonParameter.getInstance().getCodeAnalysisPrewarm();
+    if (count <= 0) {
+      return;
+    }
+    prewarmService = Executors.newSingleThreadExecutor(
+        new ThreadFactoryBuilder().setNameFormat("code-analysis-prewarm").setDaemon(true)
+            .build());
+    prewarmService.submit(() -> {
+      try {
+        prewarmCodeAnalysis(count);
+      } catch (Exception e) {
+        logger.warn("Prewarm code analysis failed, {}", e.getMessage());
+      }
+    });
+  }
+
+  private void prewarmCodeAnalysis(int count) {
+    long start = System.currentTimeMillis();
+    PriorityQueue<Map.Entry<byte[], Long>> hottest =
+        new PriorityQueue<>(count + 1, Map.Entry.comparingByValue());
+    for (Map.Entry<byte[], ContractStateCapsule> entry :
+        chainBaseManager.getContractStateStore()) {
+      if (Thread.currentThread().isInterrupted()) {
+        return;
+      }
+      hottest.offer(Maps.immutableEntry(entry.getKey(), entry.getValue().getEnergyUsage()));
+      if (hottest.size() > count) {
+        hottest.poll();
+      }
+    }
+    int warmed = 0;
+    for (Map.Entry<byte[], Long> entry : hottest) {
+      CodeCapsule code = chainBaseManager.getCodeStore().get(entry.getKey());
+      ContractCapsule contract = chainBaseManager.getContractStore().get(entry.getKey());
+      if (code == null || contract == null) {
+        continue;
+      }
+      byte[] codeHash = contract.getCodeHash();
+      if (ByteUtil.isNullOrZeroArray(codeHash)) {
+        codeHash = Hash.sha3(code.getData());
+      }
+      ProgramPrecompile.warm(codeHash, code.getData());
+      warmed++;
+    }
+    logger.info("Prewarm code analysis of {} contracts, cost {} ms.", warmed,
+        System.currentTimeMillis() - start);
+  }
+
   /**
    * init genesis block.
    */
@@ -1395,7 +1479,6 @@ public class Manager {
       return null;
     }
     Contract contract = trxCap.getInstance().getRawData().getContract(0);
-    Sha256Hash txId = trxCap.getTransactionId();
     final Histogram.Timer requestTimer = Metrics.histogramStartTimer(
         MetricKeys.Histogram.PROCESS_TRANSACTION_LATENCY,
         Objects.nonNull(blockCap) ? MetricLabels.BLOCK : MetricLabels.TRX,
@@ -1407,6 +1490,22 @@ public class Manager {
       chainBaseManager.getBalanceTraceStore().initCurrentTransactionBalanceTrace(trxCap);
     }
 
+    TransactionTrace trace = executeTransaction(trxCap, blockCap);
+    return completeTransaction(trxCap, blockCap, trace, requestTimer, start);
+  }
+
+  /**
+   * Validate and execute the transaction. Besides the stores and the capsule, it only sets the
+   * VM configuration, to the same values for every transaction of a block, and the state of the
+   * precompiled contracts it calls, which are created per call. So it can also run
+   * speculatively on another thread.
+   */
+  private TransactionTrace executeTransaction(TransactionCapsule trxCap, BlockCapsule blockCap)
+      throws ValidateSignatureException, ContractValidateException, ContractExeException,
+      AccountResourceInsufficientException, TransactionExpirationException,
+      TooBigTransactionException, TooBigTransactionResultException,
+      DupTransactionException, TaposException, ReceiptCheckErrException, VMIllegalException {
+    Sha256Hash txId = trxCap.getTransactionId();
     validateTapos(trxCap);
     validateCommon(trxCap);
 
@@ -1453,6 +1552,15 @@ public class Manager {
     }
 
     trace.finalization();
+    return trace;
+  }
+
+  /**
+   * Record the executed transaction: its result, the transaction stores, its info and triggers.
+   */
+  private TransactionInfo completeTransaction(TransactionCapsule trxCap, BlockCapsule blockCap,
+      TransactionTrace trace, Histogram.Timer requestTimer, long start) {
+    Contract contract = trxCap.getInstance().getRawData().getContract(0);
     if (getDynamicPropertiesStore().supportVM()) {
       trxCap.setResult(trace.getTransactionContext());
     }
@@ -1702,6 +1810,8 @@ public class Manager {
 
     //reset BlockEnergyUsage
     chainBaseManager.getDynamicPropertiesStore().saveBlockEnergyUsage(0);
+    // load the entries the transactions will read while their signatures are checked
+    List<Future<?>> prefetches = prefetch(block);
     //parallel check sign
     if (!block.generatedByMyself) {
       try {
@@ -1711,6 +1821,7 @@ public class Manager {
         Thread.currentThread().interrupt();
       }
     }
+    awaitPrefetch(block, prefetches);
 
     TransactionRetCapsule transactionRetCapsule =
         new TransactionRetCapsule(block);
@@ -1719,13 +1830,17 @@ public class Manager {
       accountStateCallBack.preExecute(block);
       List<TransactionInfo> results = new ArrayList<>();
       long num = block.getNum();
+      List<SpeculativeTransaction> speculations = speculate(block);
+      int index = 0;
       for (TransactionCapsule transactionCapsule : block.getTransactions()) {
         transactionCapsule.setBlockNum(num);
         if (block.generatedByMyself) {
           transactionCapsule.setVerified(true);
         }
         accountStateCallBack.preExeTrans();
-        TransactionInfo result = processTransaction(transactionCapsule, block);
+        TransactionInfo result = speculations.isEmpty()
+            ? processTransaction(transactionCapsule, block)
+            : commitTransaction(transactionCapsule, block, speculations.get(index++));
         accountStateCallBack.exeTransFinish();
         if (Objects.nonNull(result)) {
           results.add(result);
@@ -1738,6 +1853,9 @@ public class Manager {
     }
     merkleContainer.saveCurrentMerkleTreeAsBestMerkleTree(block.getNum());
     block.setResult(transactionRetCapsule);
+    if (!prefetches.isEmpty()) {
+      endPrefetch();
+    }
     if (getDynamicPropertiesStore().getAllowAdaptiveEnergy() == 1) {
       EnergyProcessor energyProcessor = new EnergyProcessor(
           chainBaseManager.getDynamicPropertiesStore(), chainBaseManager.getAccountStore());
@@ -1776,6 +1894,78 @@ public class Manager {
     }
   }
 
+  /**
+   * Execute the transactions of the block in parallel, each against the state before the block,
+   * for {@link #commitTransaction} to commit in block order. Returns an empty list for the blocks
+   * left to serial execution: those whose execution also changes state outside the stores.
+   */
+  private List<SpeculativeTransaction> speculate(BlockCapsule block) {
+    List<TransactionCapsule> txs = block.getTransactions();
+    if (parallelExecutionService == null || txs.size() < 2
+        || CommonParameter.getInstance().isHistoryBalanceLookup()
+        || getDynamicPropertiesStore().allowAccountStateRoot()
+        || txs.stream().anyMatch(tx -> isShieldedTransaction(tx.getInstance()))) {
+      return Collections.emptyList();
+    }
+    List<Speculation> speculations = new ArrayList<>(txs.size());
+    List<Callable<TransactionTrace>> tasks = new ArrayList<>(txs.size());
+    for (TransactionCapsule tx : txs) {
+      tx.setBlockNum(block.getNum());
+      if (block.generatedByMyself) {
+        tx.setVerified(true);
+      }
+      Speculation speculation = new Speculation();
+      speculations.add(speculation);
+      tasks.add(() -> speculation.call(() -> executeTransaction(tx, block)));
+    }
+    List<Future<TransactionTrace>> traces;
+    try {
+      traces = parallelExecutionService.invokeAll(tasks);
+    } catch (InterruptedException e) {
+      logger.error("Parallel execution interrupted exception! block info: {}.", block, e);
+      Thread.currentThread().interrupt();
+      return Collections.emptyList();
+    }
+    List<SpeculativeTransaction> result = new ArrayList<>(txs.size());
+    for (int i = 0; i < txs.size(); i++) {
+      result.add(new SpeculativeTransaction(speculations.get(i), traces.get(i)));
+    }
+    return result;
+  }
+
+  /**
+   * Commit a transaction executed by {@link #speculate} if nothing it read has changed since,
+   * otherwise execute it again against the current state.
+   */
+  private TransactionInfo commitTransaction(TransactionCapsule trxCap, BlockCapsule blockCap,
+      SpeculativeTransaction speculative)
+      throws ValidateSignatureException, ContractValidateException, ContractExeException,
+      AccountResourceInsufficientException, TransactionExpirationException,
+      TooBigTransactionException, TooBigTransactionResultException,
+      DupTransactionException, TaposException, ReceiptCheckErrException, VMIllegalException {
+    TransactionTrace trace = null;
+    try {
+      trace = speculative.trace.get();
+    } catch (ExecutionException e) {
+      logger.debug("Speculation of tx {} failed: {}.", trxCap.getTransactionId(),
+          e.getCause().getMessage());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    // running out of time depends on the load of the other threads, not on the state
+    if (trace == null || trace.getReceipt().getResult() == OUT_OF_TIME
+        || !speculative.speculation.validate()) {
+      logger.debug("Re-execute tx {} of block {}.", trxCap.getTransactionId(), blockCap.getNum());
+      return processTransaction(trxCap, blockCap);
+    }
+    final Histogram.Timer requestTimer = Metrics.histogramStartTimer(
+        MetricKeys.Histogram.PROCESS_TRANSACTION_LATENCY, MetricLabels.BLOCK,
+        trxCap.getInstance().getRawData().getContract(0).getType().name());
+    long start = System.currentTimeMillis();
+    speculative.speculation.apply();
+    return completeTransaction(trxCap, blockCap, trace, requestTimer, start);
+  }
+
   private void payReward(BlockCapsule block) {
     WitnessCapsule witnessCapsule =
         chainBaseManager.getWitnessStore().getUnchecked(block.getInstance().getBlockHeader()
@@ -1919,8 +2109,22 @@ public class Manager {
 
   public void closeAllStore() {
     logger.info("******** Begin to close db. ********");
+    if (prewarmService != null) {
+      prewarmService.shutdownNow();
+      try {
+        prewarmService.awaitTermination(10, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
     chainBaseManager.closeAllStore();
     validateSignService.shutdown();
+    if (parallelExecutionService != null) {
+      parallelExecutionService.shutdown();
+    }
+    if (prefetchService != null) {
+      prefetchService.shutdown();
+    }
     logger.info("******** End to close db. ********");
   }
 
@@ -1940,6 +2144,104 @@ public class Manager {
         > maxTransactionPendingSize;
   }
 
+  /**
+   * Start loading the entries the transactions of the block will read, known from their contract
+   * parameters, into the root caches: one batched read per store, the stores read concurrently.
+   */
+  private List<Future<?>> prefetch(BlockCapsule block) {
+    if (prefetchService == null) {
+      return Collections.emptyList();
+    }
+    Set<WrappedByteArray> accounts = new HashSet<>();
+    Set<WrappedByteArray> contracts = new HashSet<>();
+    Set<WrappedByteArray> assets = new HashSet<>();
+    for (TransactionCapsule tx : block.getTransactions()) {
+      for (Contract contract : tx.getInstance().getRawData().getContractList()) {
+        accounts.add(WrappedByteArray.of(TransactionCapsule.getOwner(contract)));
+        accounts.add(WrappedByteArray.of(TransactionCapsule.getToAddress(contract)));
+        try {
+          switch (contract.getType()) {
+            case TriggerSmartContract:
+              TriggerSmartContract trigger =
+                  contract.getParameter().unpack(TriggerSmartContract.class);
+              WrappedByteArray address =
+                  WrappedByteArray.of(trigger.getContractAddress().toByteArray());
+              accounts.add(address);
+              contracts.add(address);
+              if (trigger.getTokenId() > 0) {
+                assets.add(WrappedByteArray.of(
+                    ByteArray.fromString(String.valueOf(trigger.getTokenId()))));
+              }
+              break;
+            case TransferAssetContract:
+              assets.add(WrappedByteArray.of(contract.getParameter()
+                  .unpack(TransferAssetContract.class).getAssetName().toByteArray()));
+              break;
+            case ParticipateAssetIssueContract:
+              assets.add(WrappedByteArray.of(contract.getParameter()
+                  .unpack(ParticipateAssetIssueContract.class).getAssetName().toByteArray()));
+              break;
+            default:
+              break;
+          }
+        } catch (InvalidProtocolBufferException e) {
+          // left to the validation of the transaction
+        }
+      }
+    }
+    List<byte[]> accountKeys = keys(accounts);
+    List<byte[]> contractKeys = keys(contracts);
+    List<byte[]> assetKeys = keys(assets);
+    List<Future<?>> futures = new ArrayList<>();
+    futures.add(prefetchService.submit(
+        () -> chainBaseManager.getAccountStore().prefetch(accountKeys)));
+    futures.add(prefetchService.submit(
+        () -> chainBaseManager.getContractStore().prefetch(contractKeys)));
+    futures.add(prefetchService.submit(
+        () -> chainBaseManager.getCodeStore().prefetch(contractKeys)));
+    futures.add(prefetchService.submit(
+        () -> chainBaseManager.getContractStateStore().prefetch(contractKeys)));
+    futures.add(prefetchService.submit(() -> Commons.getAssetIssueStoreFinal(
+        chainBaseManager.getDynamicPropertiesStore(), chainBaseManager.getAssetIssueStore(),
+        chainBaseManager.getAssetIssueV2Store()).prefetch(assetKeys)));
+    logger.debug("Prefetch block {}, accounts: {}, contracts: {}, assets: {}.", block.getNum(),
+        accountKeys.size(), contractKeys.size(), assetKeys.size());
+    return futures;
+  }
+
+  private void endPrefetch() {
+    chainBaseManager.getAccountStore().endPrefetch();
+    chainBaseManager.getContractStore().endPrefetch();
+    chainBaseManager.getCodeStore().endPrefetch();
+    chainBaseManager.getContractStateStore().endPrefetch();
+    chainBaseManager.getAssetIssueStore().endPrefetch();
+    chainBaseManager.getAssetIssueV2Store().endPrefetch();
+  }
+
+  private static List<byte[]> keys(Set<WrappedByteArray> keys) {
+    return keys.stream().map(WrappedByteArray::getBytes)
+        .filter(k -> k.length > 0).collect(Collectors.toList());
+  }
+
+  private void awaitPrefetch(BlockCapsule block, List<Future<?>> prefetches) {
+    long start = System.currentTimeMillis();
+    for (Future<?> future : prefetches) {
+      try {
+        future.get();
+      } catch (ExecutionException e) {
+        logger.warn("Prefetch block {} failed.", block.getNum(), e.getCause());
+      } catch (InterruptedException e) {
+        logger.error("Prefetch interrupted exception! block info: {}.", block, e);
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+    if (!prefetches.isEmpty()) {
+      logger.debug("Prefetch block {} waited {} ms.", block.getNum(),
+          System.currentTimeMillis() - start);
+    }
+  }
+
   private void preValidateTransactionSign(List<TransactionCapsule> txs)
       throws InterruptedException, ValidateSignatureException {
     int transSize = txs.size();
@@ -1949,12 +2251,15 @@ public class Manager {
     Histogram.Timer requestTimer = Metrics.histogramStartTimer(
         MetricKeys.Histogram.VERIFY_SIGN_LATENCY, MetricLabels.TRX);
     try {
-      CountDownLatch countDownLatch = new CountDownLatch(transSize);
-      List<Future<Boolean>> futures = new ArrayList<>(transSize);
-
-      for (TransactionCapsule transaction : txs) {
-        Future<Boolean> future = validateSignService
-            .submit(new ValidateSignTask(transaction, countDownLatch, chainBaseManager));
+      // each task recovers the signers of a share of the transactions together
+      int threads = Args.getInstance().getValidateSignThreadNum();
+      int chunk = (transSize + threads - 1) / threads;
+      CountDownLatch countDownLatch = new CountDownLatch((transSize + chunk - 1) / chunk);
+      List<Future<Boolean>> futures = new ArrayList<>();
+
+      for (int i = 0; i < transSize; i += chunk) {
+        Future<Boolean> future = validateSignService.submit(new ValidateSignTask(
+            txs.subList(i, Math.min(i + chunk, transSize)), countDownLatch, chainBaseManager));
         futures.add(future);
       }
       countDownLatch.await();
@@ -2014,6 +2319,10 @@ public class Manager {
     revokingStore.setCursor(Chainbase.Cursor.HEAD, 0L);
   }
 
+  public Chainbase.Cursor getCursor() {
+    return chainBaseManager.getDynamicPropertiesStore().getRevokingDB().getCursor();
+  }
+
   private void startEventSubscribing() {
 
     try {
@@ -2424,13 +2733,13 @@ public class Manager {
 
   private static class ValidateSignTask implements Callable<Boolean> {
 
-    private TransactionCapsule trx;
+    private List<TransactionCapsule> trxs;
     private CountDownLatch countDownLatch;
     private ChainBaseManager manager;
 
-    ValidateSignTask(TransactionCapsule trx, CountDownLatch countDownLatch,
+    ValidateSignTask(List<TransactionCapsule> trxs, CountDownLatch countDownLatch,
         ChainBaseManager manager) {
-      this.trx = trx;
+      this.trxs = trxs;
       this.countDownLatch = countDownLatch;
       this.manager = manager;
     }
@@ -2438,13 +2747,25 @@ public class Manager {
     @Override
     public Boolean call() throws ValidateSignatureException {
       try {
-        trx.validateSignature(manager.getAccountStore(), manager.getDynamicPropertiesStore());
-      } catch (ValidateSignatureException e) {
-        throw e;
+        TransactionCapsule.recoverSigners(trxs);
+        for (TransactionCapsule trx : trxs) {
+          trx.validateSignature(manager.getAccountStore(), manager.getDynamicPropertiesStore());
+        }
       } finally {
         countDownLatch.countDown();
       }
       return true;
     }
   }
+
+  private static class SpeculativeTransaction {
+
+    private final Speculation speculation;
+    private final Future<TransactionTrace> trace;
+
+    SpeculativeTransaction(Speculation speculation, Future<TransactionTrace> trace) {
+      this.speculation = speculation;
+      this.trace = trace;
+    }
+  }
 }
@@ -15,9 +15,9 @@ public class BlockMessage extends TronMessage {
   public BlockMessage(byte[] data) throws Exception {
     super(data);
     this.type = MessageTypes.BLOCK.asByte();
-    this.block = new BlockCapsule(getCodedInputStream(data));
+    this.block = new BlockCapsule(getCodedInputStream(data), data);
     if (Message.isFilter()) {
-      Message.compareBytes(data, block.getInstance().toByteArray());
+      Message.compareBytes(data, block.getInstance().getSerializedSize());
       TransactionCapsule.validContractProto(block.getInstance().getTransactionsList());
     }
   }
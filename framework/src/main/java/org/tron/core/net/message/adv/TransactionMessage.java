@@ -13,10 +13,10 @@ public class TransactionMessage extends TronMessage {
 
   public TransactionMessage(byte[] data) throws Exception {
     super(data);
-    this.transactionCapsule = new TransactionCapsule(getCodedInputStream(data));
+    this.transactionCapsule = new TransactionCapsule(getCodedInputStream(data), data);
     this.type = MessageTypes.TRX.asByte();
     if (Message.isFilter()) {
-      compareBytes(data, transactionCapsule.getInstance().toByteArray());
+      compareBytes(data, transactionCapsule.getInstance().getSerializedSize());
       transactionCapsule
           .validContractProto(transactionCapsule.getInstance().getRawData().getContract(0));
     }
@@ -24,7 +24,7 @@ public class TransactionsMessage extends TronMessage {
     this.type = MessageTypes.TRXS.asByte();
     this.transactions = Protocol.Transactions.parseFrom(getCodedInputStream(data));
     if (isFilter()) {
-      compareBytes(data, transactions.toByteArray());
+      compareBytes(data, transactions.getSerializedSize());
       TransactionCapsule.validContractProto(transactions.getTransactionsList());
     }
   }
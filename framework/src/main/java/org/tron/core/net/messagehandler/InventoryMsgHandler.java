@@ -44,7 +44,7 @@ public class InventoryMsgHandler implements TronMsgHandler {
 
   private boolean check(PeerConnection peer, InventoryMessage inventoryMessage) {
     InventoryType type = inventoryMessage.getInventoryType();
-    int size = inventoryMessage.getHashList().size();
+    int size = inventoryMessage.getInventory().getIdsCount();
 
     if (peer.isNeedSyncFromPeer() || peer.isNeedSyncFromUs()) {
       logger.warn("Drop inv: {} size: {} from Peer {}, syncFromUs: {}, syncFromPeer: {}",
@@ -8,11 +8,11 @@ import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
@@ -60,10 +60,9 @@ public class AdvService {
   private ConcurrentHashMap<Item, Long> invToSpread = new ConcurrentHashMap<>();
 
   private long blockCacheTimeout = Args.getInstance().getBlockCacheTimeout();
-  private Cache<Item, Long> invToFetchCache = CacheBuilder.newBuilder()
-      .maximumSize(MAX_INV_TO_FETCH_CACHE_SIZE)
-      .expireAfterWrite(blockCacheTimeout, TimeUnit.MINUTES)
-      .recordStats().build();
+  // the inventories announced or received already, checked without a lock by the peer threads
+  private InvFilter invFilter = new InvFilter(MAX_INV_TO_FETCH_CACHE_SIZE,
+      TimeUnit.MINUTES.toMillis(blockCacheTimeout));
 
   private Cache<Item, Message> trxCache = CacheBuilder.newBuilder()
       .maximumSize(MAX_TRX_CACHE_SIZE).expireAfterWrite(1, TimeUnit.HOURS)
@@ -73,6 +72,11 @@ public class AdvService {
       .maximumSize(MAX_BLOCK_CACHE_SIZE).expireAfterWrite(1, TimeUnit.MINUTES)
       .recordStats().build();
 
+  // taken by the consumers only, the peer threads add inventories without a lock
+  private final Object fetchLock = new Object();
+
+  private final Object spreadLock = new Object();
+
   private ScheduledExecutorService spreadExecutor = Executors.newSingleThreadScheduledExecutor();
 
   private ScheduledExecutorService fetchExecutor = Executors.newSingleThreadScheduledExecutor();
@@ -106,8 +110,8 @@ public class AdvService {
     fetchExecutor.shutdown();
   }
 
-  public synchronized void addInvToCache(Item item) {
-    invToFetchCache.put(item, System.currentTimeMillis());
+  public void addInvToCache(Item item) {
+    invFilter.add(item, System.currentTimeMillis());
     invToFetch.remove(item);
   }
 
@@ -123,13 +127,11 @@ public class AdvService {
       return false;
     }
 
-    synchronized (this) {
-      if (invToFetchCache.getIfPresent(item) != null) {
-        return false;
-      }
-      invToFetchCache.put(item, System.currentTimeMillis());
-      invToFetch.put(item, System.currentTimeMillis());
+    long now = System.currentTimeMillis();
+    if (!invFilter.add(item, now)) {
+      return false;
     }
+    invToFetch.put(item, now);
 
     if (InventoryType.BLOCK.equals(item.getType())) {
       consumerInvToFetch();
@@ -197,10 +199,9 @@ public class AdvService {
       item = new Item(blockMsg.getMessageId(), InventoryType.BLOCK);
       logger.info("Ready to broadcast block {}", blockMsg.getBlockId().getString());
       blockMsg.getBlockCapsule().getTransactions().forEach(transactionCapsule -> {
-        Sha256Hash tid = transactionCapsule.getTransactionId();
-        invToSpread.remove(tid);
-        trxCache.put(new Item(tid, InventoryType.TRX),
-            new TransactionMessage(transactionCapsule.getInstance()));
+        Item trxItem = new Item(transactionCapsule.getTransactionId(), InventoryType.TRX);
+        invToSpread.remove(trxItem);
+        trxCache.put(trxItem, new TransactionMessage(transactionCapsule.getInstance()));
       });
       blockCache.put(item, msg);
     } else if (msg instanceof TransactionMessage) {
@@ -248,7 +249,7 @@ public class AdvService {
             .anyMatch(p -> !p.equals(peer) && p.getAdvInvReceive().getIfPresent(item) != null)) {
           invToFetch.put(item, System.currentTimeMillis());
         } else {
-          invToFetchCache.invalidate(item);
+          invFilter.remove(item);
         }
       });
     }
@@ -259,13 +260,13 @@ public class AdvService {
   }
 
   private void consumerInvToFetch() {
-    Collection<PeerConnection> peers = tronNetDelegate.getActivePeer().stream()
-        .filter(peer -> peer.isIdle())
+    List<PeerConnection> peers = tronNetDelegate.getActivePeer().stream()
+        .filter(PeerConnection::isIdle)
         .collect(Collectors.toList());
 
     InvSender invSender = new InvSender();
     long now = System.currentTimeMillis();
-    synchronized (this) {
+    synchronized (fetchLock) {
       if (invToFetch.isEmpty() || peers.isEmpty()) {
         return;
       }
@@ -274,53 +275,67 @@ public class AdvService {
           logger.info("This obj is too late to fetch, type: {} hash: {}", item.getType(),
                   item.getHash());
           invToFetch.remove(item);
-          invToFetchCache.invalidate(item);
+          invFilter.remove(item);
           return;
         }
-        peers.stream().filter(peer -> peer.getAdvInvReceive().getIfPresent(item) != null
-                && invSender.getSize(peer) < MAX_TRX_FETCH_PER_PEER)
-                .sorted(Comparator.comparingInt(peer -> invSender.getSize(peer)))
-                .findFirst().ifPresent(peer -> {
-                  if (peer.checkAndPutAdvInvRequest(item, now)) {
-                    invSender.add(item, peer);
-                  }
-                  invToFetch.remove(item);
-                });
+        // the peer that announced it with the fewest fetches so far
+        PeerConnection target = null;
+        int targetSize = MAX_TRX_FETCH_PER_PEER;
+        for (PeerConnection peer : peers) {
+          int size = invSender.getSize(peer);
+          if (size < targetSize && peer.getAdvInvReceive().getIfPresent(item) != null) {
+            target = peer;
+            targetSize = size;
+          }
+        }
+        if (target != null) {
+          if (target.checkAndPutAdvInvRequest(item, now)) {
+            invSender.add(item, target);
+          }
+          invToFetch.remove(item);
+        }
       });
     }
 
     invSender.sendFetch();
   }
 
-  private synchronized void consumerInvToSpread() {
+  private void consumerInvToSpread() {
 
     List<PeerConnection> peers = tronNetDelegate.getActivePeer().stream()
         .filter(peer -> !peer.isNeedSyncFromPeer() && !peer.isNeedSyncFromUs())
         .collect(Collectors.toList());
 
-    if (invToSpread.isEmpty() || peers.isEmpty()) {
-      return;
-    }
-
     InvSender invSender = new InvSender();
-
-    invToSpread.forEach((item, time) -> peers.forEach(peer -> {
-      if (peer.getAdvInvReceive().getIfPresent(item) == null
-          && peer.getAdvInvSpread().getIfPresent(item) == null
-          && !(item.getType().equals(InventoryType.BLOCK)
-          && System.currentTimeMillis() - time > BLOCK_PRODUCED_INTERVAL)) {
-        peer.getAdvInvSpread().put(item, Time.getCurrentMillis());
-        invSender.add(item, peer);
+    synchronized (spreadLock) {
+      if (invToSpread.isEmpty() || peers.isEmpty()) {
+        return;
       }
-      invToSpread.remove(item);
-    }));
+
+      long now = System.currentTimeMillis();
+      invToSpread.forEach((item, time) -> {
+        boolean late = item.getType().equals(InventoryType.BLOCK)
+            && now - time > BLOCK_PRODUCED_INTERVAL;
+        for (PeerConnection peer : peers) {
+          if (!late && peer.getAdvInvReceive().getIfPresent(item) == null
+              && peer.getAdvInvSpread().getIfPresent(item) == null) {
+            peer.getAdvInvSpread().put(item, now);
+            invSender.add(item, peer);
+          }
+        }
+        invToSpread.remove(item);
+      });
+    }
 
     invSender.sendInv();
   }
 
+  /**
+   * The inventories of one round, batched into a message per peer and type.
+   */
   class InvSender {
 
-    private HashMap<PeerConnection, HashMap<InventoryType, LinkedList<Sha256Hash>>> send
+    private HashMap<PeerConnection, Map<InventoryType, List<Sha256Hash>>> send
         = new HashMap<>();
 
     public void clear() {
@@ -328,36 +343,29 @@ public class AdvService {
     }
 
     public void add(Entry<Sha256Hash, InventoryType> id, PeerConnection peer) {
-      if (send.containsKey(peer) && !send.get(peer).containsKey(id.getValue())) {
-        send.get(peer).put(id.getValue(), new LinkedList<>());
-      } else if (!send.containsKey(peer)) {
-        send.put(peer, new HashMap<>());
-        send.get(peer).put(id.getValue(), new LinkedList<>());
-      }
-      send.get(peer).get(id.getValue()).offer(id.getKey());
+      add(id.getKey(), id.getValue(), peer);
     }
 
     public void add(Item id, PeerConnection peer) {
-      HashMap<InventoryType, LinkedList<Sha256Hash>> map = send.get(peer);
-      if (map == null) {
-        map = new HashMap<>();
-        send.put(peer, map);
-      }
-
-      LinkedList<Sha256Hash> list = map.get(id.getType());
-      if (list == null) {
-        list = new LinkedList<>();
-        map.put(id.getType(), list);
-      }
+      add(id.getHash(), id.getType(), peer);
+    }
 
-      list.offer(id.getHash());
+    private void add(Sha256Hash hash, InventoryType type, PeerConnection peer) {
+      send.computeIfAbsent(peer, p -> new EnumMap<>(InventoryType.class))
+          .computeIfAbsent(type, t -> new ArrayList<>())
+          .add(hash);
     }
 
     public int getSize(PeerConnection peer) {
-      if (send.containsKey(peer)) {
-        return send.get(peer).values().stream().mapToInt(LinkedList::size).sum();
+      Map<InventoryType, List<Sha256Hash>> ids = send.get(peer);
+      if (ids == null) {
+        return 0;
       }
-      return 0;
+      int size = 0;
+      for (List<Sha256Hash> value : ids.values()) {
+        size += value.size();
+      }
+      return size;
     }
 
     public void sendInv() {
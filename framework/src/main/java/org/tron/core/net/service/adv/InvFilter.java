@@ -0,0 +1,114 @@
+package org.tron.core.net.service.adv;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.tron.core.net.peer.Item;
+
+/**
+ * The inventories seen recently, telling whether one a peer announces is new without a lock
+ * over all of them. Items are kept in generations of concurrent sets, the newest taking the
+ * items added, each covering a quarter of the retention time or of the maximum size. When the
+ * newest is that old or that full, a new generation is started and the oldest dropped, so an
+ * item is forgotten between three quarters of the retention and the retention after it was
+ * added, or earlier once three newer generations filled up.
+ *
+ * <p>Only starting a generation takes a lock. An item added by two threads while one starts a
+ * generation may be taken as new by both, which costs a redundant fetch at most.</p>
+ */
+public class InvFilter {
+
+  private static final int GENERATIONS = 4;
+
+  private final long retention;
+  private final long span;
+  private final int generationSize;
+  // newest first
+  private volatile Generation[] generations;
+
+  /**
+   * @param maxSize the number of items kept at most, roughly
+   * @param retention milliseconds an item is kept at most
+   */
+  public InvFilter(int maxSize, long retention) {
+    this.retention = retention;
+    this.span = Math.max(1, retention / GENERATIONS);
+    this.generationSize = Math.max(1, maxSize / GENERATIONS);
+    this.generations = new Generation[0];
+  }
+
+  /**
+   * Add the item, returning whether it was not seen before.
+   */
+  public boolean add(Item item, long now) {
+    Generation[] gens = current(now);
+    for (int i = 1; i < gens.length && now - gens[i].start < retention; i++) {
+      if (gens[i].items.contains(item)) {
+        return false;
+      }
+    }
+    if (!gens[0].items.add(item)) {
+      return false;
+    }
+    gens[0].size.incrementAndGet();
+    return true;
+  }
+
+  /**
+   * Forget the item, so that it is new again when announced next.
+   */
+  public void remove(Item item) {
+    for (Generation gen : generations) {
+      if (gen.items.remove(item)) {
+        gen.size.decrementAndGet();
+      }
+    }
+  }
+
+  public int size() {
+    int size = 0;
+    for (Generation gen : generations) {
+      size += gen.size.get();
+    }
+    return size;
+  }
+
+  private Generation[] current(long now) {
+    Generation[] gens = generations;
+    if (gens.length > 0 && !isFinished(gens[0], now)) {
+      return gens;
+    }
+    synchronized (this) {
+      gens = generations;
+      if (gens.length > 0 && !isFinished(gens[0], now)) {
+        return gens;
+      }
+      List<Generation> next = new ArrayList<>(GENERATIONS);
+      next.add(new Generation(now));
+      for (Generation gen : gens) {
+        if (next.size() < GENERATIONS && now - gen.start < retention) {
+          next.add(gen);
+        }
+      }
+      generations = next.toArray(new Generation[0]);
+      return generations;
+    }
+  }
+
+  private boolean isFinished(Generation gen, long now) {
+    return now - gen.start >= span || gen.size.get() >= generationSize;
+  }
+
+  private static class Generation {
+
+    private final long start;
+    private final Set<Item> items = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger size = new AtomicInteger();
+
+    private Generation(long start) {
+      this.start = start;
+    }
+  }
+}
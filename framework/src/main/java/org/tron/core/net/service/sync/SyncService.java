@@ -11,9 +11,13 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import lombok.AllArgsConstructor;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -44,10 +48,15 @@ public class SyncService {
   @Autowired
   private PbftDataSyncHandler pbftDataSyncHandler;
 
-  private Map<BlockMessage, PeerConnection> blockWaitToProcess = new ConcurrentHashMap<>();
+  private static final long SYNC_RATE_INTERVAL = 60_000; // ms
+
+  // the blocks waiting for their turn, the next one being at the head of a peer's blocks to fetch
+  private Map<BlockId, SyncBlock> blockWaitToProcess = new ConcurrentHashMap<>();
 
   private Map<BlockMessage, PeerConnection> blockJustReceived = new ConcurrentHashMap<>();
 
+  private Map<BlockMessage, Future<?>> blockInPrepare = new ConcurrentHashMap<>();
+
   private long blockCacheTimeout = Args.getInstance().getBlockCacheTimeout();
   private Cache<BlockId, PeerConnection> requestBlockIds = CacheBuilder.newBuilder()
       .maximumSize(10_000)
@@ -59,6 +68,13 @@ public class SyncService {
   private ScheduledExecutorService blockHandleExecutor = Executors
       .newSingleThreadScheduledExecutor();
 
+  private ExecutorService blockPrepareExecutor = Executors
+      .newFixedThreadPool(Args.getInstance().getValidateSignThreadNum());
+
+  private long syncRateBlocks;
+
+  private long syncRateSince = System.currentTimeMillis();
+
   private volatile boolean handleFlag = false;
 
   @Setter
@@ -87,12 +103,13 @@ public class SyncService {
       } catch (Exception e) {
         logger.error("Handle sync block error", e);
       }
-    }, 10, 1, TimeUnit.SECONDS);
+    }, 10_000, 100, TimeUnit.MILLISECONDS);
   }
 
   public void close() {
     fetchExecutor.shutdown();
     blockHandleExecutor.shutdown();
+    blockPrepareExecutor.shutdownNow();
   }
 
   public void startSync(PeerConnection peer) {
@@ -127,6 +144,8 @@ public class SyncService {
   }
 
   public void processBlock(PeerConnection peer, BlockMessage blockMessage) {
+    blockInPrepare.put(blockMessage, blockPrepareExecutor.submit(
+        () -> blockMessage.getBlockCapsule().recoverSigners()));
     synchronized (blockJustReceived) {
       blockJustReceived.put(blockMessage, peer);
     }
@@ -249,46 +268,77 @@ public class SyncService {
     });
   }
 
+  /**
+   * Apply the waiting blocks in chain order, on the one thread. Their signers are recovered on
+   * the prepare threads as soon as they arrive, so that the blocks behind the one being applied
+   * are prepared meanwhile.
+   */
   private synchronized void handleSyncBlock() {
 
     synchronized (blockJustReceived) {
-      blockWaitToProcess.putAll(blockJustReceived);
+      blockJustReceived.forEach((msg, peer) -> {
+        SyncBlock block = new SyncBlock(msg, peer, blockInPrepare.remove(msg));
+        if (blockWaitToProcess.putIfAbsent(msg.getBlockId(), block) != null) {
+          peer.getSyncBlockInProcess().remove(msg.getBlockId());
+        }
+      });
       blockJustReceived.clear();
     }
 
-    final boolean[] isProcessed = {true};
     long solidNum = tronNetDelegate.getSolidBlockId().getNum();
+    blockWaitToProcess.values().removeIf(block -> {
+      if (block.peer.isDisconnect()) {
+        invalid(block.getBlockId(), block.peer);
+        return true;
+      }
+      if (block.getBlockId().getNum() <= solidNum) {
+        block.peer.getSyncBlockInProcess().remove(block.getBlockId());
+        return true;
+      }
+      return false;
+    });
 
-    while (isProcessed[0]) {
+    int applied = 0;
+    SyncBlock block;
+    while ((block = nextSyncBlock()) != null) {
+      if (!block.awaitPrepared()) {
+        return;
+      }
+      blockWaitToProcess.remove(block.getBlockId());
+      synchronized (tronNetDelegate.getBlockLock()) {
+        if (block.peer.isDisconnect()) {
+          invalid(block.getBlockId(), block.peer);
+          continue;
+        }
+        processSyncBlock(block.message.getBlockCapsule(), block.peer);
+        block.peer.getSyncBlockInProcess().remove(block.getBlockId());
+        applied++;
+      }
+    }
+    logSyncRate(applied);
+  }
 
-      isProcessed[0] = false;
+  private SyncBlock nextSyncBlock() {
+    for (PeerConnection peer : tronNetDelegate.getActivePeer()) {
+      BlockId blockId = peer.getSyncBlockToFetch().peek();
+      SyncBlock block = blockId == null ? null : blockWaitToProcess.get(blockId);
+      if (block != null) {
+        return block;
+      }
+    }
+    return null;
+  }
 
-      blockWaitToProcess.forEach((msg, peerConnection) -> {
-        synchronized (tronNetDelegate.getBlockLock()) {
-          if (peerConnection.isDisconnect()) {
-            blockWaitToProcess.remove(msg);
-            invalid(msg.getBlockId(), peerConnection);
-            return;
-          }
-          if (msg.getBlockId().getNum() <= solidNum) {
-            blockWaitToProcess.remove(msg);
-            peerConnection.getSyncBlockInProcess().remove(msg.getBlockId());
-            return;
-          }
-          final boolean[] isFound = {false};
-          tronNetDelegate.getActivePeer().stream()
-              .filter(peer -> msg.getBlockId().equals(peer.getSyncBlockToFetch().peek()))
-              .forEach(peer -> {
-                isFound[0] = true;
-              });
-          if (isFound[0]) {
-            blockWaitToProcess.remove(msg);
-            isProcessed[0] = true;
-            processSyncBlock(msg.getBlockCapsule(), peerConnection);
-            peerConnection.getSyncBlockInProcess().remove(msg.getBlockId());
-          }
-        }
-      });
+  private void logSyncRate(int applied) {
+    syncRateBlocks += applied;
+    long now = System.currentTimeMillis();
+    if (now - syncRateSince >= SYNC_RATE_INTERVAL) {
+      if (syncRateBlocks > 0) {
+        logger.info("Sync applied {} blocks in {} s, {} blocks/s.", syncRateBlocks,
+            (now - syncRateSince) / 1000, syncRateBlocks * 1000 / (now - syncRateSince));
+      }
+      syncRateBlocks = 0;
+      syncRateSince = now;
     }
   }
 
@@ -332,4 +382,34 @@ public class SyncService {
     }
   }
 
+  @AllArgsConstructor
+  private static class SyncBlock {
+
+    private final BlockMessage message;
+    private final PeerConnection peer;
+    private final Future<?> prepared;
+
+    private BlockId getBlockId() {
+      return message.getBlockId();
+    }
+
+    /**
+     * Wait for the signers of the block to be recovered, false if interrupted. A block that was
+     * not prepared has them recovered while it is validated.
+     */
+    private boolean awaitPrepared() {
+      if (prepared == null) {
+        return true;
+      }
+      try {
+        prepared.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      } catch (ExecutionException e) {
+        logger.warn("Prepare sync block {} failed", getBlockId().getString(), e.getCause());
+      }
+      return true;
+    }
+  }
 }
@@ -0,0 +1,199 @@
+package org.tron.core.services;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.tron.common.parameter.CommonParameter;
+import org.tron.common.prometheus.MetricKeys;
+import org.tron.common.prometheus.Metrics;
+import org.tron.common.runtime.ProgramResult;
+import org.tron.common.utils.StringUtil;
+import org.tron.core.db.Manager;
+import org.tron.core.db2.core.Chainbase;
+import org.tron.core.exception.ContractValidateException;
+
+/**
+ * Runs constant calls on a pool of their own, so that how many execute at once is bounded apart
+ * from block processing and the API threads. A call runs on the cursor of the thread that
+ * submitted it, the head or the solidified state, and that thread waits for its result.
+ *
+ * <p>The cursor is not a view pinned to a block: a call reads the head or the solidified
+ * snapshot as of when it runs, which may be a later block than when it was submitted, as calls
+ * on the API threads always did. Pinning a block would keep its snapshot, and those below it,
+ * out of the merges and flushes that relink the snapshot chain until the last call on it ends,
+ * which block processing does not allow for.</p>
+ *
+ * <p>With no threads configured, calls run on the submitting thread. Either way their latency
+ * is measured, and the contracts taking the most time are exported at every interval.</p>
+ */
+@Slf4j(topic = "API")
+@Component
+public class ConstantCallService {
+
+  private static final int HOT_CONTRACTS = 10;
+  private static final long HOT_CONTRACTS_INTERVAL = 60; // seconds
+  private static final String CREATE = "create";
+
+  @Autowired
+  private Manager dbManager;
+
+  private ThreadPoolExecutor executor;
+  private ScheduledExecutorService hotContractsReporter;
+  private final Map<String, HotContract> hotContracts = new ConcurrentHashMap<>();
+
+  @PostConstruct
+  public void init() {
+    int threads = CommonParameter.getInstance().getConstantCallThreadNum();
+    if (threads > 0) {
+      executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+          new LinkedBlockingQueue<>(CommonParameter.getInstance().getConstantCallQueueSize()),
+          new ThreadFactoryBuilder().setNameFormat("constant-call-%d").build());
+    }
+    if (Metrics.enabled()) {
+      hotContractsReporter = Executors.newSingleThreadScheduledExecutor(
+          new ThreadFactoryBuilder().setNameFormat("constant-call-metrics").build());
+      hotContractsReporter.scheduleWithFixedDelay(this::reportHotContracts,
+          HOT_CONTRACTS_INTERVAL, HOT_CONTRACTS_INTERVAL, TimeUnit.SECONDS);
+    }
+  }
+
+  @PreDestroy
+  public void close() {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+    if (hotContractsReporter != null) {
+      hotContractsReporter.shutdownNow();
+    }
+  }
+
+  /**
+   * Run a constant call of the contract, an empty address for a deployment, and return its
+   * result once it finished.
+   */
+  public ProgramResult call(byte[] contract, Callable<ProgramResult> task) throws Exception {
+    if (executor == null) {
+      return execute(contract, task);
+    }
+    Chainbase.Cursor cursor = dbManager.getCursor();
+    long submitted = System.nanoTime();
+    Future<ProgramResult> future;
+    try {
+      future = executor.submit(() -> {
+        Metrics.histogramObserve(MetricKeys.Histogram.CONSTANT_CALL_LATENCY,
+            (System.nanoTime() - submitted) / 1_000_000_000.0, "wait");
+        dbManager.setCursor(cursor);
+        try {
+          return execute(contract, task);
+        } finally {
+          dbManager.resetCursor();
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      throw new ContractValidateException("too many constant calls waiting, try again later");
+    } finally {
+      Metrics.gaugeSet(MetricKeys.Gauge.CONSTANT_CALL_QUEUE, executor.getQueue().size());
+    }
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw e;
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw (Exception) cause;
+    }
+  }
+
+  private ProgramResult execute(byte[] contract, Callable<ProgramResult> task) throws Exception {
+    long start = System.nanoTime();
+    ProgramResult result = null;
+    try {
+      result = task.call();
+      return result;
+    } finally {
+      long cost = System.nanoTime() - start;
+      Metrics.histogramObserve(MetricKeys.Histogram.CONSTANT_CALL_LATENCY,
+          cost / 1_000_000_000.0, "execute");
+      if (hotContractsReporter != null) {
+        // atomic with the removal of the contract when reported, so no call is lost
+        hotContracts.merge(contract.length == 0 ? CREATE : StringUtil.encode58Check(contract),
+            new HotContract(1, cost, result == null ? 0 : result.getEnergyUsed()),
+            HotContract::plus);
+      }
+    }
+  }
+
+  /**
+   * Remove and return the calls counted per contract since the last time.
+   */
+  Map<String, HotContract> takeHotContracts() {
+    Map<String, HotContract> interval = new HashMap<>();
+    for (String contract : hotContracts.keySet()) {
+      HotContract hot = hotContracts.remove(contract);
+      if (hot != null) {
+        interval.put(contract, hot);
+      }
+    }
+    return interval;
+  }
+
+  private void reportHotContracts() {
+    try {
+      Map<String, HotContract> interval = takeHotContracts();
+      Metrics.gaugeClear(MetricKeys.Gauge.CONSTANT_CALL_HOT_CONTRACTS);
+      interval.entrySet().stream()
+          .sorted(Comparator.comparingLong(
+              (Map.Entry<String, HotContract> e) -> e.getValue().nanos).reversed())
+          .limit(HOT_CONTRACTS)
+          .forEach(e -> {
+            HotContract hot = e.getValue();
+            Metrics.gaugeSet(MetricKeys.Gauge.CONSTANT_CALL_HOT_CONTRACTS,
+                hot.calls, e.getKey(), "calls");
+            Metrics.gaugeSet(MetricKeys.Gauge.CONSTANT_CALL_HOT_CONTRACTS,
+                hot.nanos / 1_000_000_000.0, e.getKey(), "seconds");
+            Metrics.gaugeSet(MetricKeys.Gauge.CONSTANT_CALL_HOT_CONTRACTS,
+                hot.energy, e.getKey(), "energy");
+          });
+    } catch (Exception e) {
+      logger.warn("Report constant call hot contracts failed, {}", e.getMessage());
+    }
+  }
+
+  static class HotContract {
+
+    final long calls;
+    final long nanos;
+    final long energy;
+
+    private HotContract(long calls, long nanos, long energy) {
+      this.calls = calls;
+      this.nanos = nanos;
+      this.energy = energy;
+    }
+
+    private HotContract plus(HotContract other) {
+      return new HotContract(calls + other.calls, nanos + other.nanos, energy + other.energy);
+    }
+  }
+}
@@ -1,6 +1,7 @@
 package org.tron.core.services.jsonrpc.filters;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
@@ -10,17 +11,19 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.ArrayUtils;
 import org.tron.common.bloom.Bloom;
 import org.tron.common.crypto.Hash;
+import org.tron.core.exception.EventBloomException;
 import org.tron.core.exception.JsonRpcTooManyResultException;
 import org.tron.core.store.SectionBloomStore;
 
 /**
- * query possible block list by logFilterWrapper
+ * query possible block list by logFilterWrapper, section by section with word-wise and/or
  * warning: must not use bitSet.set(0, bitSet.length()) !
  */
 @Slf4j(topic = "API")
 public class LogBlockQuery {
 
   public static final int MAX_RESULT = 10000;
+  private static final int SECTION_WINDOW = 64;
   private final LogFilterWrapper logFilterWrapper;
   private final SectionBloomStore sectionBloomStore;
   private final ExecutorService sectionExecutor;
@@ -67,100 +70,100 @@ public class LogBlockQuery {
 
     int[][][] allConditionsIndex = getConditions();
 
-    int capacity = (maxSection - minSection + 1) * SectionBloomStore.BLOCK_PER_SECTION;
-    BitSet blockNumBitSet = new BitSet(capacity);
-    blockNumBitSet.set(0, capacity);
-
-    //works serial
-    for (int[][] conditionsIndex : allConditionsIndex) {
-      BitSet bitSet = subMatch(conditionsIndex);
-      blockNumBitSet.and(bitSet);
-    }
-
-    for (int i = blockNumBitSet.nextSetBit(0); i >= 0; i = blockNumBitSet.nextSetBit(i + 1)) {
-      // operate on index i here
-      if (i == Integer.MAX_VALUE) {
-        break; // or (i+1) would overflow
+    // a bounded window of sections is matched in parallel, in order
+    for (int from = minSection; from <= maxSection; from += SECTION_WINDOW) {
+      int to = Math.min(maxSection, from + SECTION_WINDOW - 1);
+      List<Future<long[]>> futures = new ArrayList<>(to - from + 1);
+      for (int section = from; section <= to; section++) {
+        final int s = section;
+        futures.add(sectionExecutor.submit(() -> match(allConditionsIndex, s)));
       }
-      long blockNum = (long) minSection * SectionBloomStore.BLOCK_PER_SECTION + i;
-      if (minBlock <= blockNum && blockNum <= maxBlock) {
-        blockNumList.add(blockNum);
+      try {
+        for (int i = 0; i < futures.size(); i++) {
+          addBlocks(blockNumList, from + i, futures.get(i).get());
+        }
+      } finally {
+        futures.forEach(future -> future.cancel(true));
       }
     }
 
-    if (blockNumList.size() >= MAX_RESULT) {
-      throw new JsonRpcTooManyResultException(
-          "query returned more than " + MAX_RESULT + " results");
-    }
-
     return blockNumList;
   }
 
-  /**
-   * address -> subMatch0,
-   * topic1 -> subMatch1, topic2 -> subMatch2, topic3 -> subMatch3, topic4 -> subMatch4
-   * works serial, return a BitSet with capacity of section num * blockPerSection
-   */
-  private BitSet subMatch(int[][] bitIndexes) throws ExecutionException, InterruptedException {
-
-    int capacity = (maxSection - minSection + 1) * SectionBloomStore.BLOCK_PER_SECTION;
-    BitSet subBitSet = new BitSet(capacity);
-
-    for (int section = minSection; section <= maxSection; section++) {
-      BitSet partialBitSet = partialMatch(bitIndexes, section);
-
-      for (int i = partialBitSet.nextSetBit(0); i >= 0; i = partialBitSet.nextSetBit(i + 1)) {
-        // operate on index i here
-        if (i == Integer.MAX_VALUE) {
-          break; // or (i+1) would overflow
+  private void addBlocks(List<Long> blockNumList, int section, long[] words)
+      throws JsonRpcTooManyResultException {
+    long base = (long) section * SectionBloomStore.BLOCK_PER_SECTION;
+    for (int i = 0; i < words.length; i++) {
+      for (long word = words[i]; word != 0; word &= word - 1) {
+        long blockNum = base + (long) i * Long.SIZE + Long.numberOfTrailingZeros(word);
+        if (minBlock <= blockNum && blockNum <= maxBlock) {
+          blockNumList.add(blockNum);
+          if (blockNumList.size() >= MAX_RESULT) {
+            throw new JsonRpcTooManyResultException(
+                "query returned more than " + MAX_RESULT + " results");
+          }
         }
-        int offset = (section - minSection) * SectionBloomStore.BLOCK_PER_SECTION + i;
-        subBitSet.set(offset);
       }
     }
-
-    return subBitSet;
   }
 
   /**
-   * every section has a compound query of sectionBloomStore, works parallel
-   * "and" condition in second dimension of query, "or" condition in first dimension
-   * return a BitSet whose capacity is blockPerSection
+   * the blocks of one section that match, as words of its bitset:
+   * "and" condition in first dimension, "or" condition in second dimension,
+   * "and" condition of the bit indexes in third dimension.
+   * a section stops being read once nothing of it can match
    */
-  private BitSet partialMatch(final int[][] bitIndexes, int section)
-      throws ExecutionException, InterruptedException {
-    List<List<Future<BitSet>>> bitSetList = new ArrayList<>();
-
-    for (int[] index : bitIndexes) {
-      List<Future<BitSet>> futureList = new ArrayList<>();
-      for (final int bitIndex : index) { //must be 3
-        Future<BitSet> bitSetFuture =
-            sectionExecutor.submit(() -> sectionBloomStore.get(section, bitIndex));
-        futureList.add(bitSetFuture);
+  private long[] match(int[][][] allConditionsIndex, int section) throws EventBloomException {
+    long[] result = new long[SectionBloomStore.WORDS_PER_SECTION];
+    Arrays.fill(result, -1L);
+    long[] any = new long[SectionBloomStore.WORDS_PER_SECTION];
+    for (int[][] bitIndexes : allConditionsIndex) {
+      Arrays.fill(any, 0L);
+      for (int[] index : bitIndexes) {
+        long[] all = matchAll(index, section);
+        if (all != null) {
+          or(any, all);
+        }
+      }
+      if (!and(result, any)) {
+        break;
       }
-      bitSetList.add(futureList);
     }
+    return result;
+  }
 
-    BitSet bitSet = new BitSet(SectionBloomStore.BLOCK_PER_SECTION);
-
-    for (List<Future<BitSet>> futureList : bitSetList) {
-      // initial a BitSet with all 1
-      BitSet subBitSet = new BitSet(SectionBloomStore.BLOCK_PER_SECTION);
-      subBitSet.set(0, SectionBloomStore.BLOCK_PER_SECTION);
-      // and condition in second dimension
-      for (Future<BitSet> future : futureList) {
-        BitSet one = future.get();
-        if (one == null) { //match nothing
-          subBitSet.clear();
-          break;
-        }
-        // "and" condition in second dimension
-        subBitSet.and(one);
+  private long[] matchAll(int[] index, int section) throws EventBloomException {
+    long[] all = null;
+    for (int bitIndex : index) { //must be 3
+      long[] one = sectionBloomStore.getWords(section, bitIndex);
+      if (one == null) { //match nothing
+        return null;
       }
-      // "or" condition in first dimension
-      bitSet.or(subBitSet);
+      if (all == null) {
+        all = one;
+      } else if (!and(all, one)) {
+        return null;
+      }
+    }
+    return all;
+  }
+
+  private static void or(long[] words, long[] other) {
+    for (int i = 0; i < words.length; i++) {
+      words[i] |= other[i];
+    }
+  }
+
+  /**
+   * @return whether any bit is left
+   */
+  private static boolean and(long[] words, long[] other) {
+    long left = 0;
+    for (int i = 0; i < words.length; i++) {
+      words[i] &= other[i];
+      left |= words[i];
     }
-    return bitSet;
+    return left != 0;
   }
 
   /**
@@ -0,0 +1,70 @@
+package org.tron.common.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.Weigher;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class WeightedCacheTest {
+
+  private static final Weigher<String, byte[]> WEIGHER = (k, v) -> k.length() + v.length;
+
+  @Test
+  public void testBudgetAndStats() {
+    WeightedCache shared = new WeightedCache(64 * 1024, 1);
+    Cache<String, byte[]> account = shared.region(CacheType.account, WEIGHER);
+    Cache<String, byte[]> code = shared.region(CacheType.code, WEIGHER);
+
+    account.put("a", new byte[100]);
+    code.put("a", new byte[1000]);
+    Assert.assertEquals(100, account.getIfPresent("a").length);
+    Assert.assertEquals(1000, code.getIfPresent("a").length);
+    Assert.assertNull(account.getIfPresent("b"));
+    Assert.assertEquals(2, account.stats().requestCount());
+    Assert.assertEquals(1, account.stats().missCount());
+    Assert.assertEquals(1 + 100 + WeightedCache.ENTRY_OVERHEAD,
+        (long) shared.weights().get(CacheType.account.toString()));
+
+    for (int i = 0; i < 1000; i++) {
+      code.put("code" + i, new byte[1000]);
+    }
+    long total = shared.weights().values().stream().mapToLong(Long::longValue).sum();
+    Assert.assertTrue(total <= 64 * 1024);
+
+    account.invalidateAll();
+    Assert.assertEquals(0, account.size());
+    Assert.assertEquals(0, (long) shared.weights().get(CacheType.account.toString()));
+  }
+
+  @Test
+  public void testFrequencyAdmission() {
+    WeightedCache shared = new WeightedCache(16 * 1024, 1);
+    Cache<String, byte[]> account = shared.region(CacheType.account, WEIGHER);
+    for (int i = 0; i < 100; i++) {
+      account.put("hot" + i, new byte[64]);
+    }
+    for (int round = 0; round < 3; round++) {
+      for (int i = 0; i < 100; i++) {
+        Assert.assertNotNull(account.getIfPresent("hot" + i));
+      }
+    }
+
+    // a scan of cold keys, read once each, must not push out the hot ones
+    for (int i = 0; i < 10000; i++) {
+      if (account.getIfPresent("cold" + i) == null) {
+        account.put("cold" + i, new byte[64]);
+      }
+    }
+    int hits = 0;
+    for (int i = 0; i < 100; i++) {
+      if (account.getIfPresent("hot" + i) != null) {
+        hits++;
+      }
+    }
+    Assert.assertTrue(hits > 90);
+
+    // a write to a cached key always replaces it, even if it would not be admitted
+    account.put("hot0", new byte[1]);
+    Assert.assertEquals(1, account.getIfPresent("hot0").length);
+  }
+}
@@ -0,0 +1,229 @@
+package org.tron.common.crypto;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.math.BigInteger;
+import java.util.Random;
+import lombok.extern.slf4j.Slf4j;
+import org.bouncycastle.asn1.sec.SECNamedCurves;
+import org.bouncycastle.asn1.x9.X9ECParameters;
+import org.bouncycastle.asn1.x9.X9IntegerConverter;
+import org.bouncycastle.math.ec.ECAlgorithms;
+import org.bouncycastle.math.ec.ECCurve;
+import org.bouncycastle.math.ec.ECPoint;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.tron.common.crypto.ECKey.ECDSASignature;
+
+/**
+ * Checks the recovery on the specialized curve against the recovery on the generic curve it
+ * replaced, for valid signatures and for random corruptions of them.
+ */
+@Slf4j
+public class ECKeyRecoveryTest {
+
+  private static final X9ECParameters GENERIC = SECNamedCurves.getByName("secp256k1");
+  private static final BigInteger N = GENERIC.getN();
+  private static final BigInteger P = ((ECCurve.Fp) GENERIC.getCurve()).getQ();
+
+  private final Random random = new Random(20260901L);
+
+  /**
+   * The recovery as it was, on the generic curve and checking the order of R.
+   */
+  private static byte[] reference(int recId, ECDSASignature sig, byte[] messageHash) {
+    try {
+      BigInteger x = sig.r.add(BigInteger.valueOf((long) recId / 2).multiply(N));
+      if (x.compareTo(P) >= 0) {
+        return null;
+      }
+      X9IntegerConverter x9 = new X9IntegerConverter();
+      byte[] compEnc = x9.integerToBytes(x, 1 + x9.getByteLength(GENERIC.getCurve()));
+      compEnc[0] = (byte) ((recId & 1) == 1 ? 0x03 : 0x02);
+      ECPoint r = GENERIC.getCurve().decodePoint(compEnc);
+      if (!r.multiply(N).isInfinity()) {
+        return null;
+      }
+      BigInteger eInv = BigInteger.ZERO.subtract(new BigInteger(1, messageHash)).mod(N);
+      BigInteger rInv = sig.r.modInverse(N);
+      BigInteger srInv = rInv.multiply(sig.s).mod(N);
+      BigInteger eInvrInv = rInv.multiply(eInv).mod(N);
+      return ECAlgorithms.sumOfTwoMultiplies(GENERIC.getG(), eInvrInv, r, srInv)
+          .getEncoded(false);
+    } catch (RuntimeException e) {
+      return null;
+    }
+  }
+
+  private static byte[] single(int recId, ECDSASignature sig, byte[] messageHash) {
+    try {
+      return ECKeyRecovery.recoverPubBytes(recId, sig, messageHash);
+    } catch (RuntimeException e) {
+      return null;
+    }
+  }
+
+  private byte[] randomBytes(int length) {
+    byte[] bytes = new byte[length];
+    random.nextBytes(bytes);
+    return bytes;
+  }
+
+  private ECDSASignature sign(byte[] messageHash) {
+    BigInteger priv = new BigInteger(256, random).mod(N.subtract(BigInteger.ONE))
+        .add(BigInteger.ONE);
+    return ECKey.fromPrivate(priv).sign(messageHash);
+  }
+
+  /**
+   * A signature of the message, valid or corrupted in one of the ways recovery has to survive.
+   */
+  private ECDSASignature fuzz(byte[] messageHash) {
+    ECDSASignature sig = sign(messageHash);
+    BigInteger r = sig.r;
+    BigInteger s = sig.s;
+    switch (random.nextInt(8)) {
+      case 0:
+        r = r.flipBit(random.nextInt(256));
+        break;
+      case 1:
+        s = s.flipBit(random.nextInt(256));
+        break;
+      case 2:
+        r = new BigInteger(256, random);
+        break;
+      case 3:
+        r = random.nextBoolean() ? BigInteger.ZERO : N;
+        break;
+      case 4:
+        // x = r + n is a coordinate only for the few r below p - n
+        r = P.subtract(N).subtract(BigInteger.valueOf(random.nextInt(4)));
+        break;
+      case 5:
+        s = random.nextBoolean() ? BigInteger.ZERO : N.add(s);
+        break;
+      default:
+        break;
+    }
+    ECDSASignature fuzzed = new ECDSASignature(r, s);
+    fuzzed.v = sig.v;
+    return fuzzed;
+  }
+
+  @Test
+  public void testRecoverValid() throws Exception {
+    for (int i = 0; i < 100; i++) {
+      byte[] hash = randomBytes(32);
+      ECDSASignature sig = sign(hash);
+      byte[] pub = ECKeyRecovery.recoverPubBytes(sig.v - 27, sig, hash);
+      assertNotNull(pub);
+      assertArrayEquals(reference(sig.v - 27, sig, hash), pub);
+      assertArrayEquals(ECKey.signatureToAddress(hash, sig),
+          ECKey.signaturesToAddresses(new byte[][] {hash}, new ECDSASignature[] {sig})[0]);
+    }
+  }
+
+  @Test
+  public void testRecoverFuzzed() {
+    int count = 400;
+    int[] recIds = new int[count];
+    ECDSASignature[] sigs = new ECDSASignature[count];
+    byte[][] hashes = new byte[count][];
+    for (int i = 0; i < count; i++) {
+      hashes[i] = randomBytes(32);
+      sigs[i] = fuzz(hashes[i]);
+      recIds[i] = random.nextInt(4);
+    }
+
+    byte[][] batch = ECKeyRecovery.recoverPubBytes(recIds, sigs, hashes);
+    for (int i = 0; i < count; i++) {
+      byte[] expected = reference(recIds[i], sigs[i], hashes[i]);
+      assertArrayEquals(expected, single(recIds[i], sigs[i], hashes[i]));
+      assertArrayEquals(expected, batch[i]);
+    }
+  }
+
+  @Test
+  public void testSignaturesToAddresses() {
+    int count = 100;
+    ECDSASignature[] sigs = new ECDSASignature[count];
+    byte[][] hashes = new byte[count][];
+    for (int i = 0; i < count; i++) {
+      hashes[i] = randomBytes(random.nextInt(10) == 0 ? 31 : 32);
+      sigs[i] = fuzz(hashes[i]);
+      if (random.nextInt(10) == 0) {
+        sigs[i].v = (byte) (random.nextInt(12) + 25);
+      }
+    }
+
+    byte[][] addresses = ECKey.signaturesToAddresses(hashes, sigs);
+    for (int i = 0; i < count; i++) {
+      byte[] expected;
+      try {
+        expected = ECKey.signatureToAddress(hashes[i], sigs[i]);
+      } catch (Exception e) {
+        expected = null;
+      }
+      assertArrayEquals(expected, addresses[i]);
+    }
+  }
+
+  @Test
+  public void testSkipped() {
+    byte[] hash = randomBytes(32);
+    byte[][] pubs = ECKeyRecovery.recoverPubBytes(new int[] {-1},
+        new ECDSASignature[] {sign(hash)}, new byte[][] {hash});
+    assertNull(pubs[0]);
+  }
+
+  /**
+   * Recoveries per second of the generic curve, the specialized curve one at a time and the
+   * specialized curve in batches of a block's transactions.
+   */
+  @Ignore
+  @Test
+  public void benchmark() {
+    int count = 2000;
+    int batchSize = 250;
+    int[] recIds = new int[count];
+    ECDSASignature[] sigs = new ECDSASignature[count];
+    byte[][] hashes = new byte[count][];
+    for (int i = 0; i < count; i++) {
+      hashes[i] = randomBytes(32);
+      sigs[i] = sign(hashes[i]);
+      recIds[i] = sigs[i].v - 27;
+    }
+
+    for (int round = 0; round < 3; round++) {
+      long start = System.nanoTime();
+      for (int i = 0; i < count; i++) {
+        reference(recIds[i], sigs[i], hashes[i]);
+      }
+      long generic = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      for (int i = 0; i < count; i++) {
+        ECKeyRecovery.recoverPubBytes(recIds[i], sigs[i], hashes[i]);
+      }
+      long single = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      for (int i = 0; i < count; i += batchSize) {
+        int[] batchRecIds = new int[batchSize];
+        ECDSASignature[] batchSigs = new ECDSASignature[batchSize];
+        byte[][] batchHashes = new byte[batchSize][];
+        System.arraycopy(recIds, i, batchRecIds, 0, batchSize);
+        System.arraycopy(sigs, i, batchSigs, 0, batchSize);
+        System.arraycopy(hashes, i, batchHashes, 0, batchSize);
+        ECKeyRecovery.recoverPubBytes(batchRecIds, batchSigs, batchHashes);
+      }
+      long batch = System.nanoTime() - start;
+
+      logger.info("Recoveries per second, generic: {}, single: {}, batch: {}.",
+          count * 1_000_000_000L / generic, count * 1_000_000_000L / single,
+          count * 1_000_000_000L / batch);
+    }
+  }
+}
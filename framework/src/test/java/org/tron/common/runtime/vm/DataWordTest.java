@@ -23,8 +23,11 @@ import static org.junit.Assert.assertTrue;
 
 import java.math.BigInteger;
 import java.util.Arrays;
+import java.util.Random;
+import java.util.function.BiConsumer;
 import lombok.extern.slf4j.Slf4j;
 import org.bouncycastle.util.encoders.Hex;
+import org.junit.Ignore;
 import org.junit.Test;
 
 @Slf4j
@@ -580,5 +583,155 @@ public class DataWordTest {
     }
   }
 
+  @Test
+  public void testDifferentialFuzz() {
+    Random random = new Random(42);
+    BigInteger two256 = DataWord._2_256;
+    for (int i = 0; i < 100_000; i++) {
+      byte[] x = randomWord(random);
+      byte[] y = randomWord(random);
+      byte[] z = randomWord(random);
+      BigInteger ux = new BigInteger(1, x);
+      BigInteger uy = new BigInteger(1, y);
+      BigInteger uz = new BigInteger(1, z);
+      BigInteger sx = new BigInteger(x);
+      BigInteger sy = new BigInteger(y);
+      boolean zeroY = uy.signum() == 0;
+
+      assertOp("add", ux.add(uy), x, y, DataWord::add);
+      assertOp("sub", ux.subtract(uy), x, y, DataWord::sub);
+      assertOp("mul", ux.multiply(uy), x, y, DataWord::mul);
+      assertOp("div", zeroY ? BigInteger.ZERO : ux.divide(uy), x, y, DataWord::div);
+      assertOp("mod", zeroY ? BigInteger.ZERO : ux.mod(uy), x, y, DataWord::mod);
+      assertOp("sdiv", zeroY ? BigInteger.ZERO : sx.divide(sy), x, y, DataWord::sDiv);
+      BigInteger smod = zeroY ? BigInteger.ZERO : sx.abs().mod(sy.abs());
+      assertOp("smod", sx.signum() < 0 ? smod.negate() : smod, x, y, DataWord::sMod);
+      assertOp("and", ux.and(uy), x, y, DataWord::and);
+      assertOp("or", ux.or(uy), x, y, DataWord::or);
+      assertOp("xor", ux.xor(uy), x, y, DataWord::xor);
+      assertOp("addmod", uz.signum() == 0 ? BigInteger.ZERO : ux.add(uy).mod(uz), x, y,
+          (a, b) -> a.addmod(b, new DataWord(z.clone())));
+      assertOp("mulmod", uz.signum() == 0 ? BigInteger.ZERO : ux.multiply(uy).mod(uz), x, y,
+          (a, b) -> a.mulmod(b, new DataWord(z.clone())));
+      if (i % 10 == 0) {
+        assertOp("exp", ux.modPow(uy, two256), x, y, DataWord::exp);
+      }
+      assertOp("not", DataWord.MAX_VALUE.subtract(ux), x, y, (a, b) -> a.bnot());
+      assertOp("negate", ux.negate(), x, y, (a, b) -> a.negate());
+
+      int k = random.nextInt(32);
+      BigInteger extended = sx.testBit(k * 8 + 7)
+          ? ux.or(DataWord.MAX_VALUE.shiftLeft(k * 8 + 8))
+          : ux.and(BigInteger.ONE.shiftLeft(k * 8 + 8).subtract(BigInteger.ONE));
+      assertOp("signextend", extended, x, y, (a, b) -> a.signExtend((byte) k));
+
+      int n = random.nextInt(300);
+      DataWord shift = new DataWord(n);
+      assertEquals("shl", n >= 256 ? BigInteger.ZERO : ux.shiftLeft(n).and(DataWord.MAX_VALUE),
+          new DataWord(x.clone()).shiftLeft(shift).value());
+      assertEquals("shr", n >= 256 ? BigInteger.ZERO : ux.shiftRight(n),
+          new DataWord(x.clone()).shiftRight(shift).value());
+      assertEquals("sar", sx.shiftRight(Math.min(n, 256)).and(DataWord.MAX_VALUE),
+          new DataWord(x.clone()).shiftRightSigned(shift).value());
+
+      DataWord wx = new DataWord(x.clone());
+      DataWord wy = new DataWord(y.clone());
+      // compare a word held in limbs with one held in bytes
+      wy.add(new DataWord(0));
+      assertEquals(ux.compareTo(uy), wx.compareTo(wy));
+      assertEquals(ux.equals(uy), wx.equals(wy));
+      assertEquals(uy.longValue(), wy.longValue());
+      assertEquals((uy.bitLength() + 7) / 8, wy.bytesOccupied());
+    }
+  }
 
+  @Test
+  public void testLimbsAndBytes() {
+    DataWord word = new DataWord(7L);
+    word.mul(word);
+    word.add(word);
+    assertEquals(98, word.longValue());
+
+    // writes through getData() are seen by the next operation
+    word.and(DataWord.ZERO);
+    word.getData()[31] = 1;
+    word.add(DataWord.ONE());
+    assertEquals(2, word.intValue());
+    assertEquals(word, new DataWord(2));
+    assertEquals(word.hashCode(), new DataWord(2).hashCode());
+  }
+
+  /**
+   * Run with -Dbenchmark.ops=N to compare the cost of each opcode with the BigInteger version.
+   */
+  @Ignore
+  @Test
+  public void benchmarkOpcodes() {
+    int ops = Integer.getInteger("benchmark.ops", 5_000_000);
+    Random random = new Random(1);
+    byte[][] words = new byte[1024][];
+    for (int i = 0; i < words.length; i++) {
+      words[i] = new byte[32];
+      random.nextBytes(words[i]);
+    }
+    benchmark("add", words, ops, DataWord::add);
+    benchmark("sub", words, ops, DataWord::sub);
+    benchmark("mul", words, ops, DataWord::mul);
+    benchmark("div", words, ops, DataWord::div);
+    benchmark("mod", words, ops, DataWord::mod);
+    benchmark("sdiv", words, ops, DataWord::sDiv);
+    benchmark("smod", words, ops, DataWord::sMod);
+    benchmark("addmod", words, ops, (a, b) -> a.addmod(b, b));
+    benchmark("mulmod", words, ops, (a, b) -> a.mulmod(b, b));
+    benchmark("exp", words, ops / 100, DataWord::exp);
+    benchmark("and", words, ops, DataWord::and);
+    benchmark("shl", words, ops, (a, b) -> a.shiftLeft(new DataWord(b.intValue() & 0xff)));
+    benchmark("sar", words, ops, (a, b) -> a.shiftRightSigned(new DataWord(b.intValue() & 0xff)));
+    benchmark("signextend", words, ops, (a, b) -> a.signExtend((byte) (b.intValue() & 31)));
+    benchmark("mul (BigInteger)", words, ops, (a, b) ->
+        a.value().multiply(b.value()).and(DataWord.MAX_VALUE));
+    benchmark("div (BigInteger)", words, ops, (a, b) -> a.value().divide(b.value()));
+  }
+
+  private static void benchmark(String name, byte[][] words, int ops,
+      BiConsumer<DataWord, DataWord> op) {
+    for (int round = 0; round < 2; round++) {
+      long start = System.nanoTime();
+      for (int i = 0; i < ops; i++) {
+        op.accept(new DataWord(words[i & 1023]), new DataWord(words[(i + 1) & 1023]));
+      }
+      if (round == 1) {
+        logger.info("{}: {} ns/op", name, (System.nanoTime() - start) / ops);
+      }
+    }
+  }
+
+  private static byte[] randomWord(Random random) {
+    byte[] word = new byte[32];
+    switch (random.nextInt(6)) {
+      case 0:
+        return word;
+      case 1:
+        Arrays.fill(word, (byte) 0xff);
+        return word;
+      default:
+        int length = 1 + random.nextInt(32);
+        byte[] value = new byte[length];
+        random.nextBytes(value);
+        System.arraycopy(value, 0, word, 32 - length, length);
+        if (random.nextInt(4) == 0) {
+          // negative in two's complement
+          Arrays.fill(word, 0, 32 - length, (byte) 0xff);
+        }
+        return word;
+    }
+  }
+
+  private static void assertOp(String name, BigInteger expected, byte[] x, byte[] y,
+      BiConsumer<DataWord, DataWord> op) {
+    DataWord word = new DataWord(x.clone());
+    op.accept(word, new DataWord(y.clone()));
+    assertEquals(name + " " + Hex.toHexString(x) + " " + Hex.toHexString(y),
+        expected.and(DataWord.MAX_VALUE), word.value());
+  }
 }
@@ -0,0 +1,87 @@
+package org.tron.common.runtime.vm;
+
+import lombok.extern.slf4j.Slf4j;
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.tron.common.BaseTest;
+import org.tron.common.parameter.CommonParameter;
+import org.tron.core.Constant;
+import org.tron.core.Wallet;
+import org.tron.core.config.args.Args;
+import org.tron.core.store.StoreFactory;
+import org.tron.core.vm.repository.Repository;
+import org.tron.core.vm.repository.RepositoryImpl;
+import org.tron.protos.Protocol.AccountType;
+
+/**
+ * Times the repository work of a deep chain of calls into one contract: every level opens a
+ * child repository, loads the code, reads the storage slots the contract uses, writes one of them
+ * and commits back into its parent. Run it on both sides of a change to the repository to compare.
+ */
+@Slf4j
+@Ignore
+public class DeepCallChainBenchmarkTest extends BaseTest {
+
+  private static final String CONTRACT_ADDRESS;
+  private static final int DEPTH = 64;
+  private static final int SLOTS = 256;
+  private static final int CODE_SIZE = 24 * 1024;
+  private static final int WARMUP = 50;
+  private static final int ROUNDS = 500;
+
+  static {
+    dbPath = "output_DeepCallChainBenchmarkTest";
+    Args.setParam(new String[]{"--output-directory", dbPath}, Constant.TEST_CONF);
+    CONTRACT_ADDRESS = Wallet.getAddressPreFixString() + "abd4b9367799eaa3197fecb144eb71de1e049abc";
+  }
+
+  @Before
+  public void init() {
+    CommonParameter.setENERGY_LIMIT_HARD_FORK(true);
+    byte[] address = Hex.decode(CONTRACT_ADDRESS);
+    Repository repository = RepositoryImpl.createRoot(StoreFactory.getInstance());
+    repository.createAccount(address, AccountType.Contract);
+    repository.saveCode(address, new byte[CODE_SIZE]);
+    for (int i = 0; i < SLOTS; i++) {
+      repository.putStorageValue(address, new DataWord(i), new DataWord(i + 1));
+    }
+    repository.commit();
+  }
+
+  @After
+  public void destroy() {
+    CommonParameter.setENERGY_LIMIT_HARD_FORK(false);
+  }
+
+  @Test
+  public void deepCallChain() {
+    byte[] address = Hex.decode(CONTRACT_ADDRESS);
+    for (int i = 0; i < WARMUP; i++) {
+      call(RepositoryImpl.createRoot(StoreFactory.getInstance()), address, DEPTH);
+    }
+    long start = System.nanoTime();
+    for (int i = 0; i < ROUNDS; i++) {
+      call(RepositoryImpl.createRoot(StoreFactory.getInstance()), address, DEPTH);
+    }
+    long cost = System.nanoTime() - start;
+    logger.info("Call chain of depth {} over {} slots: {} us per transaction.", DEPTH, SLOTS,
+        cost / ROUNDS / 1000);
+  }
+
+  private void call(Repository parent, byte[] address, int depth) {
+    if (depth == 0) {
+      return;
+    }
+    Repository repository = parent.newRepositoryChild();
+    repository.getCode(address);
+    for (int i = 0; i < SLOTS; i++) {
+      repository.getStorageValue(address, new DataWord(i));
+    }
+    repository.putStorageValue(address, new DataWord(depth % SLOTS), new DataWord(depth));
+    call(repository, address, depth - 1);
+    repository.commit();
+  }
+}
@@ -27,6 +27,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.bouncycastle.util.encoders.Hex;
 import org.junit.Assert;
 import org.junit.Test;
+import org.tron.common.crypto.Hash;
 import org.tron.core.vm.program.Memory;
 
 @Slf4j
@@ -562,5 +563,28 @@ public class MemoryTest {
     assertTrue(zero == 10);
   }
 
-
+  @Test
+  public void testWordsAndHashes() {
+    Memory memory = new Memory();
+    DataWord value = new DataWord(
+        "0102030405060708091011121314151617181920212223242526272829303132");
+    memory.writeWord(CHUNK_SIZE - 16, value);
+    Assert.assertEquals(2 * CHUNK_SIZE, memory.internalSize());
+    Assert.assertEquals(CHUNK_SIZE + 32, memory.size());
+    assertArrayEquals(value.getData(), memory.read(CHUNK_SIZE - 16, WORD_SIZE));
+
+    DataWord word = new DataWord(7);
+    memory.readWord(CHUNK_SIZE - 16, word);
+    Assert.assertEquals(value, word);
+
+    assertArrayEquals(Hash.sha3(Hex.decode("0910111213141516")),
+        memory.hash(CHUNK_SIZE - 8, 8));
+    assertArrayEquals(Hash.sha3(new byte[0]), memory.hash(0, 0));
+
+    // growing keeps the content
+    memory.extend(0, 100 * CHUNK_SIZE);
+    Assert.assertEquals(100 * CHUNK_SIZE, memory.internalSize());
+    assertArrayEquals(value.getData(), memory.read(CHUNK_SIZE - 16, WORD_SIZE));
+    Assert.assertEquals(100, memory.getChunks().size());
+  }
 }
@@ -868,6 +868,46 @@ public class OperationsTest extends BaseTest {
     VMConfig.initAllowTvmShangHai(0);
   }
 
+  @Test
+  public void testBlockCharging() throws ContractValidateException {
+    // a loop of fixed energy runs, JUMPI to a JUMPDEST in PUSH data, PUSH0 while disabled
+    byte[][] codes = {
+        compile("PUSH1 0x03 JUMPDEST PUSH1 0x01 SWAP1 SUB DUP1 PUSH1 0x02 JUMPI STOP"),
+        compile("PUSH1 0x01 PUSH1 0x06 JUMPI PUSH1 0x5b ADD"),
+        compile("PUSH1 0x01 ADD ADD"),
+        Hex.decode("60015f01")
+    };
+    for (byte[] code : codes) {
+      for (long energyLimit : new long[] {1000, 55, 50, 3, 0}) {
+        Program expected = playWithBlockCharging(code, energyLimit, false);
+        Program actual = playWithBlockCharging(code, energyLimit, true);
+        Assert.assertEquals(expected.getResult().getEnergyUsed(),
+            actual.getResult().getEnergyUsed());
+        Assert.assertEquals(String.valueOf(expected.getResult().getException()),
+            String.valueOf(actual.getResult().getException()));
+        Assert.assertEquals(expected.getStack(), actual.getStack());
+        Assert.assertEquals(expected.getPC(), actual.getPC());
+      }
+    }
+  }
+
+  private Program playWithBlockCharging(byte[] code, long energyLimit, boolean enabled)
+      throws ContractValidateException {
+    invoke = new ProgramInvokeMockImpl();
+    invoke.setEnergyLimit(energyLimit);
+    Program program = new Program(code, code, invoke, new InternalTransaction(
+        Protocol.Transaction.getDefaultInstance(),
+        InternalTransaction.TrxType.TRX_UNKNOWN_TYPE));
+    program.setRootTransactionId(new byte[32]);
+    VMConfig.setBlockCharging(enabled);
+    try {
+      VM.play(program, jumpTable);
+    } finally {
+      VMConfig.setBlockCharging(false);
+    }
+    return program;
+  }
+
   private void testOperations(Program program) {
     try {
       while (!program.isStopped()) {
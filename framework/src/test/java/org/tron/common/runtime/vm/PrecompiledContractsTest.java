@@ -288,6 +288,19 @@ public class PrecompiledContractsTest extends BaseTest {
     }
   }
 
+  /**
+   * Calls running at once set their own state on the contract they call.
+   */
+  @Test
+  public void instancePerCallTest() {
+    VMConfig.initAllowTvmFreezeV2(1L);
+    PrecompiledContract first = createPrecompiledContract(getChainParameterAddr, OWNER_ADDRESS);
+    PrecompiledContract second = PrecompiledContracts.getContractForAddress(getChainParameterAddr);
+    Assert.assertNotSame(first, second);
+    Assert.assertNull(second.getDeposit());
+    Assert.assertNull(second.getResult());
+  }
+
   @Test
   public void tvmFreezeV2SwitchTest() {
     VMConfig.initAllowTvmFreezeV2(0L);
@@ -0,0 +1,62 @@
+package org.tron.common.runtime.vm;
+
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.Assert;
+import org.junit.Test;
+import org.tron.common.crypto.Hash;
+import org.tron.core.vm.program.ProgramPrecompile;
+
+public class ProgramPrecompileTest {
+
+  @Test
+  public void testBitmaps() {
+    // PUSH1 0x5b, JUMPDEST, PUSH2 0x5b5b, JUMPI, JUMPDEST, STOP, ADD, PUSH32 cut short
+    byte[] ops = Hex.decode("605b5b615b5b575b000160");
+    ProgramPrecompile precompile = ProgramPrecompile.compile(ops);
+
+    Assert.assertFalse(precompile.hasJumpDest(1));
+    Assert.assertTrue(precompile.hasJumpDest(2));
+    Assert.assertFalse(precompile.hasJumpDest(4));
+    Assert.assertFalse(precompile.hasJumpDest(5));
+    Assert.assertTrue(precompile.hasJumpDest(7));
+    Assert.assertFalse(precompile.hasJumpDest(-1));
+    Assert.assertFalse(precompile.hasJumpDest(1 << 20));
+
+    Assert.assertTrue(precompile.isPushData(1));
+    Assert.assertFalse(precompile.isPushData(2));
+    Assert.assertTrue(precompile.isPushData(4));
+    Assert.assertTrue(precompile.isPushData(5));
+    Assert.assertFalse(precompile.isPushData(6));
+    Assert.assertFalse(precompile.isPushData(10));
+
+    Assert.assertTrue(precompile.isBlockStart(0));
+    Assert.assertTrue(precompile.isBlockStart(2));
+    Assert.assertFalse(precompile.isBlockStart(3));
+    Assert.assertTrue(precompile.isBlockStart(7));
+    Assert.assertFalse(precompile.isBlockStart(8));
+    Assert.assertTrue(precompile.isBlockStart(9));
+    Assert.assertFalse(precompile.isBlockStart(10));
+
+    byte[] large = new byte[200];
+    large[130] = 0x5b;
+    Assert.assertTrue(ProgramPrecompile.compile(large).hasJumpDest(130));
+    Assert.assertFalse(ProgramPrecompile.compile(large).hasJumpDest(66));
+  }
+
+  @Test
+  public void testSharedCache() {
+    byte[] ops = Hex.decode("5b600056");
+    byte[] codeHash = Hash.sha3(ops);
+    ProgramPrecompile.warm(codeHash, ops);
+    Assert.assertSame(ProgramPrecompile.compile(codeHash, ops),
+        ProgramPrecompile.compile(codeHash, ops.clone()));
+
+    // a hash that does not belong to the code never serves its analysis
+    byte[] other = Hex.decode("60005b56");
+    ProgramPrecompile precompile = ProgramPrecompile.compile(codeHash, other);
+    Assert.assertFalse(precompile.hasJumpDest(0));
+    Assert.assertTrue(precompile.hasJumpDest(2));
+    // and the analysis of the code run under it takes its place
+    Assert.assertSame(precompile, ProgramPrecompile.compile(codeHash, other));
+  }
+}
@@ -0,0 +1,79 @@
+package org.tron.common.runtime.vm;
+
+import java.util.EmptyStackException;
+import org.junit.Assert;
+import org.junit.Test;
+import org.tron.core.vm.program.Stack;
+import org.tron.core.vm.program.listener.ProgramListenerAdaptor;
+
+public class StackTest {
+
+  @Test
+  public void testPushPopSwap() {
+    Stack stack = new Stack();
+    for (int i = 0; i < Stack.CAPACITY; i++) {
+      stack.push(new DataWord(i));
+    }
+    Assert.assertEquals(Stack.CAPACITY, stack.size());
+    Assert.assertEquals(new DataWord(Stack.CAPACITY - 1), stack.peek());
+
+    stack.swap(stack.size() - 1, stack.size() - 3);
+    Assert.assertEquals(new DataWord(Stack.CAPACITY - 3), stack.pop());
+    Assert.assertEquals(new DataWord(Stack.CAPACITY - 2), stack.pop());
+    Assert.assertEquals(new DataWord(Stack.CAPACITY - 1), stack.pop());
+    Assert.assertEquals(new DataWord(0), stack.get(0));
+    while (!stack.isEmpty()) {
+      stack.pop();
+    }
+    try {
+      stack.pop();
+      Assert.fail();
+    } catch (EmptyStackException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testDupReusesDroppedWords() {
+    Stack stack = new Stack();
+    DataWord pushed = new DataWord(7);
+    stack.push(pushed);
+    stack.dup(1);
+    DataWord copy = stack.peek();
+    Assert.assertNotSame(pushed, copy);
+    Assert.assertEquals(pushed, copy);
+
+    // a dropped copy is overwritten by the next dup
+    stack.drop();
+    stack.push(new DataWord(8));
+    stack.dup(1);
+    Assert.assertSame(copy, stack.peek());
+    Assert.assertEquals(new DataWord(8), stack.peek());
+
+    // a popped copy is handed out and never reused
+    DataWord popped = stack.pop();
+    stack.dup(2);
+    Assert.assertNotSame(popped, stack.peek());
+    Assert.assertEquals(new DataWord(8), popped);
+    Assert.assertEquals(new DataWord(7), stack.peek());
+
+    // words the program pushed are never reused
+    stack.drop();
+    stack.drop();
+    stack.dup(1);
+    Assert.assertNotSame(pushed, stack.peek());
+    Assert.assertEquals(new DataWord(7), pushed);
+  }
+
+  @Test
+  public void testTracedDupIsNotReused() {
+    Stack stack = new Stack();
+    stack.setProgramListener(new ProgramListenerAdaptor());
+    stack.push(new DataWord(1));
+    stack.dup(1);
+    DataWord copy = stack.peek();
+    stack.drop();
+    stack.dup(1);
+    Assert.assertNotSame(copy, stack.peek());
+  }
+}
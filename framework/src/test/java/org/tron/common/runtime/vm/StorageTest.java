@@ -378,4 +378,47 @@ public class StorageTest extends VMTestBase {
         .getStorageValue(address, storageParentZeroKey));
     CommonParameter.setENERGY_LIMIT_HARD_FORK(false);
   }
+
+  @Test
+  public void testChildCopyOnWrite() {
+    CommonParameter.setENERGY_LIMIT_HARD_FORK(true);
+    byte[] address = Hex.decode(OWNER_ADDRESS);
+    DataWord key1 = new DataWord("key1".getBytes());
+    DataWord key2 = new DataWord("key2".getBytes());
+    DataWord val1 = new DataWord("val1".getBytes());
+    DataWord val2 = new DataWord("val2".getBytes());
+    DataWord changedVal = new DataWord("changed_val".getBytes());
+
+    rootRepository.putStorageValue(address, key1, val1);
+    Repository child = rootRepository.newRepositoryChild();
+    Repository grandchild = child.newRepositoryChild();
+
+    // rows of the parents are read through
+    Assert.assertEquals(val1, grandchild.getStorageValue(address, key1));
+
+    // and copied when written
+    grandchild.putStorageValue(address, key1, changedVal);
+    grandchild.putStorageValue(address, key2, val2);
+    Assert.assertEquals(changedVal, grandchild.getStorageValue(address, key1));
+    Assert.assertEquals(val1, child.getStorageValue(address, key1));
+    Assert.assertEquals(val1, rootRepository.getStorageValue(address, key1));
+    Assert.assertNull(child.getStorageValue(address, key2));
+
+    // a reverted call leaves the parent as it was
+    Repository reverted = child.newRepositoryChild();
+    reverted.putStorageValue(address, key1, new DataWord(0));
+    Assert.assertEquals(val1, child.getStorageValue(address, key1));
+
+    grandchild.commit();
+    Assert.assertEquals(changedVal, child.getStorageValue(address, key1));
+    Assert.assertEquals(val2, child.getStorageValue(address, key2));
+    Assert.assertEquals(val1, rootRepository.getStorageValue(address, key1));
+
+    child.commit();
+    rootRepository.commit();
+    Repository repository = RepositoryImpl.createRoot(StoreFactory.getInstance());
+    Assert.assertEquals(changedVal, repository.getStorageValue(address, key1));
+    Assert.assertEquals(val2, repository.getStorageValue(address, key2));
+    CommonParameter.setENERGY_LIMIT_HARD_FORK(false);
+  }
 }
@@ -7,12 +7,16 @@ import static org.junit.Assert.assertNull;
 
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.primitives.Bytes;
+import com.google.common.primitives.Longs;
 import java.io.File;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
@@ -20,7 +24,11 @@ import org.junit.AfterClass;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.BeforeClass;
+import org.junit.Ignore;
 import org.junit.Test;
+import org.rocksdb.RocksDBException;
+import org.tron.common.setting.RocksDbSettings;
+import org.tron.common.storage.rocksdb.ColumnFamilyDb;
 import org.tron.common.storage.rocksdb.RocksDbDataSourceImpl;
 import org.tron.common.utils.ByteArray;
 import org.tron.common.utils.FileUtil;
@@ -382,4 +390,136 @@ public class RocksDbDataSourceImplTest {
     dataSource.resetDb();
     dataSource.closeDB();
   }
+
+  @Test
+  public void testColumnFamily() throws RocksDBException {
+    RocksDbSettings previous = RocksDbSettings.getRocksDbSettings();
+    RocksDbSettings settings = RocksDbSettings.getDefaultSettings()
+        .withColumnFamily(true)
+        .withDbWriteBufferSize(16)
+        .withColumnFamily("test_cf_b", new RocksDbSettings.ColumnFamily(0, "snappy", 4));
+    String dir = dbPath + File.separator + "cf";
+    try {
+      RocksDbDataSourceImpl a = new RocksDbDataSourceImpl(dir, "test_cf_a", settings);
+      RocksDbDataSourceImpl b = new RocksDbDataSourceImpl(dir, "test_cf_b", settings);
+      Assert.assertSame(a.getColumnFamilyDb(), b.getColumnFamilyDb());
+      a.putData(key1, value1);
+      b.putData(key1, value2);
+      Assert.assertArrayEquals(value1, a.getData(key1));
+      Assert.assertArrayEquals(value2, b.getData(key1));
+      assertEquals(1, a.allKeys().size());
+
+      // the writes of both stores only show up once the batch is committed
+      try (ColumnFamilyDb.Batch batch = a.getColumnFamilyDb().newBatch()) {
+        batch.run(() -> {
+          a.updateByBatch(Collections.singletonMap(key2, value3));
+          Map<byte[], byte[]> rows = new HashMap<>();
+          rows.put(key1, null);
+          rows.put(key2, value4);
+          b.updateByBatch(rows);
+        });
+        assertNull(a.getData(key2));
+        Assert.assertArrayEquals(value2, b.getData(key1));
+        batch.commit(false);
+      }
+      Assert.assertArrayEquals(value3, a.getData(key2));
+      assertNull(b.getData(key1));
+      Assert.assertArrayEquals(value4, b.getData(key2));
+
+      b.resetDb();
+      assertEquals(0, b.allKeys().size());
+      assertEquals(2, a.allKeys().size());
+
+      a.closeDB();
+      b.closeDB();
+      RocksDbDataSourceImpl reopened = new RocksDbDataSourceImpl(dir, "test_cf_a", settings);
+      Assert.assertArrayEquals(value1, reopened.getData(key1));
+      reopened.closeDB();
+      assertFalse(new File(dir, "test_cf_a").exists());
+    } finally {
+      RocksDbSettings.setRocksDbSettings(previous);
+    }
+  }
+
+  @Test
+  public void testPrefixExtractor() {
+    RocksDbDataSourceImpl dataSource = new RocksDbDataSourceImpl(
+        Args.getInstance().getOutputDirectory(), "test_prefixExtractor",
+        RocksDbSettings.getSettings(), null, 8);
+    putSomeKeyValue(dataSource);
+    dataSource.putData("00000001bb".getBytes(), value2);
+
+    // as long as the declared prefix, only that prefix is iterated
+    assertEquals(2, dataSource.prefixQuery("00000001".getBytes()).size());
+    assertEquals(1, dataSource.prefixQuery("00000001b".getBytes()).size());
+    // shorter, the query runs in total order
+    assertEquals(7, dataSource.prefixQuery("0000000".getBytes()).size());
+    // seeks across prefixes still see all keys in order
+    List<byte[]> keys = dataSource.getKeysNext("00000002".getBytes(), 3);
+    Assert.assertArrayEquals(key2, keys.get(0));
+    Assert.assertArrayEquals(key4, keys.get(2));
+    assertEquals(7, dataSource.allKeys().size());
+
+    dataSource.closeDB();
+    RocksDbDataSourceImpl reopened = dataSource.newInstance();
+    assertEquals(2, reopened.prefixQuery("00000001".getBytes()).size());
+    reopened.resetDb();
+    reopened.closeDB();
+  }
+
+  /**
+   * Keys of an address and a token id, as in account-asset, read by address prefix.
+   */
+  @Ignore
+  @Test
+  public void benchmarkPrefixQuery() {
+    long total = Long.getLong("benchmark.keys", 50_000_000L);
+    int perAddress = 10;
+    int queries = 100_000;
+    for (int prefixLength : new int[] {0, 21}) {
+      RocksDbDataSourceImpl dataSource = new RocksDbDataSourceImpl(
+          Args.getInstance().getOutputDirectory(), "benchmark_prefix_" + prefixLength,
+          RocksDbSettings.getSettings(), null, prefixLength);
+      dataSource.resetDb();
+      long start = System.currentTimeMillis();
+      Map<byte[], byte[]> batch = new HashMap<>();
+      for (long i = 0; i < total; i++) {
+        batch.put(Bytes.concat(address(i / perAddress), Longs.toByteArray(i % perAddress)),
+            Longs.toByteArray(i));
+        if (batch.size() == 10_000) {
+          dataSource.updateByBatch(batch);
+          batch.clear();
+        }
+      }
+      dataSource.updateByBatch(batch);
+      logger.info("prefix length: {}, load {} keys cost: {} ms", prefixLength, total,
+          System.currentTimeMillis() - start);
+
+      Random random = new Random(1);
+      long addresses = total / perAddress;
+      start = System.nanoTime();
+      for (int i = 0; i < queries; i++) {
+        // half of the addresses queried hold no keys
+        long n = random.nextBoolean() ? random.nextInt((int) addresses) : addresses + i;
+        dataSource.prefixQuery(address(n));
+      }
+      logger.info("prefix length: {}, prefixQuery: {} ns/op", prefixLength,
+          (System.nanoTime() - start) / queries);
+      start = System.nanoTime();
+      for (int i = 0; i < queries; i++) {
+        dataSource.getNext(address(random.nextInt((int) addresses)), perAddress);
+      }
+      logger.info("prefix length: {}, getNext: {} ns/op", prefixLength,
+          (System.nanoTime() - start) / queries);
+      dataSource.resetDb();
+      dataSource.closeDB();
+    }
+  }
+
+  private static byte[] address(long n) {
+    byte[] address = new byte[21];
+    address[0] = 0x41;
+    System.arraycopy(Longs.toByteArray(n * 0x9E3779B97F4A7C15L), 0, address, 1, 8);
+    return address;
+  }
 }
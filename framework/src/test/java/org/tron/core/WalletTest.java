@@ -30,6 +30,8 @@ import static org.tron.protos.contract.Common.ResourceCode.ENERGY;
 import com.google.protobuf.Any;
 import com.google.protobuf.ByteString;
 import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.annotation.Resource;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
@@ -45,7 +47,10 @@ import org.tron.api.GrpcAPI.ExchangeList;
 import org.tron.api.GrpcAPI.ProposalList;
 import org.tron.common.BaseTest;
 import org.tron.common.crypto.ECKey;
+import org.tron.common.runtime.ProgramResult;
+import org.tron.common.runtime.vm.DataWord;
 import org.tron.common.utils.ByteArray;
+import org.tron.common.utils.ReflectUtils;
 import org.tron.common.utils.Utils;
 import org.tron.core.actuator.DelegateResourceActuator;
 import org.tron.core.actuator.FreezeBalanceActuator;
@@ -66,10 +71,14 @@ import org.tron.core.config.args.Args;
 import org.tron.core.exception.ContractExeException;
 import org.tron.core.exception.ContractValidateException;
 import org.tron.core.exception.NonUniqueObjectException;
+import org.tron.core.services.ConstantCallService;
 import org.tron.core.store.DynamicPropertiesStore;
+import org.tron.core.store.StoreFactory;
 import org.tron.core.utils.ProposalUtil.ProposalType;
 import org.tron.core.utils.TransactionUtil;
 import org.tron.core.vm.program.Program;
+import org.tron.core.vm.repository.Repository;
+import org.tron.core.vm.repository.RepositoryImpl;
 import org.tron.protos.Protocol;
 import org.tron.protos.Protocol.Block;
 import org.tron.protos.Protocol.BlockHeader;
@@ -1007,6 +1016,8 @@ public class WalletTest extends BaseTest {
         contract, trxCap, trxExtBuilder, retBuilder, estimateBuilder);
     GrpcAPI.EstimateEnergyMessage message = estimateBuilder.build();
     Assert.assertTrue(message.getEnergyRequired() > 0);
+    // without calls or GAS the energy required is what one run used, confirmed by a second run
+    Assert.assertEquals(trxExtBuilder.getEnergyUsed(), message.getEnergyRequired());
   }
 
   @Test
@@ -1061,6 +1072,180 @@ public class WalletTest extends BaseTest {
     }
   }
 
+  private void putContract(String address, int version, String code) {
+    byte[] contractAddress = ByteArray.fromHexString(address);
+    dbManager.getAccountStore().put(contractAddress, new AccountCapsule(
+        ByteString.copyFrom(contractAddress), Protocol.AccountType.Contract));
+    dbManager.getContractStore().put(contractAddress, new ContractCapsule(
+        SmartContractOuterClass.SmartContract.newBuilder()
+            .setContractAddress(ByteString.copyFrom(contractAddress))
+            .setOriginAddress(ByteString.copyFrom(ByteArray.fromHexString(OWNER_ADDRESS)))
+            .setConsumeUserResourcePercent(100)
+            .setVersion(version)
+            .build()));
+    dbManager.getCodeStore().put(contractAddress,
+        new CodeCapsule(ByteArray.fromHexString(code)));
+  }
+
+  /**
+   * Count the runs of the constant calls, doing something after the first if given.
+   */
+  private ConstantCallService countRuns(ConstantCallService service, AtomicInteger runs,
+      Runnable afterFirst) {
+    return new ConstantCallService() {
+      @Override
+      public ProgramResult call(byte[] contract, Callable<ProgramResult> task) throws Exception {
+        ProgramResult result = service.call(contract, task);
+        if (runs.incrementAndGet() == 1 && afterFirst != null) {
+          afterFirst.run();
+        }
+        return result;
+      }
+    };
+  }
+
+  private SmartContractOuterClass.TriggerSmartContract trigger(String contractAddress) {
+    return SmartContractOuterClass.TriggerSmartContract.newBuilder()
+        .setOwnerAddress(ByteString.copyFrom(ByteArray.fromHexString(OWNER_ADDRESS)))
+        .setContractAddress(ByteString.copyFrom(ByteArray.fromHexString(contractAddress)))
+        .build();
+  }
+
+  private Transaction triggerWithEnergyLimit(
+      SmartContractOuterClass.TriggerSmartContract contract, long energyLimit)
+      throws Exception {
+    TransactionCapsule trxCap = wallet.createTransactionCapsule(contract,
+        ContractType.TriggerSmartContract);
+    trxCap.setFeeLimit(energyLimit * dbManager.getDynamicPropertiesStore().getEnergyFee());
+    return wallet.triggerConstantContract(contract, trxCap,
+        GrpcAPI.TransactionExtention.newBuilder(), GrpcAPI.Return.newBuilder());
+  }
+
+  /**
+   * A call forwarding all its energy keeps 1/64 of it, so the caller needs more than it uses
+   * for the callee to get what it required. One run records that, a second confirms it.
+   */
+  @Test
+  @SneakyThrows
+  public void testEstimateEnergyNestedCall() {
+    String caller = "0x41a0e8bd4b4e5a0b4d3c2e7b0c3a1f8e9d6c5b4a39";
+    String callee = "0x41b1f9ce5c5f6b1c5e4d3f8c1d4b2a9f0e7d6c5b4a";
+    // sstore(0, 1)
+    putContract(callee, 1, "600160005500");
+    // if iszero(call(gas(), callee, 0, 0, 0, 0, 0)) { revert(0, 0) }
+    putContract(caller, 1, "60006000600060006000" + "73" + callee.substring(4)
+        + "5af1602857600080fd5b00");
+    dbManager.getDynamicPropertiesStore().saveAllowTvmCompatibleEvm(1);
+    Args.getInstance().setEstimateEnergy(true);
+
+    ConstantCallService service = ReflectUtils.getFieldValue(wallet, "constantCallService");
+    AtomicInteger runs = new AtomicInteger();
+    ReflectUtils.setFieldValue(wallet, "constantCallService", countRuns(service, runs, null));
+    try {
+      SmartContractOuterClass.TriggerSmartContract contract = trigger(caller);
+      TransactionCapsule trxCap = wallet.createTransactionCapsule(contract,
+          ContractType.TriggerSmartContract);
+      GrpcAPI.TransactionExtention.Builder trxExtBuilder =
+          GrpcAPI.TransactionExtention.newBuilder();
+      GrpcAPI.EstimateEnergyMessage.Builder estimateBuilder =
+          GrpcAPI.EstimateEnergyMessage.newBuilder();
+      wallet.estimateEnergy(contract, trxCap, trxExtBuilder, GrpcAPI.Return.newBuilder(),
+          estimateBuilder);
+
+      Assert.assertEquals(2, runs.get());
+      long required = estimateBuilder.getEnergyRequired();
+      Assert.assertTrue(required > trxExtBuilder.getEnergyUsed());
+      Assert.assertEquals(Transaction.Result.code.SUCESS,
+          triggerWithEnergyLimit(contract, required).getRet(0).getRet());
+      // with any less the callee is forwarded too little and the caller reverts
+      Assert.assertEquals(Transaction.Result.code.FAILED,
+          triggerWithEnergyLimit(contract, required - 1).getRet(0).getRet());
+    } finally {
+      ReflectUtils.setFieldValue(wallet, "constantCallService", service);
+      dbManager.getDynamicPropertiesStore().saveAllowTvmCompatibleEvm(0);
+    }
+  }
+
+  /**
+   * A contract reading the energy left may run differently with less, so the energy is
+   * searched for.
+   */
+  @Test
+  @SneakyThrows
+  public void testEstimateEnergyDependent() {
+    String contractAddress = "0x41c20adf6d6a7c2d6f5e4a9d2e5c3b0a1f8e7d6c5b";
+    // if lt(gas(), 100000) { revert(0, 0) }
+    putContract(contractAddress, 0, "5a620186a010600d57600080fd5b00");
+    Args.getInstance().setEstimateEnergy(true);
+
+    ConstantCallService service = ReflectUtils.getFieldValue(wallet, "constantCallService");
+    AtomicInteger runs = new AtomicInteger();
+    ReflectUtils.setFieldValue(wallet, "constantCallService", countRuns(service, runs, null));
+    try {
+      SmartContractOuterClass.TriggerSmartContract contract = trigger(contractAddress);
+      TransactionCapsule trxCap = wallet.createTransactionCapsule(contract,
+          ContractType.TriggerSmartContract);
+      GrpcAPI.TransactionExtention.Builder trxExtBuilder =
+          GrpcAPI.TransactionExtention.newBuilder();
+      GrpcAPI.EstimateEnergyMessage.Builder estimateBuilder =
+          GrpcAPI.EstimateEnergyMessage.newBuilder();
+      wallet.estimateEnergy(contract, trxCap, trxExtBuilder, GrpcAPI.Return.newBuilder(),
+          estimateBuilder);
+
+      Assert.assertTrue(runs.get() > 2);
+      Assert.assertTrue(trxExtBuilder.getEnergyUsed() < 100_000);
+      Assert.assertTrue(estimateBuilder.getEnergyRequired() > 100_000);
+      Assert.assertEquals(Transaction.Result.code.SUCESS, triggerWithEnergyLimit(contract,
+          estimateBuilder.getEnergyRequired()).getRet(0).getRet());
+    } finally {
+      ReflectUtils.setFieldValue(wallet, "constantCallService", service);
+    }
+  }
+
+  /**
+   * The state changing between the runs, as when a block is applied meanwhile, fails the
+   * confirming run, and the energy is searched for from the limit that failed.
+   */
+  @Test
+  @SneakyThrows
+  public void testEstimateEnergyConfirmationFailed() {
+    String contractAddress = "0x41d31be07e7b8d3e7f6f5b0e3f6d4c1b2f9f8e7d6c";
+    // if sload(0) { sstore(1, 1) sstore(2, 1) sstore(3, 1) }
+    putContract(contractAddress, 0, "600054600757005b60016001556001600255600160035500");
+    Args.getInstance().setEstimateEnergy(true);
+
+    ConstantCallService service = ReflectUtils.getFieldValue(wallet, "constantCallService");
+    AtomicInteger runs = new AtomicInteger();
+    ReflectUtils.setFieldValue(wallet, "constantCallService", countRuns(service, runs, () -> {
+      Repository repository = RepositoryImpl.createRoot(StoreFactory.getInstance());
+      repository.putStorageValue(ByteArray.fromHexString(contractAddress), new DataWord(0),
+          new DataWord(1));
+      repository.commit();
+    }));
+    try {
+      SmartContractOuterClass.TriggerSmartContract contract = trigger(contractAddress);
+      TransactionCapsule trxCap = wallet.createTransactionCapsule(contract,
+          ContractType.TriggerSmartContract);
+      GrpcAPI.TransactionExtention.Builder trxExtBuilder =
+          GrpcAPI.TransactionExtention.newBuilder();
+      GrpcAPI.Return.Builder retBuilder = GrpcAPI.Return.newBuilder();
+      GrpcAPI.EstimateEnergyMessage.Builder estimateBuilder =
+          GrpcAPI.EstimateEnergyMessage.newBuilder();
+      wallet.estimateEnergy(contract, trxCap, trxExtBuilder, retBuilder, estimateBuilder);
+
+      Assert.assertTrue(runs.get() > 2);
+      Assert.assertTrue(retBuilder.getResult());
+      // the three new slots the first run did not store
+      Assert.assertTrue(trxExtBuilder.getEnergyUsed() > 60_000);
+      Assert.assertTrue(estimateBuilder.getEnergyRequired() >= trxExtBuilder.getEnergyUsed());
+      Assert.assertTrue(estimateBuilder.getEnergyRequired()
+          < trxExtBuilder.getEnergyUsed() + TRX_PRECISION
+          / dbManager.getDynamicPropertiesStore().getEnergyFee() + 1);
+    } finally {
+      ReflectUtils.setFieldValue(wallet, "constantCallService", service);
+    }
+  }
+
   @Test
   public void testListNodes() {
     try {
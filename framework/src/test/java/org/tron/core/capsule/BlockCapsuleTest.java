@@ -9,6 +9,9 @@ import org.junit.AfterClass;
 import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import org.mockito.Mockito;
+import org.tron.common.crypto.SignInterface;
+import org.tron.common.crypto.SignUtils;
 import org.tron.common.utils.ByteArray;
 import org.tron.common.utils.FileUtil;
 import org.tron.common.utils.LocalWitnesses;
@@ -18,6 +21,7 @@ import org.tron.core.Constant;
 import org.tron.core.Wallet;
 import org.tron.core.config.args.Args;
 import org.tron.core.exception.BadItemException;
+import org.tron.core.store.DynamicPropertiesStore;
 import org.tron.protos.Protocol.Transaction.Contract.ContractType;
 import org.tron.protos.contract.BalanceContract.TransferContract;
 
@@ -141,6 +145,26 @@ public class BlockCapsuleTest {
     Assert.assertTrue(blockCapsule0.hasWitnessSignature());
   }
 
+  @Test
+  public void testRecoverSigners() throws Exception {
+    SignInterface witness = SignUtils.fromPrivate(ByteArray.fromHexString(privateKey),
+        Args.getInstance().isECKeyCryptoEngine());
+    BlockCapsule block = new BlockCapsule(2, Sha256Hash.ZERO_HASH, 1234,
+        ByteString.copyFrom(witness.getAddress()));
+    block.sign(ByteArray.fromHexString(privateKey));
+    DynamicPropertiesStore dynamicPropertiesStore = Mockito.mock(DynamicPropertiesStore.class);
+    Mockito.when(dynamicPropertiesStore.getAllowMultiSign()).thenReturn(0L);
+
+    block.recoverSigners();
+    Assert.assertTrue(block.validateSignature(dynamicPropertiesStore, null));
+
+    // signing again replaces the block, the signer recovered before is not used any more
+    block.sign(ByteArray.fromHexString(PublicMethod.getRandomPrivateKey()));
+    Assert.assertFalse(block.validateSignature(dynamicPropertiesStore, null));
+    block.recoverSigners();
+    Assert.assertFalse(block.validateSignature(dynamicPropertiesStore, null));
+  }
+
   @Test
   public void testGetTimeStamp() {
     Assert.assertEquals(1234L, blockCapsule0.getTimeStamp());
@@ -7,14 +7,21 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.tron.common.BaseTest;
+import org.tron.common.cache.CacheManager;
+import org.tron.common.cache.CacheType;
+import org.tron.common.crypto.ECKey;
+import org.tron.common.utils.ByteArray;
 import org.tron.common.utils.StringUtil;
 import org.tron.core.Constant;
 import org.tron.core.Wallet;
 import org.tron.core.config.args.Args;
+import org.tron.core.exception.ValidateSignatureException;
 import org.tron.protos.Protocol.AccountType;
 import org.tron.protos.Protocol.Transaction;
 import org.tron.protos.Protocol.Transaction.Result;
+import org.tron.protos.Protocol.Transaction.Contract.ContractType;
 import org.tron.protos.Protocol.Transaction.Result.contractResult;
+import org.tron.protos.contract.BalanceContract.TransferContract;
 
 @Slf4j
 public class TransactionCapsuleTest extends BaseTest {
@@ -1065,4 +1072,44 @@ public class TransactionCapsuleTest extends BaseTest {
     Assert.assertEquals(trxCap.getInstance()
         .getRet(0).getContractRet(), Result.contractResult.OUT_OF_TIME);
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testSignersCache() throws Exception {
+    ECKey key = ECKey.fromPrivate(ByteArray.fromHexString(
+        "bfa67cb3dc6609b3a0c98e717d66f38ed1a159b5b3421678dfab85961c40de2f"));
+    AccountCapsule account = new AccountCapsule(ByteString.copyFromUtf8("signer"),
+        ByteString.copyFrom(key.getAddress()), AccountType.Normal, 10_000_000L);
+    dbManager.getAccountStore().put(account.createDbKey(), account);
+    TransferContract contract = TransferContract.newBuilder()
+        .setOwnerAddress(ByteString.copyFrom(key.getAddress()))
+        .setToAddress(StringUtil.hexString2ByteString(OWNER_ADDRESS))
+        .setAmount(1)
+        .build();
+    TransactionCapsule trx = new TransactionCapsule(contract, ContractType.TransferContract);
+    trx.sign(key.getPrivKeyBytes());
+    byte[] bytes = trx.getInstance().toByteArray();
+
+    // validated while pending, then again as part of a block
+    Assert.assertTrue(trx.validateSignature(dbManager.getAccountStore(),
+        dbManager.getDynamicPropertiesStore()));
+    long hits = CacheManager.stats().get(CacheType.signers.toString()).hitCount();
+    Assert.assertTrue(new TransactionCapsule(bytes).validateSignature(
+        dbManager.getAccountStore(), dbManager.getDynamicPropertiesStore()));
+    Assert.assertEquals(hits + 1,
+        CacheManager.stats().get(CacheType.signers.toString()).hitCount());
+
+    // the permission is checked against the current state still
+    account.updatePermissions(AccountCapsule.createDefaultOwnerPermission(
+        StringUtil.hexString2ByteString(OWNER_ADDRESS)), null, null);
+    dbManager.getAccountStore().put(account.createDbKey(), account);
+    try {
+      new TransactionCapsule(bytes).validateSignature(dbManager.getAccountStore(),
+          dbManager.getDynamicPropertiesStore());
+      Assert.fail();
+    } catch (ValidateSignatureException e) {
+      Assert.assertTrue(e.getMessage().contains("not contained of permission"));
+    }
+    Assert.assertEquals(hits + 2,
+        CacheManager.stats().get(CacheType.signers.toString()).hitCount());
+  }
+}
@@ -0,0 +1,139 @@
+package org.tron.core.capsule.utils;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import org.junit.Assert;
+import org.junit.Test;
+import org.tron.common.parameter.CommonParameter;
+import org.tron.common.utils.ByteArray;
+import org.tron.common.utils.Sha256Hash;
+import org.tron.core.capsule.BlockCapsule;
+import org.tron.core.capsule.TransactionCapsule;
+import org.tron.protos.Protocol.Block;
+import org.tron.protos.Protocol.Transaction;
+import org.tron.protos.contract.BalanceContract.TransferContract;
+
+public class ProtoWireTest {
+
+  private static Transaction transaction(long amount) {
+    TransferContract contract = TransferContract.newBuilder()
+        .setOwnerAddress(ByteString.copyFrom(ByteArray.fromHexString(
+            "41A389132D6639FBDA4FBC8B659264E6B7C90DB086")))
+        .setToAddress(ByteString.copyFrom(ByteArray.fromHexString(
+            "41ED738B3A0FE390EAA71B768B6D02CDBD18FB207B")))
+        .setAmount(amount)
+        .build();
+    Transaction trx = new TransactionCapsule(contract, Transaction.Contract.ContractType
+        .TransferContract).getInstance();
+    return trx.toBuilder()
+        .setRawData(trx.getRawData().toBuilder()
+            .setRefBlockBytes(ByteString.copyFrom(new byte[] {1, 2}))
+            .setExpiration(1_000_000L)
+            .setTimestamp(999_000L))
+        .addSignature(ByteString.copyFrom(new byte[65]))
+        .build();
+  }
+
+  private static TransactionCapsule parse(byte[] bytes) throws Exception {
+    return new TransactionCapsule(CodedInputStream.newInstance(bytes), bytes);
+  }
+
+  private static Sha256Hash hash(byte[] bytes) {
+    return Sha256Hash.of(CommonParameter.getInstance().isECKeyCryptoEngine(), bytes);
+  }
+
+  @Test
+  public void testCanonical() throws Exception {
+    Transaction trx = transaction(1);
+    ByteString bytes = trx.toByteString();
+    Assert.assertTrue(ProtoWire.isCanonical(bytes, Transaction.getDescriptor()));
+    Assert.assertEquals(trx.getRawData().toByteString(),
+        ProtoWire.getField(bytes, Transaction.RAW_DATA_FIELD_NUMBER));
+
+    TransactionCapsule capsule = parse(trx.toByteArray());
+    Assert.assertEquals(hash(trx.getRawData().toByteArray()), capsule.getTransactionId());
+    Assert.assertEquals(hash(trx.toByteArray()), capsule.getMerkleHash());
+    Assert.assertEquals(hash(trx.toByteArray()),
+        Sha256Hash.of(CommonParameter.getInstance().isECKeyCryptoEngine(), bytes));
+  }
+
+  @Test
+  public void testNotCanonical() throws Exception {
+    Transaction.raw raw = transaction(1).getRawData();
+
+    // the expiration written after the timestamp
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    CodedOutputStream output = CodedOutputStream.newInstance(out);
+    output.writeBytes(1, raw.getRefBlockBytes());
+    for (Transaction.Contract contract : raw.getContractList()) {
+      output.writeMessage(11, contract);
+    }
+    output.writeInt64(14, raw.getTimestamp());
+    output.writeInt64(8, raw.getExpiration());
+    output.flush();
+    byte[] reordered = out.toByteArray();
+    Assert.assertEquals(raw, Transaction.raw.parseFrom(reordered));
+    Assert.assertFalse(ProtoWire.isCanonical(ByteString.copyFrom(reordered),
+        Transaction.raw.getDescriptor()));
+
+    // a default value written out
+    byte[] withDefault = raw.toByteString()
+        .concat(ByteString.copyFrom(new byte[] {(byte) 0x90, 0x01, 0x00})).toByteArray();
+    Assert.assertEquals(raw, Transaction.raw.parseFrom(withDefault));
+    Assert.assertFalse(ProtoWire.isCanonical(ByteString.copyFrom(withDefault),
+        Transaction.raw.getDescriptor()));
+
+    // either way the transaction is hashed as if serialized again
+    out = new ByteArrayOutputStream();
+    output = CodedOutputStream.newInstance(out);
+    output.writeByteArray(1, reordered);
+    output.writeBytes(2, ByteString.copyFrom(new byte[65]));
+    output.flush();
+    TransactionCapsule capsule = parse(out.toByteArray());
+    Assert.assertEquals(hash(raw.toByteArray()), capsule.getTransactionId());
+    Assert.assertEquals(hash(capsule.getInstance().toByteArray()), capsule.getMerkleHash());
+  }
+
+  @Test
+  public void testMergedField() throws Exception {
+    Transaction.raw raw = transaction(1).getRawData();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    CodedOutputStream output = CodedOutputStream.newInstance(out);
+    output.writeMessage(1, raw.toBuilder().clearTimestamp().build());
+    output.writeMessage(1, Transaction.raw.newBuilder().setTimestamp(1).build());
+    output.flush();
+    byte[] bytes = out.toByteArray();
+    Assert.assertNull(ProtoWire.getField(ByteString.copyFrom(bytes),
+        Transaction.RAW_DATA_FIELD_NUMBER));
+
+    TransactionCapsule capsule = parse(bytes);
+    Assert.assertEquals(1, capsule.getInstance().getRawData().getTimestamp());
+    Assert.assertEquals(hash(capsule.getInstance().getRawData().toByteArray()),
+        capsule.getTransactionId());
+  }
+
+  @Test
+  public void testBlock() throws Exception {
+    BlockCapsule block = new BlockCapsule(1, ByteString.copyFrom(new byte[32]), 1,
+        Arrays.asList(transaction(1), transaction(2), transaction(3)));
+    block.setMerkleRoot();
+    Block instance = block.getInstance();
+
+    byte[] data = instance.toByteArray();
+    BlockCapsule received = new BlockCapsule(data);
+    // the received bytes are copied, not kept
+    Arrays.fill(data, (byte) 0);
+    Assert.assertEquals(new BlockCapsule(instance).getBlockId(), received.getBlockId());
+    Assert.assertEquals(block.getMerkleRoot(), received.calcMerkleRoot());
+    Assert.assertEquals(hash(instance.getTransactions(1).toByteArray()),
+        received.getTransactions().get(1).getMerkleHash());
+
+    // a changed transaction is serialized again
+    TransactionCapsule trx = received.getTransactions().get(0);
+    trx.setReference(2, new byte[32]);
+    Assert.assertEquals(hash(trx.getInstance().toByteArray()), trx.getMerkleHash());
+  }
+}
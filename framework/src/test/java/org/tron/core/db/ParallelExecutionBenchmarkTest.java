@@ -0,0 +1,109 @@
+package org.tron.core.db;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.tron.common.application.TronApplicationContext;
+import org.tron.common.parameter.CommonParameter;
+import org.tron.common.utils.FileUtil;
+import org.tron.core.ChainBaseManager;
+import org.tron.core.capsule.BlockCapsule;
+import org.tron.core.config.DefaultConfig;
+import org.tron.core.config.args.Args;
+
+/**
+ * Replays a range of historical blocks serially and with parallel execution on each of the given
+ * numbers of threads, checks the transaction results are the same and reports the speedup.
+ *
+ * -Dreplay.database: the database of a node synced up to the block before the range
+ * -Dreplay.blocks: the database of a node holding the blocks of the range
+ * -Dreplay.start: the number of the first block of the range
+ * -Dreplay.count: the number of blocks, default 1000
+ * -Dreplay.threads: the numbers of threads, default 1,2,4,8,16
+ * -Dreplay.config: the config of the network the blocks are from, default config.conf
+ */
+@Slf4j
+@Ignore
+public class ParallelExecutionBenchmarkTest {
+
+  private static final String dbPath = "output_ParallelExecutionBenchmarkTest";
+  private static final String DATABASE = System.getProperty("replay.database");
+  private static final String BLOCKS = System.getProperty("replay.blocks");
+  private static final long START = Long.getLong("replay.start", 1);
+  private static final int COUNT = Integer.getInteger("replay.count", 1000);
+  private static final String THREADS = System.getProperty("replay.threads", "1,2,4,8,16");
+  private static final String CONFIG = System.getProperty("replay.config", "config.conf");
+
+  @After
+  public void destroy() {
+    Args.clearParam();
+    FileUtil.deleteDir(new File(dbPath));
+  }
+
+  @Test
+  public void replay() throws Exception {
+    List<byte[]> blocks = readBlocks();
+    List<byte[]> expect = new ArrayList<>();
+    long serial = replay(blocks, 0, expect);
+    logger.info("Replay blocks {} to {}, serial: {} ms.", START, START + blocks.size() - 1,
+        serial);
+    for (String threads : THREADS.split(",")) {
+      List<byte[]> results = new ArrayList<>();
+      long cost = replay(blocks, Integer.parseInt(threads.trim()), results);
+      Assert.assertEquals(expect.size(), results.size());
+      for (int i = 0; i < expect.size(); i++) {
+        Assert.assertArrayEquals(expect.get(i), results.get(i));
+      }
+      logger.info("Parallel on {} threads: {} ms, speedup: {}.", threads.trim(), cost,
+          String.format("%.2f", (double) serial / cost));
+    }
+  }
+
+  private List<byte[]> readBlocks() throws Exception {
+    Args.setParam(new String[] {"--output-directory", BLOCKS}, CONFIG);
+    TronApplicationContext context = new TronApplicationContext(DefaultConfig.class);
+    try {
+      ChainBaseManager chainBaseManager = context.getBean(ChainBaseManager.class);
+      List<byte[]> blocks = new ArrayList<>(COUNT);
+      for (long num = START; num < START + COUNT; num++) {
+        blocks.add(chainBaseManager.getBlockByNum(num).getData());
+      }
+      return blocks;
+    } finally {
+      context.destroy();
+      Args.clearParam();
+    }
+  }
+
+  /**
+   * Push the blocks to a copy of the database, 0 threads being serial execution, and return the
+   * time it took.
+   */
+  private long replay(List<byte[]> blocks, int threads, List<byte[]> results) throws Exception {
+    FileUtil.deleteDir(new File(dbPath));
+    FileUtils.copyDirectory(new File(DATABASE), new File(dbPath));
+    Args.setParam(new String[] {"--output-directory", dbPath}, CONFIG);
+    CommonParameter.getInstance().setParallelExecution(threads > 0);
+    CommonParameter.getInstance().setParallelExecutionThreadNum(threads);
+    TronApplicationContext context = new TronApplicationContext(DefaultConfig.class);
+    try {
+      Manager manager = context.getBean(Manager.class);
+      long start = System.currentTimeMillis();
+      for (byte[] data : blocks) {
+        BlockCapsule block = new BlockCapsule(data);
+        manager.pushBlock(block);
+        results.add(block.getResult().getData());
+      }
+      return System.currentTimeMillis() - start;
+    } finally {
+      context.destroy();
+      Args.clearParam();
+    }
+  }
+}
@@ -0,0 +1,194 @@
+package org.tron.core.db;
+
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.protobuf.ByteString;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.tron.common.application.TronApplicationContext;
+import org.tron.common.crypto.ECKey;
+import org.tron.common.runtime.vm.DataWord;
+import org.tron.common.utils.FileUtil;
+import org.tron.common.utils.ReflectUtils;
+import org.tron.consensus.Consensus;
+import org.tron.core.ChainBaseManager;
+import org.tron.core.Constant;
+import org.tron.core.capsule.AccountCapsule;
+import org.tron.core.capsule.BlockCapsule;
+import org.tron.core.capsule.CodeCapsule;
+import org.tron.core.capsule.ContractCapsule;
+import org.tron.core.capsule.TransactionCapsule;
+import org.tron.core.capsule.TransactionRetCapsule;
+import org.tron.core.capsule.WitnessCapsule;
+import org.tron.core.config.DefaultConfig;
+import org.tron.core.config.args.Args;
+import org.tron.core.db2.ISession;
+import org.tron.core.db2.core.SnapshotManager;
+import org.tron.core.store.StoreFactory;
+import org.tron.core.vm.repository.RepositoryImpl;
+import org.tron.protos.Protocol.Account;
+import org.tron.protos.Protocol.AccountType;
+import org.tron.protos.Protocol.Transaction.Contract.ContractType;
+import org.tron.protos.Protocol.TransactionInfo;
+import org.tron.protos.contract.BalanceContract.TransferContract;
+import org.tron.protos.contract.SmartContractOuterClass.SmartContract;
+import org.tron.protos.contract.SmartContractOuterClass.TriggerSmartContract;
+
+/**
+ * A block of transactions depending on each other processed serially and with parallel
+ * execution, which has to re-execute the transactions whose speculation read stale state.
+ */
+public class ParallelExecutionTest {
+
+  private static final String dbPath = "output_parallel_execution_test";
+  private static final ECKey OWNER = ECKey.fromPrivate(Hex.decode(
+      "f31db24bfbd1a2ef19beddca0a0fa37632eded9ac666a05d3bd925f01dde1f62"));
+  private static final byte[] RECEIVER = Hex.decode("41548794500882809695a8a687866e76d4271a1abc");
+  private static final byte[] WITNESS = Hex.decode("41548794500882809695a8a687866e76d4271a1acd");
+  private static final byte[] CONTRACT = Hex.decode("411a622d84ed49f01045f5f1a5afceb9c57e9cc3ca");
+  // slot0 = slot0 * 2 + calldataload(0)
+  private static final byte[] CODE = Hex.decode("6000356000546002020160005500");
+
+  private TronApplicationContext context;
+  private Manager dbManager;
+  private ChainBaseManager chainBaseManager;
+  private SnapshotManager revokingDatabase;
+  private ExecutorService executor;
+
+  @Before
+  public void init() {
+    Args.setParam(new String[] {"-d", dbPath}, Constant.TEST_CONF);
+    context = new TronApplicationContext(DefaultConfig.class);
+    dbManager = context.getBean(Manager.class);
+    chainBaseManager = dbManager.getChainBaseManager();
+    revokingDatabase = context.getBean(SnapshotManager.class);
+    executor = Executors.newFixedThreadPool(4);
+
+    // the block is not produced in a slot of the schedule
+    Consensus consensus = mock(Consensus.class);
+    when(consensus.validBlock(any())).thenReturn(true);
+    when(consensus.applyBlock(any())).thenReturn(true);
+    ReflectUtils.setFieldValue(dbManager, "consensus", consensus);
+
+    chainBaseManager.getAccountStore().put(OWNER.getAddress(), new AccountCapsule(
+        Account.newBuilder().setAddress(ByteString.copyFrom(OWNER.getAddress()))
+            .setBalance(10_000_000_000L).build()));
+    chainBaseManager.getAccountStore().put(RECEIVER, new AccountCapsule(
+        ByteString.copyFrom(RECEIVER), AccountType.Normal));
+    chainBaseManager.getAccountStore().put(WITNESS, new AccountCapsule(
+        ByteString.copyFrom(WITNESS), AccountType.Normal));
+    chainBaseManager.getWitnessStore().put(WITNESS,
+        new WitnessCapsule(ByteString.copyFrom(WITNESS)));
+
+    chainBaseManager.getAccountStore().put(CONTRACT, new AccountCapsule(
+        ByteString.copyFrom(CONTRACT), AccountType.Contract));
+    chainBaseManager.getContractStore().put(CONTRACT, new ContractCapsule(
+        SmartContract.newBuilder()
+            .setContractAddress(ByteString.copyFrom(CONTRACT))
+            .setOriginAddress(ByteString.copyFrom(OWNER.getAddress()))
+            .setConsumeUserResourcePercent(100)
+            .setOriginEnergyLimit(10_000_000L)
+            .build()));
+    chainBaseManager.getCodeStore().put(CONTRACT, new CodeCapsule(CODE));
+  }
+
+  @After
+  public void destroy() {
+    executor.shutdownNow();
+    Args.clearParam();
+    context.destroy();
+    FileUtil.deleteDir(new File(dbPath));
+  }
+
+  private TransactionCapsule sign(TransactionCapsule tx, long expiration) {
+    chainBaseManager.setBlockReference(tx);
+    tx.setExpiration(expiration);
+    tx.sign(OWNER.getPrivKeyBytes());
+    return tx;
+  }
+
+  private TransactionCapsule trigger(long arg, long expiration) {
+    TransactionCapsule tx = new TransactionCapsule(TriggerSmartContract.newBuilder()
+        .setOwnerAddress(ByteString.copyFrom(OWNER.getAddress()))
+        .setContractAddress(ByteString.copyFrom(CONTRACT))
+        .setData(ByteString.copyFrom(new DataWord(arg).getData()))
+        .build(), ContractType.TriggerSmartContract);
+    tx.setFeeLimit(1_000_000_000L);
+    return sign(tx, expiration);
+  }
+
+  private TransactionCapsule transfer(long amount, long expiration) {
+    return sign(new TransactionCapsule(TransferContract.newBuilder()
+        .setOwnerAddress(ByteString.copyFrom(OWNER.getAddress()))
+        .setToAddress(ByteString.copyFrom(RECEIVER))
+        .setAmount(amount)
+        .build(), ContractType.TransferContract), expiration);
+  }
+
+  /**
+   * Process a copy of the block in a session and return the state it left: the block result,
+   * the transactions, the accounts and the slot of the contract. The session is revoked.
+   */
+  private List<byte[]> process(BlockCapsule block, ExecutorService parallel) throws Exception {
+    ReflectUtils.setFieldValue(dbManager, "parallelExecutionService", parallel);
+    try (ISession session = revokingDatabase.buildSession()) {
+      BlockCapsule copy = new BlockCapsule(block.getData());
+      ReflectUtils.invokeMethod(dbManager, "processBlock",
+          new Class[] {BlockCapsule.class, List.class}, copy, copy.getTransactions());
+
+      List<byte[]> state = new ArrayList<>();
+      state.add(copy.getResult().getData());
+      for (TransactionCapsule tx : copy.getTransactions()) {
+        state.add(tx.getData());
+      }
+      for (byte[] address : new byte[][] {OWNER.getAddress(), RECEIVER, WITNESS, CONTRACT}) {
+        state.add(chainBaseManager.getAccountStore().get(address).getData());
+      }
+      state.add(RepositoryImpl.createRoot(StoreFactory.getInstance())
+          .getStorageValue(CONTRACT, new DataWord(0)).getData());
+      return state;
+    } finally {
+      ReflectUtils.setFieldValue(dbManager, "parallelExecutionService", null);
+    }
+  }
+
+  @Test
+  public void testConflictingTransactions() throws Exception {
+    long head = chainBaseManager.getHeadBlockTimeStamp();
+    long expiration = head + 60_000;
+    BlockCapsule block = new BlockCapsule(chainBaseManager.getHeadBlockNum() + 1,
+        chainBaseManager.getHeadBlockId(), head + 3_000, ByteString.copyFrom(WITNESS));
+    // the same sender paying for all, each call reading the slot the one before wrote
+    block.addTransaction(trigger(1, expiration));
+    block.addTransaction(transfer(1_000_000L, expiration));
+    block.addTransaction(trigger(2, expiration));
+    block.addTransaction(trigger(3, expiration));
+    block.setMerkleRoot();
+
+    List<byte[]> serial = process(block, null);
+    List<byte[]> parallel = process(block, executor);
+
+    Assert.assertEquals(serial.size(), parallel.size());
+    for (int i = 0; i < serial.size(); i++) {
+      Assert.assertArrayEquals("state " + i, serial.get(i), parallel.get(i));
+    }
+    // ((0 * 2 + 1) * 2 + 2) * 2 + 3, as only executing in order gives
+    Assert.assertEquals(new DataWord(11), new DataWord(serial.get(serial.size() - 1)));
+    List<TransactionInfo> infos = new TransactionRetCapsule(serial.get(0)).getInstance()
+        .getTransactioninfoList();
+    Assert.assertEquals(4, infos.size());
+    for (TransactionInfo info : infos) {
+      Assert.assertEquals(TransactionInfo.code.SUCESS, info.getResult());
+    }
+  }
+}
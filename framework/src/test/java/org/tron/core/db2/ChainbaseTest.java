@@ -1,7 +1,10 @@
 package org.tron.core.db2;
 
+import io.prometheus.client.CollectorRegistry;
 import java.io.File;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.AfterClass;
@@ -9,9 +12,12 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.rocksdb.RocksDB;
+import org.tron.common.parameter.CommonParameter;
+import org.tron.common.prometheus.MetricKeys;
 import org.tron.common.storage.leveldb.LevelDbDataSourceImpl;
 import org.tron.common.storage.rocksdb.RocksDbDataSourceImpl;
 import org.tron.common.utils.ByteArray;
+import org.tron.common.utils.ByteUtil;
 import org.tron.common.utils.FileUtil;
 import org.tron.core.Constant;
 import org.tron.core.config.args.Args;
@@ -20,6 +26,7 @@ import org.tron.core.db2.common.LevelDB;
 import org.tron.core.db2.core.Chainbase;
 import org.tron.core.db2.core.Snapshot;
 import org.tron.core.db2.core.SnapshotRoot;
+import org.tron.core.db2.core.Speculation;
 
 @Slf4j
 public class ChainbaseTest {
@@ -100,6 +107,192 @@ public class ChainbaseTest {
     chainbase.close();
   }
 
+  @Test
+  public void testGetNextForLeveldb() {
+    LevelDbDataSourceImpl dataSource = new LevelDbDataSourceImpl(
+        Args.getInstance().getOutputDirectory(), "testGetNextForLeveldb");
+    dataSource.initDB();
+    this.chainbase = new Chainbase(new SnapshotRoot(
+        new LevelDB(dataSource)));
+    testNext(chainbase);
+    chainbase.reset();
+    chainbase.close();
+  }
+
+  @Test
+  public void testGetNextForRocksdb() {
+    RocksDbDataSourceImpl dataSource = new RocksDbDataSourceImpl(
+        Args.getInstance().getOutputDirectory(), "testGetNextForRocksdb");
+    dataSource.initDB();
+    this.chainbase = new Chainbase(new SnapshotRoot(
+        new org.tron.core.db2.common.RocksDB(dataSource)));
+    testNext(chainbase);
+    chainbase.reset();
+    chainbase.close();
+  }
+
+  @Test
+  public void testGetAllForLeveldb() {
+    LevelDbDataSourceImpl dataSource = new LevelDbDataSourceImpl(
+        Args.getInstance().getOutputDirectory(), "testGetAllForLeveldb");
+    dataSource.initDB();
+    this.chainbase = new Chainbase(new SnapshotRoot(
+        new LevelDB(dataSource)));
+    testGetAll(chainbase, dataSource);
+    chainbase.reset();
+    chainbase.close();
+  }
+
+  @Test
+  public void testGetAllForRocksdb() {
+    RocksDbDataSourceImpl dataSource = new RocksDbDataSourceImpl(
+        Args.getInstance().getOutputDirectory(), "testGetAllForRocksdb");
+    dataSource.initDB();
+    this.chainbase = new Chainbase(new SnapshotRoot(
+        new org.tron.core.db2.common.RocksDB(dataSource)));
+    testGetAll(chainbase, dataSource);
+    chainbase.reset();
+    chainbase.close();
+  }
+
+  @Test
+  public void testSpeculation() throws Exception {
+    LevelDbDataSourceImpl dataSource = new LevelDbDataSourceImpl(
+        Args.getInstance().getOutputDirectory(), "testSpeculation");
+    dataSource.initDB();
+    this.chainbase = new Chainbase(new SnapshotRoot(
+        new LevelDB(dataSource)));
+    chainbase.setHead(chainbase.getHead().advance());
+    chainbase.put(key1, value1);
+    chainbase.put(key2, value2);
+    chainbase.put(key3, ByteArray.fromLong(100));
+
+    // reads and writes stay in the speculation, the counter is only added to
+    Speculation first = new Speculation();
+    first.call(() -> {
+      Assert.assertArrayEquals(value1, chainbase.get(key1));
+      chainbase.put(key1, value4);
+      Assert.assertArrayEquals(value4, chainbase.getUnchecked(key1));
+      chainbase.delete(key2);
+      Assert.assertFalse(chainbase.has(key2));
+      Assert.assertTrue(chainbase.addSpeculatively(key3, 5));
+      return null;
+    });
+    Speculation second = new Speculation();
+    second.call(() -> {
+      Assert.assertTrue(chainbase.addSpeculatively(key3, 7));
+      Assert.assertArrayEquals(value2, chainbase.getAll(Arrays.asList(key2, key5)).values()
+          .stream().findFirst().orElse(null));
+      return null;
+    });
+    Assert.assertFalse(chainbase.addSpeculatively(key3, 1));
+    Assert.assertArrayEquals(value1, chainbase.getUnchecked(key1));
+    Assert.assertArrayEquals(value2, chainbase.getUnchecked(key2));
+
+    // committed in order, the second read key2 which the first deleted
+    Assert.assertTrue(first.validate());
+    first.apply();
+    Assert.assertArrayEquals(value4, chainbase.getUnchecked(key1));
+    Assert.assertNull(chainbase.getUnchecked(key2));
+    Assert.assertEquals(105, ByteArray.toLong(chainbase.getUnchecked(key3)));
+    Assert.assertFalse(second.validate());
+
+    // a read after an add depends on the counter
+    Speculation third = new Speculation();
+    third.call(() -> {
+      Assert.assertTrue(chainbase.addSpeculatively(key3, 10));
+      Assert.assertEquals(115, ByteArray.toLong(chainbase.getUnchecked(key3)));
+      return null;
+    });
+    Assert.assertTrue(third.validate());
+    chainbase.put(key3, ByteArray.fromLong(200));
+    Assert.assertFalse(third.validate());
+
+    // range reads cannot be recorded
+    Speculation fourth = new Speculation();
+    try {
+      fourth.call(() -> chainbase.prefixQuery(prefix));
+      Assert.fail();
+    } catch (UnsupportedOperationException e) {
+      Assert.assertTrue(fourth.isAborted());
+      Assert.assertFalse(fourth.validate());
+    }
+    chainbase.reset();
+    chainbase.close();
+  }
+
+  @Test
+  public void testPrefetch() {
+    LevelDbDataSourceImpl dataSource = new LevelDbDataSourceImpl(
+        Args.getInstance().getOutputDirectory(), "testPrefetch");
+    dataSource.initDB();
+    this.chainbase = new Chainbase(new SnapshotRoot(
+        new LevelDB(dataSource)));
+    Snapshot root = chainbase.getHead().getRoot();
+    root.put(key1, value1);
+    root.put(key2, value2);
+    root.put(key3, value3);
+    CommonParameter.getInstance().setMetricsPrometheusEnable(true);
+    try {
+      chainbase.prefetch(Arrays.asList(key1, key2));
+      Assert.assertArrayEquals(value1, chainbase.getUnchecked(key1));
+      Assert.assertArrayEquals(value1, chainbase.getUnchecked(key1));
+      Assert.assertArrayEquals(value3, chainbase.getUnchecked(key3));
+      Assert.assertNull(chainbase.getUnchecked(key4));
+      chainbase.endPrefetch();
+      Assert.assertEquals(0.5, CollectorRegistry.defaultRegistry.getSampleValue(
+          MetricKeys.Gauge.DB_PREFETCH, new String[] {"db", "type"},
+          new String[] {"testPrefetch", "hit_ratio"}), 0);
+      Assert.assertEquals(2, CollectorRegistry.defaultRegistry.getSampleValue(
+          MetricKeys.Gauge.DB_PREFETCH, new String[] {"db", "type"},
+          new String[] {"testPrefetch", "keys"}), 0);
+
+      // reads after the block are not counted
+      chainbase.getUnchecked(key3);
+      chainbase.endPrefetch();
+      Assert.assertEquals(0.5, CollectorRegistry.defaultRegistry.getSampleValue(
+          MetricKeys.Gauge.DB_PREFETCH, new String[] {"db", "type"},
+          new String[] {"testPrefetch", "hit_ratio"}), 0);
+    } finally {
+      CommonParameter.getInstance().setMetricsPrometheusEnable(false);
+    }
+    chainbase.reset();
+    chainbase.close();
+  }
+
+  private void testGetAll(Chainbase chainbase, DbSourceInter<byte[]> dbSource) {
+    Snapshot root = chainbase.getHead().getRoot();
+    root.put(key1, value1);
+    root.put(key2, value2);
+    root.put(key3, value3);
+    chainbase.setHead(chainbase.getHead().advance());
+    chainbase.put(key2, value7);
+    chainbase.delete(key3);
+    chainbase.put(key4, value4);
+    chainbase.setHead(chainbase.getHead().advance());
+    chainbase.put(key5, value5);
+
+    List<byte[]> keys = Arrays.asList(key1, key2, key3, key4, key5, key6, key1);
+    Map<String, String> result = new HashMap<>();
+    chainbase.getAll(keys).forEach((k, v) ->
+        result.put(ByteArray.toStr(k.getBytes()), ByteArray.toStr(v)));
+    Map<String, String> expect = new HashMap<>();
+    expect.put(ByteArray.toStr(key1), ByteArray.toStr(value1));
+    expect.put(ByteArray.toStr(key2), ByteArray.toStr(value7));
+    expect.put(ByteArray.toStr(key4), ByteArray.toStr(value4));
+    expect.put(ByteArray.toStr(key5), ByteArray.toStr(value5));
+    Assert.assertEquals(expect, result);
+
+    // the store itself only has the committed values
+    Map<String, String> stored = new HashMap<>();
+    dbSource.getAll(keys).forEach((k, v) ->
+        stored.put(ByteArray.toStr(k.getBytes()), ByteArray.toStr(v)));
+    expect.clear();
+    expect.put(ByteArray.toStr(key1), ByteArray.toStr(value1));
+    expect.put(ByteArray.toStr(key2), ByteArray.toStr(value2));
+    expect.put(ByteArray.toStr(key3), ByteArray.toStr(value3));
+    Assert.assertEquals(expect, stored);
+  }
 
   private void testRoot(DbSourceInter<byte[]> dbSource) {
     Map<String,String> result = new HashMap<>();
@@ -168,4 +361,54 @@ public class ChainbaseTest {
     Assert.assertTrue(chainbase.prefixQuery(prefix3).isEmpty());
   }
 
+  private void testNext(Chainbase chainbase) {
+    Snapshot root = chainbase.getHead().getRoot();
+    root.put(key1, value1);
+    root.put(key2, value2);
+    root.put(key3, value3);
+    root.put(key6, value6);
+    chainbase.setHead(chainbase.getHead().advance());
+    chainbase.put(key4, value4);
+    chainbase.put(key2, value7);
+    chainbase.delete(key3);
+    chainbase.setHead(chainbase.getHead().advance());
+    chainbase.put(key5, value5);
+    chainbase.put(key4, value8);
+
+    Map<String, String> result = new HashMap<>();
+    chainbase.getNext(key2, 4).forEach((k, v) ->
+        result.put(ByteArray.toStr(k), ByteArray.toStr(v)));
+    Map<String, String> expect = new HashMap<>();
+    expect.put(ByteArray.toStr(key2), ByteArray.toStr(value7));
+    expect.put(ByteArray.toStr(key4), ByteArray.toStr(value8));
+    expect.put(ByteArray.toStr(key5), ByteArray.toStr(value5));
+    expect.put(ByteArray.toStr(key6), ByteArray.toStr(value6));
+    Assert.assertEquals(expect, result);
+
+    // deleted keys do not use up the limit
+    Assert.assertEquals(1, chainbase.getNext(key3, 1).size());
+    Assert.assertEquals(ByteArray.toStr(value8), ByteArray.toStr(
+        chainbase.getNext(key3, 1).values().iterator().next()));
+    Assert.assertEquals(2, chainbase.getValuesNext(key5, 10).size());
+    Assert.assertTrue(chainbase.getNext(key9, 10).isEmpty());
+
+    // the iterator merges the layers with the root in key order
+    byte[] last = null;
+    int count = 0;
+    for (Map.Entry<byte[], byte[]> e : chainbase) {
+      if (last != null) {
+        Assert.assertTrue(ByteUtil.less(last, e.getKey()));
+      }
+      last = e.getKey();
+      count++;
+    }
+    Assert.assertEquals(5, count);
+
+    // keys written to the head after an ordered read are found by the next one
+    chainbase.put(key3, value3);
+    Assert.assertEquals(ByteArray.toStr(value3), ByteArray.toStr(
+        chainbase.getNext(key3, 1).values().iterator().next()));
+    Assert.assertEquals(3, chainbase.getValuesNext(key4, 10).size());
+  }
+
 }
\ No newline at end of file
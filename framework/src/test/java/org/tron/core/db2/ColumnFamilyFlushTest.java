@@ -0,0 +1,116 @@
+package org.tron.core.db2;
+
+import com.google.common.primitives.Longs;
+import com.google.protobuf.ByteString;
+import java.io.File;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.tron.common.application.TronApplicationContext;
+import org.tron.common.setting.RocksDbSettings;
+import org.tron.common.storage.rocksdb.ColumnFamilyDb;
+import org.tron.common.storage.rocksdb.RocksDbDataSourceImpl;
+import org.tron.common.utils.FileUtil;
+import org.tron.common.utils.Sha256Hash;
+import org.tron.core.Constant;
+import org.tron.core.capsule.BlockCapsule;
+import org.tron.core.capsule.utils.MarketUtils;
+import org.tron.core.config.DefaultConfig;
+import org.tron.core.config.args.Args;
+import org.tron.core.db2.common.RocksDB;
+import org.tron.core.db2.core.Chainbase;
+import org.tron.core.db2.core.SnapshotManager;
+import org.tron.core.db2.core.SnapshotRoot;
+
+/**
+ * Flushes of the stores of a node running with column families, where the market pair price
+ * store, which has its own comparator, and trans-cache are not column families.
+ */
+public class ColumnFamilyFlushTest {
+
+  private static final String OUTPUT = "output_column_family_flush_test";
+  private static final String MARKET = "market_pair_price_to_order";
+
+  private RocksDbSettings previous;
+  private TronApplicationContext context;
+  private SnapshotManager revokingDatabase;
+
+  @Before
+  public void init() {
+    Args.setParam(new String[] {"-d", OUTPUT}, Constant.TEST_CONF);
+    Args.getInstance().getStorage().setDbEngine("ROCKSDB");
+    previous = RocksDbSettings.getRocksDbSettings();
+    RocksDbSettings settings = RocksDbSettings.getDefaultSettings().withColumnFamily(true);
+    RocksDbSettings.setRocksDbSettings(settings);
+    Args.getInstance().rocksDBCustomSettings = settings;
+    context = new TronApplicationContext(DefaultConfig.class);
+    revokingDatabase = context.getBean(SnapshotManager.class);
+    revokingDatabase.enable();
+  }
+
+  @After
+  public void destroy() {
+    context.destroy();
+    RocksDbSettings.setRocksDbSettings(previous);
+    Args.clearParam();
+    FileUtil.deleteDir(new File(OUTPUT));
+  }
+
+  private static ColumnFamilyDb columnFamilyDb(Chainbase db) {
+    SnapshotRoot root = (SnapshotRoot) db.getHead().getRoot();
+    return root.getDb() instanceof RocksDB
+        ? ((RocksDB) root.getDb()).getDb().getColumnFamilyDb() : null;
+  }
+
+  @Test
+  public void testFlush() {
+    while (revokingDatabase.size() != 0) {
+      revokingDatabase.pop();
+    }
+    revokingDatabase.setMaxFlushCount(0);
+    revokingDatabase.setUnChecked(false);
+    revokingDatabase.setMaxSize(5);
+    Map<String, Chainbase> dbMap = revokingDatabase.getDbs().stream()
+        .collect(Collectors.toMap(Chainbase::getDbName, db -> db));
+    Chainbase block = dbMap.get("block");
+    Chainbase market = dbMap.get(MARKET);
+    Assert.assertNotNull(columnFamilyDb(block));
+    Assert.assertNull(columnFamilyDb(market));
+    Assert.assertNull(columnFamilyDb(dbMap.get("trans-cache")));
+
+    for (int i = 1; i < 11; i++) {
+      try (ISession session = revokingDatabase.buildSession()) {
+        BlockCapsule blockCapsule = new BlockCapsule(i, Sha256Hash.ZERO_HASH,
+            System.currentTimeMillis(), ByteString.EMPTY);
+        block.put(Longs.toByteArray(i), blockCapsule.getData());
+        market.put(MarketUtils.createPairPriceKey("a".getBytes(), "b".getBytes(), 1, i),
+            Longs.toByteArray(i));
+        session.commit();
+      }
+    }
+    revokingDatabase.flush();
+
+    // both kinds of stores are flushed to their roots
+    for (int i = 1; i < 6; i++) {
+      Assert.assertNotNull(block.getHead().getRoot().get(Longs.toByteArray(i)));
+      Assert.assertArrayEquals(Longs.toByteArray(i), market.getHead().getRoot().get(
+          MarketUtils.createPairPriceKey("a".getBytes(), "b".getBytes(), 1, i)));
+    }
+
+    // only the stores outside the column families need the checkpoint, it was committed with
+    // the writes of the column families
+    Set<String> checkpointed = new HashSet<>();
+    for (Map.Entry<byte[], byte[]> e : revokingDatabase.getCheckTmpStore().getDbSource()) {
+      checkpointed.add(SnapshotManager.simpleDecode(e.getKey()));
+    }
+    Assert.assertTrue(checkpointed.contains(MARKET));
+    Assert.assertFalse(checkpointed.contains("block"));
+    Assert.assertSame(columnFamilyDb(block), ((RocksDbDataSourceImpl) revokingDatabase
+        .getCheckTmpStore().getDbSource()).getColumnFamilyDb());
+  }
+}
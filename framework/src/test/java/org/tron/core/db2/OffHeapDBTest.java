@@ -0,0 +1,89 @@
+package org.tron.core.db2;
+
+import com.google.common.collect.Streams;
+import org.junit.Assert;
+import org.junit.Test;
+import org.tron.core.db2.common.Key;
+import org.tron.core.db2.common.OffHeapDB;
+import org.tron.core.db2.common.Value;
+
+public class OffHeapDBTest {
+
+  @Test
+  public void testPutAndGet() {
+    OffHeapDB db = new OffHeapDB("test-offheap");
+    db.put(Key.of("a".getBytes()), Value.of(Value.Operator.PUT, "1".getBytes()));
+    db.put(Key.of("b".getBytes()), Value.of(Value.Operator.DELETE, null));
+    db.put(Key.of("c".getBytes()), Value.of(Value.Operator.PUT, new byte[0]));
+    db.put(Key.of("a".getBytes()), Value.of(Value.Operator.PUT, "2".getBytes()));
+
+    Assert.assertEquals(3, db.size());
+    Assert.assertArrayEquals("2".getBytes(), db.get(Key.of("a".getBytes())).getBytes());
+    Value deleted = db.get(Key.of("b".getBytes()));
+    Assert.assertEquals(Value.Operator.DELETE, deleted.getOperator());
+    Assert.assertNull(deleted.getBytes());
+    Assert.assertArrayEquals(new byte[0], db.get(Key.of("c".getBytes())).getBytes());
+    Assert.assertNull(db.get(Key.of("d".getBytes())));
+    Assert.assertEquals(3, Streams.stream(db).count());
+
+    db.remove(Key.of("c".getBytes()));
+    Assert.assertNull(db.get(Key.of("c".getBytes())));
+  }
+
+  @Test
+  public void testLargeValuesAndRelease() {
+    OffHeapDB db = new OffHeapDB("test-offheap");
+    byte[] large = new byte[3 * 1024 * 1024];
+    large[large.length - 1] = 1;
+    for (int i = 0; i < 5000; i++) {
+      db.put(Key.of(("key" + i).getBytes()),
+          Value.of(Value.Operator.PUT, new byte[512]));
+    }
+    db.put(Key.of("large".getBytes()), Value.of(Value.Operator.PUT, large));
+    db.put(Key.of("small".getBytes()), Value.of(Value.Operator.PUT, "s".getBytes()));
+
+    Assert.assertArrayEquals(large, db.get(Key.of("large".getBytes())).getBytes());
+    Assert.assertArrayEquals("s".getBytes(), db.get(Key.of("small".getBytes())).getBytes());
+    Assert.assertEquals(512, db.get(Key.of("key4999".getBytes())).getBytes().length);
+
+    db.close();
+    Assert.assertTrue(db.isEmpty());
+    Assert.assertNull(db.get(Key.of("small".getBytes())));
+    db.put(Key.of("small".getBytes()), Value.of(Value.Operator.PUT, "s".getBytes()));
+    Assert.assertNull(db.get(Key.of("small".getBytes())));
+
+    // a new arena reuses the released chunks
+    OffHeapDB next = db.newInstance();
+    next.put(Key.of("a".getBytes()), Value.of(Value.Operator.PUT, "1".getBytes()));
+    Assert.assertArrayEquals("1".getBytes(), next.get(Key.of("a".getBytes())).getBytes());
+    next.close();
+  }
+
+  @Test
+  public void testReuseAndCompaction() {
+    OffHeapDB db = new OffHeapDB("test-offheap");
+    Key key = Key.of("a".getBytes());
+    for (int i = 0; i < 10_000; i++) {
+      db.put(key, Value.of(Value.Operator.PUT, new byte[512 - i % 2]));
+    }
+    // values that fit in their slot are written over it
+    Assert.assertEquals(1024 * 1024, db.arenaSize());
+    Assert.assertEquals(511, db.get(key).getBytes().length);
+
+    for (int i = 0; i < 20_000; i++) {
+      byte[] value = new byte[100 + i % 1000];
+      value[0] = (byte) i;
+      db.put(Key.of(Integer.toString(i % 100).getBytes()), Value.of(Value.Operator.PUT, value));
+    }
+    db.remove(key);
+    // slots outgrown are reclaimed, the live records fit in a few chunks
+    Assert.assertTrue(db.arenaSize() <= 4 * 1024 * 1024);
+    Assert.assertEquals(100, db.size());
+    for (int i = 19_900; i < 20_000; i++) {
+      byte[] value = db.get(Key.of(Integer.toString(i % 100).getBytes())).getBytes();
+      Assert.assertEquals(100 + i % 1000, value.length);
+      Assert.assertEquals((byte) i, value[0]);
+    }
+    db.close();
+  }
+}
@@ -0,0 +1,157 @@
+package org.tron.core.db2;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.tron.common.application.Application;
+import org.tron.common.application.ApplicationFactory;
+import org.tron.common.application.TronApplicationContext;
+import org.tron.common.utils.FileUtil;
+import org.tron.core.Constant;
+import org.tron.core.config.DefaultConfig;
+import org.tron.core.config.args.Args;
+import org.tron.core.db2.RevokingDbWithCacheNewValueTest.TestRevokingTronStore;
+import org.tron.core.db2.core.Chainbase;
+import org.tron.core.db2.core.SnapshotManager;
+
+@Slf4j
+public class SnapshotImplTest {
+
+  private SnapshotManager revokingDatabase;
+  private TronApplicationContext context;
+  private Application appT;
+  private TestRevokingTronStore tronDatabase;
+
+  @Before
+  public void init() {
+    Args.setParam(new String[]{"-d", "output_SnapshotImpl_test"},
+        Constant.TEST_CONF);
+    context = new TronApplicationContext(DefaultConfig.class);
+    appT = ApplicationFactory.create(context);
+    revokingDatabase = context.getBean(SnapshotManager.class);
+    revokingDatabase.enable();
+    tronDatabase = new TestRevokingTronStore("testSnapshotImpl-test");
+    revokingDatabase.add(tronDatabase.getRevokingDB());
+  }
+
+  @After
+  public void removeDb() {
+    Args.clearParam();
+    context.destroy();
+    tronDatabase.close();
+    FileUtil.deleteDir(new File("output_SnapshotImpl_test"));
+    revokingDatabase.getCheckTmpStore().close();
+  }
+
+  @Test
+  public synchronized void testGetAcrossLayers() {
+    Chainbase chainbase = (Chainbase) tronDatabase.getRevokingDB();
+    chainbase.put("root".getBytes(), "root".getBytes());
+
+    List<ISession> sessions = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      sessions.add(revokingDatabase.buildSession());
+      chainbase.put(("key" + i).getBytes(), ("value" + i).getBytes());
+      chainbase.put("shared".getBytes(), ("shared" + i).getBytes());
+    }
+    chainbase.delete("key3".getBytes());
+
+    Assert.assertArrayEquals("root".getBytes(), chainbase.getUnchecked("root".getBytes()));
+    Assert.assertArrayEquals("value0".getBytes(), chainbase.getUnchecked("key0".getBytes()));
+    Assert.assertArrayEquals("shared9".getBytes(), chainbase.getUnchecked("shared".getBytes()));
+    Assert.assertNull(chainbase.getUnchecked("key3".getBytes()));
+    Assert.assertNull(chainbase.getUnchecked("missing".getBytes()));
+
+    // an older layer must not see writes of newer ones
+    Assert.assertArrayEquals("shared4".getBytes(),
+        chainbase.getHead().getPrevious().getPrevious().getPrevious().getPrevious()
+            .getPrevious().get("shared".getBytes()));
+
+    // revoke the newest layer
+    sessions.remove(sessions.size() - 1).close();
+    Assert.assertArrayEquals("shared8".getBytes(), chainbase.getUnchecked("shared".getBytes()));
+    Assert.assertNull(chainbase.getUnchecked("key9".getBytes()));
+    Assert.assertArrayEquals("value3".getBytes(), chainbase.getUnchecked("key3".getBytes()));
+
+    // merge the newest layer into its previous one
+    ISession top = sessions.remove(sessions.size() - 1);
+    top.merge();
+    Assert.assertArrayEquals("shared8".getBytes(), chainbase.getUnchecked("shared".getBytes()));
+    Assert.assertArrayEquals("value7".getBytes(), chainbase.getUnchecked("key7".getBytes()));
+    Assert.assertArrayEquals("value8".getBytes(), chainbase.getUnchecked("key8".getBytes()));
+    sessions.remove(sessions.size() - 1).close();
+    Assert.assertNull(chainbase.getUnchecked("key7".getBytes()));
+    Assert.assertNull(chainbase.getUnchecked("key8".getBytes()));
+    Assert.assertArrayEquals("shared6".getBytes(), chainbase.getUnchecked("shared".getBytes()));
+
+    // new layers after a revoke still see the remaining ones
+    sessions.add(revokingDatabase.buildSession());
+    chainbase.put("key9".getBytes(), "again".getBytes());
+    Assert.assertArrayEquals("again".getBytes(), chainbase.getUnchecked("key9".getBytes()));
+    Assert.assertArrayEquals("shared6".getBytes(), chainbase.getUnchecked("shared".getBytes()));
+
+    for (int i = sessions.size() - 1; i >= 0; i--) {
+      sessions.get(i).close();
+    }
+    Assert.assertArrayEquals("root".getBytes(), chainbase.getUnchecked("root".getBytes()));
+    Assert.assertNull(chainbase.getUnchecked("shared".getBytes()));
+  }
+
+  @Test
+  public synchronized void testGetAfterFlush() {
+    while (revokingDatabase.size() != 0) {
+      revokingDatabase.pop();
+    }
+    revokingDatabase.setMaxFlushCount(0);
+    revokingDatabase.setUnChecked(false);
+    revokingDatabase.setMaxSize(5);
+    Chainbase chainbase = (Chainbase) tronDatabase.getRevokingDB();
+    Map<String, String> expected = new HashMap<>();
+    for (int i = 0; i < 20; i++) {
+      try (ISession session = revokingDatabase.buildSession()) {
+        chainbase.put(("key" + i % 7).getBytes(), ("value" + i).getBytes());
+        expected.put("key" + i % 7, "value" + i);
+        session.commit();
+      }
+    }
+    revokingDatabase.flush();
+    expected.forEach((k, v) ->
+        Assert.assertArrayEquals(v.getBytes(), chainbase.getUnchecked(k.getBytes())));
+  }
+
+  @Ignore
+  @Test
+  public void benchmarkGetByDepth() {
+    Chainbase chainbase = (Chainbase) tronDatabase.getRevokingDB();
+    chainbase.put("root".getBytes(), "root".getBytes());
+    List<ISession> sessions = new ArrayList<>();
+    int depth = 0;
+    for (int target : new int[] {1, 8, 32, 128, 256}) {
+      while (depth < target) {
+        sessions.add(revokingDatabase.buildSession());
+        for (int i = 0; i < 100; i++) {
+          chainbase.put(("key" + depth + "-" + i).getBytes(), "value".getBytes());
+        }
+        depth++;
+      }
+      long start = System.nanoTime();
+      for (int i = 0; i < 1_000_000; i++) {
+        chainbase.getUnchecked("root".getBytes());
+        chainbase.getUnchecked(("key0-" + i % 100).getBytes());
+        chainbase.getUnchecked(("missing" + i % 100).getBytes());
+      }
+      logger.info("depth: {}, cost: {} ms", depth, (System.nanoTime() - start) / 1_000_000);
+    }
+    for (int i = sessions.size() - 1; i >= 0; i--) {
+      sessions.get(i).close();
+    }
+  }
+}
@@ -91,6 +91,43 @@ public class SnapshotManagerTest {
         tronDatabase.get(protoCapsule.getData()));
   }
 
+  @Test
+  public synchronized void testAsyncRefresh()
+      throws BadItemException, ItemNotFoundException {
+    while (revokingDatabase.size() != 0) {
+      revokingDatabase.pop();
+    }
+
+    revokingDatabase.setMaxFlushCount(0);
+    revokingDatabase.setUnChecked(false);
+    revokingDatabase.setMaxSize(5);
+    revokingDatabase.setAsyncFlush(true);
+    ProtoCapsuleTest protoCapsule = new ProtoCapsuleTest("asyncRefresh".getBytes());
+    for (int i = 1; i < 30; i++) {
+      ProtoCapsuleTest testProtoCapsule = new ProtoCapsuleTest(("asyncRefresh" + i).getBytes());
+      try (ISession tmpSession = revokingDatabase.buildSession()) {
+        tronDatabase.put(protoCapsule.getData(), testProtoCapsule);
+        tronDatabase.put(("asyncRefresh" + i).getBytes(), testProtoCapsule);
+        tmpSession.commit();
+      }
+      Assert.assertEquals(testProtoCapsule, tronDatabase.get(protoCapsule.getData()));
+    }
+
+    // pop down to the root while the last flush may still be running
+    while (revokingDatabase.size() != 0) {
+      revokingDatabase.pop();
+    }
+    revokingDatabase.setAsyncFlush(false);
+    // 23 of the 29 snapshots have been flushed
+    for (int i = 1; i < 24; i++) {
+      Assert.assertEquals(new ProtoCapsuleTest(("asyncRefresh" + i).getBytes()),
+          tronDatabase.get(("asyncRefresh" + i).getBytes()));
+    }
+    Assert.assertNull(tronDatabase.get("asyncRefresh24".getBytes()));
+    Assert.assertEquals(new ProtoCapsuleTest("asyncRefresh23".getBytes()),
+        tronDatabase.get(protoCapsule.getData()));
+  }
+
   @Test
   public synchronized void testClose() {
     while (revokingDatabase.size() != 0) {
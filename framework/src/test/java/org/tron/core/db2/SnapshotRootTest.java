@@ -4,6 +4,7 @@ import com.google.common.collect.Sets;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -90,6 +91,37 @@ public class SnapshotRootTest {
     tronDatabase.close();
   }
 
+  @Test
+  public synchronized void testBloomFilter() {
+    String name = "testSnapshotRoot-testBloomFilter";
+    Args.getInstance().getStorage().setBloomFilterDbs(Collections.singletonList(name));
+    tronDatabase = new TestRevokingTronStore(name);
+    for (int i = 0; i < 100; i++) {
+      tronDatabase.put(("bloom" + i).getBytes(), new ProtoCapsuleTest(("bloom" + i).getBytes()));
+    }
+    tronDatabase.delete("bloom0".getBytes());
+    for (int i = 1; i < 100; i++) {
+      Assert.assertEquals(new ProtoCapsuleTest(("bloom" + i).getBytes()),
+          tronDatabase.get(("bloom" + i).getBytes()));
+      Assert.assertNull(tronDatabase.get(("missing" + i).getBytes()));
+    }
+    Assert.assertNull(tronDatabase.get("bloom0".getBytes()));
+    tronDatabase.close();
+
+    // reopen, with the filter saved at close or rebuilt from the store
+    tronDatabase = new TestRevokingTronStore(name);
+    tronDatabase.put("reopen".getBytes(), new ProtoCapsuleTest("reopen".getBytes()));
+    for (int i = 1; i < 100; i++) {
+      Assert.assertEquals(new ProtoCapsuleTest(("bloom" + i).getBytes()),
+          tronDatabase.get(("bloom" + i).getBytes()));
+    }
+    Assert.assertEquals(new ProtoCapsuleTest("reopen".getBytes()),
+        tronDatabase.get("reopen".getBytes()));
+    Assert.assertNull(tronDatabase.get("missing".getBytes()));
+    tronDatabase.close();
+    Args.getInstance().getStorage().setBloomFilterDbs(Collections.emptyList());
+  }
+
   @Test
   public synchronized void testMergeList() {
     tronDatabase = new TestRevokingTronStore("testSnapshotRoot-testMergeList");
@@ -1,18 +1,24 @@
 package org.tron.core.jsonrpc;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.List;
+import java.util.Random;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import javax.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
 import org.junit.Assert;
+import org.junit.Ignore;
 import org.junit.Test;
 import org.tron.common.BaseTest;
 import org.tron.common.runtime.vm.DataWord;
 import org.tron.common.runtime.vm.LogInfo;
 import org.tron.common.utils.ByteArray;
+import org.tron.common.utils.ByteUtil;
 import org.tron.core.Constant;
+import org.tron.core.capsule.BytesCapsule;
 import org.tron.core.capsule.TransactionRetCapsule;
 import org.tron.core.config.args.Args;
 import org.tron.core.exception.EventBloomException;
@@ -23,6 +29,7 @@ import org.tron.core.store.SectionBloomStore;
 import org.tron.protos.Protocol.TransactionInfo;
 import org.tron.protos.Protocol.TransactionInfo.Log;
 
+@Slf4j
 public class SectionBloomStoreTest extends BaseTest {
 
   @Resource
@@ -47,6 +54,71 @@ public class SectionBloomStoreTest extends BaseTest {
     }
   }
 
+  @Test
+  public void testEncodings() throws EventBloomException {
+    BitSet sparse = new BitSet(SectionBloomStore.BLOCK_PER_SECTION);
+    sparse.set(0);
+    sparse.set(2047);
+    sectionBloomStore.put(200, 1, sparse);
+    Assert.assertEquals(sparse, sectionBloomStore.get(200, 1));
+
+    BitSet dense = new BitSet(SectionBloomStore.BLOCK_PER_SECTION);
+    for (int i = 0; i < SectionBloomStore.BLOCK_PER_SECTION; i += 3) {
+      dense.set(i);
+    }
+    sectionBloomStore.put(200, 2, dense);
+    Assert.assertEquals(dense, sectionBloomStore.get(200, 2));
+    Assert.assertArrayEquals(Arrays.copyOf(dense.toLongArray(),
+        SectionBloomStore.WORDS_PER_SECTION), sectionBloomStore.getWords(200, 2));
+
+    // sections written before the compact encodings are still read
+    byte[] key = Long.toHexString(200 * 1_000_000L + 3).getBytes();
+    sectionBloomStore.put(key, new BytesCapsule(ByteUtil.compress(dense.toByteArray())));
+    Assert.assertEquals(dense, sectionBloomStore.get(200, 3));
+    Assert.assertNull(sectionBloomStore.getWords(200, 4));
+  }
+
+  /**
+   * An address and a topic over a range of a million blocks where each of their bits is set in
+   * one block of a hundred.
+   */
+  @Ignore
+  @Test
+  public void benchmarkLongRange() throws Exception {
+    byte[] address = bytesToAddress(new byte[] {0x66});
+    byte[] topic = ByteArray
+        .fromHexString("0xddf252ad1be2c89b69c2b068fc378daa952ba7f163c4a11628f55a4df523b3ef");
+    int sections = 500;
+    long currentMaxBlockNum = (long) sections * SectionBloomStore.BLOCK_PER_SECTION - 1;
+    LogFilterWrapper logFilterWrapper = new LogFilterWrapper(
+        new FilterRequest("earliest", "latest", ByteArray.toJsonHex(address),
+            new String[] {ByteArray.toHexString(topic)}, null), currentMaxBlockNum, null);
+    LogBlockQuery query = new LogBlockQuery(logFilterWrapper, sectionBloomStore,
+        currentMaxBlockNum, null);
+    Random random = new Random(1);
+    for (int[][] condition : query.getConditions()) {
+      for (int bitIndex : condition[0]) {
+        for (int section = 0; section < sections; section++) {
+          BitSet bitSet = new BitSet(SectionBloomStore.BLOCK_PER_SECTION);
+          for (int i = 0; i < SectionBloomStore.BLOCK_PER_SECTION / 100; i++) {
+            bitSet.set(random.nextInt(SectionBloomStore.BLOCK_PER_SECTION));
+          }
+          sectionBloomStore.put(section, bitIndex, bitSet);
+        }
+      }
+    }
+
+    ExecutorService sectionExecutor = Executors.newFixedThreadPool(5);
+    for (int round = 0; round < 5; round++) {
+      long start = System.nanoTime();
+      List<Long> blocks = new LogBlockQuery(logFilterWrapper, sectionBloomStore,
+          currentMaxBlockNum, sectionExecutor).getPossibleBlock();
+      logger.info("blocks: {}, matched: {}, cost: {} ms", currentMaxBlockNum + 1, blocks.size(),
+          (System.nanoTime() - start) / 1_000_000);
+    }
+    sectionExecutor.shutdown();
+  }
+
   private byte[] bytesToAddress(byte[] address) {
     byte[] data = new byte[20];
     System.arraycopy(address, 0, data, 20 - address.length, address.length);
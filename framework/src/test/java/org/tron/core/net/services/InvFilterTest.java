@@ -0,0 +1,100 @@
+package org.tron.core.net.services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Assert;
+import org.junit.Test;
+import org.tron.common.utils.Sha256Hash;
+import org.tron.core.net.peer.Item;
+import org.tron.core.net.service.adv.AdvService;
+import org.tron.core.net.service.adv.InvFilter;
+import org.tron.protos.Protocol.Inventory.InventoryType;
+
+@Slf4j
+public class InvFilterTest {
+
+  private static final int PEERS = 32;
+  private static final int INVENTORIES = 20_000;
+
+  private static Item item(int i) {
+    return new Item(Sha256Hash.of(true, Integer.toString(i).getBytes()), InventoryType.TRX);
+  }
+
+  @Test
+  public void testRetention() {
+    InvFilter filter = new InvFilter(100, 400);
+    Assert.assertTrue(filter.add(item(1), 0));
+    Assert.assertFalse(filter.add(item(1), 50));
+    Assert.assertFalse(filter.add(item(1), 299));
+    Assert.assertTrue(filter.add(item(1), 400));
+
+    Assert.assertTrue(filter.add(item(2), 400));
+    filter.remove(item(2));
+    Assert.assertTrue(filter.add(item(2), 400));
+  }
+
+  @Test
+  public void testMaxSize() {
+    InvFilter filter = new InvFilter(8, 1_000_000);
+    for (int i = 1; i <= 9; i++) {
+      Assert.assertTrue(filter.add(item(i), 0));
+    }
+    // the generation of the first two is dropped once four newer ones started
+    Assert.assertFalse(filter.add(item(3), 0));
+    Assert.assertTrue(filter.add(item(1), 0));
+    Assert.assertEquals(8, filter.size());
+  }
+
+  /**
+   * Many peers announcing the same transactions at once, each in its own order, as they do when
+   * a transaction is gossiped. Every inventory is to be fetched exactly once.
+   */
+  @Test
+  public void testPeersFlooding() throws Exception {
+    AdvService service = new AdvService();
+    List<Sha256Hash> ids = new ArrayList<>(INVENTORIES);
+    for (int i = 0; i < INVENTORIES; i++) {
+      ids.add(item(i).getHash());
+    }
+
+    ExecutorService peers = Executors.newFixedThreadPool(PEERS);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<Integer>> accepted = new ArrayList<>(PEERS);
+    for (int p = 0; p < PEERS; p++) {
+      List<Sha256Hash> announced = new ArrayList<>(ids);
+      Collections.shuffle(announced, new Random(p));
+      accepted.add(peers.submit(() -> {
+        start.await();
+        int count = 0;
+        for (Sha256Hash id : announced) {
+          if (service.addInv(new Item(id, InventoryType.TRX))) {
+            count++;
+          }
+        }
+        return count;
+      }));
+    }
+
+    long begin = System.nanoTime();
+    start.countDown();
+    int total = 0;
+    for (Future<Integer> count : accepted) {
+      total += count.get();
+    }
+    long cost = System.nanoTime() - begin;
+    peers.shutdown();
+    peers.awaitTermination(10, TimeUnit.SECONDS);
+
+    logger.info("{} peers announced {} inventories each in {} ms, {} per second.", PEERS,
+        INVENTORIES, cost / 1_000_000, (long) PEERS * INVENTORIES * 1_000_000_000L / cost);
+    Assert.assertEquals(INVENTORIES, total);
+  }
+}
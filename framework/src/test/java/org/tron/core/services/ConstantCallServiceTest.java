@@ -0,0 +1,152 @@
+package org.tron.core.services;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.tron.common.parameter.CommonParameter;
+import org.tron.common.runtime.ProgramResult;
+import org.tron.common.utils.ReflectUtils;
+import org.tron.core.db.Manager;
+import org.tron.core.db2.core.Chainbase;
+import org.tron.core.exception.ContractValidateException;
+
+public class ConstantCallServiceTest {
+
+  private static final byte[] CONTRACT = new byte[21];
+
+  private final Manager manager = mock(Manager.class);
+  private ConstantCallService service;
+
+  private void start(int threads, int queueSize, boolean metrics) {
+    CommonParameter.getInstance().setConstantCallThreadNum(threads);
+    CommonParameter.getInstance().setConstantCallQueueSize(queueSize);
+    CommonParameter.getInstance().setMetricsPrometheusEnable(metrics);
+    service = new ConstantCallService();
+    ReflectUtils.setFieldValue(service, "dbManager", manager);
+    service.init();
+  }
+
+  @After
+  public void destroy() {
+    if (service != null) {
+      service.close();
+    }
+    CommonParameter.getInstance().setConstantCallThreadNum(0);
+    CommonParameter.getInstance().setConstantCallQueueSize(0);
+    CommonParameter.getInstance().setMetricsPrometheusEnable(false);
+  }
+
+  private static ProgramResult result(long energy) {
+    ProgramResult result = new ProgramResult();
+    result.spendEnergy(energy);
+    return result;
+  }
+
+  @Test
+  public void testCursor() throws Exception {
+    when(manager.getCursor()).thenReturn(Chainbase.Cursor.SOLIDITY);
+    start(1, 10, false);
+    Thread caller = Thread.currentThread();
+    ProgramResult result = service.call(CONTRACT, () -> {
+      Assert.assertNotSame(caller, Thread.currentThread());
+      return result(1);
+    });
+    Assert.assertEquals(1, result.getEnergyUsed());
+    verify(manager).setCursor(Chainbase.Cursor.SOLIDITY);
+    verify(manager).resetCursor();
+  }
+
+  @Test
+  public void testSaturated() throws Exception {
+    when(manager.getCursor()).thenReturn(Chainbase.Cursor.HEAD);
+    start(1, 1, false);
+    CountDownLatch running = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService callers = Executors.newFixedThreadPool(2);
+    try {
+      Future<ProgramResult> first = callers.submit(() -> service.call(CONTRACT, () -> {
+        running.countDown();
+        release.await();
+        return result(1);
+      }));
+      Assert.assertTrue(running.await(10, TimeUnit.SECONDS));
+      Future<ProgramResult> second = callers.submit(() -> service.call(CONTRACT,
+          () -> result(2)));
+      ThreadPoolExecutor executor =
+          (ThreadPoolExecutor) ReflectUtils.getFieldObject(service, "executor");
+      long deadline = System.currentTimeMillis() + 10_000;
+      while (executor.getQueue().isEmpty() && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+
+      try {
+        service.call(CONTRACT, () -> result(3));
+        Assert.fail("a call beyond the queue is to be rejected");
+      } catch (ContractValidateException e) {
+        Assert.assertTrue(e.getMessage().contains("too many constant calls"));
+      }
+
+      release.countDown();
+      Assert.assertEquals(1, first.get(10, TimeUnit.SECONDS).getEnergyUsed());
+      Assert.assertEquals(2, second.get(10, TimeUnit.SECONDS).getEnergyUsed());
+    } finally {
+      release.countDown();
+      callers.shutdownNow();
+    }
+  }
+
+  /**
+   * Calls counted while the counts are taken concurrently are all in one interval or another.
+   */
+  @Test
+  public void testHotContracts() throws Exception {
+    when(manager.getCursor()).thenReturn(Chainbase.Cursor.HEAD);
+    start(4, 10_000, true);
+    int callers = 8;
+    int calls = 2_000;
+    ExecutorService pool = Executors.newFixedThreadPool(callers);
+    List<Future<?>> futures = new ArrayList<>(callers);
+    for (int i = 0; i < callers; i++) {
+      byte[] contract = i % 2 == 0 ? CONTRACT : new byte[0];
+      futures.add(pool.submit(() -> {
+        for (int j = 0; j < calls; j++) {
+          service.call(contract, () -> result(3));
+        }
+        return null;
+      }));
+    }
+
+    long counted = 0;
+    long energy = 0;
+    boolean done = false;
+    while (!done) {
+      done = futures.stream().allMatch(Future::isDone);
+      for (Map.Entry<String, ConstantCallService.HotContract> e
+          : service.takeHotContracts().entrySet()) {
+        counted += e.getValue().calls;
+        energy += e.getValue().energy;
+      }
+    }
+    for (Future<?> future : futures) {
+      future.get();
+    }
+    pool.shutdown();
+
+    Assert.assertEquals((long) callers * calls, counted);
+    Assert.assertEquals(3L * callers * calls, energy);
+    Assert.assertTrue(service.takeHotContracts().isEmpty());
+  }
+}